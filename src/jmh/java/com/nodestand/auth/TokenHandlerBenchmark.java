@@ -0,0 +1,59 @@
+package com.nodestand.auth;
+
+import com.nodestand.nodes.User;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reading the claims of a JWT, which the auth filter does on every request.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TokenHandlerBenchmark {
+
+    private static final String SECRET = "benchmark-secret-of-a-realistic-length-0123456789";
+
+    private TokenHandler cachingHandler;
+
+    /**
+     * Keeps nothing, so every call parses the token and checks its signature.
+     */
+    private TokenHandler verifyingHandler;
+
+    private NodeUserDetails userDetails;
+
+    private String token;
+
+    @Setup
+    public void setUp() {
+        cachingHandler = new TokenHandler(SECRET, 10000);
+        verifyingHandler = new TokenHandler(SECRET, 0);
+        userDetails = new NodeUserDetails(new User("google", "104398209847362534211", User.Roles.ROLE_USER));
+        token = cachingHandler.generateToken(userDetails).getToken();
+    }
+
+    @Benchmark
+    public String stableIdCached() {
+        return cachingHandler.getUserStableIdFromToken(token);
+    }
+
+    @Benchmark
+    public String stableIdVerified() {
+        return verifyingHandler.getUserStableIdFromToken(token);
+    }
+
+    @Benchmark
+    public Boolean validateCached() {
+        return cachingHandler.validateToken(token, userDetails);
+    }
+
+    @Benchmark
+    public Token generate() {
+        return cachingHandler.generateToken(userDetails);
+    }
+}
@@ -0,0 +1,103 @@
+package com.nodestand.nodes.version;
+
+import com.nodestand.nodes.Author;
+import com.nodestand.nodes.User;
+import com.nodestand.util.IdGenerator;
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.reflect.Field;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reading and merging the edge owners of a major version, which happens on every edit, publish and vote.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MajorVersionBenchmark {
+
+    @Param({"10", "100", "500"})
+    public int owners;
+
+    private Field edgeOwnersField;
+
+    /**
+     * Two copies of the same persisted array. Swapping between them looks like a fresh load from the database,
+     * which forces getEdgeOwners to parse again.
+     */
+    private String[] loadedA;
+    private String[] loadedB;
+    private boolean useA;
+
+    private MajorVersion majorVersion;
+
+    private Author author;
+
+    private List<String> knownEdges;
+
+    private List<String> newEdge;
+
+    @Setup
+    public void setUp() throws ReflectiveOperationException {
+        edgeOwnersField = MajorVersion.class.getDeclaredField("edgeOwners");
+        edgeOwnersField.setAccessible(true);
+
+        List<Author> authors = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            authors.add(new Author(new User("google", "user" + i), "Author " + i));
+        }
+
+        Random random = new Random(42);
+        majorVersion = new MajorVersion();
+        List<String> mvIds = new ArrayList<>(owners);
+        for (int i = 0; i < owners; i++) {
+            String mvId = IdGenerator.newId();
+            mvIds.add(mvId);
+            majorVersion.mergeEdgeOwner(authors.get(random.nextInt(authors.size())), mvId);
+        }
+
+        loadedA = (String[]) edgeOwnersField.get(majorVersion);
+        loadedB = loadedA.clone();
+
+        author = authors.get(0);
+        knownEdges = mvIds.subList(0, Math.min(10, owners));
+        newEdge = Collections.singletonList(IdGenerator.newId());
+    }
+
+    @Benchmark
+    public Map<String, String> getEdgeOwnersAfterLoad() throws IllegalAccessException {
+        reload();
+        return majorVersion.getEdgeOwners();
+    }
+
+    @Benchmark
+    public Map<String, String> getEdgeOwnersCached() {
+        return majorVersion.getEdgeOwners();
+    }
+
+    /**
+     * The common edit: every linked child already has an owner.
+     */
+    @Benchmark
+    public Map<String, String> mergeKnownEdges() throws IllegalAccessException {
+        reload();
+        majorVersion.mergeEdgeOwners(author, knownEdges);
+        return majorVersion.getEdgeOwners();
+    }
+
+    @Benchmark
+    public Map<String, String> mergeNewEdge() throws IllegalAccessException {
+        reload();
+        majorVersion.mergeEdgeOwners(author, newEdge);
+        return majorVersion.getEdgeOwners();
+    }
+
+    private void reload() throws IllegalAccessException {
+        edgeOwnersField.set(majorVersion, useA ? loadedA : loadedB);
+        useA = !useA;
+    }
+}
@@ -0,0 +1,65 @@
+package com.nodestand.service.vote;
+
+import com.nodestand.nodes.vote.VoteType;
+import com.nodestand.util.IdGenerator;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Working out who is owed points for a vote on an assertion, minus the database writes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class VotePointsBenchmark {
+
+    private static final int EDGE_OWNERS = 300;
+
+    private static final int AUTHORS = 8;
+
+    @Param({"3", "30", "100"})
+    public int children;
+
+    private Set<String> childrenMajorVersions;
+
+    private Map<String, String> edgeOwners;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        List<String> authors = new ArrayList<>();
+        for (int i = 0; i < AUTHORS; i++) {
+            authors.add(IdGenerator.newId());
+        }
+
+        List<String> mvIds = new ArrayList<>();
+        edgeOwners = new HashMap<>();
+        for (int i = 0; i < EDGE_OWNERS; i++) {
+            String mvId = IdGenerator.newId();
+            mvIds.add(mvId);
+            edgeOwners.put(mvId, authors.get(random.nextInt(AUTHORS)));
+        }
+
+        // Mostly owned edges, plus one the mapping doesn't know about.
+        Collections.shuffle(mvIds, random);
+        childrenMajorVersions = new HashSet<>(mvIds.subList(0, children - 1));
+        childrenMajorVersions.add(IdGenerator.newId());
+    }
+
+    @Benchmark
+    public int assertionVote() {
+        int total = 0;
+        for (Map.Entry<String, Long> entry : VoteServiceNeo4j.countEdgesByAuthor(childrenMajorVersions, edgeOwners).entrySet()) {
+            if (!entry.getKey().isEmpty()) {
+                total += VoteServiceNeo4j.getPoints(VoteType.GREAT, "assertion", Math.toIntExact(entry.getValue()));
+                total -= VoteServiceNeo4j.getPoints(VoteType.WEAK, "assertion", Math.toIntExact(entry.getValue()));
+            }
+        }
+        return total;
+    }
+}
@@ -0,0 +1,64 @@
+package com.nodestand.util;
+
+import com.nodestand.nodes.Node;
+import com.nodestand.nodes.NodeRulesException;
+import com.nodestand.nodes.assertion.AssertionBody;
+import com.nodestand.nodes.assertion.AssertionNode;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing and link validation for assertion bodies, which happens on every create and edit.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BodyParserBenchmark {
+
+    private static final String PROSE = "Most of the evidence points the same way, although the sample is small " +
+            "and the methodology has been questioned by several reviewers. ";
+
+    @Param({"1", "10", "100"})
+    public int links;
+
+    private List<Node> children;
+
+    private String bodyText;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        children = new ArrayList<>(links);
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < links; i++) {
+            AssertionNode child = new AssertionBody("Child " + i, "", "", null).constructNode();
+            children.add(child);
+            text.append(PROSE, 0, 20 + random.nextInt(PROSE.length() - 20))
+                    .append("{{[").append(child.getBody().getMajorVersion().getStableId()).append("]")
+                    .append("supporting claim number ").append(i).append("}} ");
+        }
+        text.append(PROSE);
+
+        // Bodies list their children in whatever order the client sent them.
+        Collections.shuffle(children, random);
+        bodyText = text.toString();
+    }
+
+    @Benchmark
+    public ParsedBodyText parse() {
+        return ParsedBodyText.parse(bodyText);
+    }
+
+    @Benchmark
+    public String[] validateAndSortLinks() throws NodeRulesException {
+        return BodyParser.validateAndSortLinks(children, bodyText, null);
+    }
+}
@@ -0,0 +1,27 @@
+package com.nodestand.util;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Every new node, body, major version and author gets one of these.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IdGeneratorBenchmark {
+
+    @Benchmark
+    public String newId() {
+        return IdGenerator.newId();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public String newIdContended() {
+        return IdGenerator.newId();
+    }
+}
@@ -1,5 +1,6 @@
 package com.nodestand;
 
+import com.nodestand.util.SynchronizingTransactionManager;
 import org.neo4j.ogm.config.Configuration;
 import org.neo4j.ogm.session.Session;
 import org.neo4j.ogm.session.SessionFactory;
@@ -10,6 +11,7 @@ import org.springframework.context.annotation.ScopedProxyMode;
 import org.springframework.core.env.Environment;
 import org.springframework.data.neo4j.config.Neo4jConfiguration;
 import org.springframework.data.neo4j.repository.config.EnableNeo4jRepositories;
+import org.springframework.transaction.PlatformTransactionManager;
 
 @org.springframework.context.annotation.Configuration
 @EnableNeo4jRepositories(basePackages = "com.nodestand.nodes")
@@ -38,7 +40,11 @@ public class Neo4jConfig extends Neo4jConfiguration {
         return config;
     }
 
+    /**
+     * A bean so that background workers can open sessions of their own; the shared session is request scoped.
+     */
     @Override
+    @Bean
     public SessionFactory getSessionFactory() {
         return new SessionFactory(getConfiguration(), "com.nodestand.nodes");
     }
@@ -49,4 +55,10 @@ public class Neo4jConfig extends Neo4jConfiguration {
         return super.getSession();
     }
 
+    @Override
+    @Bean
+    public PlatformTransactionManager transactionManager() throws Exception {
+        return new SynchronizingTransactionManager(super.transactionManager());
+    }
+
 }
\ No newline at end of file
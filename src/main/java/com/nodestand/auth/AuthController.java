@@ -129,9 +129,7 @@ public class AuthController {
             concreteUser = userDetails.get();
 
             if (concreteUser.getUser().getEmailAddress() == null) {
-                final User user = concreteUser.getUser();
-                user.setEmailAddress(emailAddress);
-                userRepository.save(user);
+                userService.changeEmailAddress(concreteUser.getUser(), emailAddress);
             }
 
         } else {
@@ -8,6 +8,7 @@ import org.springframework.stereotype.Component;
 
 import java.util.Date;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 /**
@@ -29,6 +30,27 @@ public class TokenHandler {
     @Value("${jwt.secret}")
 	private String secret;
 
+    @Value("${jwt.claimsCacheSize:10000}")
+    private int claimsCacheSize;
+
+    /**
+     * Token -> verified claims, so a token is only parsed and its signature checked once. Entries are dropped once
+     * the token expires, and the least recently used ones go when the cache is full.
+     */
+    private final LinkedHashMap<String, Claims> verifiedClaims = new LinkedHashMap<String, Claims>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Claims> eldest) {
+            return size() > claimsCacheSize;
+        }
+    };
+
+    public TokenHandler() {
+    }
+
+    TokenHandler(String secret, int claimsCacheSize) {
+        this.secret = secret;
+        this.claimsCacheSize = claimsCacheSize;
+    }
 
 	public String getUserStableIdFromToken(String token) {
         String stableId;
@@ -84,12 +106,35 @@ public class TokenHandler {
         return new Date(System.currentTimeMillis() + TEN_DAYS);
     }
 
-    private Boolean isTokenExpired(String token) {
-        final Date expiration = getExpirationDateFromToken(token);
-        return expiration.before(new Date());
+	private Claims getClaimsFromToken(String token) {
+        if (token == null) {
+            return null;
+        }
+
+        synchronized (verifiedClaims) {
+            Claims cached = verifiedClaims.get(token);
+            if (cached != null) {
+                if (!isExpired(cached)) {
+                    return cached;
+                }
+                verifiedClaims.remove(token);
+            }
+        }
+
+		Claims claims = parseClaims(token);
+        if (claims != null && !isExpired(claims)) {
+            synchronized (verifiedClaims) {
+                verifiedClaims.put(token, claims);
+            }
+        }
+		return claims;
+	}
+
+    private static boolean isExpired(Claims claims) {
+        return claims.getExpiration() == null || claims.getExpiration().before(new Date());
     }
 
-	private Claims getClaimsFromToken(String token) {
+	private Claims parseClaims(String token) {
 		Claims claims;
 		try {
 			claims = Jwts.parser()
@@ -103,12 +148,17 @@ public class TokenHandler {
 	}
 
     public Boolean validateToken(String token, NodeUserDetails userDetails) {
-        final String stableId = getUserStableIdFromToken(token);
-        final String socialId = getSocialIdFromToken(token);
+        final Claims claims = getClaimsFromToken(token);
+        if (claims == null) {
+            return false;
+        }
+
+        final String stableId = claims.getSubject();
+        final String socialId = (String) claims.get(CLAIM_KEY_SOCIAL_ID);
 
         return stableId != null && stableId.equals(userDetails.getUserId())
                 && socialId != null && socialId.equals(userDetails.getProviderUserId())
-                && !isTokenExpired(token);
+                && !isExpired(claims);
     }
 
 }
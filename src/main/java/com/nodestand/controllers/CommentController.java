@@ -1,11 +1,10 @@
 package com.nodestand.controllers;
 
+import com.nodestand.controllers.serial.QuickCommentResponse;
+import com.nodestand.nodes.NodeInputException;
 import com.nodestand.nodes.NodeRulesException;
-import com.nodestand.nodes.User;
 import com.nodestand.nodes.comment.Comment;
-import com.nodestand.nodes.comment.Commentable;
 import com.nodestand.service.comment.CommentService;
-import com.nodestand.service.email.CommentNotificationSender;
 import com.nodestand.service.user.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -19,22 +18,45 @@ import java.util.Map;
 @RestController
 public class CommentController {
 
+    private static final int MAX_PAGE = 100;
+    private static final int MAX_DEPTH = 5;
+
     private final CommentService commentService;
     private final UserService userService;
-    private final CommentNotificationSender notificationSender;
 
     @Autowired
-    public CommentController(CommentService commentService, UserService userService, CommentNotificationSender notificationSender) {
+    public CommentController(CommentService commentService, UserService userService) {
         this.commentService = commentService;
         this.userService = userService;
-        this.notificationSender = notificationSender;
     }
 
+    /**
+     * @param limit how many top-level comments to load.
+     * @param replyLimit how many replies to load under each comment.
+     * @param depth how many levels of replies to load.
+     */
     @PreAuthorize("permitAll")
     @RequestMapping("/comments")
-    public Object getCommentsOnMajorVersion(@RequestParam(value="stableId", required=true) String stableId) {
+    public QuickCommentResponse getCommentsOnMajorVersion(@RequestParam(value="stableId", required=true) String stableId,
+                                                          @RequestParam(defaultValue = "score") String sort,
+                                                          @RequestParam(defaultValue = "20") int limit,
+                                                          @RequestParam(defaultValue = "5") int replyLimit,
+                                                          @RequestParam(defaultValue = "2") int depth,
+                                                          @RequestParam(required = false) String cursor) throws NodeInputException {
+
+        return commentService.getComments(stableId, sort, bound(limit, 1, MAX_PAGE), bound(replyLimit, 1, MAX_PAGE),
+                bound(depth, 0, MAX_DEPTH), cursor);
+    }
 
-        return commentService.getComments(stableId);
+    @PreAuthorize("permitAll")
+    @RequestMapping("/commentReplies")
+    public QuickCommentResponse getReplies(@RequestParam long parentId,
+                                           @RequestParam(defaultValue = "score") String sort,
+                                           @RequestParam(defaultValue = "10") int limit,
+                                           @RequestParam(defaultValue = "2") int depth,
+                                           @RequestParam(required = false) String cursor) throws NodeInputException {
+
+        return commentService.getReplies(parentId, sort, bound(limit, 1, MAX_PAGE), bound(depth, 0, MAX_DEPTH), cursor);
     }
 
     @PreAuthorize("hasRole('ROLE_USER')")
@@ -46,23 +68,8 @@ public class CommentController {
         Long parentId = Long.valueOf((Integer) params.get("parentId"));
         Long userId = userService.getUserNodeIdFromSecurityContext();
 
-        Comment comment = commentService.createComment(body, parentId, authorStableId, userId);
-
-        Commentable parent = comment.getParent();
-
-        if (comment.getParent() instanceof Comment) {
-            commentService.loadWithWatchers(comment.getParent().getId()); // Hydrate the parent
-
-            for (User watcher: parent.getCommentWatchers()) {
-                if (watcher.getEmailAddress() != null) { // && watcher != userService.getUserFromSecurityContext()) {
-                    notificationSender.sendNotification(watcher.getEmailAddress(), (Comment) parent, comment);
-                }
-            }
-        }
-
-
-
-        return comment;
+        // Reply notifications are queued along with the comment and emailed in the background.
+        return commentService.createComment(body, parentId, authorStableId, userId);
     }
 
     @PreAuthorize("hasRole('ROLE_USER')")
@@ -76,4 +83,7 @@ public class CommentController {
         return commentService.editComment(body, commentId, userStableId);
     }
 
+    private static int bound(int value, int min, int max) {
+        return Math.max(min, Math.min(value, max));
+    }
 }
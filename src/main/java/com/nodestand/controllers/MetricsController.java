@@ -0,0 +1,31 @@
+package com.nodestand.controllers;
+
+import com.nodestand.service.metrics.MethodStats;
+import com.nodestand.service.metrics.QueryMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+public class MetricsController {
+
+    private final QueryMetrics queryMetrics;
+
+    @Autowired
+    public MetricsController(QueryMetrics queryMetrics) {
+        this.queryMetrics = queryMetrics;
+    }
+
+    /**
+     * Calls, errors, latency and rows for every repository method and direct Session call since startup, most
+     * total time first.
+     */
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @RequestMapping("/metrics/queries")
+    public List<MethodStats.Snapshot> queries() {
+        return queryMetrics.snapshot();
+    }
+}
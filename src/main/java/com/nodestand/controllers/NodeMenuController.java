@@ -1,8 +1,10 @@
 package com.nodestand.controllers;
 
 import com.nodestand.auth.NotAuthorizedException;
+import com.nodestand.controllers.serial.RootNodePage;
 import com.nodestand.nodes.ArgumentBody;
 import com.nodestand.nodes.ArgumentNode;
+import com.nodestand.nodes.NodeInputException;
 import com.nodestand.nodes.NodeRulesException;
 import com.nodestand.service.AuthorRulesUtil;
 import com.nodestand.service.argument.ArgumentService;
@@ -20,6 +22,8 @@ import java.util.Set;
 @RestController
 public class NodeMenuController {
 
+    private static final int MAX_ROOT_NODES = 100;
+
     private final ArgumentService argumentService;
 
     private final UserService userService;
@@ -30,11 +34,16 @@ public class NodeMenuController {
         this.userService = userService;
     }
 
-    @Transactional
+    /**
+     * @param sort one of "newest", "votes" or "comments".
+     * @param cursor the nextCursor of the previous page, or absent for the first page.
+     */
     @RequestMapping("/rootNodes")
-    public Set<ArgumentNode> getRootNodes() {
+    public RootNodePage getRootNodes(@RequestParam(defaultValue = "newest") String sort,
+                                     @RequestParam(defaultValue = "20") int limit,
+                                     @RequestParam(required = false) String cursor) throws NodeInputException {
 
-        return argumentService.getRootNodes();
+        return argumentService.getRootNodes(sort, Math.min(limit, MAX_ROOT_NODES), cursor);
     }
 
     @Transactional
@@ -1,14 +1,12 @@
 package com.nodestand.controllers;
 
-import com.nodestand.nodes.ArgumentBody;
-import com.nodestand.nodes.assertion.AssertionBody;
-import com.nodestand.nodes.interpretation.InterpretationBody;
-import com.nodestand.nodes.repository.ArgumentBodyRepository;
-import com.nodestand.nodes.source.SourceBody;
+import com.nodestand.controllers.serial.SearchHit;
+import com.nodestand.controllers.serial.TypeaheadPage;
+import com.nodestand.nodes.NodeInputException;
+import com.nodestand.service.search.SearchService;
 import com.nodestand.service.user.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.access.prepost.PreAuthorize;
-import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
@@ -18,56 +16,42 @@ import java.util.*;
 @RestController
 public class SearchController {
 
+    private static final int MAX_RESULTS = 50;
+
     private final UserService userService;
 
-    private final ArgumentBodyRepository argumentBodyRepository;
+    private final SearchService searchService;
 
     @Autowired
-    public SearchController(UserService userService, ArgumentBodyRepository argumentBodyRepository) {
+    public SearchController(UserService userService, SearchService searchService) {
         this.userService = userService;
-        this.argumentBodyRepository = argumentBodyRepository;
+        this.searchService = searchService;
     }
 
+    /**
+     * Results are rolled up by major version, so there is at most one hit per major version.
+     */
     @PreAuthorize("hasRole('ROLE_USER')")
-    @Transactional
     @RequestMapping("/search")
-    public List<ArgumentBody> findByTitle(@RequestParam String query, @RequestParam List<String> types) {
+    public List<SearchHit> findByTitle(@RequestParam String query, @RequestParam List<String> types,
+                                       @RequestParam(defaultValue = "20") int limit) {
 
         Long userId = userService.getUserNodeIdFromSecurityContext();
 
-        Set<ArgumentBody> richHits = argumentBodyRepository.queryTitlesRich(String.format("(?i).*%s.*", query), userId);
-
-        List<ArgumentBody> searchResults = new LinkedList<>();
-
-        Set<String> majorVersionIds = new HashSet<>();
-
-        List<Class> acceptableClasses = buildAcceptableClasses(types);
+        return searchService.search(query, new HashSet<>(types), userId, Math.min(limit, MAX_RESULTS));
+    }
 
-        // Keep the search results in order. If there are multiple bodies corresponding to
-        // the same major version node, return only the first one.
-        // This is NOT the version number; it's the unique node id
-        richHits.stream().filter(body -> acceptableClasses.contains(body.getClass())).forEach(body -> {
-            String majorVersionId = body.getMajorVersion().getStableId(); // This is NOT the version number; it's the unique node id
-            if (!majorVersionIds.contains(majorVersionId)) {
-                searchResults.add(body);
-                majorVersionIds.add(majorVersionId);
-            }
-        });
+    /**
+     * Cheap enough to call on every keystroke. Pass the returned nextCursor back to fetch more.
+     */
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @RequestMapping("/typeahead")
+    public TypeaheadPage typeahead(@RequestParam String query, @RequestParam List<String> types,
+                                   @RequestParam(defaultValue = "8") int limit,
+                                   @RequestParam(required = false) String cursor) throws NodeInputException {
 
-        return searchResults;
-    }
+        Long userId = userService.getUserNodeIdFromSecurityContext();
 
-    private List<Class> buildAcceptableClasses(List<String> types) {
-        List<Class> acceptableClasses = new ArrayList<>();
-        if (types.contains("assertion")) {
-            acceptableClasses.add(AssertionBody.class);
-        }
-        if (types.contains("interpretation")) {
-            acceptableClasses.add(InterpretationBody.class);
-        }
-        if (types.contains("source")) {
-            acceptableClasses.add(SourceBody.class);
-        }
-        return acceptableClasses;
+        return searchService.typeahead(query, new HashSet<>(types), userId, Math.min(limit, MAX_RESULTS), cursor);
     }
 }
@@ -2,36 +2,61 @@ package com.nodestand.controllers;
 
 import com.nodestand.nodes.Author;
 import com.nodestand.nodes.ForbiddenNodeOperationException;
+import com.nodestand.nodes.NodeInputException;
 import com.nodestand.nodes.NodeRulesException;
 import com.nodestand.nodes.User;
 import com.nodestand.nodes.repository.UserRepository;
 import com.nodestand.service.user.UserService;
+import com.nodestand.service.vote.NodePointsLoader;
 import com.nodestand.service.vote.ScoreLog;
 import com.nodestand.service.vote.ScoreLogReader;
+import com.nodestand.service.vote.ScoreRollups;
+import com.nodestand.service.vote.UserVoteIndex;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 @RestController
 public class UserController {
 
+    private static final int MAX_VOTE_LOOKUPS = 1000;
+
+    private static final int MAX_SCORE_LOG = 5000;
+
+    private static final int MAX_LEADERBOARD = 100;
+
     private final UserService userService;
 
     private final UserRepository userRepository;
 
     private final ScoreLogReader scoreLogReader;
 
+    private final UserVoteIndex userVoteIndex;
+
+    private final ScoreRollups scoreRollups;
+
+    private final NodePointsLoader nodePointsLoader;
+
     @Autowired
-    public UserController(UserService userService, UserRepository userRepository, ScoreLogReader scoreLogReader) {
+    public UserController(UserService userService, UserRepository userRepository, ScoreLogReader scoreLogReader,
+                          UserVoteIndex userVoteIndex, ScoreRollups scoreRollups, NodePointsLoader nodePointsLoader) {
         this.userService = userService;
         this.userRepository = userRepository;
         this.scoreLogReader = scoreLogReader;
+        this.userVoteIndex = userVoteIndex;
+        this.scoreRollups = scoreRollups;
+        this.nodePointsLoader = nodePointsLoader;
     }
 
     @Transactional
@@ -43,12 +68,36 @@ public class UserController {
             return null;
         }
 
-        user = userService.loadUserWithVotes(user.getStableId());
+        user = userRepository.getUser(user.getStableId());
+        nodePointsLoader.load(user.getAliases());
 
+        // Votes are not included; the client asks for the ones it needs through /currentUserVotes.
         Map<String, Object> map = new HashMap<>();
         map.put("user", user);
-        map.put("bodyVotes", user.getBodyVotes());
-        map.put("commentVotes", user.getCommentVoteMap());
+
+        return map;
+    }
+
+    public static class UserVotesInput {
+        public List<Long> majorVersionIds;
+        public List<Long> commentIds;
+    }
+
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @RequestMapping("/currentUserVotes")
+    public Map<String, Object> currentUserVotes(@RequestBody UserVotesInput input) throws NodeInputException {
+
+        List<Long> majorVersionIds = input.majorVersionIds != null ? input.majorVersionIds : Collections.emptyList();
+        List<Long> commentIds = input.commentIds != null ? input.commentIds : Collections.emptyList();
+        if (majorVersionIds.size() + commentIds.size() > MAX_VOTE_LOOKUPS) {
+            throw new NodeInputException("Can't look up more than " + MAX_VOTE_LOOKUPS + " votes at once.");
+        }
+
+        String userStableId = userService.getUserFromSecurityContext().getStableId();
+
+        Map<String, Object> map = new HashMap<>();
+        map.put("bodyVotes", userVoteIndex.getBodyVotes(userStableId, majorVersionIds));
+        map.put("commentVotes", userVoteIndex.getCommentVotes(userStableId, commentIds));
 
         return map;
     }
@@ -57,15 +106,68 @@ public class UserController {
     @RequestMapping("/getProfile")
     public Author getProfile(@RequestParam String stableId) throws NodeRulesException {
 
-        return userRepository.loadAuthor(stableId);
+        Author author = userRepository.loadAuthor(stableId);
+        if (author != null) {
+            nodePointsLoader.load(author);
+        }
+        return author;
     }
 
+    /**
+     * @param from epoch millis, inclusive. Defaults to a week before to.
+     * @param to epoch millis, exclusive. Defaults to now.
+     * @param limit if the range holds more than this, only the most recent are returned.
+     */
     @RequestMapping("/getScoreLog")
-    public List<ScoreLog> getScoreLog(@RequestParam String stableId) throws NodeRulesException {
+    public List<? extends ScoreLog> getScoreLog(@RequestParam String stableId,
+                                                @RequestParam(required = false) Long from,
+                                                @RequestParam(required = false) Long to,
+                                                @RequestParam(defaultValue = "500") int limit) throws NodeRulesException {
+
+        long end = to != null ? to : System.currentTimeMillis() + 1;
+        long start = from != null ? from : end - TimeUnit.DAYS.toMillis(7);
 
-        List<ScoreLog> scoreLogForUser = scoreLogReader.getScoreLogForUser(stableId);
+        return scoreLogReader.getScoreLogForUser(stableId, start, end, Math.min(limit, MAX_SCORE_LOG));
+    }
+
+    /**
+     * The author's points over the last few days, by day, vote type and node.
+     */
+    @RequestMapping("/authorStats")
+    public ScoreRollups.AuthorStats getAuthorStats(@RequestParam String stableId) {
+
+        return scoreRollups.getStats(stableId);
+    }
+
+    /**
+     * The authors who earned the most points over the last few days, best first.
+     */
+    @Transactional
+    @RequestMapping("/leaderboard")
+    public List<Map<String, Object>> getLeaderboard(@RequestParam(defaultValue = "20") int limit) {
+
+        List<ScoreRollups.Standing> standings = scoreRollups.getLeaderboard(Math.max(0, Math.min(limit, MAX_LEADERBOARD)));
+
+        Map<String, Author> authors = new HashMap<>();
+        if (!standings.isEmpty()) {
+            List<String> stableIds = new ArrayList<>();
+            standings.forEach(s -> stableIds.add(s.getAuthorStableId()));
+            userRepository.loadAuthors(stableIds).forEach(a -> authors.put(a.getStableId(), a));
+            nodePointsLoader.load(authors.values());
+        }
+
+        List<Map<String, Object>> leaderboard = new ArrayList<>();
+        for (ScoreRollups.Standing standing : standings) {
+            Author author = authors.get(standing.getAuthorStableId());
+            if (author != null) {
+                Map<String, Object> entry = new HashMap<>();
+                entry.put("author", author);
+                entry.put("points", standing.getPoints());
+                leaderboard.add(entry);
+            }
+        }
 
-        return scoreLogForUser;
+        return leaderboard;
     }
 
     @RequestMapping("/canChangeAuthorName")
@@ -85,6 +187,8 @@ public class UserController {
             throw new ForbiddenNodeOperationException("Sorry, this alias is already taken!");
         }
 
-        return userService.changeAuthorName(authorStableId, authorName);
+        Author author = userService.changeAuthorName(authorStableId, authorName);
+        nodePointsLoader.load(author);
+        return author;
     }
 }
@@ -3,10 +3,12 @@ package com.nodestand.controllers;
 import com.nodestand.nodes.NodeRulesException;
 import com.nodestand.nodes.User;
 import com.nodestand.nodes.comment.Comment;
+import com.nodestand.nodes.repository.UserRepository;
 import com.nodestand.nodes.version.MajorVersion;
 import com.nodestand.nodes.vote.ArgumentVote;
 import com.nodestand.nodes.vote.VoteType;
 import com.nodestand.service.user.UserService;
+import com.nodestand.service.vote.UserVoteIndex;
 import com.nodestand.service.vote.VoteService;
 import org.neo4j.ogm.session.Session;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -26,13 +28,20 @@ public class VoteController {
 
     private final UserService userService;
 
+    private final UserRepository userRepository;
+
     private final VoteService voteService;
 
+    private final UserVoteIndex userVoteIndex;
+
     @Autowired
-    public VoteController(Session session, UserService userService, VoteService voteService) {
+    public VoteController(Session session, UserService userService, UserRepository userRepository, VoteService voteService,
+                          UserVoteIndex userVoteIndex) {
         this.session = session;
         this.userService = userService;
+        this.userRepository = userRepository;
         this.voteService = voteService;
+        this.userVoteIndex = userVoteIndex;
     }
 
     @Transactional
@@ -40,11 +49,10 @@ public class VoteController {
     @RequestMapping("/voteComment")
     public void voteComment(@RequestBody Map<String, Object> params) throws NodeRulesException {
 
-        User user = userService.getUserFromSecurityContext();
-
         Long commentId = Long.valueOf((Integer) params.get("commentId"));
         Boolean isUpvote = (Boolean) params.get("isUpvote");
 
+        User user = userRepository.loadUserWithCommentVote(userService.getUserFromSecurityContext().getStableId(), commentId);
         Comment comment = session.load(Comment.class, commentId);
 
         if (user.getAliases().stream().anyMatch(a -> a.getStableId().equals(comment.author.getStableId()))) {
@@ -55,21 +63,22 @@ public class VoteController {
 
         session.save(comment);
         session.save(user);
+        userVoteIndex.updateCommentVote(user.getStableId(), commentId, isUpvote);
     }
 
     @Transactional
     @PreAuthorize("hasRole('ROLE_USER')")
     @RequestMapping("/unvoteComment")
     public void unvoteComment(@RequestBody Map<String, Object> params) throws NodeRulesException {
-        Long userId = userService.getUserNodeIdFromSecurityContext();
-        User user = session.load(User.class, userId);
-
         Long commentId = Long.valueOf((Integer) params.get("commentId"));
+        User user = userRepository.loadUserWithCommentVote(userService.getUserFromSecurityContext().getStableId(), commentId);
+
         Comment comment = session.load(Comment.class, commentId);
         user.revokeCommentVote(comment);
 
         session.save(comment);
         session.save(user);
+        userVoteIndex.updateCommentVote(user.getStableId(), commentId, null);
     }
 
 
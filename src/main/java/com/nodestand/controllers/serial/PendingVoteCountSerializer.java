@@ -0,0 +1,59 @@
+package com.nodestand.controllers.serial;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.BeanProperty;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.ContextualSerializer;
+import com.nodestand.nodes.version.MajorVersion;
+import com.nodestand.nodes.vote.VoteType;
+import com.nodestand.service.vote.VoteCounterBuffer;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Serializes one of the vote counters of a {@link MajorVersion} with the votes still sitting in the
+ * {@link VoteCounterBuffer} added on top, so clients see every vote even before it has been flushed.
+ *
+ * {@link VoteCountModule} attaches it to the counters. Spring Boot's ObjectMapper creates it through the application
+ * context, which fills in the buffer. Anywhere else the persisted count is written unchanged.
+ */
+public class PendingVoteCountSerializer extends JsonSerializer<Integer> implements ContextualSerializer {
+
+    static final Set<String> VOTE_COUNTERS = new HashSet<>(Arrays.asList("greatVotes", "weakVotes", "toucheVotes", "trashVotes"));
+
+    @Autowired(required = false)
+    private VoteCounterBuffer voteCounterBuffer;
+
+    private VoteType voteType;
+
+    public PendingVoteCountSerializer() {}
+
+    private PendingVoteCountSerializer(VoteCounterBuffer voteCounterBuffer, VoteType voteType) {
+        this.voteCounterBuffer = voteCounterBuffer;
+        this.voteType = voteType;
+    }
+
+    @Override
+    public JsonSerializer<?> createContextual(SerializerProvider prov, BeanProperty property) throws JsonMappingException {
+        // The property names follow the pattern greatVotes, weakVotes, etc.
+        String name = property.getName();
+        VoteType type = VoteType.valueOf(name.substring(0, name.length() - "Votes".length()).toUpperCase());
+        return new PendingVoteCountSerializer(voteCounterBuffer, type);
+    }
+
+    @Override
+    public void serialize(Integer value, JsonGenerator gen, SerializerProvider serializers) throws IOException {
+        long count = value;
+        Object owner = gen.getCurrentValue();
+        if (voteCounterBuffer != null && voteType != null && owner instanceof MajorVersion) {
+            count += voteCounterBuffer.getPending(((MajorVersion) owner).getStableId(), voteType);
+        }
+        gen.writeNumber(count);
+    }
+}
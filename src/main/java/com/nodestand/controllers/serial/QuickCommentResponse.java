@@ -1,25 +1,44 @@
 package com.nodestand.controllers.serial;
 
-import com.nodestand.nodes.comment.Commentable;
+import com.nodestand.nodes.comment.Comment;
 
+import java.util.Map;
 import java.util.Set;
 
 public class QuickCommentResponse {
 
-    private Set<Commentable> nodes;
+    private Long rootId;
+    private Set<Comment> nodes;
     private Set<QuickEdge> edges;
-    private Long bodyId;
+    private Map<Long, String> moreReplies;
 
-    public QuickCommentResponse(Set<Commentable> nodes, Set<QuickEdge> edges) {
+    public QuickCommentResponse(Long rootId, Set<Comment> nodes, Set<QuickEdge> edges, Map<Long, String> moreReplies) {
+        this.rootId = rootId;
         this.nodes = nodes;
         this.edges = edges;
+        this.moreReplies = moreReplies;
     }
 
-    public Set<Commentable> getNodes() {
+    /**
+     * The commentable whose replies were loaded. It is not among the nodes.
+     */
+    public Long getRootId() {
+        return rootId;
+    }
+
+    public Set<Comment> getNodes() {
         return nodes;
     }
 
     public Set<QuickEdge> getEdges() {
         return edges;
     }
+
+    /**
+     * Commentable id -> cursor for the next page of its replies. A null cursor means none of its replies have
+     * been loaded yet, because it sits at the depth limit.
+     */
+    public Map<Long, String> getMoreReplies() {
+        return moreReplies;
+    }
 }
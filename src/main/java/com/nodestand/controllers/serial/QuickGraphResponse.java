@@ -1,10 +1,16 @@
 package com.nodestand.controllers.serial;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 import com.nodestand.nodes.ArgumentNode;
 
+import java.util.HashSet;
 import java.util.Set;
 
+/**
+ * Goes over the wire in the compact form written by {@link QuickGraphSerializer}.
+ */
+@JsonSerialize(using = QuickGraphSerializer.class)
 public class QuickGraphResponse {
 
     private Set<ArgumentNode> nodes;
@@ -13,6 +19,12 @@ public class QuickGraphResponse {
     private String rootStableId;
     private Set<ArgumentNode> consumers;
 
+    /**
+     * Drafts belonging to the requesting user. Kept apart from the public consumers so that everything else
+     * can be shared between users, and only merged in when the response is serialized.
+     */
+    private Set<ArgumentNode> draftConsumers;
+
     public QuickGraphResponse(Set<ArgumentNode> nodes, Set<QuickEdge> edges, Long rootId, String rootStableId, Set<ArgumentNode> consumers) {
         this.nodes = nodes;
         this.edges = edges;
@@ -38,7 +50,22 @@ public class QuickGraphResponse {
     }
 
     public Set<ArgumentNode> getConsumers() {
-        return consumers;
+        if (draftConsumers == null || draftConsumers.isEmpty()) {
+            return consumers;
+        }
+        Set<ArgumentNode> merged = new HashSet<>(consumers);
+        merged.addAll(draftConsumers);
+        return merged;
+    }
+
+    /**
+     * Returns a copy of this response that also lists the given drafts as consumers. This response is left alone,
+     * so it's safe to call on a shared instance.
+     */
+    public QuickGraphResponse withDraftConsumers(Set<ArgumentNode> draftConsumers) {
+        QuickGraphResponse overlaid = new QuickGraphResponse(nodes, edges, rootId, rootStableId, consumers);
+        overlaid.draftConsumers = draftConsumers;
+        return overlaid;
     }
 
     @JsonIgnore
@@ -0,0 +1,214 @@
+package com.nodestand.controllers.serial;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.PropertyWriter;
+import com.nodestand.nodes.ArgumentBody;
+import com.nodestand.nodes.ArgumentNode;
+import com.nodestand.nodes.Author;
+import com.nodestand.nodes.Node;
+import com.nodestand.nodes.assertion.AssertionBody;
+import com.nodestand.nodes.assertion.AssertionNode;
+import com.nodestand.nodes.interpretation.InterpretationBody;
+import com.nodestand.nodes.source.SourceBody;
+import com.nodestand.nodes.subject.SubjectBody;
+import com.nodestand.nodes.version.MajorVersion;
+
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * Writes a {@link QuickGraphResponse} in a compact form. Nodes refer to their body by id, and bodies refer to their
+ * author and major version by id. Each body, major version and author is written once, in lookup tables after the
+ * nodes, however many nodes share it. A consumer that is also one of the graph's nodes is written as just its id.
+ *
+ * Everything goes straight to the generator as it is visited, so the only thing held while writing is the set of
+ * objects waiting to go into the tables. node-cache.js expands the response back into full nodes.
+ */
+public class QuickGraphSerializer extends JsonSerializer<QuickGraphResponse> {
+
+    @Override
+    public void serialize(QuickGraphResponse graph, JsonGenerator gen, SerializerProvider provider) throws IOException {
+        Tables tables = new Tables();
+
+        gen.writeStartObject();
+        writeId(gen, "rootId", graph.getRootId());
+        gen.writeStringField("rootStableId", graph.getRootStableId());
+
+        Set<Long> nodeIds = new HashSet<>();
+        gen.writeArrayFieldStart("nodes");
+        for (ArgumentNode node : graph.getNodes()) {
+            writeNode(node, gen, tables);
+            nodeIds.add(node.getId());
+        }
+        gen.writeEndArray();
+
+        gen.writeArrayFieldStart("consumers");
+        for (ArgumentNode consumer : graph.getConsumers()) {
+            if (consumer.getId() != null && nodeIds.contains(consumer.getId())) {
+                gen.writeNumber(consumer.getId());
+            } else {
+                writeNode(consumer, gen, tables);
+            }
+        }
+        gen.writeEndArray();
+
+        gen.writeArrayFieldStart("edges");
+        for (QuickEdge edge : graph.getEdges()) {
+            gen.writeStartObject();
+            gen.writeNumberField("start", edge.getStart());
+            gen.writeNumberField("end", edge.getEnd());
+            gen.writeEndObject();
+        }
+        gen.writeEndArray();
+
+        // Bodies add to the major version table, and both add to the author table, so the order matters here.
+        gen.writeObjectFieldStart("bodies");
+        for (Map.Entry<Long, ArgumentBody> entry : tables.bodies.entrySet()) {
+            gen.writeFieldName(String.valueOf(entry.getKey()));
+            writeBody(entry.getValue(), gen, provider, tables);
+        }
+        gen.writeEndObject();
+
+        gen.writeObjectFieldStart("majorVersions");
+        for (Map.Entry<Long, MajorVersion> entry : tables.majorVersions.entrySet()) {
+            gen.writeFieldName(String.valueOf(entry.getKey()));
+            writeMajorVersion(entry.getValue(), gen, provider, tables);
+        }
+        gen.writeEndObject();
+
+        gen.writeObjectFieldStart("authors");
+        for (Map.Entry<Long, Author> entry : tables.authors.entrySet()) {
+            gen.writeFieldName(String.valueOf(entry.getKey()));
+            provider.defaultSerializeValue(entry.getValue(), gen);
+        }
+        gen.writeEndObject();
+
+        gen.writeEndObject();
+    }
+
+    private void writeNode(ArgumentNode node, JsonGenerator gen, Tables tables) throws IOException {
+        gen.writeStartObject();
+        writeId(gen, "id", node.getId());
+        gen.writeStringField("stableId", node.getStableId());
+        gen.writeStringField("type", node.getType());
+        gen.writeNumberField("buildVersion", node.getBuildVersion());
+        gen.writeBooleanField("finalized", node.isFinalized());
+        if (node instanceof AssertionNode) {
+            gen.writeStringField("childOrder", ((AssertionNode) node).getChildOrder());
+        }
+
+        Node previousVersion = node.getPreviousVersion();
+        writeId(gen, "previousVersion", previousVersion != null ? previousVersion.getId() : null);
+
+        ArgumentBody body = node.getBody();
+        writeId(gen, "body", body != null ? tables.add(body) : null);
+        gen.writeEndObject();
+    }
+
+    private void writeBody(ArgumentBody body, JsonGenerator gen, SerializerProvider provider, Tables tables) throws IOException {
+        gen.writeStartObject();
+        writeId(gen, "id", body.getId());
+        gen.writeStringField("title", body.getTitle());
+        gen.writeStringField("qualifier", body.getQualifier());
+
+        if (body instanceof AssertionBody) {
+            gen.writeStringField("body", ((AssertionBody) body).getBody());
+        } else if (body instanceof InterpretationBody) {
+            gen.writeStringField("body", ((InterpretationBody) body).getBody());
+        } else if (body instanceof SourceBody) {
+            gen.writeStringField("url", ((SourceBody) body).getUrl());
+        } else if (body instanceof SubjectBody) {
+            gen.writeStringField("url", ((SubjectBody) body).getUrl());
+        }
+
+        gen.writeNumberField("minorVersion", body.getMinorVersion());
+        gen.writeBooleanField("editable", body.isEditable());
+        gen.writeBooleanField("public", body.isPublic());
+        writeDate(gen, provider, "dateCreated", body.getDateCreated());
+        writeDate(gen, provider, "dateEdited", body.getDateEdited());
+
+        ArgumentBody previousVersion = body.getPreviousVersion();
+        writeId(gen, "previousVersion", previousVersion != null ? previousVersion.getId() : null);
+        writeId(gen, "author", body.author != null ? tables.add(body.author) : null);
+        writeId(gen, "majorVersion", body.getMajorVersion() != null ? tables.add(body.getMajorVersion()) : null);
+        gen.writeEndObject();
+    }
+
+    private void writeMajorVersion(MajorVersion majorVersion, JsonGenerator gen, SerializerProvider provider, Tables tables) throws IOException {
+        gen.writeStartObject();
+        writeId(gen, "id", majorVersion.getId());
+        gen.writeStringField("stableId", majorVersion.getStableId());
+        gen.writeNumberField("versionNumber", majorVersion.getVersionNumber());
+
+        writeVotes(majorVersion, gen, provider);
+
+        provider.defaultSerializeField("edgeOwners", majorVersion.getEdgeOwners(), gen);
+        writeId(gen, "author", majorVersion.author != null ? tables.add(majorVersion.author) : null);
+        gen.writeEndObject();
+    }
+
+    /**
+     * Writes the vote counters through the property serializers of the full MajorVersion entity, so that both forms
+     * have the same names and add the same pending votes.
+     */
+    private static void writeVotes(MajorVersion majorVersion, JsonGenerator gen, SerializerProvider provider) throws IOException {
+        gen.setCurrentValue(majorVersion); // PendingVoteCountSerializer finds the major version here.
+        Iterator<PropertyWriter> properties = provider.findValueSerializer(MajorVersion.class).properties();
+        while (properties.hasNext()) {
+            PropertyWriter property = properties.next();
+            if (PendingVoteCountSerializer.VOTE_COUNTERS.contains(property.getName())) {
+                try {
+                    property.serializeAsField(majorVersion, gen, provider);
+                } catch (IOException e) {
+                    throw e;
+                } catch (Exception e) {
+                    throw JsonMappingException.from(gen, "Failed to write " + property.getName(), e);
+                }
+            }
+        }
+    }
+
+    private static void writeId(JsonGenerator gen, String fieldName, Long id) throws IOException {
+        if (id == null) {
+            gen.writeNullField(fieldName);
+        } else {
+            gen.writeNumberField(fieldName, id);
+        }
+    }
+
+    private static void writeDate(JsonGenerator gen, SerializerProvider provider, String fieldName, Date date) throws IOException {
+        gen.writeFieldName(fieldName);
+        if (date == null) {
+            gen.writeNull();
+        } else {
+            provider.defaultSerializeDateValue(date, gen);
+        }
+    }
+
+    /**
+     * The shared objects seen so far, keyed by node id, in the order they were first referenced.
+     */
+    private static class Tables {
+        private final Map<Long, ArgumentBody> bodies = new LinkedHashMap<>();
+        private final Map<Long, MajorVersion> majorVersions = new LinkedHashMap<>();
+        private final Map<Long, Author> authors = new LinkedHashMap<>();
+
+        private Long add(ArgumentBody body) {
+            bodies.putIfAbsent(body.getId(), body);
+            return body.getId();
+        }
+
+        private Long add(MajorVersion majorVersion) {
+            majorVersions.putIfAbsent(majorVersion.getId(), majorVersion);
+            return majorVersion.getId();
+        }
+
+        private Long add(Author author) {
+            authors.putIfAbsent(author.getNodeId(), author);
+            return author.getNodeId();
+        }
+    }
+}
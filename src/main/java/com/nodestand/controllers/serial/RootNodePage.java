@@ -0,0 +1,28 @@
+package com.nodestand.controllers.serial;
+
+import com.nodestand.nodes.ArgumentNode;
+
+import java.util.List;
+
+public class RootNodePage {
+
+    private List<ArgumentNode> nodes;
+
+    /**
+     * Pass this back to get the following page. Null when there are no more nodes.
+     */
+    private String nextCursor;
+
+    public RootNodePage(List<ArgumentNode> nodes, String nextCursor) {
+        this.nodes = nodes;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<ArgumentNode> getNodes() {
+        return nodes;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+}
@@ -0,0 +1,38 @@
+package com.nodestand.controllers.serial;
+
+public class SearchHit {
+
+    private String title;
+    private String qualifier;
+    private String type;
+    private Long majorVersionId;
+    private String majorVersionStableId;
+
+    public SearchHit(String title, String qualifier, String type, Long majorVersionId, String majorVersionStableId) {
+        this.title = title;
+        this.qualifier = qualifier;
+        this.type = type;
+        this.majorVersionId = majorVersionId;
+        this.majorVersionStableId = majorVersionStableId;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public String getQualifier() {
+        return qualifier;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public Long getMajorVersionId() {
+        return majorVersionId;
+    }
+
+    public String getMajorVersionStableId() {
+        return majorVersionStableId;
+    }
+}
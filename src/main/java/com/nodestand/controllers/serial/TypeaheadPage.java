@@ -0,0 +1,26 @@
+package com.nodestand.controllers.serial;
+
+import java.util.List;
+
+public class TypeaheadPage {
+
+    private List<SearchHit> hits;
+
+    /**
+     * Pass this back to get the following page. Null when there are no more hits.
+     */
+    private String nextCursor;
+
+    public TypeaheadPage(List<SearchHit> hits, String nextCursor) {
+        this.hits = hits;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<SearchHit> getHits() {
+        return hits;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+}
@@ -0,0 +1,31 @@
+package com.nodestand.controllers.serial;
+
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.nodestand.nodes.version.MajorVersion;
+import org.springframework.stereotype.Component;
+
+/**
+ * Writes the vote counters of a {@link MajorVersion} through {@link PendingVoteCountSerializer}. The serializer is
+ * attached with a mix-in so that the entity doesn't depend on the vote buffer. Spring Boot registers this with its
+ * ObjectMapper because it is a bean.
+ */
+@Component
+public class VoteCountModule extends SimpleModule {
+
+    public VoteCountModule() {
+        super("VoteCountModule");
+        setMixInAnnotation(MajorVersion.class, MajorVersionVotes.class);
+    }
+
+    abstract static class MajorVersionVotes {
+        @JsonSerialize(using = PendingVoteCountSerializer.class)
+        public int greatVotes;
+        @JsonSerialize(using = PendingVoteCountSerializer.class)
+        public int weakVotes;
+        @JsonSerialize(using = PendingVoteCountSerializer.class)
+        public int toucheVotes;
+        @JsonSerialize(using = PendingVoteCountSerializer.class)
+        public int trashVotes;
+    }
+}
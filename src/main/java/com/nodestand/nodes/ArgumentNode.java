@@ -20,6 +20,12 @@ public abstract class ArgumentNode implements Node {
 
     protected int buildVersion = -1;
 
+    /**
+     * Whether every path of support beneath this node ends in a source or subject. Kept up to date by
+     * {@link com.nodestand.service.GroundingTracker}; null on nodes written before the flag existed.
+     */
+    private Boolean grounded;
+
     @Relationship(type="DEFINED_BY", direction = Relationship.OUTGOING)
     protected ArgumentBody body;
 
@@ -99,6 +105,15 @@ public abstract class ArgumentNode implements Node {
         return !body.isPublic();
     }
 
+    @JsonIgnore
+    public Boolean getGrounded() {
+        return grounded;
+    }
+
+    public void setGrounded(Boolean grounded) {
+        this.grounded = grounded;
+    }
+
     public boolean isFinalized() {
         return buildVersion >= 0;
     }
@@ -27,6 +27,11 @@ public class Author {
 
     private String stableId;
 
+    /**
+     * Not mapped, because PendingScoreApplier adds to it in Cypher and an Author saved afterwards would write its
+     * stale total back. Filled in by NodePointsLoader.
+     */
+    @Transient
     private long nodePoints;
 
     @Relationship(type = "CONTROLLED_BY", direction = Relationship.OUTGOING)
@@ -85,11 +90,11 @@ public class Author {
         return user;
     }
 
-    public void awardNodePoints(int points) {
-        this.nodePoints += points;
-    }
-
     public long getNodePoints() {
         return nodePoints;
     }
+
+    public void setNodePoints(long nodePoints) {
+        this.nodePoints = nodePoints;
+    }
 }
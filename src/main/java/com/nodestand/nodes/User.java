@@ -41,6 +41,16 @@ public class User {
     @Transient
     private Map<Long, Integer> commentVoteMap;
 
+    /**
+     * Lookup structures over argumentVotes and commentVotes, keyed by the node id of the major version or comment,
+     * so that checking for an existing vote doesn't scan the whole set.
+     */
+    @Transient
+    private Map<Long, ArgumentVote> argumentVoteIndex;
+
+    @Transient
+    private Map<Long, CommentVote> commentVoteIndex;
+
     private String stableId;
 
     private Roles[] roles;
@@ -87,6 +97,7 @@ public class User {
     @Relationship(type="ARGUMENT_VOTE", direction = Relationship.OUTGOING)
     public void setArgumentVotes(Set<ArgumentVote> argumentVotes) {
         this.argumentVotes = argumentVotes;
+        argumentVoteIndex = null;
         bodyVotes = argumentVotes.stream().collect(Collectors.toMap(v -> v.majorVersion.getId(), v -> v.voteType));
     }
 
@@ -98,6 +109,7 @@ public class User {
     @Relationship(type="COMMENT_VOTE", direction = Relationship.OUTGOING)
     public void setCommentVotes(Set<CommentVote> commentVotes) {
         this.commentVotes = commentVotes;
+        commentVoteIndex = null;
         commentVoteMap = commentVotes.stream().collect(Collectors.toMap(c -> c.comment.getId(), c -> c.isUpvote ? 1 : -1));
     }
 
@@ -166,11 +178,7 @@ public class User {
     }
 
     public Optional<ArgumentVote> getExistingVote(MajorVersion mv) {
-        if (argumentVotes == null) {
-            argumentVotes = new HashSet<>();
-        }
-
-        return argumentVotes.stream().filter(v -> v.majorVersion.getId().equals(mv.getId())).findFirst();
+        return Optional.ofNullable(getArgumentVoteIndex().get(mv.getId()));
     }
 
     public void registerNewVote(ArgumentVote newVote) throws NodeRulesException {
@@ -179,12 +187,25 @@ public class User {
             argumentVotes = new HashSet<>();
         }
 
+        ArgumentVote previous = getArgumentVoteIndex().put(newVote.majorVersion.getId(), newVote);
+        if (previous != null) {
+            argumentVotes.remove(previous);
+        }
         argumentVotes.add(newVote);
+        if (bodyVotes != null) {
+            bodyVotes.put(newVote.majorVersion.getId(), newVote.voteType);
+        }
     }
 
 
-    public void revokeVote(String majorVersionStableId) throws NodeRulesException {
-        argumentVotes.removeIf(v -> v.majorVersion.getStableId().equals(majorVersionStableId));
+    public void revokeVote(MajorVersion majorVersion) throws NodeRulesException {
+        ArgumentVote existing = getArgumentVoteIndex().remove(majorVersion.getId());
+        if (existing != null) {
+            argumentVotes.remove(existing);
+            if (bodyVotes != null) {
+                bodyVotes.remove(majorVersion.getId());
+            }
+        }
     }
 
     public void registerCommentVote(Comment comment, boolean isUpvote) {
@@ -197,15 +218,14 @@ public class User {
             commentVoteMap = new HashMap<>();
         }
 
-        Optional<CommentVote> existingVote = commentVotes.stream().filter(v -> v.comment.getId().equals(comment.getId())).findFirst();
+        CommentVote existingVote = getCommentVoteIndex().get(comment.getId());
         int numericRepresentation = isUpvote ? 1 : -1;
 
-        if (existingVote.isPresent()) {
-            CommentVote vote = existingVote.get();
-            if (vote.isUpvote != isUpvote) {
+        if (existingVote != null) {
+            if (existingVote.isUpvote != isUpvote) {
                 commentVoteMap.put(comment.getId(), numericRepresentation);
                 comment.modifyScore(numericRepresentation * 2); // We're reversing the direction of a vote, so it's a two-point swing.
-                existingVote.get().isUpvote = isUpvote;
+                existingVote.isUpvote = isUpvote;
             }
         } else {
             CommentVote newVote = new CommentVote();
@@ -213,6 +233,7 @@ public class User {
             newVote.comment = comment;
             newVote.user = this;
             commentVotes.add(newVote);
+            getCommentVoteIndex().put(comment.getId(), newVote);
             commentVoteMap.put(comment.getId(), numericRepresentation);
             comment.modifyScore(numericRepresentation);
         }
@@ -220,11 +241,44 @@ public class User {
 
     public void revokeCommentVote(Comment comment) throws NodeRulesException {
 
-        Optional<CommentVote> existingVote = commentVotes.stream().filter(v -> v.comment.getId().equals(comment.getId())).findFirst();
-        if (existingVote.isPresent()) {
-            comment.modifyScore(existingVote.get().isUpvote ? -1 : 1);
-            commentVotes.removeIf(v -> v.comment.getId().equals(comment.getId()));
+        CommentVote existingVote = getCommentVoteIndex().remove(comment.getId());
+        if (existingVote != null) {
+            comment.modifyScore(existingVote.isUpvote ? -1 : 1);
+            commentVotes.remove(existingVote);
+            if (commentVoteMap != null) {
+                commentVoteMap.remove(comment.getId());
+            }
+        }
+    }
+
+    /**
+     * The argument votes keyed by major version node id. The OGM may fill the relationship set without going
+     * through the setter, so the index is rebuilt whenever it has fallen out of step with the set.
+     */
+    private Map<Long, ArgumentVote> getArgumentVoteIndex() {
+        if (argumentVotes == null) {
+            argumentVotes = new HashSet<>();
+        }
+        if (argumentVoteIndex == null || argumentVoteIndex.size() != argumentVotes.size()) {
+            argumentVoteIndex = new HashMap<>();
+            for (ArgumentVote vote : argumentVotes) {
+                argumentVoteIndex.put(vote.majorVersion.getId(), vote);
+            }
+        }
+        return argumentVoteIndex;
+    }
+
+    private Map<Long, CommentVote> getCommentVoteIndex() {
+        if (commentVotes == null) {
+            commentVotes = new HashSet<>();
+        }
+        if (commentVoteIndex == null || commentVoteIndex.size() != commentVotes.size()) {
+            commentVoteIndex = new HashMap<>();
+            for (CommentVote vote : commentVotes) {
+                commentVoteIndex.put(vote.comment.getId(), vote);
+            }
         }
+        return commentVoteIndex;
     }
 
 
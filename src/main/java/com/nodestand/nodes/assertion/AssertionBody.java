@@ -1,12 +1,14 @@
 package com.nodestand.nodes.assertion;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.nodestand.nodes.ArgumentBody;
 import com.nodestand.nodes.Author;
 import com.nodestand.nodes.ImmutableNodeException;
 import com.nodestand.nodes.User;
 import com.nodestand.nodes.version.MajorVersion;
-import com.nodestand.util.BodyParser;
+import com.nodestand.util.ParsedBodyText;
 import org.neo4j.ogm.annotation.NodeEntity;
+import org.neo4j.ogm.annotation.Transient;
 
 import java.util.Set;
 
@@ -16,6 +18,9 @@ public class AssertionBody extends ArgumentBody {
 
     private String body;
 
+    @Transient
+    private ParsedBodyText parsedBody;
+
     public AssertionBody() {}
 
     @Override
@@ -25,7 +30,20 @@ public class AssertionBody extends ArgumentBody {
 
     @Override
     public Set<String> getMajorVersionsFromBodyText() {
-        return BodyParser.getMajorVersions(body);
+        return getParsedBody().getMajorVersionStableIds();
+    }
+
+    /**
+     * The links in the body text, parsed once and reused until the text changes.
+     */
+    @JsonIgnore
+    public ParsedBodyText getParsedBody() {
+        ParsedBodyText parsed = parsedBody;
+        if (parsed == null || !parsed.isParsedFrom(body)) {
+            parsed = ParsedBodyText.parse(body);
+            parsedBody = parsed;
+        }
+        return parsed;
     }
 
     public AssertionBody(String title, String qualifier, String body, Author author) {
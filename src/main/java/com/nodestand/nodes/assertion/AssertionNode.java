@@ -71,7 +71,7 @@ public class AssertionNode extends ArgumentNode {
     }
 
     public void updateChildOrder(ArgumentNodeRepository repo) throws NodeRulesException {
-        String[] links = BodyParser.validateAndSortLinks(getSupportingNodes(), getBody().getBody(), repo);
+        String[] links = BodyParser.validateAndSortLinks(getSupportingNodes(), getBody().getParsedBody(), repo);
         childOrder = String.join(",", links);
     }
 
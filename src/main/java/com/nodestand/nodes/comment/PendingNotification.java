@@ -0,0 +1,88 @@
+package com.nodestand.nodes.comment;
+
+import org.neo4j.ogm.annotation.GraphId;
+import org.neo4j.ogm.annotation.NodeEntity;
+import org.neo4j.ogm.annotation.typeconversion.DateLong;
+
+import java.util.Date;
+
+/**
+ * An email owed to a watcher because somebody replied to their comment. These are written in the same transaction
+ * as the reply and sent later by {@link com.nodestand.service.email.NotificationDispatcher}, after which they are
+ * deleted. The comment bodies are copied in so that sending doesn't need to read the thread again.
+ */
+@NodeEntity
+public class PendingNotification {
+
+    @GraphId
+    private Long id;
+
+    private String recipientEmail;
+
+    private Long parentCommentId;
+
+    private Long replyCommentId;
+
+    private String parentBody;
+
+    private String replyBody;
+
+    private int attempts;
+
+    @DateLong
+    private Date dateCreated;
+
+    /**
+     * Not to be sent before this. Pushed back while a dispatcher holds the notification and after failed sends.
+     */
+    @DateLong
+    private Date nextAttempt;
+
+    public PendingNotification() {}
+
+    public PendingNotification(String recipientEmail, Comment parentComment, Comment reply) {
+        this.recipientEmail = recipientEmail;
+        this.parentCommentId = parentComment.getId();
+        this.replyCommentId = reply.getId();
+        this.parentBody = parentComment.body;
+        this.replyBody = reply.body;
+        this.dateCreated = new Date();
+        this.nextAttempt = dateCreated;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getRecipientEmail() {
+        return recipientEmail;
+    }
+
+    public Long getParentCommentId() {
+        return parentCommentId;
+    }
+
+    public Long getReplyCommentId() {
+        return replyCommentId;
+    }
+
+    public String getParentBody() {
+        return parentBody;
+    }
+
+    public String getReplyBody() {
+        return replyBody;
+    }
+
+    public int getAttempts() {
+        return attempts;
+    }
+
+    public Date getDateCreated() {
+        return dateCreated;
+    }
+
+    public Date getNextAttempt() {
+        return nextAttempt;
+    }
+}
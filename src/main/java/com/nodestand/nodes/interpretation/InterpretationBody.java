@@ -1,10 +1,12 @@
 package com.nodestand.nodes.interpretation;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.nodestand.nodes.ArgumentBody;
 import com.nodestand.nodes.Author;
 import com.nodestand.nodes.ImmutableNodeException;
 import com.nodestand.nodes.version.MajorVersion;
-import com.nodestand.util.BodyParser;
+import com.nodestand.util.ParsedBodyText;
+import org.neo4j.ogm.annotation.Transient;
 
 import java.util.Set;
 
@@ -12,6 +14,9 @@ public class InterpretationBody extends ArgumentBody {
 
     String body;
 
+    @Transient
+    private ParsedBodyText parsedBody;
+
     public InterpretationBody() {}
 
     @Override
@@ -22,7 +27,20 @@ public class InterpretationBody extends ArgumentBody {
 
     @Override
     public Set<String> getMajorVersionsFromBodyText() {
-        return BodyParser.getMajorVersions(body);
+        return getParsedBody().getMajorVersionStableIds();
+    }
+
+    /**
+     * The links in the body text, parsed once and reused until the text changes.
+     */
+    @JsonIgnore
+    public ParsedBodyText getParsedBody() {
+        ParsedBodyText parsed = parsedBody;
+        if (parsed == null || !parsed.isParsedFrom(body)) {
+            parsed = ParsedBodyText.parse(body);
+            parsedBody = parsed;
+        }
+        return parsed;
     }
 
     public InterpretationBody(String title, String qualifier, String body, Author author) {
@@ -8,8 +8,12 @@ import java.util.Set;
 
 public interface ArgumentBodyRepository extends GraphRepository<ArgumentBody> {
 
-    @Query("MATCH p=(u:User)<-[CONTROLLED_BY]-(:Author)<-[:AUTHORED_BY]-(n:ArgumentBody)-[:VERSION_OF]->(m:MajorVersion)" +
-            " WHERE n.title=~{0} AND (n.isPublic OR id(u)={1}) return p")
-    Set<ArgumentBody> queryTitlesRich(String query, long searcherId);
+    /**
+     * Every body that currently defines a node, i.e. excluding superseded versions, along with its major version
+     * and the user behind its author.
+     */
+    @Query("MATCH p=(u:User)<-[:CONTROLLED_BY]-(:Author)<-[:AUTHORED_BY]-(n:ArgumentBody)-[:VERSION_OF]->(m:MajorVersion)" +
+            " WHERE (n)<-[:DEFINED_BY]-(:ArgumentNode) return p")
+    Set<ArgumentBody> getCurrentBodiesRich();
 
 }
@@ -7,6 +7,8 @@ import org.neo4j.ogm.model.Result;
 import org.springframework.data.neo4j.annotation.Query;
 import org.springframework.data.neo4j.repository.GraphRepository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Set;
 
 public interface ArgumentNodeRepository extends GraphRepository<ArgumentNode> {
@@ -30,10 +32,39 @@ public interface ArgumentNodeRepository extends GraphRepository<ArgumentNode> {
     @Query("match p=(node:ArgumentNode)-[:DEFINED_BY]->(body:ArgumentBody)-[:AUTHORED_BY]->(:Author) return p")
     Set<ArgumentNode> getAllNodesRich();
 
-    @Query("match p=(n:AssertionNode)-[:DEFINED_BY]->(b:ArgumentBody {isPublic:true})-[:VERSION_OF]->(:MajorVersion)-[:AUTHORED_BY]->(:Author)" +
-            " where not (:AssertionNode)-[:SUPPORTED_BY]->(n)" +
+    /**
+     * The columns read by RootNodeIndex.Root: when the major version was first written, its vote count, and how
+     * many comments are in its thread.
+     */
+    String ROOT_NODE_COLUMNS = " OPTIONAL MATCH (mv)<-[:VERSION_OF]-(version:ArgumentBody)" +
+            " WITH n, mv, min(version.dateCreated) AS created" +
+            " OPTIONAL MATCH (comment:Comment)-[:RESPONDS_TO*]->(mv)" +
+            " RETURN n.stableId AS stableId, ID(n) AS nodeId, mv.stableId AS majorVersionStableId, created," +
+            " coalesce(mv.greatVotes, 0) + coalesce(mv.weakVotes, 0) + coalesce(mv.toucheVotes, 0) + coalesce(mv.trashVotes, 0) AS votes," +
+            " count(DISTINCT comment) AS comments";
+
+    /**
+     * Every root node, i.e. public assertion that no public assertion links to. This is the expensive anti-join,
+     * so it only runs when RootNodeIndex is filled.
+     */
+    @Query("MATCH (n:AssertionNode)-[:DEFINED_BY]->(:ArgumentBody {isPublic:true})-[:VERSION_OF]->(mv:MajorVersion)" +
+            " WHERE NOT (n)<-[:SUPPORTED_BY]-(:AssertionNode)-[:DEFINED_BY]->(:ArgumentBody {isPublic:true})" +
+            ROOT_NODE_COLUMNS)
+    Result getRootNodeRankings();
+
+    /**
+     * Whichever of the given nodes are root nodes. Matched as ArgumentNode too so that the stableId index is used.
+     */
+    @Query("MATCH (n:ArgumentNode:AssertionNode) WHERE n.stableId IN {0}" +
+            " MATCH (n)-[:DEFINED_BY]->(:ArgumentBody {isPublic:true})-[:VERSION_OF]->(mv:MajorVersion)" +
+            " WHERE NOT (n)<-[:SUPPORTED_BY]-(:AssertionNode)-[:DEFINED_BY]->(:ArgumentBody {isPublic:true})" +
+            ROOT_NODE_COLUMNS)
+    Result getRootNodeRankings(Collection<String> stableIds);
+
+    @Query("match p=(n:ArgumentNode)-[:DEFINED_BY]->(b:ArgumentBody)-[:VERSION_OF]->(:MajorVersion)-[:AUTHORED_BY]->(:Author)" +
+            " where ID(n) IN {0}" +
             " with p as p, b as b match q=(b)-[:AUTHORED_BY]->(:Author) return p, q")
-    Set<ArgumentNode> getRootNodesRich();
+    Set<ArgumentNode> getNodesRich(Collection<Long> ids);
 
     @Query("match p=(n:ArgumentNode {stableId: {0}})-[:DEFINED_BY]->(b:ArgumentBody)-[:VERSION_OF]->(:MajorVersion)-[:AUTHORED_BY]->(:Author)" +
             " with p as p, b as b match q=(b)-[:AUTHORED_BY]->(:Author) return p, q")
@@ -51,12 +82,19 @@ public interface ArgumentNodeRepository extends GraphRepository<ArgumentNode> {
             " return p, q, c")
     Set<ArgumentNode> loadWithMajorVersionAndChildren(long id);
 
-    @Query("start n=node({0}) match (body)-[VERSION_OF]->(n) return max(body.minorVersion)")
-    Integer getMaxMinorVersion(long majorVersionId);
-
-
-    @Query("start n=node({0}) match (node)-[DEFINED_BY]->(n) return max(node.buildVersion)")
-    Integer getMaxBuildVersion(long bodyId);
+    /**
+     * Loads the given node and every draft beneath it, along with what publishing them touches: their bodies and
+     * major versions, their parents, children and previous versions, and the children of those.
+     */
+    @Query("MATCH tree=(root:ArgumentNode)-[:SUPPORTED_BY|INTERPRETS*0..]->(d:ArgumentNode) WHERE ID(root) = {0}" +
+            " AND ALL(x IN tail(nodes(tree)) WHERE (x)-[:DEFINED_BY]->(:ArgumentBody {isPublic:false}))" +
+            " WITH DISTINCT d" +
+            " MATCH own=(d)-[:DEFINED_BY]->(b:ArgumentBody)-[:VERSION_OF]->(:MajorVersion)-[:AUTHORED_BY]->(:Author)" +
+            " MATCH editor=(b)-[:AUTHORED_BY]->(:Author)" +
+            " OPTIONAL MATCH near=(d)-[:SUPPORTED_BY|INTERPRETS|PRECEDED_BY]-(n:ArgumentNode)-[:DEFINED_BY]->(:ArgumentBody)-[:VERSION_OF]->(:MajorVersion)" +
+            " OPTIONAL MATCH far=(n)-[:SUPPORTED_BY|INTERPRETS]->(:ArgumentNode)-[:DEFINED_BY]->(:ArgumentBody)-[:VERSION_OF]->(:MajorVersion)" +
+            " RETURN own, editor, near, far")
+    Set<ArgumentNode> loadDraftSubtree(long rootId);
 
     @Query("start n=node({0}) match (n)-[:SUPPORTED_BY*0..]->(support:ArgumentNode) " +
             "WHERE NOT (support)-[:INTERPRETS]->(:SourceNode) " +
@@ -64,6 +102,13 @@ public interface ArgumentNodeRepository extends GraphRepository<ArgumentNode> {
             "AND NOT (support)-[:SUPPORTED_BY]->(:ArgumentNode) return support")
     Set<ArgumentNode> getUnsupportedNodes(long nodeId);
 
+    /**
+     * Ids of the drafts that link directly to the given node. Their groundedness depends on it.
+     */
+    @Query("start n=node({0}) match (parent:ArgumentNode)-[:SUPPORTED_BY]->(n), (parent)-[:DEFINED_BY]->(b:ArgumentBody) " +
+            "where NOT b.isPublic return ID(parent)")
+    List<Long> getDraftParentIds(long nodeId);
+
     @Query("match p=(:Author {stableId: {0}})<-[:AUTHORED_BY]-(b:ArgumentBody)<-[:DEFINED_BY]-(n:ArgumentNode) where not b.isPublic" +
             " with p as p, b as b match q=(b)-[:VERSION_OF]->(:MajorVersion)-[:AUTHORED_BY]->(:Author) return p, q")
     Set<ArgumentNode> getDraftNodesRich(String authorStableId);
@@ -78,9 +123,17 @@ public interface ArgumentNodeRepository extends GraphRepository<ArgumentNode> {
     Set<ArgumentNode> getConsumerNodes(String stableId);
 
     @Query("MATCH (c:ArgumentNode)-[:SUPPORTED_BY|INTERPRETS]->(n:ArgumentNode {stableId: {0}})" +
-            " with c match p=(c)-[:DEFINED_BY]->(b:ArgumentBody)-[:AUTHORED_BY]->(:Author)-[:CONTROLLED_BY]->(u:User) where b.isPublic OR ID(u) = {1}" +
+            " with c match p=(c)-[:DEFINED_BY]->(b:ArgumentBody)-[:AUTHORED_BY]->(:Author)-[:CONTROLLED_BY]->(u:User) where NOT b.isPublic AND ID(u) = {1}" +
             " with p as p, b as b match q=(b)-[:VERSION_OF]->(:MajorVersion)-[:AUTHORED_BY]->(:Author) return p, q")
-    Set<ArgumentNode> getConsumerNodes(String stableId, long userId);
+    Set<ArgumentNode> getDraftConsumerNodes(String stableId, long userId);
+
+    /**
+     * Stable ids of every node that is consumed by at least one of the user's drafts.
+     */
+    @Query("MATCH (c:ArgumentNode)-[:SUPPORTED_BY|INTERPRETS]->(n:ArgumentNode)," +
+            " (c)-[:DEFINED_BY]->(b:ArgumentBody)-[:AUTHORED_BY]->(:Author)-[:CONTROLLED_BY]->(u:User)" +
+            " WHERE NOT b.isPublic AND ID(u) = {0} RETURN DISTINCT n.stableId")
+    Set<String> getStableIdsConsumedByDrafts(long userId);
 
     @Query("MATCH p=(rootNode:ArgumentNode {stableId:{0}})-[:DEFINED_BY]->(rootBody:ArgumentBody)-[:PRECEDED_BY*0..]->(:ArgumentBody)" +
             " WITH p as p, nodes(p) as pathNodes, rootBody as rootBody, rootNode as rootNode" +
@@ -2,18 +2,49 @@ package com.nodestand.nodes.repository;
 
 import com.nodestand.nodes.comment.Comment;
 import com.nodestand.nodes.comment.Commentable;
+import com.nodestand.nodes.version.MajorVersion;
+import org.neo4j.ogm.model.Result;
 import org.springframework.data.neo4j.annotation.Query;
 import org.springframework.data.neo4j.repository.GraphRepository;
 
+import java.util.Collection;
 import java.util.Set;
 
 public interface CommentableRepository extends GraphRepository<Commentable> {
 
-    @Query("match path=(:ArgumentNode {stableId: {0}})-[:DEFINED_BY]->(:ArgumentBody)-[:VERSION_OF]->(:MajorVersion)" +
-            "<-[:RESPONDS_TO*0..]-(:Comment)-[:AUTHORED_BY]->(:Author) return path")
-    Set<Commentable> getComments(String nodeStableId);
+    /**
+     * The major version that holds the comment thread of the node.
+     */
+    @Query("match (:ArgumentNode {stableId: {0}})-[:DEFINED_BY]->(:ArgumentBody)-[:VERSION_OF]->(mv:MajorVersion) return mv")
+    MajorVersion getCommentedMajorVersion(String nodeStableId);
+
+    /**
+     * Pages through the direct replies of each parent, best first, and returns rows of parentId and commentIds.
+     * Ranking is by score or by dateCreated, with ties broken by id. When afterKey is given, only replies that rank
+     * after (afterKey, afterId) are returned. Nothing below the replies is matched, so the rest of the thread is not
+     * touched.
+     */
+    @Query("match (c:Comment)-[:RESPONDS_TO]->(p) where ID(p) IN {0}" +
+            " with p, c, case when {1} then c.score else c.dateCreated end as key" +
+            " where {2} is null or key < {2} or (key = {2} and ID(c) < {3})" +
+            " with p, c, key order by key desc, ID(c) desc" +
+            " with p, collect(ID(c))[0..{4}] as commentIds" +
+            " return ID(p) as parentId, commentIds")
+    Result getReplyPages(Collection<Long> parentIds, boolean byScore, Long afterKey, long afterId, int limit);
+
+    @Query("match p=(c:Comment)-[:AUTHORED_BY]->(:Author) where ID(c) IN {0} return p")
+    Set<Comment> loadWithAuthors(Collection<Long> commentIds);
+
+    /**
+     * Rows of parentId and replies. Reads the relationship count without visiting the replies.
+     */
+    @Query("match (p) where ID(p) IN {0} return ID(p) as parentId, size((p)<-[:RESPONDS_TO]-()) as replies")
+    Result countReplies(Collection<Long> parentIds);
 
     @Query("match p=(c:Comment)-[:AUTHORED_BY]->(:Author)-[:CONTROLLED_BY]->(:User)" +
             " where ID(c) = {0} return p")
     Comment loadWithAuthor(long commentId);
+
+    @Query("match (c:Comment)-[:RESPONDS_TO*]->(mv:MajorVersion) where ID(c) = {0} return mv.stableId")
+    String getThreadMajorVersionStableId(long commentId);
 }
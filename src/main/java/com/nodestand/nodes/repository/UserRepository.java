@@ -5,6 +5,9 @@ import com.nodestand.nodes.User;
 import org.springframework.data.neo4j.annotation.Query;
 import org.springframework.data.neo4j.repository.GraphRepository;
 
+import java.util.Collection;
+import java.util.Set;
+
 public interface UserRepository extends GraphRepository<User> {
 
     @Query("match p=(u:User {stableId: {0}})<-[:CONTROLLED_BY]-(:Author) return p")
@@ -22,11 +25,28 @@ public interface UserRepository extends GraphRepository<User> {
     @Query("match (a:Author {stableId: {0}}) return a")
     Author loadAuthor(String authorStableId);
 
+    @Query("match (a:Author) where a.stableId IN {0} return a")
+    Set<Author> loadAuthors(Collection<String> authorStableIds);
+
     @Query("match p=(u:User {stableId: {0}})<-[:CONTROLLED_BY]-(:Author) " +
             "with p, u optional match bv=(u)-[:ARGUMENT_VOTE]->(:MajorVersion) " +
             "with p, u, bv optional match cv=(u)-[:COMMENT_VOTE]->(:Comment) return u, p, bv, cv")
     User loadUserWithVotes(String stableId);
 
+    /**
+     * Loads the user with their aliases and, if it exists, the one vote they cast on the given major version.
+     */
+    @Query("match p=(u:User {stableId: {0}})<-[:CONTROLLED_BY]-(:Author) " +
+            "with p, u optional match bv=(u)-[:ARGUMENT_VOTE]->(:MajorVersion {stableId: {1}}) return u, p, bv")
+    User loadUserWithVoteOn(String userStableId, String majorVersionStableId);
+
+    /**
+     * Loads the user with their aliases and, if it exists, the one vote they cast on the given comment.
+     */
+    @Query("match p=(u:User {stableId: {0}})<-[:CONTROLLED_BY]-(:Author) " +
+            "with p, u optional match cv=(u)-[:COMMENT_VOTE]->(c:Comment) where id(c) = {1} return u, p, cv")
+    User loadUserWithCommentVote(String userStableId, long commentId);
+
     @Query("return exists( (:Author {stableId: {0}})<-[:AUTHORED_BY]-(:ArgumentBody {isPublic: true}) )")
     boolean isPublishedAuthor(String authorStableId);
 }
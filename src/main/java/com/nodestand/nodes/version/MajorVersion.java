@@ -3,10 +3,8 @@ package com.nodestand.nodes.version;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.nodestand.nodes.ArgumentNode;
 import com.nodestand.nodes.Author;
-import com.nodestand.nodes.NodeRulesException;
 import com.nodestand.nodes.User;
 import com.nodestand.nodes.comment.Commentable;
-import com.nodestand.nodes.vote.VoteType;
 import com.nodestand.util.IdGenerator;
 import org.neo4j.ogm.annotation.*;
 
@@ -29,14 +27,27 @@ public class MajorVersion implements Commentable {
     public Author author;
 
     // I'm not using a map for this because you're not allowed to save maps on nodes.
+    // Votes are buffered in VoteCounterBuffer and written to the node with atomic increments. These fields are
+    // unmapped so that saving a MajorVersion can't write stale counts over them; VoteCountLoader fills them in.
+    // VoteCountModule adds the pending votes when they are serialized.
+    @Transient
     public int greatVotes;
+    @Transient
     public int weakVotes;
+    @Transient
     public int toucheVotes;
+    @Transient
     public int trashVotes;
 
     @Property
     private String[] edgeOwners;
 
+    // The node also carries a nextMinorVersion counter, which VersionHelper bumps in Cypher when publishing. It is
+    // left unmapped on purpose: OGM only writes mapped properties, so saving a stale MajorVersion can't rewind it.
+
+    @Transient
+    private ParsedEdgeOwners parsedEdgeOwners;
+
     public MajorVersion() {}
 
     public MajorVersion(int versionNumber, VersionAggregator versionAggregator, Author author) {
@@ -67,86 +78,78 @@ public class MajorVersion implements Commentable {
         return stableId;
     }
 
-    public void decrementVote(VoteType voteType) throws NodeRulesException {
-        switch (voteType) {
-            case GREAT:
-                greatVotes--;
-                break;
-            case WEAK:
-                weakVotes--;
-                break;
-            case TOUCHE:
-                toucheVotes--;
-                break;
-            case TRASH:
-                trashVotes--;
-                break;
-            default:
-                throw new NodeRulesException("Unexpected vote type: " + voteType.name());
-        }
-    }
-
-    public void incrementVote(VoteType voteType) throws NodeRulesException {
-        switch (voteType) {
-            case GREAT:
-                greatVotes++;
-                break;
-            case WEAK:
-                weakVotes++;
-                break;
-            case TOUCHE:
-                toucheVotes++;
-                break;
-            case TRASH:
-                trashVotes++;
-                break;
-            default:
-                throw new NodeRulesException("Unexpected vote type: " + voteType.name());
-        }
-    }
-
     /**
      * This is a map of majorVersionStableId -> authorStableId.
      *
-     * Mutating the returned map and then saving the node will have no effect.
-     * You need to use the setter.
+     * The returned map is unmodifiable and shared between callers; it is only parsed again when the persisted
+     * array is replaced. Use mergeEdgeOwners to make changes.
      */
     public Map<String, String> getEdgeOwners() {
 
-        Map<String, String> owners = new HashMap<>();
-        if (edgeOwners == null) {
-            return owners; // TODO: some kind of backfill?
-        }
-
-        for (String s: edgeOwners) {
-            String[] entity = s.split(" ");
-            owners.put(entity[0], entity[1]);
+        ParsedEdgeOwners parsed = parsedEdgeOwners;
+        if (parsed == null || parsed.source != edgeOwners) {
+            parsed = new ParsedEdgeOwners(edgeOwners, parse(edgeOwners));
+            parsedEdgeOwners = parsed;
         }
-        return owners;
+        return parsed.owners;
     }
 
     private void setEdgeOwners(Map<String, String> owners) {
-        edgeOwners = new String[owners.size()];
+        String[] serialized = new String[owners.size()];
 
         int i = 0;
         for (Map.Entry<String, String> entry: owners.entrySet()) {
-            edgeOwners[i++] = String.format("%s %s", entry.getKey(), entry.getValue());
+            serialized[i++] = entry.getKey() + ' ' + entry.getValue();
         }
+
+        edgeOwners = serialized;
+        parsedEdgeOwners = new ParsedEdgeOwners(serialized, Collections.unmodifiableMap(owners));
     }
 
     public void mergeEdgeOwner(Author author, String majorVersionStableId) {
-        Set<String> single = new HashSet<>();
-        single.add(majorVersionStableId);
-        mergeEdgeOwners(author, single);
+        mergeEdgeOwners(author, Collections.singleton(majorVersionStableId));
     }
 
     public void mergeEdgeOwners(Author author, Collection<String> majorVersionStableId) {
-        Map<String, String> edgeOwners = getEdgeOwners();
+        Map<String, String> current = getEdgeOwners();
+        Map<String, String> merged = null;
         for (String mvId: majorVersionStableId) {
-            if (!edgeOwners.containsKey(mvId)) {
-                edgeOwners.put(mvId, author.getStableId());
+            if (!current.containsKey(mvId)) {
+                if (merged == null) {
+                    merged = new HashMap<>(current); // Copy on first change; most edits don't add new edges.
+                }
+                merged.putIfAbsent(mvId, author.getStableId());
             }
         }
-        setEdgeOwners(edgeOwners);
+        if (merged != null || edgeOwners == null) {
+            setEdgeOwners(merged != null ? merged : new HashMap<>(current));
+        }
+    }
+
+    private static Map<String, String> parse(String[] edgeOwners) {
+        if (edgeOwners == null) {
+            return Collections.emptyMap();
+        }
+
+        Map<String, String> owners = new HashMap<>();
+        for (String s: edgeOwners) {
+            int space = s.indexOf(' ');
+            owners.put(s.substring(0, space), s.substring(space + 1));
+        }
+        return Collections.unmodifiableMap(owners);
+    }
+
+    /**
+     * The parsed form of an edgeOwners array, along with the array it came from. Kept as one object so that
+     * threads sharing a cached MajorVersion never see a map paired with the wrong array.
+     */
+    private static class ParsedEdgeOwners {
+        private final String[] source;
+        private final Map<String, String> owners;
+
+        private ParsedEdgeOwners(String[] source, Map<String, String> owners) {
+            this.source = source;
+            this.owners = owners;
+        }
     }
 }
@@ -0,0 +1,74 @@
+package com.nodestand.nodes.vote;
+
+import org.neo4j.ogm.annotation.GraphId;
+import org.neo4j.ogm.annotation.NodeEntity;
+import org.neo4j.ogm.annotation.typeconversion.DateLong;
+
+import java.util.Date;
+
+/**
+ * Points owed to an author because of a vote. These are written in the same transaction as the vote itself and
+ * later folded into {@link com.nodestand.nodes.Author#getNodePoints()} in batches, after which they are kept under
+ * the :AppliedScore label as the log of every author's points.
+ */
+@NodeEntity
+public class PendingScore {
+
+    @GraphId
+    private Long id;
+
+    private String recipientStableId; // This is an authorStableId
+
+    private String granterStableId; // This is a userStableId
+
+    private String nodeStableId;
+
+    private int points;
+
+    private VoteType voteType;
+
+    private boolean isNegation;
+
+    @DateLong
+    private Date dateCreated;
+
+    public PendingScore() {}
+
+    public PendingScore(String recipientStableId, String granterStableId, String nodeStableId, int points, VoteType voteType, boolean isNegation) {
+        this.recipientStableId = recipientStableId;
+        this.granterStableId = granterStableId;
+        this.nodeStableId = nodeStableId;
+        this.points = points;
+        this.voteType = voteType;
+        this.isNegation = isNegation;
+        this.dateCreated = new Date();
+    }
+
+    public String getRecipientStableId() {
+        return recipientStableId;
+    }
+
+    public String getGranterStableId() {
+        return granterStableId;
+    }
+
+    public String getNodeStableId() {
+        return nodeStableId;
+    }
+
+    public int getPoints() {
+        return points;
+    }
+
+    public VoteType getVoteType() {
+        return voteType;
+    }
+
+    public boolean isNegation() {
+        return isNegation;
+    }
+
+    public Date getDateCreated() {
+        return dateCreated;
+    }
+}
@@ -0,0 +1,103 @@
+package com.nodestand.service;
+
+import com.nodestand.nodes.ArgumentNode;
+import com.nodestand.nodes.LeafNode;
+import com.nodestand.nodes.Node;
+import com.nodestand.nodes.repository.ArgumentNodeRepository;
+import org.neo4j.ogm.session.Session;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.HashSet;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Maintains the grounded flag on argument nodes. A node is grounded if it is a leaf, or if it has children and all
+ * of them are grounded. That only depends on a node's direct children, so when a node's links change we recompute
+ * it from the children's flags and walk up to the draft parents only while the answer keeps changing.
+ *
+ * Published nodes are always grounded, since publishing requires it and they are never edited in place.
+ */
+@Component
+public class GroundingTracker {
+
+    private final ArgumentNodeRepository nodeRepository;
+
+    private final Session session;
+
+    @Autowired
+    public GroundingTracker(ArgumentNodeRepository nodeRepository, Session session) {
+        this.nodeRepository = nodeRepository;
+        this.session = session;
+    }
+
+    public boolean isGrounded(Node node) {
+        if (node instanceof LeafNode) {
+            return true;
+        }
+
+        ArgumentNode argumentNode = (ArgumentNode) node;
+        if (argumentNode.getGrounded() != null) {
+            return argumentNode.getGrounded();
+        }
+
+        if (argumentNode.getBody() != null && argumentNode.getBody().isPublic()) {
+            return true;
+        }
+
+        // Written before the flag existed, so fall back to walking the tree once and remember the answer.
+        boolean grounded = argumentNode.getId() != null && nodeRepository.getUnsupportedNodes(argumentNode.getId()).isEmpty();
+        argumentNode.setGrounded(grounded);
+        return grounded;
+    }
+
+    /**
+     * Recomputes the flag after the node's children have changed. New nodes are left for the caller to save; for
+     * existing ones the flag is written before moving on to any draft parents whose flag changes as a result.
+     */
+    public void refresh(ArgumentNode node) {
+        if (recompute(node) && node.getId() != null) {
+            session.save(node, 0);
+            Set<Long> visited = new HashSet<>();
+            visited.add(node.getId());
+            refreshParents(node.getId(), visited);
+        }
+    }
+
+    private void refreshParents(long nodeId, Set<Long> visited) {
+        for (Long parentId : nodeRepository.getDraftParentIds(nodeId)) {
+            if (!visited.add(parentId)) {
+                continue;
+            }
+            ArgumentNode parent = session.load(ArgumentNode.class, parentId, 1);
+            if (recompute(parent)) {
+                session.save(parent, 0);
+                refreshParents(parentId, visited);
+            }
+        }
+    }
+
+    /**
+     * Returns true if the flag changed.
+     */
+    private boolean recompute(ArgumentNode node) {
+        boolean grounded = node instanceof LeafNode || hasGroundedChildren(node);
+        Boolean previous = node.getGrounded();
+        node.setGrounded(grounded);
+        return !Objects.equals(previous, grounded);
+    }
+
+    private boolean hasGroundedChildren(ArgumentNode node) {
+        Set<Node> children = node.getGraphChildren();
+        if (children == null || children.isEmpty()) {
+            return false;
+        }
+        for (Node child : children) {
+            if (!isGrounded(child)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
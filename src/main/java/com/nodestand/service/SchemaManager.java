@@ -0,0 +1,336 @@
+package com.nodestand.service;
+
+import com.nodestand.nodes.repository.ArgumentBodyRepository;
+import com.nodestand.nodes.repository.ArgumentNodeRepository;
+import com.nodestand.nodes.repository.CommentableRepository;
+import com.nodestand.nodes.repository.UserRepository;
+import org.neo4j.ogm.session.Session;
+import org.neo4j.ogm.session.SessionFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.env.Environment;
+import org.springframework.data.neo4j.annotation.Query;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.lang.reflect.Method;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Makes sure the indexes and unique constraints that the queries rely on exist, so that a fresh or restored
+ * database doesn't quietly fall back to label scans. Runs at startup, before any requests are served: creates
+ * whatever is missing, waits for the indexes to come online, and logs their state.
+ *
+ * It also reads the @Query of every repository method, and logs a warning for each property lookup that no index
+ * or constraint covers. Add those to the lists below.
+ */
+@Component
+public class SchemaManager {
+
+    /**
+     * Stable ids are generated and never copied, so they are unique per label. A unique constraint also indexes.
+     */
+    static final List<LabelProperty> UNIQUE = Collections.unmodifiableList(Arrays.asList(
+            new LabelProperty("ArgumentNode", "stableId"),
+            new LabelProperty("MajorVersion", "stableId"),
+            new LabelProperty("Author", "stableId"),
+            new LabelProperty("User", "stableId"),
+            new LabelProperty("Comment", "stableId")));
+
+    /**
+     * Users are looked up by providerId and providerUserId together. Neo4j 3.1 has no composite indexes, so only
+     * the selective half is indexed.
+     */
+    static final List<LabelProperty> INDEXED = Collections.unmodifiableList(Arrays.asList(
+            new LabelProperty("Author", "displayName"),
+            new LabelProperty("User", "providerUserId"),
+            new LabelProperty("ArgumentBody", "isPublic"),
+            new LabelProperty("ArgumentBody", "title")));
+
+    private static final List<Class<?>> REPOSITORIES = Arrays.asList(ArgumentNodeRepository.class,
+            UserRepository.class, CommentableRepository.class, ArgumentBodyRepository.class);
+
+    /**
+     * e.g. INDEX ON :Author(displayName)
+     */
+    private static final Pattern INDEX_DESCRIPTION = Pattern.compile(":(\\w+)\\((\\w+)\\)");
+
+    /**
+     * e.g. CONSTRAINT ON ( author:Author ) ASSERT author.stableId IS UNIQUE
+     */
+    private static final Pattern CONSTRAINT_DESCRIPTION = Pattern.compile(":(\\w+)\\s*\\)\\s*ASSERT\\s+\\w+\\.(\\w+)\\s+IS UNIQUE");
+
+    /**
+     * A node pattern with labels and an inline property map, e.g. (n:ArgumentNode {stableId: {0}}).
+     */
+    private static final Pattern NODE_WITH_PROPERTIES = Pattern.compile("\\(\\s*(\\w*)\\s*((?::\\w+)+)\\s*\\{([^)]*)\\}\\s*\\)");
+
+    /**
+     * A node pattern that binds a variable to labels, e.g. (n:ArgumentNode:AssertionNode).
+     */
+    private static final Pattern LABELED_VARIABLE = Pattern.compile("\\(\\s*(\\w+)\\s*((?::\\w+)+)");
+
+    /**
+     * A property compared to a parameter in a WHERE clause, e.g. n.stableId IN {0}.
+     */
+    private static final Pattern WHERE_LOOKUP = Pattern.compile("\\b(\\w+)\\.(\\w+)\\s*(?:=|IN)\\s*\\{", Pattern.CASE_INSENSITIVE);
+
+    private static final Pattern MAP_KEY = Pattern.compile("(\\w+)\\s*:");
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    private final SessionFactory sessionFactory;
+
+    private final boolean enabled;
+
+    private final long populationTimeoutMillis;
+
+    @Autowired
+    public SchemaManager(SessionFactory sessionFactory, Environment environment) {
+        this.sessionFactory = sessionFactory;
+        this.enabled = environment.getProperty("schema.enabled", Boolean.class, true);
+        this.populationTimeoutMillis = TimeUnit.SECONDS.toMillis(
+                environment.getProperty("schema.populationTimeoutSeconds", Long.class, 600L));
+    }
+
+    @PostConstruct
+    public void ensureSchema() {
+        if (!enabled) {
+            return;
+        }
+
+        Session session = sessionFactory.openSession();
+        createMissing(session);
+        List<IndexState> indexes = awaitPopulation(session);
+
+        Set<LabelProperty> covered = new HashSet<>();
+        for (IndexState index : indexes) {
+            if ("FAILED".equals(index.state)) {
+                logger.error("Index {} failed to populate and is not being used. Drop and recreate it.", index.description);
+            } else if (!"ONLINE".equals(index.state)) {
+                logger.warn("Index {} is still {} after waiting; queries will scan until it is online.", index.description, index.state);
+            } else {
+                logger.info("Index {} is online", index.description);
+            }
+            if (index.labelProperty != null) {
+                covered.add(index.labelProperty);
+            }
+        }
+
+        for (String lookup : findUnindexedLookups(repositoryQueries(), covered)) {
+            logger.warn("Repository query looks up {} but the database has no index on it", lookup);
+        }
+    }
+
+    /**
+     * Every index in the database and its state, e.g. ONLINE, POPULATING or FAILED.
+     */
+    public List<IndexState> getIndexes() {
+        return readIndexes(sessionFactory.openSession());
+    }
+
+    private void createMissing(Session session) {
+        Set<LabelProperty> indexes = new HashSet<>();
+        for (IndexState index : readIndexes(session)) {
+            indexes.add(index.labelProperty);
+        }
+        Set<LabelProperty> constraints = readConstraints(session);
+
+        for (LabelProperty unique : UNIQUE) {
+            if (constraints.contains(unique)) {
+                continue;
+            }
+            if (indexes.contains(unique)) {
+                // A constraint brings its own index, and can't be created while a plain one is in the way.
+                execute(session, "DROP INDEX ON :" + unique.label + "(" + unique.property + ")");
+            }
+            logger.info("Creating unique constraint on :{}({})", unique.label, unique.property);
+            try {
+                execute(session, "CREATE CONSTRAINT ON (n:" + unique.label + ") ASSERT n." + unique.property + " IS UNIQUE");
+            } catch (RuntimeException e) {
+                // Most likely existing duplicates. Keep the lookups fast in the meantime.
+                logger.error("Could not create unique constraint on :{}({}); indexing it instead", unique.label, unique.property, e);
+                execute(session, "CREATE INDEX ON :" + unique.label + "(" + unique.property + ")");
+            }
+        }
+
+        for (LabelProperty index : INDEXED) {
+            if (!indexes.contains(index) && !constraints.contains(index)) {
+                logger.info("Creating index on :{}({})", index.label, index.property);
+                execute(session, "CREATE INDEX ON :" + index.label + "(" + index.property + ")");
+            }
+        }
+    }
+
+    private List<IndexState> awaitPopulation(Session session) {
+        long deadline = System.currentTimeMillis() + populationTimeoutMillis;
+        while (true) {
+            List<IndexState> indexes = readIndexes(session);
+            boolean populating = indexes.stream().anyMatch(i -> "POPULATING".equals(i.state));
+            if (!populating || System.currentTimeMillis() >= deadline) {
+                return indexes;
+            }
+            try {
+                Thread.sleep(500);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return indexes;
+            }
+        }
+    }
+
+    private static List<IndexState> readIndexes(Session session) {
+        List<IndexState> indexes = new ArrayList<>();
+        for (Map<String, Object> row : session.query("CALL db.indexes()", Collections.emptyMap()).queryResults()) {
+            String description = String.valueOf(row.get("description"));
+            Matcher matcher = INDEX_DESCRIPTION.matcher(description);
+            LabelProperty labelProperty = matcher.find() ? new LabelProperty(matcher.group(1), matcher.group(2)) : null;
+            indexes.add(new IndexState(description, labelProperty, String.valueOf(row.get("state"))));
+        }
+        return indexes;
+    }
+
+    private static Set<LabelProperty> readConstraints(Session session) {
+        Set<LabelProperty> constraints = new HashSet<>();
+        for (Map<String, Object> row : session.query("CALL db.constraints()", Collections.emptyMap()).queryResults()) {
+            Matcher matcher = CONSTRAINT_DESCRIPTION.matcher(String.valueOf(row.get("description")));
+            if (matcher.find()) {
+                constraints.add(new LabelProperty(matcher.group(1), matcher.group(2)));
+            }
+        }
+        return constraints;
+    }
+
+    /**
+     * Schema changes can't share a transaction with anything else, so each one runs on its own.
+     */
+    private static void execute(Session session, String cypher) {
+        session.query(cypher, Collections.emptyMap());
+    }
+
+    static Map<String, String> repositoryQueries() {
+        Map<String, String> queries = new TreeMap<>();
+        for (Class<?> repository : REPOSITORIES) {
+            for (Method method : repository.getDeclaredMethods()) {
+                Query query = method.getAnnotation(Query.class);
+                if (query != null) {
+                    queries.put(repository.getSimpleName() + "." + method.getName(), query.value());
+                }
+            }
+        }
+        return queries;
+    }
+
+    /**
+     * Reads the property lookups out of each query, by inline property map or by WHERE x.prop = / IN {param}, and
+     * returns a description of each one that no index covers. A lookup is covered if any of the node's labels is
+     * indexed on any of the properties it is matched by, since the planner only needs one to seek on.
+     */
+    static List<String> findUnindexedLookups(Map<String, String> queries, Set<LabelProperty> indexed) {
+        List<String> unindexed = new ArrayList<>();
+        for (Map.Entry<String, String> entry : queries.entrySet()) {
+            String cypher = entry.getValue();
+
+            Matcher node = NODE_WITH_PROPERTIES.matcher(cypher);
+            while (node.find()) {
+                List<String> labels = labels(node.group(2));
+                List<String> properties = new ArrayList<>();
+                Matcher key = MAP_KEY.matcher(node.group(3));
+                while (key.find()) {
+                    properties.add(key.group(1));
+                }
+                if (!covered(labels, properties, indexed)) {
+                    unindexed.add(describe(labels, properties) + " in " + entry.getKey());
+                }
+            }
+
+            Map<String, List<String>> labelsByVariable = new HashMap<>();
+            Matcher variable = LABELED_VARIABLE.matcher(cypher);
+            while (variable.find()) {
+                labelsByVariable.put(variable.group(1), labels(variable.group(2)));
+            }
+
+            Matcher where = WHERE_LOOKUP.matcher(cypher);
+            while (where.find()) {
+                List<String> labels = labelsByVariable.get(where.group(1));
+                List<String> properties = Collections.singletonList(where.group(2));
+                if (labels != null && !covered(labels, properties, indexed)) {
+                    unindexed.add(describe(labels, properties) + " in " + entry.getKey());
+                }
+            }
+        }
+        return unindexed;
+    }
+
+    private static boolean covered(List<String> labels, List<String> properties, Set<LabelProperty> indexed) {
+        for (String label : labels) {
+            for (String property : properties) {
+                if (indexed.contains(new LabelProperty(label, property))) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static List<String> labels(String labels) {
+        return Arrays.asList(labels.substring(1).split(":"));
+    }
+
+    private static String describe(List<String> labels, List<String> properties) {
+        return ":" + String.join(":", labels) + "(" + String.join(", ", properties) + ")";
+    }
+
+    public static class IndexState {
+        private final String description;
+        private final LabelProperty labelProperty;
+        private final String state;
+
+        private IndexState(String description, LabelProperty labelProperty, String state) {
+            this.description = description;
+            this.labelProperty = labelProperty;
+            this.state = state;
+        }
+
+        public String getDescription() {
+            return description;
+        }
+
+        public String getState() {
+            return state;
+        }
+    }
+
+    static class LabelProperty {
+        private final String label;
+        private final String property;
+
+        LabelProperty(String label, String property) {
+            this.label = label;
+            this.property = property;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof LabelProperty)) {
+                return false;
+            }
+            LabelProperty other = (LabelProperty) o;
+            return label.equals(other.label) && property.equals(other.property);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(label, property);
+        }
+
+        @Override
+        public String toString() {
+            return ":" + label + "(" + property + ")";
+        }
+    }
+}
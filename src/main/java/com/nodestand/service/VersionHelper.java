@@ -2,26 +2,40 @@ package com.nodestand.service;
 
 import com.nodestand.nodes.*;
 import com.nodestand.nodes.assertion.AssertionNode;
-import com.nodestand.nodes.interpretation.InterpretationNode;
 import com.nodestand.nodes.repository.ArgumentBodyRepository;
 import com.nodestand.nodes.repository.ArgumentNodeRepository;
-import com.nodestand.nodes.source.SourceNode;
 import com.nodestand.nodes.version.MajorVersion;
 import com.nodestand.nodes.version.VersionAggregator;
+import com.nodestand.service.argument.GraphCache;
+import com.nodestand.service.argument.RootNodeIndex;
+import com.nodestand.service.search.SearchIndex;
 import com.nodestand.util.TwoWayUtil;
+import org.neo4j.ogm.model.Result;
 import org.neo4j.ogm.session.Session;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
-import java.util.Collection;
-import java.util.Date;
-import java.util.HashSet;
-import java.util.Set;
-import java.util.stream.Collectors;
+import java.util.*;
 
 @Component
 public class VersionHelper {
 
+    /**
+     * Bumps the nextMinorVersion counter on each major version and returns where each reservation starts. The lock
+     * property is written first so that concurrent publishes queue up on the node instead of reading the same value.
+     * Major versions from before the counter existed are seeded from their highest minor version.
+     */
+    private static final String RESERVE_MINOR_VERSIONS =
+            "UNWIND {reservations} AS reservation" +
+            " MATCH (mv:MajorVersion) WHERE ID(mv) = reservation.majorVersionId" +
+            " SET mv._lock = true" +
+            " WITH mv, reservation" +
+            " OPTIONAL MATCH (mv)<-[:VERSION_OF]-(body:ArgumentBody) WHERE NOT exists(mv.nextMinorVersion)" +
+            " WITH mv, reservation, max(body.minorVersion) AS legacyMax" +
+            " SET mv.nextMinorVersion = coalesce(mv.nextMinorVersion, coalesce(legacyMax, -1) + 1) + reservation.count" +
+            " REMOVE mv._lock" +
+            " RETURN ID(mv) AS majorVersionId, mv.nextMinorVersion - reservation.count AS firstMinorVersion";
+
     @Autowired
     ArgumentNodeRepository nodeRepository;
 
@@ -31,6 +45,18 @@ public class VersionHelper {
     @Autowired
     Session session;
 
+    @Autowired
+    GraphCache graphCache;
+
+    @Autowired
+    SearchIndex searchIndex;
+
+    @Autowired
+    RootNodeIndex rootNodeIndex;
+
+    @Autowired
+    GroundingTracker groundingTracker;
+
     /**
      * This sets the major and minor version on the draft body.
      * @param body
@@ -53,32 +79,117 @@ public class VersionHelper {
 
     }
 
-    private int getNextMinorVersion(MajorVersion majorVersion) {
+    /**
+     * Reserves count minor versions on each major version and returns the first reserved number of each.
+     */
+    private Map<Long, Integer> reserveMinorVersions(Map<Long, Integer> counts) {
 
-        Integer max = nodeRepository.getMaxMinorVersion(majorVersion.getId());
+        Map<Long, Integer> first = new HashMap<>();
+        if (counts.isEmpty()) {
+            return first;
+        }
 
-        if (max != null) {
-            return max + 1;
+        List<Map<String, Object>> reservations = new ArrayList<>();
+        counts.forEach((majorVersionId, count) -> {
+            Map<String, Object> reservation = new HashMap<>();
+            reservation.put("majorVersionId", majorVersionId);
+            reservation.put("count", count);
+            reservations.add(reservation);
+        });
+
+        Result result = session.query(RESERVE_MINOR_VERSIONS, Collections.singletonMap("reservations", reservations));
+        for (Map<String, Object> row : result.queryResults()) {
+            first.put(((Number) row.get("majorVersionId")).longValue(), ((Number) row.get("firstMinorVersion")).intValue());
         }
 
-        return 0;
+        return first;
     }
 
+    /**
+     * Publishes the draft along with every draft beneath it.
+     *
+     * The whole draft subtree is loaded with one query, the body transplants and re-pointing of parents are worked
+     * out in memory from the bottom up, and everything that changed is written with a single save at the end.
+     */
     public Node publish(Node draftNode) throws NodeRulesException {
 
-        // We'll need the reference to the major version later.
-        nodeRepository.loadWithMajorVersion(draftNode.getId());
+        // Brings in every draft beneath this one, plus the neighbours that publishing will rewire.
+        nodeRepository.loadDraftSubtree(draftNode.getId());
 
-        if (!(draftNode instanceof LeafNode)) {
-            // validate that the node and its descendants follow all the rules, e.g. being grounded in sources
+        List<Node> drafts = new ArrayList<>();
+        if (draftNode instanceof LeafNode) {
+            drafts.add(draftNode);
+        } else {
+            // validate that the node and its descendants follow all the rules, e.g. being grounded in sources.
+            // A node is only grounded if all of its children are, so checking the top covers the whole subtree.
             if (hasMissingSupport(draftNode)) {
                 throw new NodeRulesException("The roots of this node do not all end in leaf nodes!");
             }
-            publishDescendants(draftNode);
+            collectDrafts(draftNode, drafts, new HashSet<>());
+        }
+
+        PublishPlan plan = new PublishPlan();
+        Node resultingNode = null;
+        for (Node draft : drafts) {
+            resultingNode = planPublish(draft, plan);
+        }
+
+        assignMinorVersions(plan.published);
+
+        for (Node node : plan.toSave) {
+            if (node instanceof AssertionNode) {
+                // Every child is already in the session, so this doesn't go back to the repository.
+                ((AssertionNode) node).updateChildOrder(nodeRepository);
+            }
+        }
+        session.save(plan.toSave);
+
+        graphCache.invalidate(plan.touchedStableIds);
+
+        // Publishing can make a node a root, or stop its children from being roots.
+        rootNodeIndex.refresh(plan.touchedStableIds, RootNodeIndex.Root.fromRows(
+                nodeRepository.getRootNodeRankings(plan.touchedStableIds).queryResults()));
+        for (Node node : plan.published) {
+            searchIndex.index(node.getBody(), null);
+        }
+
+        return resultingNode;
+    }
+
+    /**
+     * Adds the node and the drafts beneath it in the order they should be published, children first.
+     */
+    private void collectDrafts(Node node, List<Node> drafts, Set<Long> visited) {
+        if (!visited.add(node.getId())) {
+            return;
+        }
+
+        for (Node child : node.getGraphChildren()) {
+            if (child.getBody() == null) {
+                // Should have come in with the subtree, but don't trust that blindly.
+                session.load(child.getClass(), child.getId(), 1);
+            }
+            if (!child.getBody().isPublic()) {
+                collectDrafts(child, drafts, visited);
+            }
         }
 
+        drafts.add(node);
+    }
+
+    /**
+     * Applies the publish of a single draft in memory and returns the node that ends up public. The draft is deleted
+     * right away if it is folded into its previous version; everything else is left in the plan to be saved.
+     */
+    private Node planPublish(Node draftNode, PublishPlan plan) throws NodeRulesException {
+
         Node resultingNode = draftNode;
 
+        // Publishing changes the public consumers of the children, so their cached graphs go stale along with
+        // every graph containing the node itself.
+        plan.touchedStableIds.add(draftNode.getStableId());
+        draftNode.getGraphChildren().forEach(child -> plan.touchedStableIds.add(child.getStableId()));
+
         Node publicVersion = draftNode.getPreviousVersion();
         if (publicVersion != null && !publicVersion.isFinalized()) {
             // previous version is the edit target.
@@ -88,6 +199,11 @@ public class VersionHelper {
                 session.load(publicVersion.getClass(), publicVersion.getId(), 1);
             }
 
+            publicVersion.getGraphChildren().forEach(child -> plan.touchedStableIds.add(child.getStableId()));
+
+            // The public node's current body is about to be superseded by the draft's.
+            searchIndex.remove(publicVersion.getBody().getId());
+
             // Copy links to children into the previous version
             draftNode.copyContentTo(publicVersion);
 
@@ -98,12 +214,14 @@ public class VersionHelper {
             freshlyPublishedBody.setIsPublic(true);
 
             // Any parents that had pointed to the draft should be modified so that they point to the
-            // published version. The draft is going away. We will save them later when the dust has settled a bit.
+            // published version. The draft is going away. They get saved with everything else at the end.
             Set<Node> dependentNodes = new HashSet<>();
             if (draftNode.getDependentNodes() != null) {
                 dependentNodes.addAll(draftNode.getDependentNodes());
                 for (Node parent : dependentNodes) {
                     parent.alterToPointToChild(publicVersion, draftNode);
+                    plan.touchedStableIds.add(parent.getStableId());
+                    plan.toSave.add(parent);
                 }
             }
 
@@ -112,33 +230,43 @@ public class VersionHelper {
 
             TwoWayUtil.forgetNode(draftNode);
 
-            for (Node parent : dependentNodes) {
-                if (parent instanceof AssertionNode) {
-                    // This is probably unnecessary, I'm doing it just to be safe.
-                    // Consider removing this later for performance reasons.
-                    ((AssertionNode)parent).updateChildOrder(nodeRepository);
-                }
-                session.save(parent);
-            }
+            // It may have been queued as the parent of a draft published before it.
+            plan.toSave.remove(draftNode);
 
             resultingNode = publicVersion;
         }
 
-        ArgumentBody body = resultingNode.getBody();
-        if (body.getMinorVersion() < 0) {
-            body.setMinorVersion(getNextMinorVersion(body.getMajorVersion()));
-        }
+        resultingNode.getBody().setIsPublic(true);
+        ((ArgumentNode) resultingNode).setGrounded(true); // Checked up front, and public nodes stay grounded.
 
-        body.setIsPublic(true);
+        plan.toSave.add(resultingNode);
+        plan.published.add(resultingNode);
+        plan.touchedStableIds.add(resultingNode.getStableId());
 
-        if (resultingNode instanceof AssertionNode) {
-            // This is probably unnecessary, I'm doing it just to be safe.
-            // Consider removing this later for performance reasons.
-            ((AssertionNode)resultingNode).updateChildOrder(nodeRepository);
+        return resultingNode;
+    }
+
+    private void assignMinorVersions(List<Node> published) {
+
+        Map<Long, Integer> counts = new HashMap<>();
+        for (Node node : published) {
+            ArgumentBody body = node.getBody();
+            if (body.getMinorVersion() < 0) {
+                counts.merge(body.getMajorVersion().getId(), 1, Integer::sum);
+            }
         }
-        session.save(resultingNode);
 
-        return resultingNode;
+        Map<Long, Integer> nextMinorVersions = reserveMinorVersions(counts);
+
+        for (Node node : published) {
+            ArgumentBody body = node.getBody();
+            if (body.getMinorVersion() < 0) {
+                Long majorVersionId = body.getMajorVersion().getId();
+                int minorVersion = nextMinorVersions.get(majorVersionId);
+                body.setMinorVersion(minorVersion);
+                nextMinorVersions.put(majorVersionId, minorVersion + 1);
+            }
+        }
     }
 
     private void bodyTransplant(Node donor, Node recipient) {
@@ -153,38 +281,17 @@ public class VersionHelper {
         donor.getBody().setNode(recipient);
     }
 
-    private void publishDescendants(Node node) throws NodeRulesException {
-
-        if (node instanceof AssertionNode) {
-            AssertionNode assertion = (AssertionNode) node;
-
-            // If assertion.getSupportingNodes returns null, this will go awry. Keep an eye on it.
-            Collection<ArgumentNode> support = session.loadAll(ArgumentNode.class,
-                    assertion.getSupportingNodes().stream().map(Node::getId).collect(Collectors.toList()), 1);
-
-            for (ArgumentNode childNode : support) {
-                if (!childNode.getBody().isPublic()) {
-                    publish(childNode);
-                }
-            }
-        } else if (node instanceof InterpretationNode) {
-            InterpretationNode interpretation = (InterpretationNode) node;
-
-            // If interpretation.getLeafNode returns null, this will go awry. Keep an eye on it.
-            session.load(SourceNode.class, interpretation.getLeafNode().getId());
-
-            if (!interpretation.getLeafNode().getBody().isPublic()) {
-                publish(interpretation.getLeafNode());
-            }
-        }
-    }
-
     private boolean hasMissingSupport(Node node) {
-        // TODO: consider making the isFinalized attribute belong to nodes instead of bodies so that we can easily
-        // short-circuit these queries.
-
-        Set<ArgumentNode> unsupportedNodes = nodeRepository.getUnsupportedNodes(node.getId());
+        // The flag is maintained as links change, so this no longer walks the tree beneath the node.
+        return !groundingTracker.isGrounded(node);
+    }
 
-        return !unsupportedNodes.isEmpty();
+    /**
+     * What a publish has changed so far. Nodes are tracked by identity since drafts can be queued and then deleted.
+     */
+    private static class PublishPlan {
+        private final Set<Node> toSave = Collections.newSetFromMap(new IdentityHashMap<>());
+        private final List<Node> published = new ArrayList<>();
+        private final Set<String> touchedStableIds = new HashSet<>();
     }
 }
@@ -3,7 +3,9 @@ package com.nodestand.service.argument;
 import com.nodestand.auth.NotAuthorizedException;
 import com.nodestand.controllers.serial.EditResult;
 import com.nodestand.controllers.serial.QuickGraphResponse;
+import com.nodestand.controllers.serial.RootNodePage;
 import com.nodestand.nodes.ArgumentNode;
+import com.nodestand.nodes.NodeInputException;
 import com.nodestand.nodes.NodeRulesException;
 import com.nodestand.nodes.assertion.AssertionNode;
 import com.nodestand.nodes.interpretation.InterpretationNode;
@@ -45,7 +47,13 @@ public interface ArgumentService {
 
     Set<ArgumentNode> getNodesInMajorVersion(long majorVersionId);
 
-    Set<ArgumentNode> getRootNodes();
+    /**
+     * A page of the home feed: public assertions that no public assertion links to.
+     *
+     * @param order one of "newest", "votes" or "comments". Null means newest.
+     * @param cursor the nextCursor of the previous page, or null for the first page.
+     */
+    RootNodePage getRootNodes(String order, int limit, String cursor) throws NodeInputException;
 
     Set<ArgumentNode> getDraftNodes(long userId, String authorStableId) throws NodeRulesException;
 
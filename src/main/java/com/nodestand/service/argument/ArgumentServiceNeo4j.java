@@ -3,8 +3,8 @@ package com.nodestand.service.argument;
 import com.nodestand.auth.NotAuthorizedException;
 import com.nodestand.controllers.ResourceNotFoundException;
 import com.nodestand.controllers.serial.EditResult;
-import com.nodestand.controllers.serial.QuickEdge;
 import com.nodestand.controllers.serial.QuickGraphResponse;
+import com.nodestand.controllers.serial.RootNodePage;
 import com.nodestand.nodes.*;
 import com.nodestand.nodes.assertion.AssertionBody;
 import com.nodestand.nodes.assertion.AssertionNode;
@@ -17,17 +17,17 @@ import com.nodestand.nodes.source.SourceNode;
 import com.nodestand.nodes.subject.SubjectBody;
 import com.nodestand.nodes.subject.SubjectNode;
 import com.nodestand.service.AuthorRulesUtil;
+import com.nodestand.service.GroundingTracker;
 import com.nodestand.service.VersionHelper;
+import com.nodestand.service.search.SearchIndex;
+import com.nodestand.service.vote.VoteCountLoader;
 import com.nodestand.util.TwoWayUtil;
 import org.neo4j.ogm.session.Session;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.util.Collection;
-import java.util.HashSet;
-import java.util.List;
-import java.util.Set;
+import java.util.*;
 import java.util.stream.Collectors;
 
 @Component
@@ -41,53 +41,63 @@ public class ArgumentServiceNeo4j implements ArgumentService {
 
     private final Session session;
 
+    private final GraphCache graphCache;
+
+    private final GraphLoader graphLoader;
+
+    private final SearchIndex searchIndex;
+
+    private final GroundingTracker groundingTracker;
+
+    private final RootNodeIndex rootNodeIndex;
+
+    private final VoteCountLoader voteCountLoader;
+
     @Autowired
-    public ArgumentServiceNeo4j(ArgumentNodeRepository argumentRepo, UserRepository userRepo, VersionHelper versionHelper, Session session) {
+    public ArgumentServiceNeo4j(ArgumentNodeRepository argumentRepo, UserRepository userRepo, VersionHelper versionHelper,
+                                Session session, GraphCache graphCache, GraphLoader graphLoader, SearchIndex searchIndex,
+                                GroundingTracker groundingTracker, RootNodeIndex rootNodeIndex, VoteCountLoader voteCountLoader) {
         this.argumentRepo = argumentRepo;
         this.userRepo = userRepo;
         this.versionHelper = versionHelper;
         this.session = session;
+        this.graphCache = graphCache;
+        this.graphLoader = graphLoader;
+        this.searchIndex = searchIndex;
+        this.groundingTracker = groundingTracker;
+        this.rootNodeIndex = rootNodeIndex;
+        this.voteCountLoader = voteCountLoader;
     }
 
+    /**
+     * Not transactional on purpose: a cache hit should not even open a transaction against Neo4j. A miss is loaded
+     * in a transaction of its own by the GraphLoader.
+     */
     @Override
-    @Transactional
     public QuickGraphResponse getGraph(String rootStableId, Long userId) {
-        Set<ArgumentNode> nodes = argumentRepo.getGraph(rootStableId);
-
-        Set<ArgumentNode> consumers;
-        if (userId != null) {
-            consumers = argumentRepo.getConsumerNodes(rootStableId, userId);
-        } else {
-            consumers = argumentRepo.getConsumerNodes(rootStableId);
-        }
-
-        // This should enhance the node already in our set.
-        argumentRepo.getNodeRich(rootStableId);
-
-        if (nodes.isEmpty()) {
-            throw new ResourceNotFoundException("Node not found!");
+        QuickGraphResponse publicGraph = graphCache.getOrLoad(rootStableId, () -> graphLoader.load(rootStableId));
+        if (userId == null) {
+            return publicGraph;
         }
 
-        Set<QuickEdge> edges = new HashSet<>();
-
-        Long rootId = null;
-
-        for (ArgumentNode n: nodes) {
-            for (Node child : n.getGraphChildren()) {
-                edges.add(new QuickEdge(n.getId(), child.getId()));
-            }
-            if (n.getStableId().equals(rootStableId)) {
-                rootId = n.getId();
-            }
+        Set<String> draftTargets = graphCache.getOrLoadDraftTargets(userId, () -> argumentRepo.getStableIdsConsumedByDrafts(userId));
+        if (!draftTargets.contains(rootStableId)) {
+            return publicGraph;
         }
 
-        return new QuickGraphResponse(nodes, edges, rootId, rootStableId, consumers);
+        Set<ArgumentNode> draftConsumers = argumentRepo.getDraftConsumerNodes(rootStableId, userId);
+        voteCountLoader.loadForNodes(draftConsumers);
+        return publicGraph.withDraftConsumers(draftConsumers);
     }
 
     @Override
     @Transactional
     public ArgumentNode getFullDetail(String stableId) {
-        return argumentRepo.getNodeRich(stableId);
+        ArgumentNode node = argumentRepo.getNodeRich(stableId);
+        if (node != null) {
+            voteCountLoader.loadForNodes(node);
+        }
+        return node;
     }
 
     @Override
@@ -111,8 +121,11 @@ public class ArgumentServiceNeo4j implements ArgumentService {
                 .collect(Collectors.toList());
 
         assertionBody.getMajorVersion().mergeEdgeOwners(author, mvIds);
+        groundingTracker.refresh(node);
 
         session.save(node);
+        graphCache.invalidateDrafts(userId);
+        searchIndex.index(node.getBody(), userId);
         return node;
     }
 
@@ -133,8 +146,11 @@ public class ArgumentServiceNeo4j implements ArgumentService {
             node.setLeafNode(leafNode);
             interpretationBody.getMajorVersion().mergeEdgeOwner(author, leafNode.getBody().getMajorVersion().getStableId());
         }
+        groundingTracker.refresh(node);
 
         session.save(node);
+        graphCache.invalidateDrafts(userId);
+        searchIndex.index(node.getBody(), userId);
         return node;
     }
 
@@ -148,6 +164,8 @@ public class ArgumentServiceNeo4j implements ArgumentService {
         SourceNode node = sourceBody.constructNode();
 
         session.save(node);
+        graphCache.invalidateDrafts(userId);
+        searchIndex.index(node.getBody(), userId);
         return node;
     }
 
@@ -161,6 +179,8 @@ public class ArgumentServiceNeo4j implements ArgumentService {
         SubjectNode node = subjectBody.constructNode();
 
         session.save(node);
+        graphCache.invalidateDrafts(userId);
+        searchIndex.index(node.getBody(), userId);
         return node;
     }
 
@@ -189,8 +209,13 @@ public class ArgumentServiceNeo4j implements ArgumentService {
                 .collect(Collectors.toList());
 
         existingNode.getBody().getMajorVersion().mergeEdgeOwners(author, mvIds);
+        groundingTracker.refresh(existingNode);
 
         session.save(existingNode);
+        graphCache.invalidate(existingNode.getStableId());
+        graphCache.invalidateDrafts(userId);
+        searchIndex.index(existingNode.getBody(), userId);
+        voteCountLoader.loadForNodes(existingNode);
         return existingNode;
     }
 
@@ -238,8 +263,13 @@ public class ArgumentServiceNeo4j implements ArgumentService {
         }
 
         TwoWayUtil.updateSupportingNodes(existingNode, leafNode);
+        groundingTracker.refresh(existingNode);
 
         session.save(existingNode);
+        graphCache.invalidate(existingNode.getStableId());
+        graphCache.invalidateDrafts(userId);
+        searchIndex.index(existingNode.getBody(), userId);
+        voteCountLoader.loadForNodes(existingNode);
         return existingNode;
     }
 
@@ -258,6 +288,10 @@ public class ArgumentServiceNeo4j implements ArgumentService {
         existingNode.getBody().setUrl(url);
 
         session.save(existingNode);
+        graphCache.invalidate(existingNode.getStableId());
+        graphCache.invalidateDrafts(userId);
+        searchIndex.index(existingNode.getBody(), userId);
+        voteCountLoader.loadForNodes(existingNode);
         return existingNode;
     }
 
@@ -276,6 +310,10 @@ public class ArgumentServiceNeo4j implements ArgumentService {
         existingNode.getBody().setUrl(url);
 
         session.save(existingNode);
+        graphCache.invalidate(existingNode.getStableId());
+        graphCache.invalidateDrafts(userId);
+        searchIndex.index(existingNode.getBody(), userId);
+        voteCountLoader.loadForNodes(existingNode);
         return existingNode;
     }
 
@@ -301,9 +339,13 @@ public class ArgumentServiceNeo4j implements ArgumentService {
         // This will set the previous version on the draft. Later, when we publish the edit,
         // this draft will copy its contents to the previous version and then be destroyed.
         ArgumentNode draftNode = existingNode.createNewDraft(author);
+        groundingTracker.refresh(draftNode);
 
         session.save(draftNode);
+        graphCache.invalidateDrafts(userId);
+        searchIndex.index(draftNode.getBody(), userId);
 
+        voteCountLoader.loadForNodes(draftNode);
         EditResult result = new EditResult(draftNode);
         result.setGraph(getGraph(draftNode.getStableId(), userId));
 
@@ -327,6 +369,7 @@ public class ArgumentServiceNeo4j implements ArgumentService {
         }
 
         Node resultingNode = versionHelper.publish(existingNode);
+        graphCache.invalidateDrafts(userId);
 
         return getGraph(resultingNode.getStableId(), userId);
     }
@@ -334,23 +377,48 @@ public class ArgumentServiceNeo4j implements ArgumentService {
     @Override
     @Transactional
     public Set<ArgumentNode> getNodesInMajorVersion(long majorVersionId) {
-        return argumentRepo.getNodesInMajorVersion(majorVersionId);
+        Set<ArgumentNode> nodes = argumentRepo.getNodesInMajorVersion(majorVersionId);
+        voteCountLoader.loadForNodes(nodes);
+        return nodes;
     }
 
     @Override
-    public Set<ArgumentNode> getRootNodes() {
-        return argumentRepo.getRootNodesRich();
+    @Transactional
+    public RootNodePage getRootNodes(String order, int limit, String cursor) throws NodeInputException {
+        rootNodeIndex.ensureBuilt(() -> RootNodeIndex.Root.fromRows(argumentRepo.getRootNodeRankings().queryResults()));
+        RootNodeIndex.Page page = rootNodeIndex.page(RootNodeIndex.Order.parse(order), limit, cursor);
+
+        List<ArgumentNode> nodes = new ArrayList<>(page.getNodeIds().size());
+        if (!page.getNodeIds().isEmpty()) {
+            Map<Long, ArgumentNode> byId = new HashMap<>();
+            for (ArgumentNode node : argumentRepo.getNodesRich(page.getNodeIds())) {
+                byId.put(node.getId(), node);
+            }
+            for (Long id : page.getNodeIds()) {
+                ArgumentNode node = byId.get(id);
+                if (node != null) { // Could have been deleted since the page was read.
+                    nodes.add(node);
+                }
+            }
+        }
+
+        voteCountLoader.loadForNodes(nodes);
+        return new RootNodePage(nodes, page.getNextCursor());
     }
 
     @Override
     public Set<ArgumentNode> getDraftNodes(long userId, String authorStableId) throws NodeRulesException {
         AuthorRulesUtil.loadAuthorWithSecurityCheck(userRepo, userId, authorStableId);
-        return argumentRepo.getDraftNodesRich(authorStableId);
+        Set<ArgumentNode> drafts = argumentRepo.getDraftNodesRich(authorStableId);
+        voteCountLoader.loadForNodes(drafts);
+        return drafts;
     }
 
     @Override
     public Set<ArgumentNode> getNodesPublishedByAuthor(String authorStableId) {
-        return argumentRepo.getNodesOriginallyAuthoredByUser(authorStableId);
+        Set<ArgumentNode> nodes = argumentRepo.getNodesOriginallyAuthoredByUser(authorStableId);
+        voteCountLoader.loadForNodes(nodes);
+        return nodes;
     }
 
     @Override
@@ -358,6 +426,7 @@ public class ArgumentServiceNeo4j implements ArgumentService {
         Set<ArgumentNode> editHistory = argumentRepo.getEditHistory(stableId);
         List<ArgumentNode> matches = editHistory.stream().filter(n -> n.getStableId().equals(stableId)).collect(Collectors.toList());
         assert matches.size() == 1;
+        voteCountLoader.loadForNodes(editHistory);
         return matches.get(0);
     }
 
@@ -372,9 +441,21 @@ public class ArgumentServiceNeo4j implements ArgumentService {
 
         AuthorRulesUtil.loadAuthorWithSecurityCheck(userRepo, userId, draftNode.getBody().author.getStableId());
 
+        Long bodyId = draftNode.getBody().getId();
+        List<Long> draftParentIds = argumentRepo.getDraftParentIds(draftNode.getId());
+
         session.delete(draftNode);
         session.delete(draftNode.getBody());
         TwoWayUtil.forgetNode(draftNode);
+
+        // Drafts that linked to the discarded one have lost a child.
+        for (Long parentId : draftParentIds) {
+            groundingTracker.refresh(session.load(ArgumentNode.class, parentId, 1));
+        }
+
+        graphCache.invalidate(draftNode.getStableId());
+        graphCache.invalidateDrafts(userId);
+        searchIndex.remove(bodyId);
     }
 
     private void checkEditRules(ArgumentNode existingNode) throws NodeRulesException {
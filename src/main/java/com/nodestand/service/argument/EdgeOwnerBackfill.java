@@ -0,0 +1,94 @@
+package com.nodestand.service.argument;
+
+import org.neo4j.ogm.model.Result;
+import org.neo4j.ogm.session.Session;
+import org.neo4j.ogm.session.SessionFactory;
+import org.neo4j.ogm.transaction.Transaction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Fills in the edge owners of major versions that were created before edge ownership was tracked. Edges live on
+ * nodes, and only a node's current body is DEFINED_BY it, so the history of who first added an edge is gone. Each
+ * child is attributed to the author of the published body whose node links to it. Drafts (minor version -1) only
+ * count when no published body links to the child, so an unpublished draft never takes credit for a link.
+ *
+ * Runs once in the background after startup, a batch per transaction, and can safely be run again.
+ */
+@Component
+public class EdgeOwnerBackfill {
+
+    private static final String BACKFILL_BATCH =
+            "MATCH (mv:MajorVersion) WHERE NOT exists(mv.edgeOwners) WITH mv LIMIT {batchSize}" +
+            " OPTIONAL MATCH (mv)<-[:VERSION_OF]-(b:ArgumentBody)-[:AUTHORED_BY]->(a:Author)," +
+            " (b)<-[:DEFINED_BY]-(:ArgumentNode)-[:SUPPORTED_BY|INTERPRETS]->(:ArgumentNode)-[:DEFINED_BY]->(:ArgumentBody)-[:VERSION_OF]->(child:MajorVersion)" +
+            " WITH mv, child, a, b ORDER BY coalesce(b.isPublic, false) DESC, b.minorVersion" +
+            " WITH mv, child, head(collect(a.stableId)) AS owner" +
+            " WITH mv, collect(CASE WHEN child IS NULL THEN NULL ELSE child.stableId + ' ' + owner END) AS owners" +
+            " SET mv.edgeOwners = owners" +
+            " RETURN count(mv) AS migrated";
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    private final SessionFactory sessionFactory;
+
+    private final int batchSize;
+
+    @Autowired
+    public EdgeOwnerBackfill(SessionFactory sessionFactory, Environment environment) {
+        this.sessionFactory = sessionFactory;
+        this.batchSize = environment.getProperty("edgeOwnerBackfill.batchSize", Integer.class, 200);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void startInBackground() {
+        Thread thread = new Thread(() -> {
+            try {
+                int migrated = backfill();
+                if (migrated > 0) {
+                    logger.info("Backfilled edge owners on {} major versions", migrated);
+                }
+            } catch (RuntimeException e) {
+                logger.error("Edge owner backfill failed", e);
+            }
+        }, "edge-owner-backfill");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Backfills every major version that is missing its edge owners. Returns the number of major versions updated.
+     */
+    public synchronized int backfill() {
+        Session session = sessionFactory.openSession();
+        int total = 0;
+        int migrated;
+        do {
+            try (Transaction tx = session.beginTransaction()) {
+                Result result = session.query(BACKFILL_BATCH, Collections.singletonMap("batchSize", batchSize));
+                migrated = readMigrated(result);
+                tx.commit();
+            }
+            total += migrated;
+        } while (migrated >= batchSize);
+        return total;
+    }
+
+    private static int readMigrated(Result result) {
+        Iterator<Map<String, Object>> rows = result.queryResults().iterator();
+        if (!rows.hasNext()) {
+            return 0;
+        }
+        Object migrated = rows.next().get("migrated");
+        return migrated == null ? 0 : ((Number) migrated).intValue();
+    }
+}
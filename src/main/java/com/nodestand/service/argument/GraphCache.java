@@ -0,0 +1,236 @@
+package com.nodestand.service.argument;
+
+import com.nodestand.controllers.serial.QuickGraphResponse;
+import com.nodestand.nodes.ArgumentNode;
+import com.nodestand.util.TransactionUtil;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.*;
+import java.util.function.Supplier;
+
+/**
+ * Read-through cache of assembled graphs, keyed by root stable id and evicted in least-recently-used order.
+ *
+ * Each cached graph is indexed by the stable ids of every node it contains (subtree and consumers) and of their
+ * major versions, so that a write to one node evicts exactly the graphs in which that node shows up.
+ *
+ * Cached graphs only hold public consumers, so they can be shared by everybody. Alongside them we remember, per
+ * user, which nodes are consumed by that user's drafts; a logged in user only pays for a draft query when viewing
+ * one of those.
+ *
+ * Nothing is read from or stored in the cache while a transaction is active. That transaction may have written to
+ * the graph, and what it sees must neither be served to others before it commits nor outlive a rollback.
+ */
+@Component
+public class GraphCache {
+
+    private static final int DEFAULT_MAX_ENTRIES = 500;
+
+    private final int maxEntries;
+
+    private final LinkedHashMap<String, CachedGraph> graphs;
+
+    /**
+     * Member stable id -> root stable ids of the cached graphs containing that member.
+     */
+    private final Map<String, Set<String>> rootsByMember = new HashMap<>();
+
+    /**
+     * Bumped on every invalidation. A graph that was loaded while an invalidation happened may already be stale,
+     * so it doesn't get stored.
+     */
+    private long generation;
+
+    /**
+     * User node id -> stable ids of the nodes consumed by that user's drafts.
+     */
+    private final LinkedHashMap<Long, Set<String>> draftTargets;
+
+    private long draftGeneration;
+
+    @Autowired
+    public GraphCache(Environment environment) {
+        this(environment.getProperty("graphCache.maxEntries", Integer.class, DEFAULT_MAX_ENTRIES));
+    }
+
+    public GraphCache(int maxEntries) {
+        this.maxEntries = maxEntries;
+        this.graphs = new LinkedHashMap<String, CachedGraph>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedGraph> eldest) {
+                if (size() > GraphCache.this.maxEntries) {
+                    unindex(eldest.getValue());
+                    return true;
+                }
+                return false;
+            }
+        };
+        this.draftTargets = new LinkedHashMap<Long, Set<String>>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Set<String>> eldest) {
+                return size() > GraphCache.this.maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Returns the cached graph for the root if there is one, otherwise runs the loader and remembers its result.
+     */
+    public QuickGraphResponse getOrLoad(String rootStableId, Supplier<QuickGraphResponse> loader) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return loader.get();
+        }
+
+        long loadGeneration;
+        synchronized (this) {
+            CachedGraph cached = graphs.get(rootStableId);
+            if (cached != null) {
+                return cached.graph;
+            }
+            loadGeneration = generation;
+        }
+
+        QuickGraphResponse graph = loader.get();
+
+        synchronized (this) {
+            if (generation == loadGeneration && !graphs.containsKey(rootStableId)) {
+                CachedGraph cached = new CachedGraph(rootStableId, graph);
+                graphs.put(rootStableId, cached);
+                index(cached);
+            }
+        }
+
+        return graph;
+    }
+
+    /**
+     * Evicts every graph containing one of the given nodes or major versions. The eviction is repeated when the
+     * current transaction commits, so a graph read in the meantime can't bring back the pre-commit state.
+     */
+    public void invalidate(Collection<String> memberStableIds) {
+        Set<String> members = new HashSet<>(memberStableIds);
+        evict(members);
+        TransactionUtil.afterCommit(() -> evict(members));
+    }
+
+    public void invalidate(String... memberStableIds) {
+        invalidate(Arrays.asList(memberStableIds));
+    }
+
+    /**
+     * Returns the stable ids of the nodes that the user's drafts consume, loading them if necessary.
+     */
+    public Set<String> getOrLoadDraftTargets(long userId, Supplier<Set<String>> loader) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return Collections.unmodifiableSet(new HashSet<>(loader.get()));
+        }
+
+        long loadGeneration;
+        synchronized (this) {
+            Set<String> cached = draftTargets.get(userId);
+            if (cached != null) {
+                return cached;
+            }
+            loadGeneration = draftGeneration;
+        }
+
+        Set<String> targets = Collections.unmodifiableSet(new HashSet<>(loader.get()));
+
+        synchronized (this) {
+            if (draftGeneration == loadGeneration) {
+                draftTargets.put(userId, targets);
+            }
+        }
+
+        return targets;
+    }
+
+    /**
+     * Forgets what the user's drafts consume. Call whenever the user creates, edits, publishes or discards a draft.
+     */
+    public void invalidateDrafts(long userId) {
+        evictDrafts(userId);
+        TransactionUtil.afterCommit(() -> evictDrafts(userId));
+    }
+
+    public synchronized void clear() {
+        generation++;
+        graphs.clear();
+        rootsByMember.clear();
+        draftGeneration++;
+        draftTargets.clear();
+    }
+
+    public synchronized int size() {
+        return graphs.size();
+    }
+
+    private synchronized void evict(Set<String> members) {
+        generation++;
+        for (String member : members) {
+            Set<String> roots = rootsByMember.get(member);
+            if (roots == null) {
+                continue;
+            }
+            for (String root : new ArrayList<>(roots)) {
+                CachedGraph cached = graphs.remove(root);
+                if (cached != null) {
+                    unindex(cached);
+                }
+            }
+        }
+    }
+
+    private synchronized void evictDrafts(long userId) {
+        draftGeneration++;
+        draftTargets.remove(userId);
+    }
+
+    private void index(CachedGraph cached) {
+        for (String member : cached.members) {
+            rootsByMember.computeIfAbsent(member, k -> new HashSet<>()).add(cached.rootStableId);
+        }
+    }
+
+    private void unindex(CachedGraph cached) {
+        for (String member : cached.members) {
+            Set<String> roots = rootsByMember.get(member);
+            if (roots != null) {
+                roots.remove(cached.rootStableId);
+                if (roots.isEmpty()) {
+                    rootsByMember.remove(member);
+                }
+            }
+        }
+    }
+
+    private static class CachedGraph {
+        private final String rootStableId;
+        private final QuickGraphResponse graph;
+        private final Set<String> members = new HashSet<>();
+
+        private CachedGraph(String rootStableId, QuickGraphResponse graph) {
+            this.rootStableId = rootStableId;
+            this.graph = graph;
+
+            members.add(rootStableId);
+            addMembers(graph.getNodes());
+            addMembers(graph.getConsumers());
+        }
+
+        private void addMembers(Set<ArgumentNode> nodes) {
+            if (nodes == null) {
+                return;
+            }
+            for (ArgumentNode node : nodes) {
+                members.add(node.getStableId());
+                if (node.getBody() != null && node.getBody().getMajorVersion() != null) {
+                    members.add(node.getBody().getMajorVersion().getStableId());
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.nodestand.service.argument;
+
+import com.nodestand.controllers.ResourceNotFoundException;
+import com.nodestand.controllers.serial.QuickEdge;
+import com.nodestand.controllers.serial.QuickGraphResponse;
+import com.nodestand.nodes.ArgumentNode;
+import com.nodestand.nodes.Node;
+import com.nodestand.nodes.repository.ArgumentNodeRepository;
+import com.nodestand.service.vote.VoteCountLoader;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.*;
+
+/**
+ * Assembles a public graph from the database. This is what {@link GraphCache} runs on a miss, and it's a bean of
+ * its own so that the graph and its consumers are read in one transaction, while cache hits don't open one.
+ */
+@Component
+public class GraphLoader {
+
+    private final ArgumentNodeRepository argumentRepo;
+
+    private final VoteCountLoader voteCountLoader;
+
+    @Autowired
+    public GraphLoader(ArgumentNodeRepository argumentRepo, VoteCountLoader voteCountLoader) {
+        this.argumentRepo = argumentRepo;
+        this.voteCountLoader = voteCountLoader;
+    }
+
+    @Transactional
+    public QuickGraphResponse load(String rootStableId) {
+        Set<ArgumentNode> nodes = argumentRepo.getGraph(rootStableId);
+
+        Set<ArgumentNode> consumers = argumentRepo.getConsumerNodes(rootStableId);
+
+        // This should enhance the node already in our set.
+        argumentRepo.getNodeRich(rootStableId);
+
+        if (nodes.isEmpty()) {
+            throw new ResourceNotFoundException("Node not found!");
+        }
+
+        Set<QuickEdge> edges = new HashSet<>();
+
+        Long rootId = null;
+
+        for (ArgumentNode n: nodes) {
+            for (Node child : n.getGraphChildren()) {
+                edges.add(new QuickEdge(n.getId(), child.getId()));
+            }
+            if (n.getStableId().equals(rootStableId)) {
+                rootId = n.getId();
+            }
+        }
+
+        List<ArgumentNode> all = new ArrayList<>(nodes);
+        all.addAll(consumers);
+        voteCountLoader.loadForNodes(all);
+
+        return new QuickGraphResponse(nodes, edges, rootId, rootStableId, consumers);
+    }
+}
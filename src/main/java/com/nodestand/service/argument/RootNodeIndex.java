@@ -0,0 +1,316 @@
+package com.nodestand.service.argument;
+
+import com.nodestand.nodes.NodeInputException;
+import com.nodestand.util.PageCursor;
+import com.nodestand.util.TransactionUtil;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * In-memory list of the root nodes, i.e. the public assertions that no public assertion links to. There is one
+ * sorted set per feed order, so a page of the home feed is a seek plus a walk of the page, however many roots there
+ * are.
+ *
+ * The index is filled from the database the first time the feed is read. After that, publishing refreshes the
+ * nodes around whatever was published, and votes and comments adjust the counters. Updates are applied after the
+ * surrounding transaction commits. The counters are only used for ranking and are recounted whenever the index is
+ * filled.
+ */
+@Component
+public class RootNodeIndex {
+
+    public enum Order {
+        NEWEST, VOTES, COMMENTS;
+
+        /**
+         * @param name e.g. "newest". Null means the default order.
+         */
+        public static Order parse(String name) throws NodeInputException {
+            return PageCursor.parseOrder(Order.class, name, NEWEST);
+        }
+
+        private long keyOf(Root root) {
+            switch (this) {
+                case VOTES: return root.votes;
+                case COMMENTS: return root.comments;
+                default: return root.created;
+            }
+        }
+    }
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Object buildLock = new Object();
+
+    /**
+     * Node stable id -> root.
+     */
+    private final Map<String, Root> roots = new HashMap<>();
+
+    /**
+     * Major version stable id -> node stable ids of the roots in it, for applying votes and comments.
+     */
+    private final Map<String, Set<String>> byMajorVersion = new HashMap<>();
+
+    private final EnumMap<Order, TreeSet<Root>> sorted = new EnumMap<>(Order.class);
+
+    private boolean built;
+
+    /**
+     * Updates that arrive while the index is being built. They may or may not be reflected in the data that was
+     * loaded, so they are replayed afterwards.
+     */
+    private List<Consumer<RootNodeIndex>> pendingUpdates;
+
+    public RootNodeIndex() {
+        for (Order order : Order.values()) {
+            // Highest key first, ties broken by node id so that every root has a distinct position.
+            sorted.put(order, new TreeSet<>(Comparator
+                    .comparingLong((Root r) -> -order.keyOf(r))
+                    .thenComparingLong(r -> -r.nodeId)));
+        }
+    }
+
+    /**
+     * Fills the index from the loader unless that has already happened.
+     */
+    void ensureBuilt(Supplier<Collection<Root>> loader) {
+        synchronized (buildLock) {
+            lock.readLock().lock();
+            try {
+                if (built) {
+                    return;
+                }
+            } finally {
+                lock.readLock().unlock();
+            }
+
+            lock.writeLock().lock();
+            try {
+                pendingUpdates = new ArrayList<>();
+            } finally {
+                lock.writeLock().unlock();
+            }
+
+            Collection<Root> loaded;
+            try {
+                loaded = loader.get();
+            } catch (RuntimeException e) {
+                lock.writeLock().lock();
+                try {
+                    pendingUpdates = null;
+                } finally {
+                    lock.writeLock().unlock();
+                }
+                throw e;
+            }
+
+            lock.writeLock().lock();
+            try {
+                roots.clear();
+                byMajorVersion.clear();
+                sorted.values().forEach(TreeSet::clear);
+                loaded.forEach(this::put);
+                pendingUpdates.forEach(update -> update.accept(this));
+                pendingUpdates = null;
+                built = true;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    /**
+     * Once the current transaction commits, makes the given nodes roots if they appear in current, and removes them
+     * otherwise.
+     *
+     * @param stableIds every node whose root status may have changed.
+     * @param current the ones among them that are now roots, as read inside the transaction.
+     */
+    public void refresh(Collection<String> stableIds, Collection<Root> current) {
+        Set<String> checked = new HashSet<>(stableIds);
+        List<Root> updated = new ArrayList<>(current);
+        TransactionUtil.afterCommit(() -> update(index -> {
+            checked.forEach(index::remove);
+            updated.forEach(index::put);
+        }));
+    }
+
+    /**
+     * Adjusts the vote count of the roots in the major version once the current transaction commits.
+     */
+    public void adjustVotes(String majorVersionStableId, int delta) {
+        TransactionUtil.afterCommit(() -> update(index -> index.adjust(majorVersionStableId, delta, 0)));
+    }
+
+    /**
+     * Adjusts the comment count of the roots in the major version once the current transaction commits.
+     */
+    public void adjustComments(String majorVersionStableId, int delta) {
+        TransactionUtil.afterCommit(() -> update(index -> index.adjust(majorVersionStableId, 0, delta)));
+    }
+
+    /**
+     * @param cursor the nextCursor of the previous page, or null for the first page.
+     */
+    public Page page(Order order, int limit, String cursor) throws NodeInputException {
+        PageCursor after = cursor == null ? null : PageCursor.decode(cursor, order);
+        if (limit <= 0) {
+            return new Page(new ArrayList<>(), null);
+        }
+
+        lock.readLock().lock();
+        try {
+            TreeSet<Root> set = sorted.get(order);
+            NavigableSet<Root> remaining = after == null ? set : set.tailSet(probe(order, after), false);
+
+            List<Long> nodeIds = new ArrayList<>(); // No size() here: on a tail set view that walks the whole set.
+            Root last = null;
+            for (Root root : remaining) {
+                if (nodeIds.size() == limit) {
+                    return new Page(nodeIds, new PageCursor(order, order.keyOf(last), last.nodeId).encode());
+                }
+                nodeIds.add(root.nodeId);
+                last = root;
+            }
+            return new Page(nodeIds, null);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return roots.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void update(Consumer<RootNodeIndex> update) {
+        lock.writeLock().lock();
+        try {
+            if (built) {
+                update.accept(this);
+            } else if (pendingUpdates != null) {
+                pendingUpdates.add(update);
+            }
+            // Otherwise nobody has read the feed yet, and the first read will load the committed state anyway.
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void put(Root root) {
+        remove(root.stableId);
+        roots.put(root.stableId, root);
+        byMajorVersion.computeIfAbsent(root.majorVersionStableId, k -> new HashSet<>()).add(root.stableId);
+        sorted.values().forEach(set -> set.add(root));
+    }
+
+    private void remove(String stableId) {
+        Root existing = roots.remove(stableId);
+        if (existing == null) {
+            return;
+        }
+        sorted.values().forEach(set -> set.remove(existing));
+        Set<String> siblings = byMajorVersion.get(existing.majorVersionStableId);
+        if (siblings != null) {
+            siblings.remove(stableId);
+            if (siblings.isEmpty()) {
+                byMajorVersion.remove(existing.majorVersionStableId);
+            }
+        }
+    }
+
+    private void adjust(String majorVersionStableId, int votesDelta, int commentsDelta) {
+        Set<String> stableIds = byMajorVersion.get(majorVersionStableId);
+        if (stableIds == null) {
+            return;
+        }
+        for (String stableId : new ArrayList<>(stableIds)) {
+            Root existing = roots.get(stableId);
+            put(new Root(existing.stableId, existing.nodeId, existing.majorVersionStableId, existing.created,
+                    existing.votes + votesDelta, existing.comments + commentsDelta));
+        }
+    }
+
+    /**
+     * What the feed knows about a root node. Replaced rather than modified, since the sorted sets key on it.
+     */
+    public static class Root {
+        private final String stableId;
+        private final long nodeId;
+        private final String majorVersionStableId;
+        private final long created;
+        private final long votes;
+        private final long comments;
+
+        public Root(String stableId, long nodeId, String majorVersionStableId, long created, long votes, long comments) {
+            this.stableId = stableId;
+            this.nodeId = nodeId;
+            this.majorVersionStableId = majorVersionStableId;
+            this.created = created;
+            this.votes = votes;
+            this.comments = comments;
+        }
+
+        /**
+         * Reads rows with the columns stableId, nodeId, majorVersionStableId, created, votes and comments.
+         */
+        public static List<Root> fromRows(Iterable<Map<String, Object>> rows) {
+            List<Root> result = new ArrayList<>();
+            for (Map<String, Object> row : rows) {
+                result.add(new Root((String) row.get("stableId"), longValue(row.get("nodeId")),
+                        (String) row.get("majorVersionStableId"), longValue(row.get("created")),
+                        longValue(row.get("votes")), longValue(row.get("comments"))));
+            }
+            return result;
+        }
+
+        private static long longValue(Object value) {
+            return value == null ? 0 : ((Number) value).longValue();
+        }
+    }
+
+    public static class Page {
+        private final List<Long> nodeIds;
+        private final String nextCursor;
+
+        private Page(List<Long> nodeIds, String nextCursor) {
+            this.nodeIds = nodeIds;
+            this.nextCursor = nextCursor;
+        }
+
+        /**
+         * In feed order.
+         */
+        public List<Long> getNodeIds() {
+            return nodeIds;
+        }
+
+        /**
+         * Null when there are no more roots.
+         */
+        public String getNextCursor() {
+            return nextCursor;
+        }
+    }
+
+    /**
+     * A root that sorts where the cursor's root did, for seeking to the rest of the page.
+     */
+    private static Root probe(Order order, PageCursor cursor) {
+        long key = cursor.getLongKey();
+        long created = order == Order.NEWEST ? key : 0;
+        long votes = order == Order.VOTES ? key : 0;
+        long comments = order == Order.COMMENTS ? key : 0;
+        return new Root(null, cursor.getId(), null, created, votes, comments);
+    }
+}
@@ -1,13 +1,26 @@
 package com.nodestand.service.comment;
 
 import com.nodestand.controllers.serial.QuickCommentResponse;
+import com.nodestand.nodes.NodeInputException;
 import com.nodestand.nodes.NodeRulesException;
 import com.nodestand.nodes.comment.Comment;
 import com.nodestand.nodes.comment.Commentable;
 
 public interface CommentService {
 
-    QuickCommentResponse getComments(String nodeStableId);
+    /**
+     * Loads a page of the top-level comments on the node, plus up to replyLimit replies to each of them, and so on
+     * down to depth levels of replies.
+     *
+     * @param sort "score" or "date".
+     * @param cursor the moreReplies entry for the thread root from a previous response, or null for the first page.
+     */
+    QuickCommentResponse getComments(String nodeStableId, String sort, int limit, int replyLimit, int depth, String cursor) throws NodeInputException;
+
+    /**
+     * Like getComments, but below a comment (or major version) that the client already has.
+     */
+    QuickCommentResponse getReplies(long parentId, String sort, int limit, int depth, String cursor) throws NodeInputException;
 
     Comment createComment(String body, long parentId, String authorStableId, long userId) throws NodeRulesException;
 
@@ -1,23 +1,29 @@
 package com.nodestand.service.comment;
 
+import com.nodestand.controllers.ResourceNotFoundException;
 import com.nodestand.controllers.serial.QuickCommentResponse;
 import com.nodestand.controllers.serial.QuickEdge;
 import com.nodestand.nodes.Author;
+import com.nodestand.nodes.NodeInputException;
 import com.nodestand.nodes.NodeRulesException;
 import com.nodestand.nodes.User;
 import com.nodestand.nodes.comment.Comment;
 import com.nodestand.nodes.comment.Commentable;
+import com.nodestand.nodes.comment.PendingNotification;
 import com.nodestand.nodes.repository.CommentableRepository;
 import com.nodestand.nodes.repository.UserRepository;
+import com.nodestand.nodes.version.MajorVersion;
 import com.nodestand.service.AuthorRulesUtil;
+import com.nodestand.service.argument.RootNodeIndex;
+import com.nodestand.service.email.NotificationDispatcher;
+import com.nodestand.util.PageCursor;
+import org.neo4j.ogm.model.Result;
 import org.neo4j.ogm.session.Session;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.util.Date;
-import java.util.HashSet;
-import java.util.Set;
+import java.util.*;
 
 @Component
 public class CommentServiceNeo4j implements CommentService {
@@ -28,27 +34,116 @@ public class CommentServiceNeo4j implements CommentService {
 
     private final UserRepository userRepo;
 
+    private final RootNodeIndex rootNodeIndex;
+
     @Autowired
-    public CommentServiceNeo4j(Session session, CommentableRepository commentRepo, UserRepository userRepo) {
+    public CommentServiceNeo4j(Session session, CommentableRepository commentRepo, UserRepository userRepo,
+                               RootNodeIndex rootNodeIndex) {
         this.session = session;
         this.commentRepo = commentRepo;
         this.userRepo = userRepo;
+        this.rootNodeIndex = rootNodeIndex;
     }
 
     @Override
     @Transactional
-    public QuickCommentResponse getComments(String nodeStableId) {
+    public QuickCommentResponse getComments(String nodeStableId, String sort, int limit, int replyLimit, int depth, String cursor) throws NodeInputException {
+
+        MajorVersion majorVersion = commentRepo.getCommentedMajorVersion(nodeStableId);
+        if (majorVersion == null) {
+            throw new ResourceNotFoundException("Node not found!");
+        }
+
+        return loadThread(majorVersion.getId(), Sort.parse(sort), limit, replyLimit, depth, cursor);
+    }
 
-        Set<Commentable> comments = commentRepo.getComments(nodeStableId);
+    @Override
+    @Transactional
+    public QuickCommentResponse getReplies(long parentId, String sort, int limit, int depth, String cursor) throws NodeInputException {
+        return loadThread(parentId, Sort.parse(sort), limit, limit, depth, cursor);
+    }
 
+    /**
+     * Loads the thread one level at a time. Each level is a single query for the pages of replies to everything
+     * kept on the level above, so the work is bounded by what ends up in the response rather than by the size of
+     * the thread.
+     */
+    private QuickCommentResponse loadThread(long rootId, Sort sort, int limit, int replyLimit, int depth, String cursor) throws NodeInputException {
+
+        // Scores can change between pages, so a reply whose score moves across the cursor may be skipped or shown twice.
+        PageCursor after = cursor == null ? null : PageCursor.decode(cursor, sort);
+
+        Set<Comment> comments = new LinkedHashSet<>();
         Set<QuickEdge> edges = new HashSet<>();
+        Map<Long, String> moreReplies = new HashMap<>();
+
+        List<Long> parentIds = Collections.singletonList(rootId);
+        for (int level = 0; level <= depth && !parentIds.isEmpty(); level++) {
+            int pageSize = level == 0 ? limit : replyLimit;
+
+            // Ask for one extra reply per parent to find out whether there is another page.
+            Result pages = commentRepo.getReplyPages(parentIds, sort == Sort.SCORE,
+                    after != null ? after.getLongKey() : null, after != null ? after.getId() : 0, pageSize + 1);
+            after = null;
+
+            Map<Long, List<Long>> pageByParent = new HashMap<>();
+            Set<Long> unfinished = new HashSet<>();
+            List<Long> levelIds = new ArrayList<>();
+            for (Map<String, Object> row : pages.queryResults()) {
+                long parentId = ((Number) row.get("parentId")).longValue();
+                List<Long> ids = toIds(row.get("commentIds"));
+                if (ids.size() > pageSize) {
+                    ids = ids.subList(0, pageSize);
+                    unfinished.add(parentId);
+                }
+                pageByParent.put(parentId, ids);
+                levelIds.addAll(ids);
+            }
+
+            Map<Long, Comment> loaded = new HashMap<>();
+            if (!levelIds.isEmpty()) {
+                for (Comment comment : commentRepo.loadWithAuthors(levelIds)) {
+                    loaded.put(comment.getId(), comment);
+                }
+            }
+
+            for (Map.Entry<Long, List<Long>> entry : pageByParent.entrySet()) {
+                Comment last = null;
+                for (Long id : entry.getValue()) {
+                    Comment comment = loaded.get(id);
+                    if (comment != null) {
+                        comments.add(comment);
+                        edges.add(new QuickEdge(id, entry.getKey()));
+                        last = comment;
+                    }
+                }
+                if (last != null && unfinished.contains(entry.getKey())) {
+                    moreReplies.put(entry.getKey(), new PageCursor(sort, sort.keyOf(last), last.getId()).encode());
+                }
+            }
+
+            parentIds = levelIds;
+        }
 
-        comments.stream().filter(c -> c instanceof Comment).forEach(c -> {
-            Comment comment = (Comment) c;
-            edges.add(new QuickEdge(comment.getId(), comment.parent.getId()));
-        });
+        // Whatever is left in parentIds sits at the depth limit. Its replies were not loaded, only counted.
+        if (!parentIds.isEmpty()) {
+            for (Map<String, Object> row : commentRepo.countReplies(parentIds).queryResults()) {
+                if (((Number) row.get("replies")).longValue() > 0) {
+                    moreReplies.put(((Number) row.get("parentId")).longValue(), null);
+                }
+            }
+        }
 
-        return new QuickCommentResponse(comments, edges);
+        return new QuickCommentResponse(rootId, comments, edges, moreReplies);
+    }
+
+    private static List<Long> toIds(Object column) {
+        Collection<?> values = column instanceof Object[] ? Arrays.asList((Object[]) column) : (Collection<?>) column;
+        List<Long> ids = new ArrayList<>(values.size());
+        for (Object value : values) {
+            ids.add(((Number) value).longValue());
+        }
+        return ids;
     }
 
     @Override
@@ -62,9 +157,38 @@ public class CommentServiceNeo4j implements CommentService {
 
         session.save(comment);
 
+        if (parent instanceof Comment) {
+            queueReplyNotifications((Comment) parent, comment);
+        }
+
+        String majorVersionStableId = parent instanceof MajorVersion ?
+                ((MajorVersion) parent).getStableId() : commentRepo.getThreadMajorVersionStableId(parentId);
+        if (majorVersionStableId != null) {
+            rootNodeIndex.adjustComments(majorVersionStableId, 1);
+        }
+
         return comment;
     }
 
+    /**
+     * Written in the same transaction as the reply. {@link NotificationDispatcher} sends them later, so the email
+     * provider is never on the path of the request.
+     */
+    private void queueReplyNotifications(Comment parent, Comment reply) {
+        loadWithWatchers(parent.getId()); // Hydrate the parent
+
+        List<PendingNotification> notifications = new ArrayList<>();
+        for (User watcher: parent.getCommentWatchers()) {
+            if (watcher.getEmailAddress() != null) {
+                notifications.add(new PendingNotification(watcher.getEmailAddress(), parent, reply));
+            }
+        }
+
+        if (!notifications.isEmpty()) {
+            session.save(notifications);
+        }
+    }
+
     @Override
     @Transactional
     public Comment editComment(String body, long commentId, String userStableId) throws NodeRulesException {
@@ -88,4 +212,16 @@ public class CommentServiceNeo4j implements CommentService {
     public Comment loadWithWatchers(long commentId) {
         return commentRepo.loadWithAuthor(commentId);
     }
+
+    private enum Sort {
+        SCORE, DATE;
+
+        private static Sort parse(String name) throws NodeInputException {
+            return PageCursor.parseOrder(Sort.class, name, SCORE);
+        }
+
+        private long keyOf(Comment comment) {
+            return this == SCORE ? comment.score : comment.getDateCreated().getTime();
+        }
+    }
 }
@@ -2,10 +2,11 @@ package com.nodestand.service.email;
 
 import com.amazonaws.services.simpleemail.AmazonSimpleEmailService;
 import com.amazonaws.services.simpleemail.model.*;
-import com.nodestand.nodes.comment.Comment;
+import com.nodestand.nodes.comment.PendingNotification;
 
 import java.nio.charset.StandardCharsets;
 import java.util.Collections;
+import java.util.List;
 
 public class CommentNotificationSender {
 
@@ -18,33 +19,48 @@ public class CommentNotificationSender {
         this.simpleEmailService = simpleEmailService;
     }
 
-    public void sendNotification(String emailAddress, Comment parentComment, Comment reply) {
-
+    /**
+     * Sends one email covering every reply in the list.
+     */
+    public void sendNotifications(String emailAddress, List<PendingNotification> notifications) {
 
         SendEmailRequest emailRequest = new SendEmailRequest();
         emailRequest.setSource(FROM_ADDRESS);
         emailRequest.setDestination(new Destination(Collections.singletonList(emailAddress)));
 
+        String subjectText = notifications.size() == 1 ?
+                "New comment reply on Finer Points!" :
+                notifications.size() + " new comment replies on Finer Points!";
+
         Content subject = new Content()
-                .withData("New comment reply on Finer Points!")
+                .withData(subjectText)
                 .withCharset(StandardCharsets.UTF_8.name());
         Body body = new Body()
                 .withHtml(new Content()
-                    .withData(makeHtml(parentComment, reply))
+                    .withData(makeHtml(notifications))
                     .withCharset(StandardCharsets.UTF_8.name()));
 
         Message message = new Message(subject, body);
         emailRequest.setMessage(message);
 
-        SendEmailResult sendEmailResult = simpleEmailService.sendEmail(emailRequest);
+        simpleEmailService.sendEmail(emailRequest);
     }
 
-    private String makeHtml(Comment parentComment, Comment reply) {
+    private String makeHtml(List<PendingNotification> notifications) {
 
         String url = "https://www.finerpoints.org"; // TODO: make this point to an exact comment
 
-        return String.format("<p>There's a new comment reply on Finer Points!</p>" +
-                        "<p><a href=\"%s\">%s</a></p><p>%s</p>" +
-                        "<blockquote>%s</blockquote>", url, url, parentComment.body, reply.body);
+        StringBuilder html = new StringBuilder();
+        html.append(notifications.size() == 1 ?
+                "<p>There's a new comment reply on Finer Points!</p>" :
+                "<p>There are new comment replies on Finer Points!</p>");
+        html.append(String.format("<p><a href=\"%s\">%s</a></p>", url, url));
+
+        for (PendingNotification notification : notifications) {
+            html.append(String.format("<p>%s</p><blockquote>%s</blockquote>",
+                    notification.getParentBody(), notification.getReplyBody()));
+        }
+
+        return html.toString();
     }
 }
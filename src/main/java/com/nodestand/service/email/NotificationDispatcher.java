@@ -0,0 +1,185 @@
+package com.nodestand.service.email;
+
+import com.nodestand.nodes.comment.PendingNotification;
+import com.nodestand.util.BackgroundWorker;
+import org.neo4j.ogm.session.Session;
+import org.neo4j.ogm.session.SessionFactory;
+import org.neo4j.ogm.transaction.Transaction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Background worker that emails {@link PendingNotification} rows. A recipient is only picked up once their oldest
+ * notification has waited out the coalescing window, and then everything queued for them goes out as one digest,
+ * so a burst of replies costs them a single email.
+ *
+ * Notifications are claimed by pushing back their nextAttempt, sent outside of any transaction, and deleted once
+ * the send succeeds. If the process dies in between, the claim runs out and they are sent again, so delivery is at
+ * least once. Failed sends are retried with exponential backoff until maxAttempts, then dropped.
+ *
+ * Each claim, delete and reschedule commits on its own, so a slow mail server never holds a transaction open.
+ */
+@Component
+public class NotificationDispatcher {
+
+    private static final String CLAIM_BATCH =
+            "MATCH (n:PendingNotification) WHERE n.nextAttempt <= {now}" +
+            " WITH n.recipientEmail AS recipient, min(n.dateCreated) AS oldest" +
+            " WHERE oldest <= {now} - {coalesceMillis}" +
+            " WITH recipient ORDER BY oldest LIMIT {batchSize}" +
+            " MATCH (n:PendingNotification {recipientEmail: recipient}) WHERE n.nextAttempt <= {now}" +
+            " SET n.nextAttempt = {claimedUntil}" +
+            " RETURN n";
+
+    private static final String DELETE =
+            "MATCH (n:PendingNotification) WHERE ID(n) IN {ids} DELETE n";
+
+    private static final String RESCHEDULE =
+            "MATCH (n:PendingNotification) WHERE ID(n) IN {ids}" +
+            " SET n.attempts = coalesce(n.attempts, 0) + 1, n.nextAttempt = {nextAttempt}";
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    private final SessionFactory sessionFactory;
+
+    private final CommentNotificationSender sender;
+
+    private final long intervalMillis;
+
+    private final long coalesceMillis;
+
+    private final long claimMillis;
+
+    private final long retryBaseMillis;
+
+    private final long retryMaxMillis;
+
+    private final int maxAttempts;
+
+    private final int batchSize;
+
+    // Notifications claimed by a failed run are picked up again once their claim runs out.
+    private final BackgroundWorker worker =
+            new BackgroundWorker("notification-dispatcher", this::dispatch, logger, "Failed to dispatch notifications");
+
+    @Autowired
+    public NotificationDispatcher(SessionFactory sessionFactory, CommentNotificationSender sender, Environment environment) {
+        this.sessionFactory = sessionFactory;
+        this.sender = sender;
+        this.intervalMillis = environment.getProperty("notifications.flushIntervalMillis", Long.class, 5000L);
+        this.coalesceMillis = environment.getProperty("notifications.coalesceMillis", Long.class, 60000L);
+        this.claimMillis = environment.getProperty("notifications.claimMillis", Long.class, 300000L);
+        this.retryBaseMillis = environment.getProperty("notifications.retryBaseMillis", Long.class, 30000L);
+        this.retryMaxMillis = environment.getProperty("notifications.retryMaxMillis", Long.class, 3600000L);
+        this.maxAttempts = environment.getProperty("notifications.maxAttempts", Integer.class, 8);
+        this.batchSize = environment.getProperty("notifications.batchSize", Integer.class, 50);
+    }
+
+    @PostConstruct
+    public void start() {
+        worker.start(intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        worker.stop();
+    }
+
+    /**
+     * Sends everything that is due right now. Returns the number of notifications sent.
+     */
+    public int dispatch() {
+        return dispatch(System.currentTimeMillis());
+    }
+
+    synchronized int dispatch(long now) {
+        Session session = sessionFactory.openSession();
+        int total = 0;
+        int recipients;
+        do {
+            Map<String, List<PendingNotification>> byRecipient = claim(session, now);
+            recipients = byRecipient.size();
+
+            List<Long> sent = new ArrayList<>();
+            for (Map.Entry<String, List<PendingNotification>> entry : byRecipient.entrySet()) {
+                if (send(entry.getKey(), entry.getValue())) {
+                    entry.getValue().forEach(n -> sent.add(n.getId()));
+                } else {
+                    retryLater(session, entry.getValue(), now);
+                }
+            }
+
+            if (!sent.isEmpty()) {
+                execute(session, DELETE, Collections.singletonMap("ids", sent));
+            }
+            total += sent.size();
+        } while (recipients >= batchSize);
+        return total;
+    }
+
+    private Map<String, List<PendingNotification>> claim(Session session, long now) {
+        Map<String, Object> params = new HashMap<>();
+        params.put("now", now);
+        params.put("coalesceMillis", coalesceMillis);
+        params.put("batchSize", batchSize);
+        params.put("claimedUntil", now + claimMillis);
+
+        Map<String, List<PendingNotification>> byRecipient = new LinkedHashMap<>();
+        try (Transaction tx = session.beginTransaction()) {
+            for (PendingNotification notification : session.query(PendingNotification.class, CLAIM_BATCH, params)) {
+                byRecipient.computeIfAbsent(notification.getRecipientEmail(), k -> new ArrayList<>()).add(notification);
+            }
+            tx.commit();
+        }
+
+        byRecipient.values().forEach(list -> list.sort(Comparator.comparing(PendingNotification::getDateCreated)
+                .thenComparing(PendingNotification::getId)));
+        return byRecipient;
+    }
+
+    private boolean send(String emailAddress, List<PendingNotification> notifications) {
+        try {
+            sender.sendNotifications(emailAddress, notifications);
+            return true;
+        } catch (RuntimeException e) {
+            logger.warn("Failed to send {} notifications to {}", notifications.size(), emailAddress, e);
+            return false;
+        }
+    }
+
+    private void retryLater(Session session, List<PendingNotification> notifications, long now) {
+        int attempts = notifications.stream().mapToInt(PendingNotification::getAttempts).max().orElse(0) + 1;
+
+        List<Long> ids = new ArrayList<>();
+        notifications.forEach(n -> ids.add(n.getId()));
+
+        if (attempts >= maxAttempts) {
+            logger.error("Giving up on {} notifications to {} after {} attempts",
+                    notifications.size(), notifications.get(0).getRecipientEmail(), attempts);
+            execute(session, DELETE, Collections.singletonMap("ids", ids));
+            return;
+        }
+
+        long delay = Math.min(retryBaseMillis << Math.min(attempts - 1, 20), retryMaxMillis);
+
+        Map<String, Object> params = new HashMap<>();
+        params.put("ids", ids);
+        params.put("nextAttempt", now + delay);
+        execute(session, RESCHEDULE, params);
+    }
+
+    private static void execute(Session session, String cypher, Map<String, ?> params) {
+        try (Transaction tx = session.beginTransaction()) {
+            session.query(cypher, params);
+            tx.commit();
+        }
+    }
+}
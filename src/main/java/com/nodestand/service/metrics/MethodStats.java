@@ -0,0 +1,176 @@
+package com.nodestand.service.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters and a latency histogram for one repository or session method. Recording a call is a handful of atomic
+ * adds and allocates nothing, so it can be left on under load.
+ *
+ * The histogram has one bucket per power of two microseconds: bucket 0 holds calls under 1us, bucket i holds
+ * calls from 2^(i-1) up to 2^i us. Percentiles read from it are the upper edge of their bucket, so they are within
+ * a factor of two.
+ */
+public class MethodStats {
+
+    static final int BUCKETS = 40;
+
+    private final String name;
+
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final LongAdder rows = new LongAdder();
+    private final LongAdder callsWithRows = new LongAdder();
+    private final AtomicLong maxNanos = new AtomicLong();
+    private final AtomicLongArray histogram = new AtomicLongArray(BUCKETS);
+
+    MethodStats(String name) {
+        this.name = name;
+    }
+
+    /**
+     * @param rows the number of rows or entities returned, or -1 if that isn't known.
+     */
+    public void record(long nanos, long rows, boolean error) {
+        calls.increment();
+        totalNanos.add(nanos);
+        if (error) {
+            errors.increment();
+        }
+        if (rows >= 0) {
+            this.rows.add(rows);
+            callsWithRows.increment();
+        }
+
+        long max = maxNanos.get();
+        while (nanos > max && !maxNanos.compareAndSet(max, nanos)) {
+            max = maxNanos.get();
+        }
+
+        histogram.incrementAndGet(bucket(nanos));
+    }
+
+    static int bucket(long nanos) {
+        long micros = nanos / 1000;
+        return Math.min(64 - Long.numberOfLeadingZeros(micros), BUCKETS - 1);
+    }
+
+    /**
+     * Upper edge of the bucket, in microseconds.
+     */
+    static long bucketLimitMicros(int bucket) {
+        return 1L << bucket;
+    }
+
+    public Snapshot snapshot() {
+        long[] counts = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = histogram.get(i);
+            total += counts[i];
+        }
+        return new Snapshot(name, calls.sum(), errors.sum(), totalNanos.sum(), maxNanos.get(), rows.sum(),
+                callsWithRows.sum(), counts, total);
+    }
+
+    /**
+     * A copy of the stats at one moment. Counters are read one at a time while calls carry on, so they can be off
+     * from each other by the calls in flight.
+     */
+    public static class Snapshot {
+        private final String name;
+        private final long calls;
+        private final long errors;
+        private final long totalNanos;
+        private final long maxNanos;
+        private final long rows;
+        private final long callsWithRows;
+        private final long[] histogram;
+        private final long histogramTotal;
+
+        private Snapshot(String name, long calls, long errors, long totalNanos, long maxNanos, long rows,
+                         long callsWithRows, long[] histogram, long histogramTotal) {
+            this.name = name;
+            this.calls = calls;
+            this.errors = errors;
+            this.totalNanos = totalNanos;
+            this.maxNanos = maxNanos;
+            this.rows = rows;
+            this.callsWithRows = callsWithRows;
+            this.histogram = histogram;
+            this.histogramTotal = histogramTotal;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long getCalls() {
+            return calls;
+        }
+
+        public long getErrors() {
+            return errors;
+        }
+
+        public double getTotalMillis() {
+            return totalNanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+        }
+
+        public double getMeanMillis() {
+            return calls == 0 ? 0 : getTotalMillis() / calls;
+        }
+
+        public double getMaxMillis() {
+            return maxNanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+        }
+
+        public double getP50Millis() {
+            return percentileMillis(50);
+        }
+
+        public double getP90Millis() {
+            return percentileMillis(90);
+        }
+
+        public double getP99Millis() {
+            return percentileMillis(99);
+        }
+
+        public long getRows() {
+            return rows;
+        }
+
+        /**
+         * Over the calls whose row count is known. Void methods and raw Cypher results are left out.
+         */
+        public double getMeanRows() {
+            return callsWithRows == 0 ? 0 : rows / (double) callsWithRows;
+        }
+
+        /**
+         * Calls per bucket, where bucket i ends at 2^i microseconds.
+         */
+        public long[] getHistogram() {
+            return histogram;
+        }
+
+        double percentileMillis(int percent) {
+            if (histogramTotal == 0) {
+                return 0;
+            }
+            long rank = (long) Math.ceil(percent / 100.0 * histogramTotal);
+            long seen = 0;
+            for (int i = 0; i < histogram.length; i++) {
+                seen += histogram[i];
+                if (seen >= rank) {
+                    return bucketLimitMicros(i) / 1000.0;
+                }
+            }
+            return bucketLimitMicros(histogram.length - 1) / 1000.0;
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.nodestand.service.metrics;
+
+import com.nodestand.util.BackgroundWorker;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Timing for every repository method and every direct Session call, filled in by
+ * {@link QueryMetricsPostProcessor}. Served by /metrics/queries, and the methods with the most total time are
+ * logged every metrics.logIntervalSeconds.
+ */
+@Component
+public class QueryMetrics {
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    private final ConcurrentMap<String, MethodStats> stats = new ConcurrentHashMap<>();
+
+    private final long logIntervalSeconds;
+
+    private final int logTop;
+
+    private final BackgroundWorker worker =
+            new BackgroundWorker("query-metrics-log", this::logSummary, logger, "Failed to log query metrics");
+
+    @Autowired
+    public QueryMetrics(Environment environment) {
+        this.logIntervalSeconds = environment.getProperty("metrics.logIntervalSeconds", Long.class, 300L);
+        this.logTop = environment.getProperty("metrics.logTop", Integer.class, 15);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (logIntervalSeconds <= 0) {
+            return;
+        }
+        worker.start(logIntervalSeconds, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        worker.stop();
+    }
+
+    /**
+     * The stats for the named method, created on first use. Callers should hold on to the result rather than look
+     * it up on every call.
+     */
+    public MethodStats statsFor(String name) {
+        return stats.computeIfAbsent(name, MethodStats::new);
+    }
+
+    /**
+     * Every method that has been called, most total time first.
+     */
+    public List<MethodStats.Snapshot> snapshot() {
+        List<MethodStats.Snapshot> snapshots = new ArrayList<>(stats.size());
+        for (MethodStats methodStats : stats.values()) {
+            MethodStats.Snapshot snapshot = methodStats.snapshot();
+            if (snapshot.getCalls() > 0) {
+                snapshots.add(snapshot);
+            }
+        }
+        snapshots.sort(Comparator.comparingDouble(MethodStats.Snapshot::getTotalMillis).reversed());
+        return snapshots;
+    }
+
+    /**
+     * Totals since startup.
+     */
+    public String summary(int top) {
+        StringBuilder summary = new StringBuilder(String.format("%-56s %9s %6s %10s %9s %9s %9s %9s%n",
+                "method", "calls", "errors", "total ms", "mean ms", "p99 ms", "max ms", "rows"));
+        List<MethodStats.Snapshot> snapshots = snapshot();
+        for (MethodStats.Snapshot s : snapshots.subList(0, Math.min(top, snapshots.size()))) {
+            summary.append(String.format("%-56s %9d %6d %10.0f %9.2f %9.2f %9.2f %9.1f%n", s.getName(), s.getCalls(),
+                    s.getErrors(), s.getTotalMillis(), s.getMeanMillis(), s.getP99Millis(), s.getMaxMillis(),
+                    s.getMeanRows()));
+        }
+        return summary.toString();
+    }
+
+    private void logSummary() {
+        if (!stats.isEmpty()) {
+            logger.info("Database time by method since startup:\n{}", summary(logTop));
+        }
+    }
+}
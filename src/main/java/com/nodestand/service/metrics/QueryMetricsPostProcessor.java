@@ -0,0 +1,198 @@
+package com.nodestand.service.metrics;
+
+import org.neo4j.ogm.model.Result;
+import org.neo4j.ogm.session.Session;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.core.env.Environment;
+import org.springframework.data.neo4j.repository.GraphRepository;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Wraps every GraphRepository and the Session in a proxy that records each call in {@link QueryMetrics}.
+ *
+ * Session calls made from inside a repository method are not recorded again, so the Session.* entries are only
+ * the direct load/save/delete/query calls made by services.
+ *
+ * The shared session is request scoped behind a scoped proxy. That proxy is left alone and the session behind it
+ * is wrapped, once per request, so calls aren't counted twice.
+ */
+@Component
+public class QueryMetricsPostProcessor implements BeanPostProcessor {
+
+    private static final Set<String> SESSION_METHODS = new HashSet<>(Arrays.asList(
+            "load", "loadAll", "query", "queryForObject", "save", "delete", "deleteAll", "purgeDatabase",
+            "countEntitiesOfType"));
+
+    /**
+     * How many instrumented repository calls the thread is inside of.
+     */
+    private static final ThreadLocal<int[]> REPOSITORY_DEPTH = ThreadLocal.withInitial(() -> new int[1]);
+
+    private final QueryMetrics queryMetrics;
+
+    private final boolean enabled;
+
+    /**
+     * Session methods are shared by every wrapped session, so their stats are looked up once here.
+     */
+    private final ConcurrentMap<Method, MethodStats> sessionStats = new ConcurrentHashMap<>();
+
+    @Autowired
+    public QueryMetricsPostProcessor(QueryMetrics queryMetrics, Environment environment) {
+        this.queryMetrics = queryMetrics;
+        this.enabled = environment.getProperty("metrics.queries.enabled", Boolean.class, true);
+    }
+
+    @Override
+    public Object postProcessBeforeInitialization(Object bean, String beanName) throws BeansException {
+        return bean;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) throws BeansException {
+        if (!enabled) {
+            return bean;
+        }
+        if (bean instanceof GraphRepository) {
+            Class<?> repository = repositoryInterface(bean);
+            if (repository != null) {
+                return wrap(bean, new RepositoryHandler(bean, repository));
+            }
+        } else if (bean instanceof Session && !AopUtils.isAopProxy(bean)) {
+            return wrap(bean, new SessionHandler(bean));
+        }
+        return bean;
+    }
+
+    private static Object wrap(Object bean, InvocationHandler handler) {
+        return Proxy.newProxyInstance(bean.getClass().getClassLoader(),
+                ClassUtils.getAllInterfaces(bean), handler);
+    }
+
+    /**
+     * The application's own repository interface, e.g. ArgumentNodeRepository.
+     */
+    private static Class<?> repositoryInterface(Object bean) {
+        for (Class<?> candidate : ClassUtils.getAllInterfaces(bean)) {
+            if (GraphRepository.class.isAssignableFrom(candidate) && candidate != GraphRepository.class) {
+                return candidate;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Rows or entities returned, or -1 if unknown: void methods, and raw results that would have to be read to
+     * be counted.
+     */
+    static long rows(Method method, Object result) {
+        if (method.getReturnType() == void.class || result instanceof Result) {
+            return -1;
+        }
+        if (result == null) {
+            return 0;
+        }
+        if (result instanceof Collection) {
+            return ((Collection<?>) result).size();
+        }
+        if (result instanceof Iterable) {
+            return -1;
+        }
+        return 1;
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args, MethodStats stats) throws Throwable {
+        long start = System.nanoTime();
+        boolean error = true;
+        Object result = null;
+        try {
+            result = method.invoke(target, args);
+            error = false;
+            return result;
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        } finally {
+            stats.record(System.nanoTime() - start, error ? -1 : rows(method, result), error);
+        }
+    }
+
+    private class RepositoryHandler implements InvocationHandler {
+        private final Object target;
+        private final Class<?> repository;
+        private final ConcurrentMap<Method, MethodStats> stats = new ConcurrentHashMap<>();
+
+        private RepositoryHandler(Object target, Class<?> repository) {
+            this.target = target;
+            this.repository = repository;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            if (method.getDeclaringClass() == Object.class) {
+                return invokeUnrecorded(target, method, args);
+            }
+
+            MethodStats methodStats = stats.get(method);
+            if (methodStats == null) {
+                methodStats = stats.computeIfAbsent(method, m -> queryMetrics.statsFor(name(repository, m)));
+            }
+
+            int[] depth = REPOSITORY_DEPTH.get();
+            depth[0]++;
+            try {
+                return QueryMetricsPostProcessor.invoke(target, method, args, methodStats);
+            } finally {
+                depth[0]--;
+            }
+        }
+    }
+
+    private class SessionHandler implements InvocationHandler {
+        private final Object target;
+
+        private SessionHandler(Object target) {
+            this.target = target;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            if (!SESSION_METHODS.contains(method.getName()) || REPOSITORY_DEPTH.get()[0] > 0) {
+                return invokeUnrecorded(target, method, args);
+            }
+
+            MethodStats methodStats = sessionStats.get(method);
+            if (methodStats == null) {
+                methodStats = sessionStats.computeIfAbsent(method, m -> queryMetrics.statsFor(name(Session.class, m)));
+            }
+            return QueryMetricsPostProcessor.invoke(target, method, args, methodStats);
+        }
+    }
+
+    private static Object invokeUnrecorded(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Repository.method, with the parameter count added when the name is overloaded.
+     */
+    static String name(Class<?> type, Method method) {
+        long overloads = Arrays.stream(type.getMethods()).filter(m -> m.getName().equals(method.getName())).count();
+        return type.getSimpleName() + "." + method.getName() + (overloads > 1 ? "/" + method.getParameterCount() : "");
+    }
+}
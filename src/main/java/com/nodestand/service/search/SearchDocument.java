@@ -0,0 +1,127 @@
+package com.nodestand.service.search;
+
+import com.nodestand.nodes.ArgumentBody;
+import com.nodestand.nodes.assertion.AssertionBody;
+import com.nodestand.nodes.interpretation.InterpretationBody;
+import com.nodestand.nodes.source.SourceBody;
+import com.nodestand.nodes.subject.SubjectBody;
+import com.nodestand.util.BodyTextIterator;
+
+import java.util.*;
+import java.util.regex.Pattern;
+
+/**
+ * Immutable snapshot of an {@link ArgumentBody}, taken at the moment it was handed to the index so that later
+ * changes to the entity can't leak into the index before they are committed.
+ */
+class SearchDocument {
+
+    private static final float TITLE_WEIGHT = 4;
+    private static final float QUALIFIER_WEIGHT = 2;
+    private static final float LINK_LABEL_WEIGHT = 1.5f;
+    private static final float BODY_WEIGHT = 1;
+
+    private static final Pattern TOKEN_SEPARATOR = Pattern.compile("[^\\p{L}\\p{Nd}]+");
+
+    private static final Pattern LINK_MARKUP = Pattern.compile("\\{\\{\\[[0-9a-z]{1,25}\\].+?}}");
+
+    final long bodyId;
+    final String title;
+
+    /**
+     * The title's words, lower cased and separated by single spaces.
+     */
+    final String normalizedTitle;
+
+    final String qualifier;
+    final String type;
+    final Long majorVersionId;
+    final String majorVersionStableId;
+    final boolean isPublic;
+
+    /**
+     * Only meaningful for drafts, which are visible to nobody but their owner.
+     */
+    final Long ownerUserId;
+
+    final Map<String, Float> termWeights;
+
+    SearchDocument(ArgumentBody body, Long ownerUserId) {
+        this.bodyId = body.getId();
+        this.title = body.getTitle();
+        this.normalizedTitle = normalize(title);
+        this.qualifier = body.getQualifier();
+        this.type = typeOf(body);
+        this.majorVersionId = body.getMajorVersion().getId();
+        this.majorVersionStableId = body.getMajorVersion().getStableId();
+        this.isPublic = body.isPublic();
+        this.ownerUserId = ownerUserId;
+
+        Map<String, Float> weights = new HashMap<>();
+        addTerms(weights, title, TITLE_WEIGHT);
+        addTerms(weights, qualifier, QUALIFIER_WEIGHT);
+
+        String text = textOf(body);
+        if (text != null) {
+            BodyTextIterator links = new BodyTextIterator(text);
+            while (links.hasNext()) {
+                addTerms(weights, links.next().getLabel(), LINK_LABEL_WEIGHT);
+            }
+            addTerms(weights, LINK_MARKUP.matcher(text).replaceAll(" "), BODY_WEIGHT);
+        }
+        this.termWeights = Collections.unmodifiableMap(weights);
+    }
+
+    boolean isVisibleTo(Long userId) {
+        return isPublic || (userId != null && userId.equals(ownerUserId));
+    }
+
+    static String normalize(String text) {
+        return String.join(" ", tokenize(text));
+    }
+
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) {
+            return tokens;
+        }
+        for (String token : TOKEN_SEPARATOR.split(text.toLowerCase(Locale.ROOT))) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    private static void addTerms(Map<String, Float> weights, String text, float weight) {
+        for (String token : tokenize(text)) {
+            weights.merge(token, weight, Float::sum);
+        }
+    }
+
+    private static String textOf(ArgumentBody body) {
+        if (body instanceof AssertionBody) {
+            return ((AssertionBody) body).getBody();
+        }
+        if (body instanceof InterpretationBody) {
+            return ((InterpretationBody) body).getBody();
+        }
+        return null;
+    }
+
+    private static String typeOf(ArgumentBody body) {
+        if (body instanceof AssertionBody) {
+            return "assertion";
+        }
+        if (body instanceof InterpretationBody) {
+            return "interpretation";
+        }
+        if (body instanceof SourceBody) {
+            return "source";
+        }
+        if (body instanceof SubjectBody) {
+            return "subject";
+        }
+        return null;
+    }
+}
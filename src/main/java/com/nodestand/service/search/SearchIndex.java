@@ -0,0 +1,294 @@
+package com.nodestand.service.search;
+
+import com.nodestand.controllers.serial.SearchHit;
+import com.nodestand.controllers.serial.TypeaheadPage;
+import com.nodestand.nodes.ArgumentBody;
+import com.nodestand.nodes.NodeInputException;
+import com.nodestand.util.TransactionUtil;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * In-memory inverted index over the title, qualifier, body text and link labels of every current argument body.
+ *
+ * The index is filled from the database the first time it's needed and kept up to date by the services that write
+ * bodies. Those updates are applied after the surrounding transaction commits.
+ */
+@Component
+public class SearchIndex {
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Object buildLock = new Object();
+
+    /**
+     * Body id -> document.
+     */
+    private final Map<Long, SearchDocument> documents = new HashMap<>();
+
+    /**
+     * Term -> (body id -> weight of the term in that body). Sorted so that the last word of a query can be matched
+     * as a prefix while the user is still typing it.
+     */
+    private final TreeMap<String, Map<Long, Float>> postings = new TreeMap<>();
+
+    private final TitlePrefixIndex titles = new TitlePrefixIndex();
+
+    private boolean built;
+
+    /**
+     * Updates that arrive while the index is being built. They may or may not be reflected in the data that was
+     * loaded, so they are replayed afterwards.
+     */
+    private List<Consumer<SearchIndex>> pendingUpdates;
+
+    /**
+     * Fills the index from the loader unless that has already happened.
+     */
+    void ensureBuilt(Supplier<Collection<SearchDocument>> loader) {
+        synchronized (buildLock) {
+            lock.readLock().lock();
+            try {
+                if (built) {
+                    return;
+                }
+            } finally {
+                lock.readLock().unlock();
+            }
+
+            lock.writeLock().lock();
+            try {
+                pendingUpdates = new ArrayList<>();
+            } finally {
+                lock.writeLock().unlock();
+            }
+
+            Collection<SearchDocument> loaded;
+            try {
+                loaded = loader.get();
+            } catch (RuntimeException e) {
+                lock.writeLock().lock();
+                try {
+                    pendingUpdates = null;
+                } finally {
+                    lock.writeLock().unlock();
+                }
+                throw e;
+            }
+
+            lock.writeLock().lock();
+            try {
+                documents.values().forEach(titles::remove);
+                documents.clear();
+                postings.clear();
+                loaded.forEach(this::add);
+                pendingUpdates.forEach(update -> update.accept(this));
+                pendingUpdates = null;
+                built = true;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    /**
+     * Adds or replaces the body once the current transaction commits. The body must already have an id.
+     *
+     * @param ownerUserId node id of the user who controls the body's author. Only needed for drafts.
+     */
+    public void index(ArgumentBody body, Long ownerUserId) {
+        SearchDocument document = new SearchDocument(body, ownerUserId);
+        TransactionUtil.afterCommit(() -> update(index -> index.add(document)));
+    }
+
+    /**
+     * Removes the body once the current transaction commits.
+     */
+    public void remove(long bodyId) {
+        TransactionUtil.afterCommit(() -> update(index -> index.delete(bodyId)));
+    }
+
+    /**
+     * Finds the bodies containing every word of the query, where the last word may be a prefix, and returns the
+     * best match of each major version in descending order of relevance.
+     *
+     * @param types which node types to consider, e.g. "assertion" or "source".
+     * @param userId the searcher, whose drafts are included. May be null.
+     */
+    public List<SearchHit> query(String text, Collection<String> types, Long userId, int limit) {
+        List<String> tokens = SearchDocument.tokenize(text);
+        if (tokens.isEmpty() || limit <= 0) {
+            return new ArrayList<>();
+        }
+        boolean lastIsPrefix = !Character.isWhitespace(text.charAt(text.length() - 1));
+
+        lock.readLock().lock();
+        try {
+            List<Map<Long, Float>> matches = new ArrayList<>();
+            for (int i = 0; i < tokens.size(); i++) {
+                Map<Long, Float> tokenMatches = lastIsPrefix && i == tokens.size() - 1 ?
+                        prefixPostings(tokens.get(i)) : postings.get(tokens.get(i));
+                if (tokenMatches == null || tokenMatches.isEmpty()) {
+                    return new ArrayList<>();
+                }
+                matches.add(tokenMatches);
+            }
+
+            // Walk the rarest word's postings and look up the others, so the work is bounded by the most selective
+            // word rather than by the size of the corpus.
+            matches.sort(Comparator.comparingInt(Map::size));
+            double[] idf = new double[matches.size()];
+            for (int i = 0; i < idf.length; i++) {
+                idf[i] = Math.log(1 + (double) documents.size() / matches.get(i).size());
+            }
+
+            Map<String, ScoredDocument> bestByMajorVersion = new HashMap<>();
+            for (Map.Entry<Long, Float> candidate : matches.get(0).entrySet()) {
+                SearchDocument document = documents.get(candidate.getKey());
+                if (!types.contains(document.type) || !document.isVisibleTo(userId)) {
+                    continue;
+                }
+
+                double score = candidate.getValue() * idf[0];
+                for (int i = 1; i < matches.size() && score > 0; i++) {
+                    Float weight = matches.get(i).get(document.bodyId);
+                    score = weight == null ? 0 : score + weight * idf[i];
+                }
+
+                if (score > 0) {
+                    ScoredDocument scored = new ScoredDocument(document, score);
+                    bestByMajorVersion.merge(document.majorVersionStableId, scored,
+                            (a, b) -> RELEVANCE.compare(a, b) <= 0 ? a : b);
+                }
+            }
+
+            PriorityQueue<ScoredDocument> top = new PriorityQueue<>(limit, RELEVANCE.reversed());
+            for (ScoredDocument scored : bestByMajorVersion.values()) {
+                top.add(scored);
+                if (top.size() > limit) {
+                    top.poll();
+                }
+            }
+
+            List<ScoredDocument> ranked = new ArrayList<>(top);
+            ranked.sort(RELEVANCE);
+
+            List<SearchHit> hits = new ArrayList<>(ranked.size());
+            for (ScoredDocument scored : ranked) {
+                hits.add(toHit(scored.document));
+            }
+            return hits;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Titles starting with the query come first, followed by titles with a later word starting with it. Each group
+     * is in alphabetical order, and each major version appears at most once.
+     *
+     * @param cursor the nextCursor of the previous page, or null for the first page.
+     */
+    public TypeaheadPage typeahead(String text, Collection<String> types, Long userId, int limit, String cursor) throws NodeInputException {
+        String prefix = SearchDocument.normalize(text);
+        if (prefix.isEmpty() || limit <= 0) {
+            return new TypeaheadPage(new ArrayList<>(), null);
+        }
+
+        lock.readLock().lock();
+        try {
+            TitlePrefixIndex.Page page = titles.query(prefix,
+                    d -> types.contains(d.type) && d.isVisibleTo(userId), limit, cursor);
+
+            List<SearchHit> hits = new ArrayList<>(page.hits.size());
+            for (SearchDocument d : page.hits) {
+                hits.add(toHit(d));
+            }
+            return new TypeaheadPage(hits, page.nextCursor);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void update(Consumer<SearchIndex> update) {
+        lock.writeLock().lock();
+        try {
+            if (built) {
+                update.accept(this);
+            } else if (pendingUpdates != null) {
+                pendingUpdates.add(update);
+            }
+            // Otherwise nobody has searched yet, and the first search will load the committed state anyway.
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static SearchHit toHit(SearchDocument d) {
+        return new SearchHit(d.title, d.qualifier, d.type, d.majorVersionId, d.majorVersionStableId);
+    }
+
+    private Map<Long, Float> prefixPostings(String prefix) {
+        Map<Long, Float> merged = new HashMap<>();
+        for (Map<Long, Float> termPostings : postings.subMap(prefix, true, prefix + Character.MAX_VALUE, true).values()) {
+            termPostings.forEach((bodyId, weight) -> merged.merge(bodyId, weight, Math::max));
+        }
+        return merged;
+    }
+
+    private void add(SearchDocument document) {
+        delete(document.bodyId);
+        documents.put(document.bodyId, document);
+        document.termWeights.forEach((term, weight) -> postings.computeIfAbsent(term, t -> new HashMap<>()).put(document.bodyId, weight));
+        titles.add(document);
+    }
+
+    private void delete(long bodyId) {
+        SearchDocument existing = documents.remove(bodyId);
+        if (existing == null) {
+            return;
+        }
+        titles.remove(existing);
+        for (String term : existing.termWeights.keySet()) {
+            Map<Long, Float> termPostings = postings.get(term);
+            if (termPostings != null) {
+                termPostings.remove(bodyId);
+                if (termPostings.isEmpty()) {
+                    postings.remove(term);
+                }
+            }
+        }
+    }
+
+    /**
+     * Best first. Ties go to the shorter title, which is usually the closer match.
+     */
+    private static final Comparator<ScoredDocument> RELEVANCE = Comparator
+            .comparingDouble((ScoredDocument s) -> -s.score)
+            .thenComparingInt(s -> s.document.title == null ? 0 : s.document.title.length())
+            .thenComparingLong(s -> s.document.bodyId);
+
+    private static class ScoredDocument {
+        private final SearchDocument document;
+        private final double score;
+
+        private ScoredDocument(SearchDocument document, double score) {
+            this.document = document;
+            this.score = score;
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.nodestand.service.search;
+
+import com.nodestand.controllers.serial.SearchHit;
+import com.nodestand.controllers.serial.TypeaheadPage;
+import com.nodestand.nodes.NodeInputException;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface SearchService {
+
+    /**
+     * Returns at most one hit per major version, most relevant first.
+     *
+     * @param userId the searcher, whose own drafts are searched along with the public bodies. May be null.
+     */
+    List<SearchHit> search(String query, Collection<String> types, Long userId, int limit);
+
+    /**
+     * Titles matching the query as a prefix, one hit per major version, in a stable order that can be paged through.
+     *
+     * @param cursor the nextCursor of the previous page, or null for the first page.
+     */
+    TypeaheadPage typeahead(String query, Collection<String> types, Long userId, int limit, String cursor) throws NodeInputException;
+}
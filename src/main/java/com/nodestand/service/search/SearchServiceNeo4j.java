@@ -0,0 +1,47 @@
+package com.nodestand.service.search;
+
+import com.nodestand.controllers.serial.SearchHit;
+import com.nodestand.controllers.serial.TypeaheadPage;
+import com.nodestand.nodes.NodeInputException;
+import com.nodestand.nodes.ArgumentBody;
+import com.nodestand.nodes.repository.ArgumentBodyRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+@Component
+public class SearchServiceNeo4j implements SearchService {
+
+    private final ArgumentBodyRepository bodyRepository;
+
+    private final SearchIndex searchIndex;
+
+    @Autowired
+    public SearchServiceNeo4j(ArgumentBodyRepository bodyRepository, SearchIndex searchIndex) {
+        this.bodyRepository = bodyRepository;
+        this.searchIndex = searchIndex;
+    }
+
+    @Override
+    public List<SearchHit> search(String query, Collection<String> types, Long userId, int limit) {
+        searchIndex.ensureBuilt(this::loadDocuments);
+        return searchIndex.query(query, types, userId, limit);
+    }
+
+    @Override
+    public TypeaheadPage typeahead(String query, Collection<String> types, Long userId, int limit, String cursor) throws NodeInputException {
+        searchIndex.ensureBuilt(this::loadDocuments);
+        return searchIndex.typeahead(query, types, userId, limit, cursor);
+    }
+
+    private Collection<SearchDocument> loadDocuments() {
+        Set<ArgumentBody> bodies = bodyRepository.getCurrentBodiesRich();
+        return bodies.stream()
+                .map(body -> new SearchDocument(body, body.author.getUser().getNodeId()))
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,175 @@
+package com.nodestand.service.search;
+
+import com.nodestand.nodes.NodeInputException;
+import com.nodestand.util.PageCursor;
+
+import java.util.*;
+import java.util.function.Predicate;
+
+/**
+ * Sorted index of normalized titles for typeahead. Every title is stored once as a whole (the first tier) and once
+ * for each later word it contains (the second tier), so "war on drugs" is found by "war" first and by "drugs" after
+ * all the titles that start with the query.
+ *
+ * Not thread safe; {@link SearchIndex} guards it with its own lock.
+ */
+class TitlePrefixIndex {
+
+    private static final int TITLE_START = 0;
+    private static final int WORD_START = 1;
+
+    private final List<TreeSet<Entry>> tiers = Arrays.asList(new TreeSet<>(), new TreeSet<>());
+
+    private final Map<String, Set<SearchDocument>> documentsByMajorVersion = new HashMap<>();
+
+    void add(SearchDocument document) {
+        tiers.get(TITLE_START).add(new Entry(document.normalizedTitle, document));
+        for (String suffix : wordSuffixes(document.normalizedTitle)) {
+            tiers.get(WORD_START).add(new Entry(suffix, document));
+        }
+        documentsByMajorVersion.computeIfAbsent(document.majorVersionStableId, k -> new HashSet<>()).add(document);
+    }
+
+    void remove(SearchDocument document) {
+        tiers.get(TITLE_START).remove(new Entry(document.normalizedTitle, document));
+        for (String suffix : wordSuffixes(document.normalizedTitle)) {
+            tiers.get(WORD_START).remove(new Entry(suffix, document));
+        }
+        Set<SearchDocument> siblings = documentsByMajorVersion.get(document.majorVersionStableId);
+        if (siblings != null) {
+            siblings.remove(document);
+            if (siblings.isEmpty()) {
+                documentsByMajorVersion.remove(document.majorVersionStableId);
+            }
+        }
+    }
+
+    /**
+     * Walks the matching titles in order, title-start matches first, emitting each major version at most once.
+     * Whether an entry is the one to emit for its major version is decided from the entry alone, so paging needs
+     * no state beyond the position of the last hit.
+     *
+     * @param prefix a normalized prefix, see {@link SearchDocument#normalize(String)}.
+     * @param after the cursor returned with the previous page, or null for the first page.
+     */
+    Page query(String prefix, Predicate<SearchDocument> filter, int limit, String after) throws NodeInputException {
+        PageCursor cursor = after == null ? null : PageCursor.decode(after);
+        if (cursor != null && (cursor.getOrdering() < TITLE_START || cursor.getOrdering() > WORD_START)) {
+            throw PageCursor.malformed();
+        }
+        List<SearchDocument> hits = new ArrayList<>(limit);
+        Entry last = null;
+        int lastTier = TITLE_START;
+
+        for (int tier = cursor == null ? TITLE_START : cursor.getOrdering(); tier <= WORD_START; tier++) {
+            Entry from = cursor != null && cursor.getOrdering() == tier ?
+                    new Entry(cursor.getKey(), cursor.getId(), null) : new Entry(prefix, Long.MIN_VALUE, null);
+            boolean fromInclusive = cursor == null || cursor.getOrdering() != tier;
+            Entry to = new Entry(prefix + Character.MAX_VALUE, Long.MAX_VALUE, null);
+
+            for (Entry entry : tiers.get(tier).subSet(from, fromInclusive, to, true)) {
+                if (!filter.test(entry.document) || !isCanonical(entry, tier, prefix, filter)) {
+                    continue;
+                }
+                if (hits.size() == limit) {
+                    return new Page(hits, new PageCursor(lastTier, last.key, last.bodyId).encode());
+                }
+                hits.add(entry.document);
+                last = entry;
+                lastTier = tier;
+            }
+        }
+
+        return new Page(hits, null);
+    }
+
+    private boolean isCanonical(Entry entry, int tier, String prefix, Predicate<SearchDocument> filter) {
+        Match best = bestMatch(entry.document, prefix);
+        if (best == null || best.tier != tier || !best.key.equals(entry.key)) {
+            return false;
+        }
+        for (SearchDocument sibling : documentsByMajorVersion.get(entry.document.majorVersionStableId)) {
+            if (sibling != entry.document && filter.test(sibling)) {
+                Match siblingMatch = bestMatch(sibling, prefix);
+                if (siblingMatch != null && siblingMatch.compareTo(best) < 0) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private static Match bestMatch(SearchDocument document, String prefix) {
+        if (document.normalizedTitle.startsWith(prefix)) {
+            return new Match(TITLE_START, document.normalizedTitle, document.bodyId);
+        }
+        String best = null;
+        for (String suffix : wordSuffixes(document.normalizedTitle)) {
+            if (suffix.startsWith(prefix) && (best == null || suffix.compareTo(best) < 0)) {
+                best = suffix;
+            }
+        }
+        return best == null ? null : new Match(WORD_START, best, document.bodyId);
+    }
+
+    private static List<String> wordSuffixes(String normalizedTitle) {
+        List<String> suffixes = new ArrayList<>();
+        for (int i = normalizedTitle.indexOf(' '); i >= 0; i = normalizedTitle.indexOf(' ', i + 1)) {
+            suffixes.add(normalizedTitle.substring(i + 1));
+        }
+        return suffixes;
+    }
+
+    static class Page {
+        final List<SearchDocument> hits;
+        final String nextCursor;
+
+        private Page(List<SearchDocument> hits, String nextCursor) {
+            this.hits = hits;
+            this.nextCursor = nextCursor;
+        }
+    }
+
+    private static class Entry implements Comparable<Entry> {
+        private final String key;
+        private final long bodyId;
+        private final SearchDocument document;
+
+        private Entry(String key, SearchDocument document) {
+            this(key, document.bodyId, document);
+        }
+
+        private Entry(String key, long bodyId, SearchDocument document) {
+            this.key = key;
+            this.bodyId = bodyId;
+            this.document = document;
+        }
+
+        @Override
+        public int compareTo(Entry other) {
+            int byKey = key.compareTo(other.key);
+            return byKey != 0 ? byKey : Long.compare(bodyId, other.bodyId);
+        }
+    }
+
+    private static class Match implements Comparable<Match> {
+        private final int tier;
+        private final String key;
+        private final long bodyId;
+
+        private Match(int tier, String key, long bodyId) {
+            this.tier = tier;
+            this.key = key;
+            this.bodyId = bodyId;
+        }
+
+        @Override
+        public int compareTo(Match other) {
+            if (tier != other.tier) {
+                return Integer.compare(tier, other.tier);
+            }
+            int byKey = key.compareTo(other.key);
+            return byKey != 0 ? byKey : Long.compare(bodyId, other.bodyId);
+        }
+    }
+}
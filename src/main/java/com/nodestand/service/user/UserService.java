@@ -23,13 +23,19 @@ public interface UserService extends UserDetailsService {
 
     NodeUserDetails loadUserByUserId(String userId);
 
-    Optional<NodeUserDetails> loadUserBySocialProvider(String providerId, String providerUserId);
+    /**
+     * Drops any cached details for the user. Call after changing anything that NodeUserDetails exposes, such as
+     * the user's aliases or email address.
+     */
+    void evictCachedUser(String userId);
 
-    User loadUserWithVotes(String stableId);
+    Optional<NodeUserDetails> loadUserBySocialProvider(String providerId, String providerUserId);
 
     boolean isPublishedAuthor(String authorStableId);
 
     Author changeAuthorName(String authorStableId, String authorName);
 
+    void changeEmailAddress(User user, String emailAddress);
+
     boolean isAuthorNameInUse(String displayName);
 }
@@ -5,14 +5,18 @@ import com.nodestand.controllers.ResourceNotFoundException;
 import com.nodestand.nodes.Author;
 import com.nodestand.nodes.User;
 import com.nodestand.nodes.repository.UserRepository;
+import com.nodestand.util.TransactionUtil;
 import org.neo4j.ogm.session.Session;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Component;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Optional;
 
 @Component
@@ -24,6 +28,23 @@ public class UserServiceImpl implements UserService {
     @Autowired
     private Session session;
 
+    @Value("${auth.userDetailsTtlMillis:30000}")
+    private long userDetailsTtlMillis;
+
+    @Value("${auth.userDetailsCacheSize:10000}")
+    private int userDetailsCacheSize;
+
+    /**
+     * User stable id -> recently loaded details, so that authenticating a request doesn't hit the database every
+     * time. Entries live for a short while and are evicted when the user's aliases or email address change.
+     */
+    private final LinkedHashMap<String, CachedUserDetails> userDetailsCache = new LinkedHashMap<String, CachedUserDetails>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, CachedUserDetails> eldest) {
+            return size() > userDetailsCacheSize;
+        }
+    };
+
 
     @Override
     public User getUserFromSecurityContext() {
@@ -67,11 +88,6 @@ public class UserServiceImpl implements UserService {
         return Optional.of(new NodeUserDetails(user));
     }
 
-    @Override
-    public User loadUserWithVotes(String stableId) {
-        return userRepo.loadUserWithVotes(stableId);
-    }
-
     @Override
     public boolean isPublishedAuthor(String authorStableId) {
         return userRepo.isPublishedAuthor(authorStableId);
@@ -79,12 +95,20 @@ public class UserServiceImpl implements UserService {
 
     @Override
     public Author changeAuthorName(String authorStableId, String authorName) {
-        Author author = userRepo.loadAuthor(authorStableId);
+        Author author = userRepo.loadAuthorWithUser(authorStableId);
         author.setDisplayName(authorName);
         session.save(author);
+        evictCachedUser(author.getUser().getStableId());
         return author;
     }
 
+    @Override
+    public void changeEmailAddress(User user, String emailAddress) {
+        user.setEmailAddress(emailAddress);
+        userRepo.save(user);
+        evictCachedUser(user.getStableId());
+    }
+
     @Override
     public boolean isAuthorNameInUse(String displayName) {
         return userRepo.findByAlias(displayName) != null;
@@ -92,12 +116,46 @@ public class UserServiceImpl implements UserService {
 
     @Override
     public NodeUserDetails loadUserByUserId(String stableId) throws UsernameNotFoundException {
+        long now = System.currentTimeMillis();
+        synchronized (userDetailsCache) {
+            CachedUserDetails cached = userDetailsCache.get(stableId);
+            if (cached != null && cached.expiresAt > now) {
+                return cached.details;
+            }
+        }
+
         User user = userRepo.getUser(stableId);
 
         if (user == null) {
             throw new ResourceNotFoundException("No user found with id " + stableId);
         }
 
-        return new NodeUserDetails(user);
+        NodeUserDetails details = new NodeUserDetails(user);
+        synchronized (userDetailsCache) {
+            userDetailsCache.put(stableId, new CachedUserDetails(details, now + userDetailsTtlMillis));
+        }
+        return details;
+    }
+
+    @Override
+    public void evictCachedUser(String stableId) {
+        synchronized (userDetailsCache) {
+            userDetailsCache.remove(stableId);
+        }
+        TransactionUtil.afterCommit(() -> {
+            synchronized (userDetailsCache) {
+                userDetailsCache.remove(stableId);
+            }
+        });
+    }
+
+    private static class CachedUserDetails {
+        private final NodeUserDetails details;
+        private final long expiresAt;
+
+        private CachedUserDetails(NodeUserDetails details, long expiresAt) {
+            this.details = details;
+            this.expiresAt = expiresAt;
+        }
     }
 }
@@ -0,0 +1,386 @@
+package com.nodestand.service.vote;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Append-only history of score changes, kept on local disk so that a user's score log can be read without scanning
+ * everybody else's.
+ *
+ * Records go into fixed-size segment files that are memory-mapped, both for appending and for reading. Each record
+ * is a length, a timestamp and the {@link ScoreLog} as JSON. The length is written last, so a record that was cut
+ * short by a crash is never seen. For every recipient there is an in-memory list of record positions in time order,
+ * which is rebuilt by scanning the segments on startup. Reading a time range is then a binary search plus decoding
+ * the records that are returned.
+ *
+ * Segments older than the retention period are deleted whenever a new one is started. Writes reach the page cache
+ * straight away but are only forced to disk on shutdown, so a machine crash can lose the most recent records.
+ * The store belongs to this instance only.
+ */
+@Component
+public class LocalScoreStore {
+
+    private static final String SEGMENT_PREFIX = "scores-";
+    private static final String SEGMENT_SUFFIX = ".seg";
+
+    private static final int HEADER_BYTES = 4 + 8; // length, timestamp
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Path directory;
+
+    private final int segmentBytes;
+
+    private final long retentionMillis;
+
+    private final TreeMap<Integer, Segment> segments = new TreeMap<>();
+
+    private final Map<String, Postings> byRecipient = new HashMap<>();
+
+    private Segment active;
+
+    /**
+     * Timestamps never go backwards, so each recipient's positions stay sorted by time.
+     */
+    private long lastTimestamp;
+
+    @Autowired
+    public LocalScoreStore(Environment environment) throws IOException {
+        // No default, since a temporary folder would quietly lose the history on reboot.
+        this.directory = Paths.get(environment.getRequiredProperty("scoring.storeDir"));
+        this.segmentBytes = environment.getProperty("scoring.segmentBytes", Integer.class, 16 * 1024 * 1024);
+        this.retentionMillis = TimeUnit.DAYS.toMillis(environment.getProperty("scoring.retentionDays", Integer.class, 30));
+
+        Files.createDirectories(directory);
+        for (Path path : listSegments()) {
+            Segment segment = Segment.open(path, segmentNumber(path), segmentBytes);
+            segments.put(segment.number, segment);
+            scan(segment);
+        }
+        active = segments.isEmpty() ? startSegment(0) : segments.lastEntry().getValue();
+        dropExpired(System.currentTimeMillis());
+    }
+
+    /**
+     * Adds the record to the end of the store and returns the timestamp it was given. Failures are logged rather
+     * than thrown, since the vote that caused them has already happened; the current time is returned then.
+     */
+    public long append(ScoreLog scoreLog) {
+        byte[] payload;
+        try {
+            payload = objectMapper.writeValueAsBytes(scoreLog);
+        } catch (JsonProcessingException e) {
+            logger.error("Failed to serialize score for the local store", e);
+            return System.currentTimeMillis();
+        }
+
+        if (HEADER_BYTES + payload.length > segmentBytes) {
+            logger.error("Score record of {} bytes does not fit in a segment", payload.length);
+            return System.currentTimeMillis();
+        }
+
+        lock.writeLock().lock();
+        try {
+            long timestamp = Math.max(System.currentTimeMillis(), lastTimestamp);
+
+            if (active.writePosition + HEADER_BYTES + payload.length > segmentBytes) {
+                active = startSegment(active.number + 1);
+                dropExpired(timestamp);
+            }
+
+            int offset = active.write(timestamp, payload);
+            lastTimestamp = timestamp;
+            byRecipient.computeIfAbsent(scoreLog.recipientId, k -> new Postings())
+                    .add(timestamp, pointer(active.number, offset));
+            return timestamp;
+        } catch (IOException e) {
+            logger.error("Failed to start a new score segment", e);
+            return System.currentTimeMillis();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * The recipient's records with from <= timestamp < to, oldest first. If there are more than limit, the most
+     * recent ones are returned.
+     */
+    public List<TimestampedScoreLog> read(String recipientId, long from, long to, int limit) {
+        lock.readLock().lock();
+        try {
+            Postings postings = byRecipient.get(recipientId);
+            if (postings == null || limit <= 0) {
+                return new ArrayList<>();
+            }
+
+            int end = postings.lowerBound(to);
+            int start = Math.max(postings.lowerBound(from), end - limit);
+
+            List<TimestampedScoreLog> result = new ArrayList<>(Math.max(end - start, 0));
+            for (int i = start; i < end; i++) {
+                long pointer = postings.pointers[i];
+                Segment segment = segments.get(segmentOf(pointer));
+                TimestampedScoreLog scoreLog = segment.read(offsetOf(pointer), objectMapper);
+                scoreLog.timestamp = postings.timestamps[i];
+                result.add(scoreLog);
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Passes every stored record to the consumer, oldest first.
+     */
+    public void replay(Consumer<TimestampedScoreLog> consumer) {
+        lock.readLock().lock();
+        try {
+            for (Segment segment : segments.values()) {
+                int offset = 0;
+                while (offset < segment.writePosition) {
+                    int length = segment.buffer.getInt(offset);
+                    try {
+                        TimestampedScoreLog scoreLog = segment.read(offset, objectMapper);
+                        scoreLog.timestamp = segment.buffer.getLong(offset + 4);
+                        consumer.accept(scoreLog);
+                    } catch (UncheckedIOException e) {
+                        // Already reported when the segment was scanned.
+                    }
+                    offset += HEADER_BYTES + length;
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        lock.writeLock().lock();
+        try {
+            for (Segment segment : segments.values()) {
+                segment.close();
+            }
+            segments.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void scan(Segment segment) {
+        int offset = 0;
+        while (offset + HEADER_BYTES <= segmentBytes) {
+            int length = segment.buffer.getInt(offset);
+            if (length <= 0 || offset + HEADER_BYTES + length > segmentBytes) {
+                break;
+            }
+            long timestamp = segment.buffer.getLong(offset + 4);
+            try {
+                ScoreLog scoreLog = segment.read(offset, objectMapper);
+                byRecipient.computeIfAbsent(scoreLog.recipientId, k -> new Postings()).add(timestamp, pointer(segment.number, offset));
+            } catch (UncheckedIOException e) {
+                logger.warn("Skipping unreadable score record at {} in {}", offset, segment.path);
+            }
+            lastTimestamp = Math.max(lastTimestamp, timestamp);
+            segment.lastTimestamp = timestamp;
+            offset += HEADER_BYTES + length;
+        }
+        segment.writePosition = offset;
+    }
+
+    private Segment startSegment(int number) throws IOException {
+        Path path = directory.resolve(String.format("%s%010d%s", SEGMENT_PREFIX, number, SEGMENT_SUFFIX));
+        Segment segment = Segment.open(path, number, segmentBytes);
+        segments.put(number, segment);
+        return segment;
+    }
+
+    /**
+     * Deletes the oldest segments while everything in them has passed the retention period.
+     */
+    private void dropExpired(long now) {
+        boolean dropped = false;
+        while (segments.size() > 1) {
+            Segment oldest = segments.firstEntry().getValue();
+            if (oldest == active || oldest.lastTimestamp >= now - retentionMillis) {
+                break;
+            }
+            segments.remove(oldest.number);
+            oldest.close();
+            try {
+                Files.deleteIfExists(oldest.path);
+            } catch (IOException e) {
+                logger.warn("Failed to delete expired score segment {}", oldest.path, e);
+            }
+            dropped = true;
+        }
+
+        if (dropped) {
+            int firstKept = segments.firstKey();
+            byRecipient.values().forEach(postings -> postings.dropBefore(firstKept));
+            byRecipient.values().removeIf(postings -> postings.size == 0);
+        }
+    }
+
+    private List<Path> listSegments() throws IOException {
+        List<Path> paths = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            files.filter(p -> {
+                String name = p.getFileName().toString();
+                return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+            }).forEach(paths::add);
+        }
+        paths.sort(Comparator.comparingInt(LocalScoreStore::segmentNumber));
+        return paths;
+    }
+
+    private static int segmentNumber(Path path) {
+        String name = path.getFileName().toString();
+        return Integer.parseInt(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    private static long pointer(int segmentNumber, int offset) {
+        return ((long) segmentNumber << 32) | (offset & 0xFFFFFFFFL);
+    }
+
+    private static int segmentOf(long pointer) {
+        return (int) (pointer >>> 32);
+    }
+
+    private static int offsetOf(long pointer) {
+        return (int) pointer;
+    }
+
+    private static class Segment {
+        private final Path path;
+        private final int number;
+        private final FileChannel channel;
+        private final MappedByteBuffer buffer;
+        private int writePosition;
+        private long lastTimestamp;
+
+        private Segment(Path path, int number, FileChannel channel, MappedByteBuffer buffer) {
+            this.path = path;
+            this.number = number;
+            this.channel = channel;
+            this.buffer = buffer;
+        }
+
+        /**
+         * Maps the whole segment. A new file is extended to full size, filled with zeros, which reads as the end of
+         * the records.
+         */
+        private static Segment open(Path path, int number, int segmentBytes) throws IOException {
+            FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes);
+            return new Segment(path, number, channel, buffer);
+        }
+
+        private int write(long timestamp, byte[] payload) {
+            int offset = writePosition;
+            buffer.putLong(offset + 4, timestamp);
+            ByteBuffer target = buffer.duplicate();
+            target.position(offset + HEADER_BYTES);
+            target.put(payload);
+            buffer.putInt(offset, payload.length);
+
+            writePosition = offset + HEADER_BYTES + payload.length;
+            lastTimestamp = timestamp;
+            return offset;
+        }
+
+        private TimestampedScoreLog read(int offset, ObjectMapper objectMapper) {
+            int length = buffer.getInt(offset);
+            byte[] payload = new byte[length];
+            ByteBuffer source = buffer.duplicate();
+            source.position(offset + HEADER_BYTES);
+            source.get(payload);
+            try {
+                return objectMapper.readValue(payload, TimestampedScoreLog.class);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private void close() {
+            try {
+                buffer.force();
+                channel.close();
+            } catch (IOException e) {
+                // Nothing more to do with it.
+            }
+        }
+    }
+
+    /**
+     * One recipient's record positions, in time order.
+     */
+    private static class Postings {
+        private long[] timestamps = new long[4];
+        private long[] pointers = new long[4];
+        private int size;
+
+        private void add(long timestamp, long pointer) {
+            if (size == timestamps.length) {
+                timestamps = Arrays.copyOf(timestamps, size * 2);
+                pointers = Arrays.copyOf(pointers, size * 2);
+            }
+            timestamps[size] = timestamp;
+            pointers[size] = pointer;
+            size++;
+        }
+
+        /**
+         * Index of the first record at or after the timestamp.
+         */
+        private int lowerBound(long timestamp) {
+            int low = 0;
+            int high = size;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (timestamps[mid] < timestamp) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        private void dropBefore(int segmentNumber) {
+            int keepFrom = 0;
+            while (keepFrom < size && segmentOf(pointers[keepFrom]) < segmentNumber) {
+                keepFrom++;
+            }
+            if (keepFrom > 0) {
+                System.arraycopy(timestamps, keepFrom, timestamps, 0, size - keepFrom);
+                System.arraycopy(pointers, keepFrom, pointers, 0, size - keepFrom);
+                size -= keepFrom;
+            }
+        }
+    }
+}
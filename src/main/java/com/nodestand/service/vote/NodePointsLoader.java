@@ -0,0 +1,49 @@
+package com.nodestand.service.vote;
+
+import com.nodestand.nodes.Author;
+import org.neo4j.ogm.session.Session;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+
+/**
+ * Reads the persisted point totals of authors. The totals aren't mapped by the OGM, because
+ * {@link PendingScoreApplier} adds to them in Cypher. Anything that hands authors to a client with their points
+ * loads them through here.
+ */
+@Component
+public class NodePointsLoader {
+
+    private static final String LOAD_POINTS =
+            "MATCH (a:Author) WHERE a.stableId IN {stableIds} RETURN a.stableId AS stableId, coalesce(a.nodePoints, 0) AS points";
+
+    private final Session session;
+
+    @Autowired
+    public NodePointsLoader(Session session) {
+        this.session = session;
+    }
+
+    public void load(Collection<Author> authors) {
+        Map<String, List<Author>> byStableId = new HashMap<>();
+        for (Author author : authors) {
+            byStableId.computeIfAbsent(author.getStableId(), k -> new ArrayList<>()).add(author);
+        }
+        if (byStableId.isEmpty()) {
+            return;
+        }
+
+        Map<String, Object> params = Collections.singletonMap("stableIds", new ArrayList<>(byStableId.keySet()));
+        for (Map<String, Object> row : session.query(LOAD_POINTS, params).queryResults()) {
+            long points = ((Number) row.get("points")).longValue();
+            for (Author author : byStableId.get((String) row.get("stableId"))) {
+                author.setNodePoints(points);
+            }
+        }
+    }
+
+    public void load(Author... authors) {
+        load(Arrays.asList(authors));
+    }
+}
@@ -0,0 +1,97 @@
+package com.nodestand.service.vote;
+
+import com.nodestand.nodes.vote.PendingScore;
+import com.nodestand.util.BackgroundWorker;
+import org.neo4j.ogm.model.Result;
+import org.neo4j.ogm.session.Session;
+import org.neo4j.ogm.session.SessionFactory;
+import org.neo4j.ogm.transaction.Transaction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Background worker that folds {@link PendingScore} rows into author points. Rows are taken in batches, summed
+ * per author, and applied in a single statement, so a vote touching many authors costs the voter nothing beyond
+ * writing its rows. Applied rows are relabelled :AppliedScore rather than deleted, so the totals can be replayed.
+ *
+ * Runs on its own session because the application session is bound to web requests.
+ */
+@Component
+public class PendingScoreApplier {
+
+    private static final String APPLY_BATCH =
+            "MATCH (s:PendingScore) WITH s ORDER BY s.dateCreated, ID(s) LIMIT {batchSize}" +
+            " WITH s.recipientStableId AS recipient, sum(s.points) AS points, collect(s) AS scores" +
+            " OPTIONAL MATCH (a:Author {stableId: recipient})" +
+            " FOREACH (ignored IN CASE WHEN a IS NULL THEN [] ELSE [1] END | SET a.nodePoints = coalesce(a.nodePoints, 0) + points)" +
+            " WITH scores, size(scores) AS applied" +
+            " FOREACH (s IN scores | REMOVE s:PendingScore SET s:AppliedScore)" +
+            " RETURN sum(applied) AS applied";
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    private final SessionFactory sessionFactory;
+
+    private final long intervalMillis;
+
+    private final int batchSize;
+
+    // A failed run leaves its rows in place, so the next run retries them.
+    private final BackgroundWorker worker =
+            new BackgroundWorker("pending-score-applier", this::flush, logger, "Failed to apply pending scores");
+
+    @Autowired
+    public PendingScoreApplier(SessionFactory sessionFactory, Environment environment) {
+        this.sessionFactory = sessionFactory;
+        this.intervalMillis = environment.getProperty("scoring.flushIntervalMillis", Long.class, 1000L);
+        this.batchSize = environment.getProperty("scoring.batchSize", Integer.class, 500);
+    }
+
+    @PostConstruct
+    public void start() {
+        worker.start(intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        worker.stop();
+        worker.runQuietly();
+    }
+
+    /**
+     * Applies everything that is pending right now. Returns the number of rows applied.
+     */
+    public synchronized int flush() {
+        Session session = sessionFactory.openSession();
+        int total = 0;
+        int applied;
+        do {
+            try (Transaction tx = session.beginTransaction()) {
+                Result result = session.query(APPLY_BATCH, Collections.singletonMap("batchSize", batchSize));
+                applied = readApplied(result);
+                tx.commit();
+            }
+            total += applied;
+        } while (applied >= batchSize);
+        return total;
+    }
+
+    private static int readApplied(Result result) {
+        Iterator<Map<String, Object>> rows = result.queryResults().iterator();
+        if (!rows.hasNext()) {
+            return 0;
+        }
+        Object applied = rows.next().get("applied");
+        return applied == null ? 0 : ((Number) applied).intValue();
+    }
+}
@@ -3,14 +3,24 @@ package com.nodestand.service.vote;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.nodestand.nodes.vote.VoteType;
+import com.nodestand.util.TransactionUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 @Component
 public class ScoreLogger {
     private final Logger logger = LoggerFactory.getLogger(this.getClass());
     private ObjectMapper objectMapper = new ObjectMapper();
+    private final LocalScoreStore scoreStore;
+    private final ScoreRollups scoreRollups;
+
+    @Autowired
+    public ScoreLogger(LocalScoreStore scoreStore, ScoreRollups scoreRollups) {
+        this.scoreStore = scoreStore;
+        this.scoreRollups = scoreRollups;
+    }
 
     public void logScore(String recipientId, String granterId, String nodeId, String nodeTitle, int points, VoteType voteType, boolean isNegation) {
 
@@ -28,6 +38,13 @@ public class ScoreLogger {
         } catch (JsonProcessingException e) {
             logger.error("Failed to log score!", e);
         }
+
+        // The store can't take a record back, so only committed votes go into it, along with the rollups that
+        // are kept from it.
+        TransactionUtil.afterCommit(() -> {
+            long timestamp = scoreStore.append(scoreLog);
+            scoreRollups.record(scoreLog, timestamp);
+        });
     }
 
 
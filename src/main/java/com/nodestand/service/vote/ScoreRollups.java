@@ -0,0 +1,351 @@
+package com.nodestand.service.vote;
+
+import com.nodestand.nodes.vote.VoteType;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Running totals of the points each author has earned over the last few days, broken down by day, by vote type and
+ * by node. They are kept up to date from {@link ScoreLogger} and rebuilt from {@link LocalScoreStore} on startup.
+ *
+ * Each author has a ring of day buckets, so adding a score touches one bucket, and reading an author's stats walks
+ * at most one bucket per day of the window. Authors are also kept sorted by their total for the window, which makes
+ * the leaderboard a walk of its first few entries. Once a day the oldest bucket of every author is retired.
+ */
+@Component
+public class ScoreRollups {
+
+    private static final VoteType[] TYPES = VoteType.values();
+
+    private static final long DAY_MILLIS = TimeUnit.DAYS.toMillis(1);
+
+    private static final int TOP_NODES = 10;
+
+    private final int days;
+
+    private final Map<String, AuthorRollup> authors = new HashMap<>();
+
+    /**
+     * Highest window total first. An author has to be taken out before their total changes.
+     */
+    private final TreeSet<AuthorRollup> ranking = new TreeSet<>(Comparator
+            .comparingLong((AuthorRollup a) -> -a.windowTotal)
+            .thenComparing(a -> a.stableId));
+
+    /**
+     * Node stable id -> the most recent title seen for it.
+     */
+    private final Map<String, String> nodeTitles = new HashMap<>();
+
+    private long currentDay = Long.MIN_VALUE;
+
+    @Autowired
+    public ScoreRollups(LocalScoreStore scoreStore, Environment environment) {
+        this(environment.getProperty("rollups.days", Integer.class, 30));
+        scoreStore.replay(scoreLog -> record(scoreLog, scoreLog.timestamp));
+    }
+
+    ScoreRollups(int days) {
+        this.days = days;
+    }
+
+    public synchronized void record(ScoreLog scoreLog, long timestamp) {
+        long day = timestamp / DAY_MILLIS;
+        advanceTo(day);
+        if (day <= currentDay - days) {
+            return; // Already outside the window.
+        }
+
+        AuthorRollup author = authors.computeIfAbsent(scoreLog.recipientId, k -> new AuthorRollup(k, days));
+        ranking.remove(author);
+        author.add(day, scoreLog);
+        ranking.add(author);
+
+        if (scoreLog.nodeTitle != null) {
+            nodeTitles.put(scoreLog.nodeId, scoreLog.nodeTitle);
+        }
+    }
+
+    /**
+     * All zeros if the author has no points in the window.
+     */
+    public AuthorStats getStats(String authorStableId) {
+        return getStats(authorStableId, System.currentTimeMillis());
+    }
+
+    synchronized AuthorStats getStats(String authorStableId, long now) {
+        advanceTo(now / DAY_MILLIS);
+        AuthorRollup author = authors.get(authorStableId);
+        if (author == null) {
+            author = new AuthorRollup(authorStableId, days);
+        }
+
+        List<DayPoints> daily = new ArrayList<>(days);
+        Map<VoteType, Long> byVoteType = new EnumMap<>(VoteType.class);
+        Map<String, Long> byNode = new HashMap<>();
+        for (long day = currentDay - days + 1; day <= currentDay; day++) {
+            int slot = author.slot(day);
+            boolean live = author.dayOf[slot] == day;
+            daily.add(new DayPoints(day * DAY_MILLIS, live ? author.dayPoints[slot] : 0));
+            if (live) {
+                for (int t = 0; t < TYPES.length; t++) {
+                    if (author.dayTypePoints[slot][t] != 0) {
+                        byVoteType.merge(TYPES[t], author.dayTypePoints[slot][t], Long::sum);
+                    }
+                }
+                if (author.dayNodePoints[slot] != null) {
+                    author.dayNodePoints[slot].forEach((nodeId, points) -> byNode.merge(nodeId, points, Long::sum));
+                }
+            }
+        }
+
+        List<NodePoints> topNodes = new ArrayList<>();
+        byNode.entrySet().stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
+                .limit(TOP_NODES)
+                .forEach(e -> topNodes.add(new NodePoints(e.getKey(), nodeTitles.get(e.getKey()), e.getValue())));
+
+        return new AuthorStats(authorStableId, days, author.windowTotal, daily, byVoteType, topNodes);
+    }
+
+    /**
+     * The authors with the most points in the window, best first.
+     */
+    public List<Standing> getLeaderboard(int limit) {
+        return getLeaderboard(limit, System.currentTimeMillis());
+    }
+
+    synchronized List<Standing> getLeaderboard(int limit, long now) {
+        advanceTo(now / DAY_MILLIS);
+        List<Standing> standings = new ArrayList<>(Math.min(limit, ranking.size()));
+        for (AuthorRollup author : ranking) {
+            if (standings.size() == limit) {
+                break;
+            }
+            standings.add(new Standing(author.stableId, author.windowTotal));
+        }
+        return standings;
+    }
+
+    public int getDays() {
+        return days;
+    }
+
+    /**
+     * Retires the buckets that have fallen out of the window. Costs a pass over the authors, but only once a day.
+     */
+    private void advanceTo(long day) {
+        if (day <= currentDay) {
+            return;
+        }
+        currentDay = day;
+
+        long oldestKept = currentDay - days + 1;
+        Iterator<AuthorRollup> iterator = authors.values().iterator();
+        while (iterator.hasNext()) {
+            AuthorRollup author = iterator.next();
+            ranking.remove(author);
+            if (author.expireBefore(oldestKept)) {
+                iterator.remove();
+            } else {
+                ranking.add(author);
+            }
+        }
+    }
+
+    private static class AuthorRollup {
+        private final String stableId;
+        private long windowTotal;
+        private final long[] dayOf;
+        private final long[] dayPoints;
+        private final long[][] dayTypePoints;
+        private final Map<String, Long>[] dayNodePoints;
+
+        @SuppressWarnings("unchecked")
+        private AuthorRollup(String stableId, int days) {
+            this.stableId = stableId;
+            this.dayOf = new long[days];
+            Arrays.fill(dayOf, Long.MIN_VALUE);
+            this.dayPoints = new long[days];
+            this.dayTypePoints = new long[days][TYPES.length];
+            this.dayNodePoints = new Map[days];
+        }
+
+        private int slot(long day) {
+            return (int) Math.floorMod(day, (long) dayOf.length);
+        }
+
+        private void add(long day, ScoreLog scoreLog) {
+            int slot = slot(day);
+            if (dayOf[slot] != day) {
+                clear(slot);
+                dayOf[slot] = day;
+            }
+
+            int points = scoreLog.points != null ? scoreLog.points : 0;
+            dayPoints[slot] += points;
+            windowTotal += points;
+
+            VoteType voteType = parseVoteType(scoreLog.voteType);
+            if (voteType != null) {
+                dayTypePoints[slot][voteType.ordinal()] += points;
+            }
+
+            if (scoreLog.nodeId != null) {
+                if (dayNodePoints[slot] == null) {
+                    dayNodePoints[slot] = new HashMap<>();
+                }
+                dayNodePoints[slot].merge(scoreLog.nodeId, (long) points, Long::sum);
+            }
+        }
+
+        /**
+         * Returns true if nothing is left.
+         */
+        private boolean expireBefore(long oldestKept) {
+            boolean empty = true;
+            for (int slot = 0; slot < dayOf.length; slot++) {
+                if (dayOf[slot] != Long.MIN_VALUE && dayOf[slot] < oldestKept) {
+                    clear(slot);
+                }
+                empty &= dayOf[slot] == Long.MIN_VALUE;
+            }
+            return empty;
+        }
+
+        private void clear(int slot) {
+            windowTotal -= dayPoints[slot];
+            dayOf[slot] = Long.MIN_VALUE;
+            dayPoints[slot] = 0;
+            Arrays.fill(dayTypePoints[slot], 0);
+            dayNodePoints[slot] = null;
+        }
+
+        private static VoteType parseVoteType(String name) {
+            try {
+                return name != null ? VoteType.valueOf(name) : null;
+            } catch (IllegalArgumentException e) {
+                return null;
+            }
+        }
+    }
+
+    public static class AuthorStats {
+        private final String authorStableId;
+        private final int days;
+        private final long totalPoints;
+        private final List<DayPoints> daily;
+        private final Map<VoteType, Long> byVoteType;
+        private final List<NodePoints> topNodes;
+
+        private AuthorStats(String authorStableId, int days, long totalPoints, List<DayPoints> daily,
+                            Map<VoteType, Long> byVoteType, List<NodePoints> topNodes) {
+            this.authorStableId = authorStableId;
+            this.days = days;
+            this.totalPoints = totalPoints;
+            this.daily = daily;
+            this.byVoteType = byVoteType;
+            this.topNodes = topNodes;
+        }
+
+        public String getAuthorStableId() {
+            return authorStableId;
+        }
+
+        public int getDays() {
+            return days;
+        }
+
+        /**
+         * Points earned in the window.
+         */
+        public long getTotalPoints() {
+            return totalPoints;
+        }
+
+        /**
+         * One entry per day of the window, oldest first.
+         */
+        public List<DayPoints> getDaily() {
+            return daily;
+        }
+
+        public Map<VoteType, Long> getByVoteType() {
+            return byVoteType;
+        }
+
+        /**
+         * The nodes that earned the most points in the window, best first.
+         */
+        public List<NodePoints> getTopNodes() {
+            return topNodes;
+        }
+    }
+
+    public static class DayPoints {
+        private final long day;
+        private final long points;
+
+        private DayPoints(long day, long points) {
+            this.day = day;
+            this.points = points;
+        }
+
+        /**
+         * Start of the day in epoch millis, UTC.
+         */
+        public long getDay() {
+            return day;
+        }
+
+        public long getPoints() {
+            return points;
+        }
+    }
+
+    public static class NodePoints {
+        private final String nodeStableId;
+        private final String nodeTitle;
+        private final long points;
+
+        private NodePoints(String nodeStableId, String nodeTitle, long points) {
+            this.nodeStableId = nodeStableId;
+            this.nodeTitle = nodeTitle;
+            this.points = points;
+        }
+
+        public String getNodeStableId() {
+            return nodeStableId;
+        }
+
+        public String getNodeTitle() {
+            return nodeTitle;
+        }
+
+        public long getPoints() {
+            return points;
+        }
+    }
+
+    public static class Standing {
+        private final String authorStableId;
+        private final long points;
+
+        private Standing(String authorStableId, long points) {
+            this.authorStableId = authorStableId;
+            this.points = points;
+        }
+
+        public String getAuthorStableId() {
+            return authorStableId;
+        }
+
+        public long getPoints() {
+            return points;
+        }
+    }
+}
@@ -0,0 +1,229 @@
+package com.nodestand.service.vote;
+
+import com.nodestand.nodes.vote.VoteType;
+import com.nodestand.util.TransactionUtil;
+import org.neo4j.ogm.model.Result;
+import org.neo4j.ogm.session.Session;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.function.UnaryOperator;
+
+/**
+ * Answers "how did this user vote on these major versions / comments" without hydrating any vote relationships.
+ *
+ * Each user's votes are read once with a plain Cypher projection and kept as sorted arrays of node ids with one
+ * byte per vote, so a lookup is a binary search per requested id. Users are evicted in least-recently-used order.
+ * When a user votes, their entry is patched once the vote commits rather than dropped, so voting never forces their
+ * whole history to be read again.
+ */
+@Component
+public class UserVoteIndex {
+
+    private static final int DEFAULT_MAX_USERS = 2000;
+
+    private static final String BODY_VOTES =
+            "MATCH (:User {stableId: {userStableId}})-[v:ARGUMENT_VOTE]->(mv:MajorVersion) RETURN ID(mv) AS id, v.voteType AS vote";
+
+    private static final String COMMENT_VOTES =
+            "MATCH (:User {stableId: {userStableId}})-[v:COMMENT_VOTE]->(c:Comment) RETURN ID(c) AS id, v.isUpvote AS vote";
+
+    private static final VoteType[] TYPES = VoteType.values();
+
+    private final Session session;
+
+    private final int maxUsers;
+
+    private final LinkedHashMap<String, CompactVotes> votesByUser;
+
+    /**
+     * Bumped on every update, so that votes loaded while somebody was voting don't get stored.
+     */
+    private long generation;
+
+    @Autowired
+    public UserVoteIndex(Session session, Environment environment) {
+        this.session = session;
+        this.maxUsers = environment.getProperty("userVoteIndex.maxUsers", Integer.class, DEFAULT_MAX_USERS);
+        this.votesByUser = new LinkedHashMap<String, CompactVotes>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CompactVotes> eldest) {
+                return size() > UserVoteIndex.this.maxUsers;
+            }
+        };
+    }
+
+    /**
+     * The user's votes on whichever of the given major versions they have voted on, keyed by major version node id.
+     */
+    public Map<Long, VoteType> getBodyVotes(String userStableId, Collection<Long> majorVersionIds) {
+        CompactVotes votes = getOrLoad(userStableId);
+        Map<Long, VoteType> result = new HashMap<>();
+        for (Long id : majorVersionIds) {
+            int i = votes.bodies.indexOf(id);
+            if (i >= 0) {
+                result.put(id, TYPES[votes.bodies.votes[i]]);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * The user's votes on whichever of the given comments they have voted on, as 1 for up and -1 for down.
+     */
+    public Map<Long, Integer> getCommentVotes(String userStableId, Collection<Long> commentIds) {
+        CompactVotes votes = getOrLoad(userStableId);
+        Map<Long, Integer> result = new HashMap<>();
+        for (Long id : commentIds) {
+            int i = votes.comments.indexOf(id);
+            if (i >= 0) {
+                result.put(id, (int) votes.comments.votes[i]);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Records the user's vote on a major version, or null if they took it back, once the current transaction commits.
+     */
+    public void updateBodyVote(String userStableId, long majorVersionId, VoteType voteType) {
+        Byte vote = voteType == null ? null : (byte) voteType.ordinal();
+        TransactionUtil.afterCommit(() -> update(userStableId,
+                votes -> new CompactVotes(votes.bodies.with(majorVersionId, vote), votes.comments)));
+    }
+
+    /**
+     * Records the user's vote on a comment, or null if they took it back, once the current transaction commits.
+     */
+    public void updateCommentVote(String userStableId, long commentId, Boolean isUpvote) {
+        Byte vote = isUpvote == null ? null : (byte) (isUpvote ? 1 : -1);
+        TransactionUtil.afterCommit(() -> update(userStableId,
+                votes -> new CompactVotes(votes.bodies, votes.comments.with(commentId, vote))));
+    }
+
+    private CompactVotes getOrLoad(String userStableId) {
+        long loadGeneration;
+        synchronized (this) {
+            CompactVotes cached = votesByUser.get(userStableId);
+            if (cached != null) {
+                return cached;
+            }
+            loadGeneration = generation;
+        }
+
+        CompactVotes votes = load(userStableId);
+
+        synchronized (this) {
+            if (generation == loadGeneration) {
+                votesByUser.put(userStableId, votes);
+            }
+        }
+
+        return votes;
+    }
+
+    /**
+     * Entries are replaced rather than changed, since lookups read them outside the lock.
+     */
+    private synchronized void update(String userStableId, UnaryOperator<CompactVotes> change) {
+        generation++;
+        CompactVotes cached = votesByUser.get(userStableId);
+        if (cached != null) {
+            votesByUser.put(userStableId, change.apply(cached));
+        }
+    }
+
+    private CompactVotes load(String userStableId) {
+        Map<String, Object> params = Collections.singletonMap("userStableId", userStableId);
+
+        TreeMap<Long, Byte> bodyVotes = new TreeMap<>();
+        for (Map<String, Object> row : query(BODY_VOTES, params)) {
+            bodyVotes.put(((Number) row.get("id")).longValue(), (byte) VoteType.valueOf((String) row.get("vote")).ordinal());
+        }
+
+        TreeMap<Long, Byte> commentVotes = new TreeMap<>();
+        for (Map<String, Object> row : query(COMMENT_VOTES, params)) {
+            commentVotes.put(((Number) row.get("id")).longValue(), (byte) (Boolean.TRUE.equals(row.get("vote")) ? 1 : -1));
+        }
+
+        return new CompactVotes(new VoteArray(bodyVotes), new VoteArray(commentVotes));
+    }
+
+    private Iterable<Map<String, Object>> query(String cypher, Map<String, Object> params) {
+        Result result = session.query(cypher, params);
+        return result.queryResults();
+    }
+
+    private static class CompactVotes {
+        private final VoteArray bodies;
+        private final VoteArray comments;
+
+        private CompactVotes(VoteArray bodies, VoteArray comments) {
+            this.bodies = bodies;
+            this.comments = comments;
+        }
+    }
+
+    /**
+     * Node ids in ascending order, each with its vote.
+     */
+    private static class VoteArray {
+        private final long[] ids;
+        private final byte[] votes;
+
+        private VoteArray(long[] ids, byte[] votes) {
+            this.ids = ids;
+            this.votes = votes;
+        }
+
+        private VoteArray(SortedMap<Long, Byte> source) {
+            this(new long[source.size()], new byte[source.size()]);
+            int i = 0;
+            for (Map.Entry<Long, Byte> entry : source.entrySet()) {
+                ids[i] = entry.getKey();
+                votes[i] = entry.getValue();
+                i++;
+            }
+        }
+
+        private int indexOf(long id) {
+            return Arrays.binarySearch(ids, id);
+        }
+
+        /**
+         * A copy with the vote on id set, or removed if vote is null.
+         */
+        private VoteArray with(long id, Byte vote) {
+            int i = indexOf(id);
+            if (i >= 0) {
+                if (vote == null) {
+                    long[] newIds = new long[ids.length - 1];
+                    byte[] newVotes = new byte[ids.length - 1];
+                    System.arraycopy(ids, 0, newIds, 0, i);
+                    System.arraycopy(votes, 0, newVotes, 0, i);
+                    System.arraycopy(ids, i + 1, newIds, i, ids.length - i - 1);
+                    System.arraycopy(votes, i + 1, newVotes, i, ids.length - i - 1);
+                    return new VoteArray(newIds, newVotes);
+                }
+                byte[] newVotes = votes.clone();
+                newVotes[i] = vote;
+                return new VoteArray(ids, newVotes);
+            }
+            if (vote == null) {
+                return this;
+            }
+            int insertAt = -i - 1;
+            long[] newIds = new long[ids.length + 1];
+            byte[] newVotes = new byte[ids.length + 1];
+            System.arraycopy(ids, 0, newIds, 0, insertAt);
+            System.arraycopy(votes, 0, newVotes, 0, insertAt);
+            newIds[insertAt] = id;
+            newVotes[insertAt] = vote;
+            System.arraycopy(ids, insertAt, newIds, insertAt + 1, ids.length - insertAt);
+            System.arraycopy(votes, insertAt, newVotes, insertAt + 1, ids.length - insertAt);
+            return new VoteArray(newIds, newVotes);
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.nodestand.service.vote;
+
+import com.nodestand.nodes.ArgumentBody;
+import com.nodestand.nodes.Node;
+import com.nodestand.nodes.version.MajorVersion;
+import org.neo4j.ogm.session.Session;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+
+/**
+ * Reads the persisted vote counters of major versions. The counters aren't mapped by the OGM, because
+ * {@link VoteCounterBuffer} increments them in Cypher and a MajorVersion saved after a flush would write its stale
+ * counts back over the increments. Anything that hands major versions to a client loads their counts through here.
+ */
+@Component
+public class VoteCountLoader {
+
+    private static final String LOAD_COUNTS =
+            "MATCH (mv:MajorVersion) WHERE mv.stableId IN {stableIds}" +
+            " RETURN mv.stableId AS stableId, coalesce(mv.greatVotes, 0) AS great, coalesce(mv.weakVotes, 0) AS weak," +
+            " coalesce(mv.toucheVotes, 0) AS touche, coalesce(mv.trashVotes, 0) AS trash";
+
+    private final Session session;
+
+    @Autowired
+    public VoteCountLoader(Session session) {
+        this.session = session;
+    }
+
+    /**
+     * Loads the counts of the major versions of the nodes, and of their previous versions.
+     */
+    public void loadForNodes(Collection<? extends Node> nodes) {
+        List<MajorVersion> majorVersions = new ArrayList<>();
+        Set<Node> visited = new HashSet<>();
+        for (Node node : nodes) {
+            for (Node n = node; n != null && visited.add(n); n = n.getPreviousVersion()) {
+                ArgumentBody body = n.getBody();
+                if (body != null && body.getMajorVersion() != null) {
+                    majorVersions.add(body.getMajorVersion());
+                }
+            }
+        }
+        load(majorVersions);
+    }
+
+    public void loadForNodes(Node... nodes) {
+        loadForNodes(Arrays.asList(nodes));
+    }
+
+    public void load(Collection<MajorVersion> majorVersions) {
+        Map<String, List<MajorVersion>> byStableId = new HashMap<>();
+        for (MajorVersion majorVersion : majorVersions) {
+            byStableId.computeIfAbsent(majorVersion.getStableId(), k -> new ArrayList<>()).add(majorVersion);
+        }
+        if (byStableId.isEmpty()) {
+            return;
+        }
+
+        Map<String, Object> params = Collections.singletonMap("stableIds", new ArrayList<>(byStableId.keySet()));
+        for (Map<String, Object> row : session.query(LOAD_COUNTS, params).queryResults()) {
+            for (MajorVersion majorVersion : byStableId.get((String) row.get("stableId"))) {
+                majorVersion.greatVotes = count(row, "great");
+                majorVersion.weakVotes = count(row, "weak");
+                majorVersion.toucheVotes = count(row, "touche");
+                majorVersion.trashVotes = count(row, "trash");
+            }
+        }
+    }
+
+    private static int count(Map<String, Object> row, String column) {
+        return ((Number) row.get(column)).intValue();
+    }
+}
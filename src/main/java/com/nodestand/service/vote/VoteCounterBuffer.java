@@ -0,0 +1,181 @@
+package com.nodestand.service.vote;
+
+import com.nodestand.nodes.vote.VoteType;
+import com.nodestand.service.argument.GraphCache;
+import com.nodestand.util.BackgroundWorker;
+import com.nodestand.util.TransactionUtil;
+import org.neo4j.ogm.session.Session;
+import org.neo4j.ogm.session.SessionFactory;
+import org.neo4j.ogm.transaction.Transaction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Absorbs changes to the great / weak / touche / trash counters of major versions in memory and writes the
+ * accumulated deltas to Neo4j in one statement, either on an interval or once enough of them have piled up.
+ * Votes on the same node therefore no longer queue up on its lock.
+ *
+ * Counts that haven't reached the database yet are exposed through {@link #getPending(String, VoteType)} so that
+ * they can be added to whatever was loaded.
+ */
+@Component
+public class VoteCounterBuffer {
+
+    private static final String APPLY_DELTAS =
+            "UNWIND {deltas} AS d MATCH (mv:MajorVersion {stableId: d.stableId})" +
+            " SET mv.greatVotes = coalesce(mv.greatVotes, 0) + d.GREAT," +
+            " mv.weakVotes = coalesce(mv.weakVotes, 0) + d.WEAK," +
+            " mv.toucheVotes = coalesce(mv.toucheVotes, 0) + d.TOUCHE," +
+            " mv.trashVotes = coalesce(mv.trashVotes, 0) + d.TRASH";
+
+    private static final VoteType[] TYPES = VoteType.values();
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    private final SessionFactory sessionFactory;
+
+    private final GraphCache graphCache;
+
+    private final long intervalMillis;
+
+    private final long flushThreshold;
+
+    private final ConcurrentHashMap<String, Counters> counters = new ConcurrentHashMap<>();
+
+    private final AtomicLong unflushedChanges = new AtomicLong();
+
+    private final BackgroundWorker worker =
+            new BackgroundWorker("vote-counter-flusher", this::flush, logger, "Failed to flush vote counters");
+
+    @Autowired
+    public VoteCounterBuffer(SessionFactory sessionFactory, GraphCache graphCache, Environment environment) {
+        this.sessionFactory = sessionFactory;
+        this.graphCache = graphCache;
+        this.intervalMillis = environment.getProperty("voteCounters.flushIntervalMillis", Long.class, 2000L);
+        this.flushThreshold = environment.getProperty("voteCounters.flushThreshold", Long.class, 1000L);
+    }
+
+    @PostConstruct
+    public void start() {
+        worker.start(intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        worker.stop();
+        worker.runQuietly();
+    }
+
+    /**
+     * Adds delta to the counter once the current transaction commits, so a rolled back vote is never counted.
+     */
+    public void record(String majorVersionStableId, VoteType voteType, int delta) {
+        TransactionUtil.afterCommit(() -> {
+            counters.computeIfAbsent(majorVersionStableId, k -> new Counters()).pending[voteType.ordinal()].add(delta);
+            if (unflushedChanges.incrementAndGet() == flushThreshold) {
+                worker.runSoon();
+            }
+        });
+    }
+
+    /**
+     * The change to the counter that has not been written to the database yet.
+     */
+    public long getPending(String majorVersionStableId, VoteType voteType) {
+        Counters c = counters.get(majorVersionStableId);
+        if (c == null) {
+            return 0;
+        }
+        return c.pending[voteType.ordinal()].sum() + c.inFlight[voteType.ordinal()].get();
+    }
+
+    /**
+     * Writes all pending deltas to the database. Returns the number of major versions touched.
+     */
+    public synchronized int flush() {
+        unflushedChanges.set(0);
+
+        Map<String, long[]> taken = new HashMap<>();
+        List<Map<String, Object>> deltas = new ArrayList<>();
+        for (Map.Entry<String, Counters> entry : counters.entrySet()) {
+            Counters c = entry.getValue();
+            long[] amounts = new long[TYPES.length];
+            boolean any = false;
+            for (int i = 0; i < TYPES.length; i++) {
+                // Move the amount to in-flight before taking it out of pending, so readers never see it missing.
+                // At worst they count it twice for an instant.
+                long amount = c.pending[i].sum();
+                c.inFlight[i].addAndGet(amount);
+                c.pending[i].add(-amount);
+                amounts[i] = amount;
+                any |= amount != 0;
+            }
+            if (!any) {
+                // Entries are never removed; a concurrent record() could otherwise add to one we just dropped.
+                continue;
+            }
+            taken.put(entry.getKey(), amounts);
+
+            Map<String, Object> delta = new HashMap<>();
+            delta.put("stableId", entry.getKey());
+            for (int i = 0; i < TYPES.length; i++) {
+                delta.put(TYPES[i].name(), amounts[i]);
+            }
+            deltas.add(delta);
+        }
+
+        if (deltas.isEmpty()) {
+            return 0;
+        }
+
+        boolean written = false;
+        try {
+            Session session = sessionFactory.openSession();
+            try (Transaction tx = session.beginTransaction()) {
+                session.query(APPLY_DELTAS, Collections.singletonMap("deltas", deltas));
+                tx.commit();
+            }
+            written = true;
+        } finally {
+            for (Map.Entry<String, long[]> entry : taken.entrySet()) {
+                Counters c = counters.computeIfAbsent(entry.getKey(), k -> new Counters());
+                for (int i = 0; i < TYPES.length; i++) {
+                    long amount = entry.getValue()[i];
+                    if (!written) {
+                        c.pending[i].add(amount); // Try again next time.
+                    }
+                    c.inFlight[i].addAndGet(-amount);
+                }
+            }
+            if (written) {
+                // Cached graphs hold the counts that were loaded before this write.
+                graphCache.invalidate(taken.keySet());
+            }
+        }
+
+        return deltas.size();
+    }
+
+    private static class Counters {
+        private final LongAdder[] pending = new LongAdder[TYPES.length];
+        private final AtomicLong[] inFlight = new AtomicLong[TYPES.length];
+
+        private Counters() {
+            for (int i = 0; i < TYPES.length; i++) {
+                pending[i] = new LongAdder();
+                inFlight[i] = new AtomicLong();
+            }
+        }
+    }
+}
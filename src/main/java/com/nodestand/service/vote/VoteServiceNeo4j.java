@@ -10,14 +10,15 @@ import com.nodestand.nodes.source.SourceNode;
 import com.nodestand.nodes.subject.SubjectNode;
 import com.nodestand.nodes.version.MajorVersion;
 import com.nodestand.nodes.vote.ArgumentVote;
+import com.nodestand.nodes.vote.PendingScore;
 import com.nodestand.nodes.vote.VoteType;
+import com.nodestand.service.argument.RootNodeIndex;
 import org.neo4j.ogm.session.Session;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
 
-import java.util.Map;
-import java.util.Optional;
-import java.util.Set;
+import java.util.*;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
@@ -35,25 +36,35 @@ public class VoteServiceNeo4j implements VoteService {
     private final UserRepository userRepository;
     private final Session session;
     private final ScoreLogger scoreLogger;
+    private final VoteCounterBuffer voteCounterBuffer;
+    private final UserVoteIndex userVoteIndex;
+    private final RootNodeIndex rootNodeIndex;
 
     @Autowired
-    public VoteServiceNeo4j(ArgumentNodeRepository argumentNodeRepository, UserRepository userRepository, Session session, ScoreLogger scoreLogger) {
+    public VoteServiceNeo4j(ArgumentNodeRepository argumentNodeRepository, UserRepository userRepository, Session session,
+                            ScoreLogger scoreLogger, VoteCounterBuffer voteCounterBuffer, UserVoteIndex userVoteIndex,
+                            RootNodeIndex rootNodeIndex) {
         this.argumentNodeRepository = argumentNodeRepository;
         this.userRepository = userRepository;
         this.session = session;
         this.scoreLogger = scoreLogger;
+        this.voteCounterBuffer = voteCounterBuffer;
+        this.userVoteIndex = userVoteIndex;
+        this.rootNodeIndex = rootNodeIndex;
     }
 
     @Override
+    @Transactional
     public void voteNode(String userStableId, String nodeStableId, VoteType voteType) throws NodeRulesException {
 
-        User user = userRepository.loadUserWithVotes(userStableId);
         ArgumentNode node = argumentNodeRepository.getNodeRich(nodeStableId);
 
         if (!node.acceptsVotes()) {
             throw new NodeRulesException("Cannot vote on a node of type " + node.getType());
         }
 
+        User user = userRepository.loadUserWithVoteOn(userStableId, node.getBody().getMajorVersion().getStableId());
+
         Author originalAuthor = node.getBody().getMajorVersion().author;
         if (isOwnAuthor(originalAuthor, user)) {
             throw new NodeRulesException("Can't vote on your own node.");
@@ -71,8 +82,8 @@ public class VoteServiceNeo4j implements VoteService {
             }
             vote.voteType = voteType; // This mutates the user's vote
 
-            mv.decrementVote(oldVote);
-            mv.incrementVote(voteType);
+            voteCounterBuffer.record(mv.getStableId(), oldVote, -1);
+            voteCounterBuffer.record(mv.getStableId(), voteType, 1);
 
             updateScore(node, voteType, oldVote, user);
 
@@ -84,23 +95,24 @@ public class VoteServiceNeo4j implements VoteService {
 
             user.registerNewVote(newVote);
 
-            mv.incrementVote(voteType);
+            voteCounterBuffer.record(mv.getStableId(), voteType, 1);
+            rootNodeIndex.adjustVotes(mv.getStableId(), 1);
 
             updateScore(node, voteType, null, user);
         }
 
-        session.save(mv);
         session.save(user);
+        userVoteIndex.updateBodyVote(userStableId, mv.getId(), voteType);
     }
 
     @Override
+    @Transactional
     public void unvoteNode(String nodeStableId, String userStableId) throws NodeRulesException {
 
         // Scenario: Card created by A, card voted green, card edited with additional edge by B,
         // card vote revoked. A will net 0 points, and B will net negative points. This is acceptable
         // because it seems like B made things worse.
 
-        User user = userRepository.loadUserWithVotes(userStableId);
         ArgumentNode node = argumentNodeRepository.getNodeRich(nodeStableId);
 
         if (!node.acceptsVotes()) {
@@ -109,81 +121,93 @@ public class VoteServiceNeo4j implements VoteService {
 
         MajorVersion mv = node.getBody().getMajorVersion();
 
+        User user = userRepository.loadUserWithVoteOn(userStableId, mv.getStableId());
+
         Optional<ArgumentVote> existingVote = user.getExistingVote(mv);
 
         if (existingVote.isPresent()) {
             ArgumentVote vote = existingVote.get();
 
-            user.revokeVote(mv.getStableId());
+            user.revokeVote(mv);
 
-            mv.decrementVote(vote.voteType);
+            voteCounterBuffer.record(mv.getStableId(), vote.voteType, -1);
+            rootNodeIndex.adjustVotes(mv.getStableId(), -1);
 
             updateScore(node, null, vote.voteType, user);
 
-            session.save(mv);
             session.save(user);
+            userVoteIndex.updateBodyVote(userStableId, mv.getId(), null);
         }
     }
 
     private boolean isOwnAuthor(Author author, User user) {
-        // Assumes that author.getUser will be non-null if it's the logged in user,
-        // because that user should already be loaded in the session context and neo4j-ogm links
-        // things nicely like that.
-        return author.getUser() != null && author.getUser().getStableId().equals(user.getStableId());
+        return isOwnAuthor(author.getStableId(), user);
+    }
+
+    private boolean isOwnAuthor(String authorStableId, User user) {
+        // The voter was loaded along with all of their aliases, so no need to go back to the database.
+        return user.getAliases() != null && user.getAliases().stream().anyMatch(a -> a.getStableId().equals(authorStableId));
     }
 
+    /**
+     * Works out the points owed to each author of the node and records them as {@link PendingScore} rows. They
+     * are added to the authors' totals later by {@link PendingScoreApplier}.
+     */
     private void updateScore(ArgumentNode node, VoteType voteType, VoteType voteTypeToNegate, User voter) {
+        List<PendingScore> scores = new ArrayList<>();
+
         if (node instanceof SourceNode) {
             Author author = node.getBody().getMajorVersion().author;
             if (!isOwnAuthor(author, voter)) { // Can't alter your own points.
-                updatePointsAndSave(node, voter, voteType, voteTypeToNegate, author, 0);
+                addScores(scores, node, voter, voteType, voteTypeToNegate, author.getStableId(), 0);
             }
         } else {
             MajorVersion mv = node.getBody().getMajorVersion();
-            Set<String> childrenMajorVersions = node.getBody().getMajorVersionsFromBodyText();
-            Map<String, String> edgeOwners = mv.getEdgeOwners();
-
-
-            Map<String, Long> authorIdCounts = childrenMajorVersions.stream()
-                    .map(mvId -> edgeOwners.containsKey(mvId) ? edgeOwners.get(mvId) : "")
-                    .collect(Collectors.groupingBy(Function.identity(), Collectors.counting()));
+            Map<String, Long> authorIdCounts = countEdgesByAuthor(
+                    node.getBody().getMajorVersionsFromBodyText(), mv.getEdgeOwners());
 
-            // Now fetch the owners from the DB and give them points.
             for (Map.Entry<String, Long> entry: authorIdCounts.entrySet()) {
                 if (!entry.getKey().isEmpty()) { // Might be empty if the mapping on the MV was incomplete
-                    Author author = userRepository.loadAuthor(entry.getKey());
-                    if (!isOwnAuthor(author, voter)) { // Can't alter your own points.
-                        updatePointsAndSave(node, voter, voteType, voteTypeToNegate, author, Math.toIntExact(entry.getValue()));
+                    if (!isOwnAuthor(entry.getKey(), voter)) { // Can't alter your own points.
+                        addScores(scores, node, voter, voteType, voteTypeToNegate, entry.getKey(), Math.toIntExact(entry.getValue()));
                     }
                 }
             }
 
         }
+
+        if (!scores.isEmpty()) {
+            session.save(scores);
+        }
     }
 
-    private void updatePointsAndSave(ArgumentNode node, User voter, VoteType voteType, VoteType voteTypeToNegate, Author author, int edgesOwned) {
+    private void addScores(List<PendingScore> scores, ArgumentNode node, User voter, VoteType voteType, VoteType voteTypeToNegate, String authorStableId, int edgesOwned) {
 
-        int negationPoints = 0;
         if (voteTypeToNegate != null) {
-            negationPoints = getPoints(voteTypeToNegate, node.getType(), edgesOwned) * -1;
-            scoreLogger.logScore(author.getStableId(), voter.getStableId(), node.getStableId(), node.getBody().getTitle(), negationPoints, voteTypeToNegate, true);
+            int negationPoints = getPoints(voteTypeToNegate, node.getType(), edgesOwned) * -1;
+            scoreLogger.logScore(authorStableId, voter.getStableId(), node.getStableId(), node.getBody().getTitle(), negationPoints, voteTypeToNegate, true);
+            scores.add(new PendingScore(authorStableId, voter.getStableId(), node.getStableId(), negationPoints, voteTypeToNegate, true));
         }
 
-        int votePoints = 0;
         if (voteType != null) {
-            votePoints = getPoints(voteType, node.getType(), edgesOwned);
-            scoreLogger.logScore(author.getStableId(), voter.getStableId(), node.getStableId(), node.getBody().getTitle(), votePoints, voteType, false);
+            int votePoints = getPoints(voteType, node.getType(), edgesOwned);
+            scoreLogger.logScore(authorStableId, voter.getStableId(), node.getStableId(), node.getBody().getTitle(), votePoints, voteType, false);
+            scores.add(new PendingScore(authorStableId, voter.getStableId(), node.getStableId(), votePoints, voteType, false));
         }
-
-        author.awardNodePoints(negationPoints + votePoints);
-
+    }
 
 
-        session.save(author);
+    /**
+     * Author stable id -> how many of the given major versions they own the edge to. Unowned edges are counted
+     * under the empty string.
+     */
+    static Map<String, Long> countEdgesByAuthor(Set<String> childrenMajorVersions, Map<String, String> edgeOwners) {
+        return childrenMajorVersions.stream()
+                .map(mvId -> edgeOwners.getOrDefault(mvId, ""))
+                .collect(Collectors.groupingBy(Function.identity(), Collectors.counting()));
     }
 
-
-    private int getPoints(VoteType voteType, String nodeType, int numEdgesOwned) {
+    static int getPoints(VoteType voteType, String nodeType, int numEdgesOwned) {
         int baseValue = getBaseValue(voteType);
 
         switch (nodeType) {
@@ -197,7 +221,7 @@ public class VoteServiceNeo4j implements VoteService {
         }
     }
 
-    private int getBaseValue(VoteType voteType) {
+    private static int getBaseValue(VoteType voteType) {
         switch (voteType) {
             case GREAT: return 10;
             case WEAK: return 2;
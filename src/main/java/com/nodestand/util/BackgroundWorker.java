@@ -0,0 +1,82 @@
+package com.nodestand.util;
+
+import org.slf4j.Logger;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs one task over and over on a named daemon thread, with a fixed delay between runs. A run that throws is
+ * logged and the next one goes ahead as scheduled, so the task should leave anything it failed on to be retried.
+ *
+ * Nothing runs until {@link #start(long, TimeUnit)}, which lets tests build the owning component and drive the task
+ * by hand.
+ */
+public class BackgroundWorker {
+
+    private final String threadName;
+
+    private final Runnable task;
+
+    private final Logger logger;
+
+    private final String failureMessage;
+
+    private volatile ScheduledExecutorService executor;
+
+    /**
+     * @param logger the owner's logger, which failed runs are reported to along with failureMessage.
+     */
+    public BackgroundWorker(String threadName, Runnable task, Logger logger, String failureMessage) {
+        this.threadName = threadName;
+        this.task = task;
+        this.logger = logger;
+        this.failureMessage = failureMessage;
+    }
+
+    public void start(long delay, TimeUnit unit) {
+        executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, threadName);
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(this::runQuietly, delay, delay, unit);
+    }
+
+    /**
+     * Stops scheduling runs and waits a while for the current one to finish.
+     */
+    public void stop() {
+        if (executor == null) {
+            return;
+        }
+        executor.shutdown();
+        try {
+            executor.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Queues an extra run on the worker thread, without waiting for it. Does nothing if the worker isn't running.
+     */
+    public void runSoon() {
+        ScheduledExecutorService current = executor;
+        if (current != null && !current.isShutdown()) {
+            current.execute(this::runQuietly);
+        }
+    }
+
+    /**
+     * Runs the task on the calling thread, logging rather than throwing if it fails.
+     */
+    public void runQuietly() {
+        try {
+            task.run();
+        } catch (RuntimeException e) {
+            logger.error(failureMessage, e);
+        }
+    }
+}
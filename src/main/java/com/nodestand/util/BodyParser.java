@@ -5,76 +5,69 @@ import com.nodestand.nodes.Node;
 import com.nodestand.nodes.NodeInputException;
 import com.nodestand.nodes.NodeRulesException;
 import com.nodestand.nodes.repository.ArgumentNodeRepository;
-import org.apache.commons.lang3.StringUtils;
 
 import java.util.*;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
-import java.util.stream.Collectors;
 
 public final class BodyParser {
 
 
     public static Set<String> getMajorVersions(String bodyText) {
-
-        BodyTextIterator iterator = new BodyTextIterator(bodyText);
-
-        Set<String> links = new HashSet<>();
-        while (iterator.hasNext()) {
-            links.add(iterator.next().getMajorVersionStableId());
-        }
-
-        return links;
+        return ParsedBodyText.parse(bodyText).getMajorVersionStableIds();
     }
 
     public static String[] validateAndSortLinks(Collection<Node> children, String assertionBodyText, ArgumentNodeRepository repo) throws NodeRulesException {
+        return validateAndSortLinks(children, ParsedBodyText.parse(assertionBodyText), repo);
+    }
+
+    /**
+     * Checks that the links in the body text and the children correspond one to one (by major version), and returns
+     * the children's stable ids in the order their links first appear. Runs in time linear in links + children.
+     */
+    public static String[] validateAndSortLinks(Collection<Node> children, ParsedBodyText parsedBody, ArgumentNodeRepository repo) throws NodeRulesException {
 
-        if (StringUtils.isEmpty(assertionBodyText)) {
+        if (!parsedBody.hasText()) {
             return new String[0];
         }
 
+        Map<String, Node> childrenByMajorVersion = new HashMap<>();
+        Set<String> ambiguousMajorVersions = new HashSet<>();
         for (Node child: children) {
             if (child.getBody() == null || child.getBody().getMajorVersion() == null) {
                 repo.loadWithMajorVersion(child.getId());
             }
+            String mvId = child.getBody().getMajorVersion().getStableId();
+            Node previous = childrenByMajorVersion.put(mvId, child);
+            if (previous != null && previous != child) {
+                ambiguousMajorVersions.add(mvId);
+            }
         }
 
-        BodyTextIterator iterator = new BodyTextIterator(assertionBodyText);
-
-        //Matcher m = p.matcher(assertionBodyText);
-
-        List<Node> remainingChildren = new ArrayList<>(children);
-        List<String> argumentNodeStables = new LinkedList<>();
+        List<String> argumentNodeStables = new ArrayList<>(childrenByMajorVersion.size());
         Set<String> majorVersionStables = new HashSet<>();
 
-        while (iterator.hasNext()) {
-            String id = iterator.next().getMajorVersionStableId();
+        for (BodyTextIterator.BodyLink link: parsedBody.getLinks()) {
+            String id = link.getMajorVersionStableId();
 
-            if (majorVersionStables.contains(id)) {
+            if (!majorVersionStables.add(id)) {
                 continue;
             }
 
-            List<Node> matches = remainingChildren.stream().filter(n -> n.getBody().getMajorVersion().getStableId().equals(id)).collect(Collectors.toList());
-
-            if (matches.isEmpty()) {
-                throw new NodeInputException("Body text contained an unexpected link!");
-            }
-
-            if (matches.size() > 1) {
+            if (ambiguousMajorVersions.contains(id)) {
                 throw new NodeInputException("Passed multiple children with the same major version!");
             }
 
-            Node child = matches.get(0);
+            Node child = childrenByMajorVersion.get(id);
+            if (child == null) {
+                throw new NodeInputException("Body text contained an unexpected link!");
+            }
 
-            remainingChildren.remove(child);
             argumentNodeStables.add(child.getStableId());
-            majorVersionStables.add(id);
         }
 
-        if (!remainingChildren.isEmpty()) {
+        if (argumentNodeStables.size() < childrenByMajorVersion.size() || !ambiguousMajorVersions.isEmpty()) {
             throw new NodeInputException("There were children not represented in the body text!");
         }
 
-        return argumentNodeStables.stream().toArray(String[]::new);
+        return argumentNodeStables.toArray(new String[argumentNodeStables.size()]);
     }
 }
@@ -1,32 +1,84 @@
 package com.nodestand.util;
 
 import java.util.Iterator;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.NoSuchElementException;
 
 /**
+ * Walks the links in body text, which look like {{[9t8io4jpiw7c1y28nq6rxyj1t]Hello world}}.
+ *
+ * This is a hand-written scanner equivalent to the pattern \{\{\[([0-9a-z]{1,25})\](.+?)\}\} : the id is 1 to 25
+ * lowercase letters or digits, and the label is at least one character, runs up to the first }} and may not
+ * cross a line break. Each link only records offsets into the text; the id and label strings are cut out when
+ * asked for.
+ *
  * Created by Tyler on 1/1/2017.
  */
 public class BodyTextIterator implements Iterator<BodyTextIterator.BodyLink> {
 
-    private static Pattern p = Pattern.compile("\\{\\{\\[([0-9a-z]{1,25})\\](.+?)(?=}})\\}\\}"); // {{[9t8io4jpiw7c1y28nq6rxyj1t]Hello world}}
+    private static final int MAX_ID_LENGTH = 25;
 
-    private final Matcher matcher;
+    private final String text;
+    private int position;
     private BodyLink next;
 
     public BodyTextIterator(String assertionBodyText) {
-        matcher = p.matcher(assertionBodyText);
+        this.text = assertionBodyText;
         loadNext();
     }
 
     private void loadNext() {
-        if (matcher.find()) {
-            next = new BodyLink();
-            next.majorVersionStableId = matcher.group(1);
-            next.label = matcher.group(2);
-        } else {
-            next = null;
+        next = null;
+        int start = text.indexOf("{{[", position);
+        while (start >= 0) {
+            int idStart = start + 3;
+            int idEnd = idStart;
+            while (idEnd < text.length() && idEnd - idStart <= MAX_ID_LENGTH && isIdChar(text.charAt(idEnd))) {
+                idEnd++;
+            }
+
+            int length = idEnd - idStart;
+            if (length >= 1 && length <= MAX_ID_LENGTH && idEnd < text.length() && text.charAt(idEnd) == ']') {
+                int labelStart = idEnd + 1;
+                int labelEnd = findLabelEnd(labelStart);
+                if (labelEnd >= 0) {
+                    next = new BodyLink(text, start, idStart, idEnd, labelStart, labelEnd);
+                    position = labelEnd + 2;
+                    return;
+                }
+            }
+
+            start = text.indexOf("{{[", start + 1);
+        }
+        position = text.length();
+    }
+
+    /**
+     * Returns the index of the first }} that leaves a non-empty label, or -1 if a line break or the end of the text
+     * comes first.
+     */
+    private int findLabelEnd(int labelStart) {
+        if (labelStart >= text.length() || isLineTerminator(text.charAt(labelStart))) {
+            return -1;
+        }
+        for (int i = labelStart + 1; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '}' && i + 1 < text.length() && text.charAt(i + 1) == '}') {
+                return i;
+            }
+            if (isLineTerminator(c)) {
+                return -1;
+            }
         }
+        return -1;
+    }
+
+    private static boolean isIdChar(char c) {
+        return (c >= '0' && c <= '9') || (c >= 'a' && c <= 'z');
+    }
+
+    // The same characters that stop '.' in a java.util.regex pattern.
+    private static boolean isLineTerminator(char c) {
+        return c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029';
     }
 
     @Override
@@ -36,21 +88,59 @@ public class BodyTextIterator implements Iterator<BodyTextIterator.BodyLink> {
 
     @Override
     public BodyLink next() {
+        if (next == null) {
+            throw new NoSuchElementException();
+        }
         BodyLink current = next;
         loadNext();
         return current;
     }
 
     public static class BodyLink {
-        private String majorVersionStableId;
-        private String label;
+        private final String text;
+        private final int start;
+        private final int idStart;
+        private final int idEnd;
+        private final int labelStart;
+        private final int labelEnd;
+
+        private BodyLink(String text, int start, int idStart, int idEnd, int labelStart, int labelEnd) {
+            this.text = text;
+            this.start = start;
+            this.idStart = idStart;
+            this.idEnd = idEnd;
+            this.labelStart = labelStart;
+            this.labelEnd = labelEnd;
+        }
 
         public String getMajorVersionStableId() {
-            return majorVersionStableId;
+            return text.substring(idStart, idEnd);
         }
 
         public String getLabel() {
-            return label;
+            return text.substring(labelStart, labelEnd);
+        }
+
+        /**
+         * Offset of the opening {{ in the text.
+         */
+        public int getStart() {
+            return start;
+        }
+
+        /**
+         * Offset just past the closing }} in the text.
+         */
+        public int getEnd() {
+            return labelEnd + 2;
+        }
+
+        public int getLabelStart() {
+            return labelStart;
+        }
+
+        public int getLabelEnd() {
+            return labelEnd;
         }
     }
 }
@@ -0,0 +1,99 @@
+package com.nodestand.util;
+
+import com.nodestand.nodes.NodeInputException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Position of the last item handed out by a paged listing, encoded as an opaque url-safe string. It records which
+ * ordering (or tier) the listing was walking, the sort key of the last item, and the item's id to break ties.
+ */
+public final class PageCursor {
+
+    private final int ordering;
+    private final String key;
+    private final long id;
+
+    public PageCursor(int ordering, String key, long id) {
+        this.ordering = ordering;
+        this.key = key;
+        this.id = id;
+    }
+
+    public PageCursor(Enum<?> ordering, long key, long id) {
+        this(ordering.ordinal(), String.valueOf(key), id);
+    }
+
+    public String encode() {
+        // The key goes last, since it is the only part that may itself contain a colon.
+        String raw = ordering + ":" + id + ":" + key;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static PageCursor decode(String encoded) throws NodeInputException {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(encoded), StandardCharsets.UTF_8);
+            String[] parts = raw.split(":", 3);
+            if (parts.length != 3) {
+                throw malformed();
+            }
+            return new PageCursor(Integer.parseInt(parts[0]), parts[2], Long.parseLong(parts[1]));
+        } catch (IllegalArgumentException e) {
+            throw malformed();
+        }
+    }
+
+    /**
+     * Decodes a cursor with a numeric key, and checks that it was handed out for the same ordering.
+     */
+    public static PageCursor decode(String encoded, Enum<?> ordering) throws NodeInputException {
+        PageCursor cursor = decode(encoded);
+        if (cursor.ordering != ordering.ordinal()) {
+            throw malformed();
+        }
+        try {
+            Long.parseLong(cursor.key);
+        } catch (NumberFormatException e) {
+            throw malformed();
+        }
+        return cursor;
+    }
+
+    public static NodeInputException malformed() {
+        return new NodeInputException("Malformed cursor.");
+    }
+
+    /**
+     * @param name e.g. "newest", in any case. Null means the default order.
+     */
+    public static <E extends Enum<E>> E parseOrder(Class<E> type, String name, E defaultOrder) throws NodeInputException {
+        if (name == null) {
+            return defaultOrder;
+        }
+        try {
+            return Enum.valueOf(type, name.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new NodeInputException("Unknown sort order " + name);
+        }
+    }
+
+    public int getOrdering() {
+        return ordering;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    /**
+     * Only for cursors decoded with an ordering, which checks that the key is a number.
+     */
+    public long getLongKey() {
+        return Long.parseLong(key);
+    }
+
+    public long getId() {
+        return id;
+    }
+}
@@ -0,0 +1,60 @@
+package com.nodestand.util;
+
+import java.util.*;
+
+/**
+ * The links found in a piece of body text, in the order they appear, along with the text they were parsed from.
+ * Bodies hold on to one of these so that the text is only parsed again after it changes.
+ */
+public final class ParsedBodyText {
+
+    private static final ParsedBodyText EMPTY = new ParsedBodyText(null, Collections.emptyList());
+
+    private final String text;
+    private final List<BodyTextIterator.BodyLink> links;
+    private final Set<String> majorVersionStableIds;
+
+    private ParsedBodyText(String text, List<BodyTextIterator.BodyLink> links) {
+        this.text = text;
+        this.links = links;
+
+        Set<String> ids = new HashSet<>();
+        for (BodyTextIterator.BodyLink link : links) {
+            ids.add(link.getMajorVersionStableId());
+        }
+        this.majorVersionStableIds = Collections.unmodifiableSet(ids);
+    }
+
+    public static ParsedBodyText parse(String text) {
+        if (text == null || text.isEmpty()) {
+            return text == null ? EMPTY : new ParsedBodyText(text, Collections.emptyList());
+        }
+
+        List<BodyTextIterator.BodyLink> links = new ArrayList<>();
+        BodyTextIterator iterator = new BodyTextIterator(text);
+        while (iterator.hasNext()) {
+            links.add(iterator.next());
+        }
+        return new ParsedBodyText(text, Collections.unmodifiableList(links));
+    }
+
+    /**
+     * True if this was parsed from exactly the given string instance. Cheaper than equals, and bodies always
+     * replace their text rather than mutating it.
+     */
+    public boolean isParsedFrom(String text) {
+        return this.text == text;
+    }
+
+    public boolean hasText() {
+        return text != null && !text.isEmpty();
+    }
+
+    public List<BodyTextIterator.BodyLink> getLinks() {
+        return links;
+    }
+
+    public Set<String> getMajorVersionStableIds() {
+        return majorVersionStableIds;
+    }
+}
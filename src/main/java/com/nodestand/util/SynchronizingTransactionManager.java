@@ -0,0 +1,86 @@
+package com.nodestand.util;
+
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import java.util.List;
+
+/**
+ * Drives Spring's transaction synchronization around a transaction manager that doesn't, which includes the one
+ * SDN 4.1 ships. Without it nothing is ever registered against a transaction, so
+ * {@link TransactionUtil#afterCommit(Runnable)} runs its action straight away, before anything has committed.
+ *
+ * Only the outermost transaction on a thread is synchronized; joined transactions pass straight through. The
+ * synchronization is cleared before the after-commit callbacks run, so they see no transaction. The wrapped manager
+ * ignores setRollbackOnly, so a transaction only rolls back when its work throws.
+ */
+public class SynchronizingTransactionManager implements PlatformTransactionManager {
+
+    private final PlatformTransactionManager delegate;
+
+    private final ThreadLocal<TransactionStatus> outermost = new ThreadLocal<>();
+
+    public SynchronizingTransactionManager(PlatformTransactionManager delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public TransactionStatus getTransaction(TransactionDefinition definition) throws TransactionException {
+        TransactionStatus status = delegate.getTransaction(definition);
+        if (status.isNewTransaction() && outermost.get() == null) {
+            outermost.set(status);
+            TransactionSynchronizationManager.initSynchronization();
+            TransactionSynchronizationManager.setActualTransactionActive(true);
+            TransactionSynchronizationManager.setCurrentTransactionReadOnly(definition != null && definition.isReadOnly());
+        }
+        return status;
+    }
+
+    @Override
+    public void commit(TransactionStatus status) throws TransactionException {
+        if (status != outermost.get()) {
+            delegate.commit(status);
+            return;
+        }
+
+        try {
+            TransactionSynchronizationUtils.triggerBeforeCommit(TransactionSynchronizationManager.isCurrentTransactionReadOnly());
+            TransactionSynchronizationUtils.triggerBeforeCompletion();
+            delegate.commit(status);
+        } catch (RuntimeException | Error e) {
+            TransactionSynchronizationUtils.invokeAfterCompletion(clear(), TransactionSynchronization.STATUS_UNKNOWN);
+            throw e;
+        }
+
+        List<TransactionSynchronization> synchronizations = clear();
+        TransactionSynchronizationUtils.invokeAfterCommit(synchronizations);
+        TransactionSynchronizationUtils.invokeAfterCompletion(synchronizations, TransactionSynchronization.STATUS_COMMITTED);
+    }
+
+    @Override
+    public void rollback(TransactionStatus status) throws TransactionException {
+        if (status != outermost.get()) {
+            delegate.rollback(status);
+            return;
+        }
+
+        try {
+            TransactionSynchronizationUtils.triggerBeforeCompletion();
+            delegate.rollback(status);
+        } finally {
+            TransactionSynchronizationUtils.invokeAfterCompletion(clear(), TransactionSynchronization.STATUS_ROLLED_BACK);
+        }
+    }
+
+    private List<TransactionSynchronization> clear() {
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clear();
+        outermost.remove();
+        return synchronizations;
+    }
+}
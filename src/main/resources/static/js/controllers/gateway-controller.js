@@ -11,11 +11,40 @@ require('../directives/node-list-directive');
     function GatewayController($scope, $http) {
 
         $scope.nodes = [];
+        $scope.sort = 'newest';
+        $scope.nextCursor = null;
+        $scope.loading = false;
 
-        $http.get('/rootNodes').success(function (data) {
-            //$scope.nodes = data;
-            $scope.nodes.push.apply($scope.nodes, data); // Push data to nodes
-        });
+        $scope.loadMore = loadMore;
+        $scope.changeSort = changeSort;
+
+        loadMore();
+
+        function loadMore() {
+            if ($scope.loading) {
+                return;
+            }
+            $scope.loading = true;
+
+            var params = {sort: $scope.sort};
+            if ($scope.nextCursor) {
+                params.cursor = $scope.nextCursor;
+            }
+
+            $http.get('/rootNodes', {params: params}).success(function (data) {
+                $scope.nodes.push.apply($scope.nodes, data.nodes); // Push data to nodes
+                $scope.nextCursor = data.nextCursor;
+            }).finally(function () {
+                $scope.loading = false;
+            });
+        }
+
+        function changeSort() {
+            // Cursors only make sense within one ordering, so start the feed over.
+            $scope.nodes.length = 0;
+            $scope.nextCursor = null;
+            loadMore();
+        }
     }
 
 })();
\ No newline at end of file
@@ -1,4 +1,5 @@
 require('../services/toast-service');
+require('../services/vote-lookup-service');
 
 (function() {
     'use strict';
@@ -19,7 +20,7 @@ require('../services/toast-service');
         }
     }
 
-    function CommentVoteController($scope, $http, UserService, ToastService) {
+    function CommentVoteController($scope, $http, UserService, VoteLookupService, ToastService) {
 
 
         var user = UserService.getUser();
@@ -28,10 +29,18 @@ require('../services/toast-service');
         if (user == null) {
             UserService.subscribeSuccessfulLogin($scope, function() {
                 user = UserService.getUser();
-                getUserVote();
+                loadUserVote();
             });
         } else {
-            getUserVote();
+            loadUserVote();
+        }
+
+        function loadUserVote() {
+            if (user) {
+                VoteLookupService.getCommentVote(comment.id).then(function(vote) {
+                    $scope.userVote = vote;
+                });
+            }
         }
 
         function getUserVote() {
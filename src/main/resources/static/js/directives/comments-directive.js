@@ -171,38 +171,97 @@ require('../services/toast-service');
                 });
         }
 
+        ctrl.setSort = function (sort) {
+            if (ctrl.commentSort === sort) {
+                return;
+            }
+            ctrl.commentSort = sort;
+
+            // Pages come back ranked by the server, so start the thread over in the new order.
+            ctrl.commentData = null;
+            if (ctrl.node) {
+                ctrl.node.comments = null;
+            }
+            fetchComments($http, $scope.nodeStableId, true);
+        };
+
+        // Loads the next page of replies to a comment, or of top-level comments when given the node.
+        ctrl.loadMoreReplies = function (commentable) {
+            if (commentable.loadingReplies) {
+                return;
+            }
+            commentable.loadingReplies = true;
+
+            var params = {sort: serverSort()};
+            if (commentable.moreReplies) {
+                params.cursor = commentable.moreReplies;
+            }
+
+            var request;
+            if (commentable === ctrl.node) {
+                params.stableId = $scope.nodeStableId;
+                request = $http.get('/comments', {params: params});
+            } else {
+                params.parentId = commentable.id;
+                request = $http.get('/commentReplies', {params: params});
+            }
+
+            request.success(function (data) {
+                mergeThread(data, commentable);
+            }).finally(function () {
+                commentable.loadingReplies = false;
+            });
+        };
+
+        ctrl.hasMoreReplies = function (commentable) {
+            return commentable.moreReplies !== undefined;
+        };
+
+        function serverSort() {
+            return ctrl.commentSort === 'dateCreated' ? 'date' : 'score';
+        }
+
         function tryArrangeData() {
             if (ctrl.node && ctrl.commentData && !ctrl.node.comments) {
 
-                var data = ctrl.commentData;
-                var node = ctrl.node;
+                // The root of the response is the MajorVersion, whose id does NOT match the node's. This has the
+                // effect of attributing comments to the ArgumentNode when really they belong to the MajorVersion.
+                mergeThread(ctrl.commentData, ctrl.node);
+            }
+        }
 
-                var commentables = {};
-                for (var i = 0; i < data.nodes.length; i++) {
-                    var commentableId = data.nodes[i].id;
-                    if (commentableId == node.body.majorVersion.id) {
+        // Attaches a page of comments beneath the commentable they were loaded for.
+        function mergeThread(data, root) {
 
-                        // This line is tricky. The node.id does NOT match returnedId. This will ultimately have the effect
-                        // of attributing comments to the ArgumentNode when really they belong to the MajorVersion.
-                        commentables[commentableId] = node;
-                    } else {
-                        commentables[commentableId] = data.nodes[i];
-                    }
-                }
+            var commentables = {};
+            commentables[data.rootId] = root;
+            root.comments = root.comments || [];
+            delete root.moreReplies;
+
+            for (var i = 0; i < data.nodes.length; i++) {
+                var comment = data.nodes[i];
+                comment.comments = [];
+                commentables[comment.id] = comment;
+            }
 
-                $.each(commentables, function (id, commentable) {
-                    commentable.comments = [];
-                    var edges = data.edges.filter(function (el) {
-                        return el.end == id; // Use end here because comments point to their parents, so we want to match the tip of the arrow
-                    });
+            for (var j = 0; j < data.edges.length; j++) {
+                // Comments point to their parents, so the parent is at the tip of the arrow.
+                var child = commentables[data.edges[j].start];
+                var parent = commentables[data.edges[j].end];
 
-                    for (var j = 0; j < edges.length; j++) {
-                        var child = commentables[edges[j].start];
-                        commentable.comments.push(child);
-                        child.parent = commentable;
-                    }
+                var alreadyShown = parent.comments.some(function (c) {
+                    return c.id === child.id;
                 });
+                if (!alreadyShown) {
+                    parent.comments.push(child);
+                    child.parent = parent;
+                }
             }
+
+            // A cursor of null still means there are replies, just that none have been loaded yet.
+            $.each(data.moreReplies, function (id, cursor) {
+                commentables[id].moreReplies = cursor;
+            });
         }
 
 
@@ -212,7 +271,7 @@ require('../services/toast-service');
                 return;
             }
 
-            $http.get('/comments', {params: {"stableId": nodeStableId}}).success(function (data) {
+            $http.get('/comments', {params: {"stableId": nodeStableId, "sort": serverSort()}}).success(function (data) {
 
                 ctrl.commentData = data;
                 tryArrangeData();
@@ -250,15 +250,15 @@ require('../services/body-text-service');
 
                 self.getSearchResults = function(query) {
 
-                    return $http.get('/search', {params: {query: query, types:linkableTypes}})
+                    return $http.get('/typeahead', {params: {query: query, types:linkableTypes, limit: 10}})
                         .then(function(response){
 
-                            var bodyList = response.data;
+                            var hitList = response.data.hits;
 
                             // Insert a dummy object at the beginning of the list. We know how to deal with this in searchResultSelected.
-                            bodyList.splice(0, 0, {createNew: true});
+                            hitList.splice(0, 0, {createNew: true});
 
-                            return bodyList;
+                            return hitList;
                         });
                 };
 
@@ -283,7 +283,7 @@ require('../services/body-text-service');
                         return;
                     }
 
-                    NodeCache.getLinkChoices(bodyNode.majorVersion.id, function(nodes) {
+                    NodeCache.getLinkChoices(bodyNode.majorVersionId, function(nodes) {
                         // Although the nodes param is a list, it's actually associated with a single selection in the search
                         // box. That's because search results are rolled up by major version to prevent the perception of
                         // duplicates. In the future, we may allow the user to select from among these nodes.
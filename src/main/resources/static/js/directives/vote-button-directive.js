@@ -1,5 +1,6 @@
 require('../../sass/vote-button.scss');
 require('../services/toast-service');
+require('../services/vote-lookup-service');
 
 (function() {
     'use strict';
@@ -20,13 +21,14 @@ require('../services/toast-service');
         }
     }
 
-    function VoteButtonController($scope, $rootScope, $http, UserService, ToastService) {
+    function VoteButtonController($scope, $rootScope, $http, UserService, VoteLookupService, ToastService) {
 
         var rootNode = $scope.node;
         if (rootNode == null) {
             $scope.$on("rootData", function(evt, node) {
                 rootNode = node;
                 setupMeters();
+                loadUserVote();
             });
         } else {
             setupMeters();
@@ -36,14 +38,22 @@ require('../services/toast-service');
         if (user == null) {
             UserService.subscribeSuccessfulLogin($scope, function() {
                 user = UserService.getUser();
-                getUserVote();
+                loadUserVote();
             });
         } else {
-            getUserVote();
+            loadUserVote();
         }
 
         setupMeters();
 
+        function loadUserVote() {
+            if (user && rootNode) {
+                VoteLookupService.getBodyVote(rootNode.body.majorVersion.id).then(function(vote) {
+                    $scope.userVote = vote;
+                });
+            }
+        }
+
         function getUserVote() {
             if (user && user.bodyVotes) {
                 $scope.userVote = user.bodyVotes[rootNode.body.majorVersion.id];
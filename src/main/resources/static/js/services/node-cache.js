@@ -587,7 +587,55 @@ require('./node-factory');
             }
         };
 
+        // The server sends each body, major version and author once in lookup tables, with nodes referring to
+        // them by id, and consumers that are already among the nodes as bare ids. Put the full objects back in
+        // place so the rest of the cache can treat it like any other node data.
+        function expandQuickGraph(quickGraphResponse) {
+            if (!quickGraphResponse.bodies) {
+                return quickGraphResponse;
+            }
+
+            var authors = quickGraphResponse.authors;
+            var majorVersions = quickGraphResponse.majorVersions;
+            var bodies = quickGraphResponse.bodies;
+
+            function lookup(table, id) {
+                return id === null || id === undefined ? null : table[id];
+            }
+
+            $.each(majorVersions, function(id, majorVersion) {
+                majorVersion.author = lookup(authors, majorVersion.author);
+            });
+
+            $.each(bodies, function(id, body) {
+                body.author = lookup(authors, body.author);
+                body.majorVersion = lookup(majorVersions, body.majorVersion);
+            });
+
+            var nodesById = {};
+            $.each(quickGraphResponse.nodes, function(idx, node) {
+                node.body = lookup(bodies, node.body);
+                nodesById[node.id] = node;
+            });
+
+            quickGraphResponse.consumers = quickGraphResponse.consumers.map(function(consumer) {
+                if (typeof consumer === 'number') {
+                    return nodesById[consumer];
+                }
+                consumer.body = lookup(bodies, consumer.body);
+                return consumer;
+            });
+
+            delete quickGraphResponse.authors;
+            delete quickGraphResponse.majorVersions;
+            delete quickGraphResponse.bodies;
+
+            return quickGraphResponse;
+        }
+
         function inductQuickGraph(quickGraphResponse) {
+            quickGraphResponse = expandQuickGraph(quickGraphResponse);
+
             var addedNodes = cache.addNodesUnlinked(quickGraphResponse.nodes);
 
             var parents = cache.addNodesUnlinked(quickGraphResponse.consumers);
@@ -88,8 +88,6 @@ require('./toast-service');
             $http.get('/currentUser')
                 .success(function (data) {
                     if (data) {
-                        data.user.bodyVotes = data.bodyVotes;
-                        data.user.commentVotes = data.commentVotes;
                         self.loggedInUser = data.user;
                         self.loggedInUser.activeAlias = data.user.aliases[0];
                         notifySuccessfulLogin();
@@ -0,0 +1,85 @@
+require('./user-service');
+require('./toast-service');
+
+(function () {
+    'use strict';
+
+    angular
+        .module('nodeStandControllers')
+        .service('VoteLookupService', VoteLookupService);
+
+    // Fetches the logged in user's votes for only the things on screen. Lookups made during the same digest are
+    // sent to the server as a single request, and answers are remembered on the user object.
+    function VoteLookupService($http, $q, $timeout, UserService, ToastService) {
+        var self = this;
+
+        var pending = null;
+
+        self.getBodyVote = function(majorVersionId) {
+            return lookup('bodyVotes', 'majorVersionIds', majorVersionId);
+        };
+
+        self.getCommentVote = function(commentId) {
+            return lookup('commentVotes', 'commentIds', commentId);
+        };
+
+        function lookup(cacheKey, idsKey, id) {
+            var user = UserService.getUser();
+            if (!user) {
+                return $q.when(null);
+            }
+
+            if (!user[cacheKey]) {
+                user[cacheKey] = {};
+            }
+            if (id in user[cacheKey]) {
+                return $q.when(user[cacheKey][id]);
+            }
+
+            if (!pending) {
+                pending = {user: user, majorVersionIds: [], commentIds: [], deferred: $q.defer()};
+                $timeout(flush, 0, false);
+            }
+            if (pending[idsKey].indexOf(id) < 0) {
+                pending[idsKey].push(id);
+            }
+
+            return pending.deferred.promise.then(function() {
+                return user[cacheKey][id];
+            });
+        }
+
+        function flush() {
+            var batch = pending;
+            pending = null;
+
+            $http.post('/currentUserVotes',
+                {
+                    majorVersionIds: batch.majorVersionIds,
+                    commentIds: batch.commentIds
+                })
+                .success(function (data) {
+                    remember(batch.user, 'bodyVotes', batch.majorVersionIds, data.bodyVotes);
+                    remember(batch.user, 'commentVotes', batch.commentIds, data.commentVotes);
+                    batch.deferred.resolve();
+                })
+                .error(function(err) {
+                    ToastService.error(err.message);
+                    batch.deferred.reject(err);
+                });
+        }
+
+        function remember(user, cacheKey, ids, votes) {
+            if (!user[cacheKey]) {
+                user[cacheKey] = {};
+            }
+            $.each(ids, function(idx, id) {
+                // Store null for "no vote" too, so we don't ask again.
+                if (!(id in user[cacheKey])) {
+                    user[cacheKey][id] = votes && votes[id] != null ? votes[id] : null;
+                }
+            });
+        }
+    }
+
+})();
@@ -0,0 +1,61 @@
+package com.nodestand.auth;
+
+import com.nodestand.nodes.User;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Date;
+
+public class TokenHandlerTest {
+
+    private static final String SECRET = "test-secret";
+
+    @Test
+    public void generatedTokenValidatesForItsUser() {
+        TokenHandler tokenHandler = new TokenHandler(SECRET, 10);
+        NodeUserDetails details = new NodeUserDetails(new User("google", "123", User.Roles.ROLE_USER));
+
+        String token = tokenHandler.generateToken(details).getToken();
+
+        Assert.assertEquals(details.getUserId(), tokenHandler.getUserStableIdFromToken(token));
+        Assert.assertEquals("123", tokenHandler.getSocialIdFromToken(token));
+        Assert.assertTrue(tokenHandler.validateToken(token, details));
+
+        NodeUserDetails someoneElse = new NodeUserDetails(new User("google", "456", User.Roles.ROLE_USER));
+        Assert.assertFalse(tokenHandler.validateToken(token, someoneElse));
+    }
+
+    @Test
+    public void expiredTokenIsNotServedFromTheCache() throws InterruptedException {
+        TokenHandler tokenHandler = new TokenHandler(SECRET, 10);
+
+        // Expiration is stored in whole seconds, so round up to make sure it is still ahead of us.
+        Date expiration = new Date((System.currentTimeMillis() / 1000 + 2) * 1000);
+        String token = Jwts.builder()
+                .setSubject("user1")
+                .setExpiration(expiration)
+                .signWith(SignatureAlgorithm.HS512, SECRET)
+                .compact();
+
+        Assert.assertEquals("user1", tokenHandler.getUserStableIdFromToken(token)); // Now cached.
+
+        Thread.sleep(expiration.getTime() - System.currentTimeMillis() + 100);
+
+        Assert.assertNull(tokenHandler.getUserStableIdFromToken(token));
+        Assert.assertNull(tokenHandler.getExpirationDateFromToken(token));
+    }
+
+    @Test
+    public void tokenSignedWithAnotherSecretIsRejected() {
+        TokenHandler tokenHandler = new TokenHandler(SECRET, 10);
+        String token = Jwts.builder()
+                .setSubject("user1")
+                .setExpiration(new Date(System.currentTimeMillis() + 60000))
+                .signWith(SignatureAlgorithm.HS512, "another-secret")
+                .compact();
+
+        Assert.assertNull(tokenHandler.getUserStableIdFromToken(token));
+    }
+}
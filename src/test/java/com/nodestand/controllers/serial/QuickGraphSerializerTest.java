@@ -0,0 +1,143 @@
+package com.nodestand.controllers.serial;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nodestand.nodes.ArgumentNode;
+import com.nodestand.nodes.Author;
+import com.nodestand.nodes.assertion.AssertionBody;
+import com.nodestand.nodes.assertion.AssertionNode;
+import com.nodestand.nodes.version.MajorVersion;
+import com.nodestand.nodes.vote.VoteType;
+import com.nodestand.service.argument.GraphCache;
+import com.nodestand.service.vote.VoteCounterBuffer;
+import org.junit.Assert;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.AutowiredAnnotationBeanPostProcessor;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.http.converter.json.SpringHandlerInstantiator;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+
+public class QuickGraphSerializerTest {
+
+    private long nextId = 1;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    public void sharedObjectsAreWrittenOnce() throws Exception {
+        Author author = withNodeId(new Author(null, "Jim"));
+        AssertionNode root = node(new AssertionBody("Root", "", "", author));
+        MajorVersion sharedVersion = withId(new MajorVersion(1, null, author));
+        AssertionNode left = node(new AssertionBody("Left", "", "", author, sharedVersion));
+        AssertionNode right = node(new AssertionBody("Right", "", "", author, sharedVersion));
+
+        QuickGraphResponse graph = new QuickGraphResponse(
+                new LinkedHashSet<>(Arrays.asList(root, left, right)),
+                new HashSet<>(Arrays.asList(new QuickEdge(root.getId(), left.getId()), new QuickEdge(root.getId(), right.getId()))),
+                root.getId(), root.getStableId(), Collections.emptySet());
+
+        JsonNode json = objectMapper.readTree(objectMapper.writeValueAsString(graph));
+
+        Assert.assertEquals(root.getId().longValue(), json.get("rootId").asLong());
+        Assert.assertEquals(3, json.get("nodes").size());
+        Assert.assertEquals(2, json.get("edges").size());
+        Assert.assertEquals(3, json.get("bodies").size());
+        Assert.assertEquals(2, json.get("majorVersions").size());
+        Assert.assertEquals(1, json.get("authors").size());
+
+        JsonNode leftJson = json.get("nodes").get(1);
+        Assert.assertEquals(left.getBody().getId().longValue(), leftJson.get("body").asLong());
+
+        JsonNode leftBody = json.get("bodies").get(String.valueOf(left.getBody().getId()));
+        Assert.assertEquals("Left", leftBody.get("title").asText());
+        Assert.assertEquals(sharedVersion.getId().longValue(), leftBody.get("majorVersion").asLong());
+        Assert.assertEquals(author.getNodeId().longValue(), leftBody.get("author").asLong());
+        Assert.assertEquals("Jim", json.get("authors").get(String.valueOf(author.getNodeId())).get("displayName").asText());
+    }
+
+    @Test
+    public void consumersAlreadyInTheGraphAreWrittenAsIds() throws Exception {
+        Author author = withNodeId(new Author(null, "Jim"));
+        AssertionNode root = node(new AssertionBody("Root", "", "", author));
+        AssertionNode parent = node(new AssertionBody("Parent", "", "", author));
+
+        QuickGraphResponse graph = new QuickGraphResponse(Collections.singleton(root), new HashSet<>(),
+                root.getId(), root.getStableId(), new LinkedHashSet<>(Arrays.asList(parent, root)));
+
+        JsonNode consumers = objectMapper.readTree(objectMapper.writeValueAsString(graph)).get("consumers");
+
+        Assert.assertEquals(2, consumers.size());
+        Assert.assertEquals(parent.getBody().getId().longValue(), consumers.get(0).get("body").asLong());
+        Assert.assertTrue(consumers.get(1).isNumber());
+        Assert.assertEquals(root.getId().longValue(), consumers.get(1).asLong());
+    }
+
+    @Test
+    public void voteCountsMatchTheFullEntity() throws Exception {
+        VoteCounterBuffer buffer = new VoteCounterBuffer(null, new GraphCache(10), new MockEnvironment());
+        ObjectMapper mapper = mapperWith(buffer);
+
+        Author author = withNodeId(new Author(null, "Jim"));
+        AssertionNode root = node(new AssertionBody("Root", "", "", author));
+        MajorVersion majorVersion = root.getBody().getMajorVersion();
+        majorVersion.greatVotes = 3;
+        majorVersion.trashVotes = 1;
+        buffer.record(majorVersion.getStableId(), VoteType.GREAT, 2);
+
+        QuickGraphResponse graph = new QuickGraphResponse(Collections.singleton(root), new HashSet<>(),
+                root.getId(), root.getStableId(), Collections.emptySet());
+
+        JsonNode compact = mapper.readTree(mapper.writeValueAsString(graph))
+                .get("majorVersions").get(String.valueOf(majorVersion.getId()));
+        JsonNode full = mapper.readTree(mapper.writeValueAsString(majorVersion));
+
+        Assert.assertEquals(5, compact.get("greatVotes").asInt());
+        Assert.assertEquals(1, compact.get("trashVotes").asInt());
+        for (String field : Arrays.asList("greatVotes", "weakVotes", "toucheVotes", "trashVotes")) {
+            Assert.assertEquals(field, full.get(field), compact.get(field));
+        }
+    }
+
+    /**
+     * Registers the vote counter module and wires the vote buffer into serializers the way Spring Boot's ObjectMapper
+     * does.
+     */
+    private static ObjectMapper mapperWith(VoteCounterBuffer buffer) {
+        DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+        AutowiredAnnotationBeanPostProcessor autowiring = new AutowiredAnnotationBeanPostProcessor();
+        autowiring.setBeanFactory(beanFactory);
+        beanFactory.addBeanPostProcessor(autowiring);
+        beanFactory.registerSingleton("voteCounterBuffer", buffer);
+
+        ObjectMapper mapper = new ObjectMapper();
+        mapper.setHandlerInstantiator(new SpringHandlerInstantiator(beanFactory));
+        mapper.registerModule(new VoteCountModule());
+        return mapper;
+    }
+
+    private AssertionNode node(AssertionBody body) {
+        withId(body);
+        if (body.getMajorVersion().getId() == null) {
+            withId(body.getMajorVersion());
+        }
+        AssertionNode node = new AssertionNode(body);
+        ReflectionTestUtils.setField(node, "id", nextId++);
+        return node;
+    }
+
+    private <T> T withId(T entity) {
+        ReflectionTestUtils.setField(entity, "id", nextId++);
+        return entity;
+    }
+
+    private Author withNodeId(Author author) {
+        ReflectionTestUtils.setField(author, "nodeId", nextId++);
+        return author;
+    }
+}
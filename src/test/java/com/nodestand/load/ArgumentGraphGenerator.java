@@ -0,0 +1,317 @@
+package com.nodestand.load;
+
+import com.nodestand.controllers.serial.EditResult;
+import com.nodestand.nodes.ArgumentNode;
+import com.nodestand.nodes.Author;
+import com.nodestand.nodes.comment.Comment;
+import com.nodestand.nodes.interpretation.InterpretationNode;
+import com.nodestand.nodes.repository.UserRepository;
+import com.nodestand.nodes.source.SourceNode;
+import com.nodestand.nodes.version.MajorVersion;
+import com.nodestand.nodes.vote.VoteType;
+import com.nodestand.service.argument.ArgumentService;
+import com.nodestand.service.argument.ArgumentTestUtil;
+import com.nodestand.service.comment.CommentService;
+import com.nodestand.service.vote.VoteService;
+
+import java.util.*;
+
+/**
+ * Builds an argument graph through the services, shaped like a real one rather than a uniform one:
+ *
+ * - a few assertions are linked from many others (fan-in follows a power law),
+ * - some chains of assertions run many levels deep,
+ * - some assertions have long edit histories,
+ * - a few heavy voters and commenters do most of the voting and commenting.
+ *
+ * The write operations are also what {@link MixedTrafficScenario} replays, so they are public.
+ */
+public class ArgumentGraphGenerator {
+
+    private static final String[] WORDS = {
+            "climate", "tax", "policy", "evidence", "study", "growth", "energy", "health", "school", "budget",
+            "housing", "wage", "trade", "carbon", "vaccine", "crime", "court", "vote", "market", "privacy",
+            "water", "transit", "rent", "tariff", "nuclear", "solar", "coal", "debt", "pension", "border",
+            "sample", "survey", "trial", "model", "forecast", "risk", "cost", "benefit", "effect", "cause"
+    };
+
+    private static final VoteType[] VOTE_TYPES = VoteType.values();
+
+    private final ArgumentService argumentService;
+
+    private final VoteService voteService;
+
+    private final CommentService commentService;
+
+    private final UserRepository userRepository;
+
+    private final LoadDriver driver;
+
+    private final Shape shape;
+
+    private final Random random;
+
+    private final ZipfSampler popularity;
+
+    private final ZipfSampler activity;
+
+    public ArgumentGraphGenerator(ArgumentService argumentService, VoteService voteService, CommentService commentService,
+                                  UserRepository userRepository, LoadDriver driver, Shape shape, Random random) {
+        this.argumentService = argumentService;
+        this.voteService = voteService;
+        this.commentService = commentService;
+        this.userRepository = userRepository;
+        this.driver = driver;
+        this.shape = shape;
+        this.random = random;
+        this.popularity = new ZipfSampler(shape.maxAssertions(), shape.popularityExponent, random);
+        this.activity = new ZipfSampler(shape.authors, shape.activityExponent, random);
+    }
+
+    public SyntheticGraph generate() throws Exception {
+        SyntheticGraph graph = new SyntheticGraph();
+
+        for (int i = 0; i < shape.authors; i++) {
+            String socialId = "load" + i;
+            String name = "Author " + i;
+            graph.authors.add(expect("registerUser", () -> ArgumentTestUtil.registerUser(userRepository, socialId, name)));
+        }
+
+        for (int i = 0; i < shape.triples; i++) {
+            addTriple(graph);
+        }
+
+        for (int i = 0; i < shape.linkingAssertions; i++) {
+            addLinkingAssertion(graph);
+        }
+
+        for (int i = 0; i < shape.chains; i++) {
+            SyntheticGraph.PublishedAssertion top = pickAssertion(graph);
+            for (int depth = 0; depth < shape.chainDepth; depth++) {
+                top = addAssertion(graph, randomAuthor(graph), Collections.singletonList(top));
+            }
+            graph.deepRoots.add(top);
+        }
+
+        for (int i = 0; i < shape.editedAssertions; i++) {
+            SyntheticGraph.PublishedAssertion edited = pickAssertion(graph);
+            for (int edit = 0; edit < shape.editsPerAssertion; edit++) {
+                edit(edited);
+            }
+            graph.edited.add(edited);
+        }
+
+        for (int i = 0; i < shape.votes; i++) {
+            vote(graph);
+        }
+
+        for (int i = 0; i < shape.comments; i++) {
+            comment(graph);
+        }
+
+        return graph;
+    }
+
+    /**
+     * A heavy voter votes on a popular assertion. Returns false if the vote was refused, e.g. on their own node.
+     */
+    public boolean vote(SyntheticGraph graph) throws Exception {
+        Author voter = activeAuthor(graph);
+        SyntheticGraph.PublishedAssertion target = pickAssertion(graph);
+        VoteType voteType = VOTE_TYPES[random.nextInt(VOTE_TYPES.length)];
+        return driver.run("voteNode", () -> {
+            voteService.voteNode(voter.getUser().getStableId(), target.stableId, voteType);
+            return Boolean.TRUE;
+        }) != null;
+    }
+
+    /**
+     * A comment on a popular assertion, or a reply to an earlier comment.
+     */
+    public void comment(SyntheticGraph graph) throws Exception {
+        Author commenter = activeAuthor(graph);
+        long parentId = !graph.commentIds.isEmpty() && random.nextInt(10) < 4 ?
+                graph.commentIds.get(random.nextInt(graph.commentIds.size())) :
+                pickAssertion(graph).majorVersionId;
+        String body = sentence();
+
+        Comment comment = expect("createComment", () ->
+                commentService.createComment(body, parentId, commenter.getStableId(), commenter.getUser().getNodeId()));
+        graph.commentIds.add(comment.getId());
+    }
+
+    /**
+     * The author drafts, edits and republishes the assertion, keeping its links.
+     */
+    public void edit(SyntheticGraph.PublishedAssertion assertion) throws Exception {
+        Author author = assertion.author;
+        long userId = author.getUser().getNodeId();
+        String title = title();
+
+        EditResult draft = expect("makeDraft", () -> argumentService.makeDraft(userId, author.getStableId(), assertion.id));
+        long draftId = draft.getEditedNode().getId();
+        expect("editAssertion", () ->
+                argumentService.editAssertion(userId, draftId, title, "", assertion.body, assertion.childIds));
+        expect("publishNode", () -> argumentService.publishNode(userId, draftId));
+    }
+
+    /**
+     * A published assertion, chosen with a bias towards the popular ones.
+     */
+    public SyntheticGraph.PublishedAssertion pickAssertion(SyntheticGraph graph) {
+        if (graph.assertions.isEmpty()) {
+            throw new IllegalStateException("Nothing has been published yet; the shape needs at least one triple.");
+        }
+        int index;
+        do {
+            index = popularity.next();
+        } while (index >= graph.assertions.size());
+        return graph.assertions.get(index);
+    }
+
+    /**
+     * An author, chosen with a bias towards the heavy voters and commenters.
+     */
+    public Author activeAuthor(SyntheticGraph graph) {
+        return graph.authors.get(activity.next());
+    }
+
+    public String title() {
+        return words(3 + random.nextInt(4));
+    }
+
+    private void addTriple(SyntheticGraph graph) throws Exception {
+        Author author = randomAuthor(graph);
+        long userId = author.getUser().getNodeId();
+        String url = "http://example.com/" + random.nextInt(1000000);
+        String sourceTitle = title();
+        String interpretationTitle = title();
+        String interpretationBody = sentence();
+
+        SourceNode source = expect("createSource", () ->
+                argumentService.createSource(userId, author.getStableId(), sourceTitle, "", url));
+        InterpretationNode interpretation = expect("createInterpretation", () ->
+                argumentService.createInterpretation(userId, author.getStableId(), interpretationTitle, "", interpretationBody, source.getId()));
+
+        addAssertion(graph, author, Collections.singletonList(interpretation.getId()),
+                Collections.singletonList(interpretation.getBody().getMajorVersion().getStableId()));
+    }
+
+    private void addLinkingAssertion(SyntheticGraph graph) throws Exception {
+        int links = 1 + random.nextInt(shape.maxLinks);
+        Map<Long, SyntheticGraph.PublishedAssertion> children = new LinkedHashMap<>();
+        for (int attempt = 0; attempt < links * 3 && children.size() < links; attempt++) {
+            SyntheticGraph.PublishedAssertion child = pickAssertion(graph);
+            children.put(child.id, child);
+        }
+        addAssertion(graph, randomAuthor(graph), new ArrayList<>(children.values()));
+    }
+
+    private SyntheticGraph.PublishedAssertion addAssertion(SyntheticGraph graph, Author author,
+                                                           List<SyntheticGraph.PublishedAssertion> children) throws Exception {
+        List<Long> childIds = new ArrayList<>();
+        List<String> childMajorVersions = new ArrayList<>();
+        for (SyntheticGraph.PublishedAssertion child : children) {
+            childIds.add(child.id);
+            childMajorVersions.add(child.majorVersionStableId);
+        }
+        return addAssertion(graph, author, childIds, childMajorVersions);
+    }
+
+    private SyntheticGraph.PublishedAssertion addAssertion(SyntheticGraph graph, Author author, List<Long> childIds,
+                                                           List<String> childMajorVersions) throws Exception {
+        long userId = author.getUser().getNodeId();
+        String title = title();
+
+        StringBuilder text = new StringBuilder(sentence());
+        for (String majorVersion : childMajorVersions) {
+            text.append(" {{[").append(majorVersion).append(']').append(words(2)).append("}} ").append(sentence());
+        }
+        String body = text.toString();
+
+        ArgumentNode draft = expect("createAssertion", () ->
+                argumentService.createAssertion(userId, author.getStableId(), title, "", body, childIds));
+        ArgumentNode published = expect("publishNode", () -> argumentService.publishNode(userId, draft.getId()).getRootNode());
+
+        MajorVersion majorVersion = published.getBody().getMajorVersion();
+        SyntheticGraph.PublishedAssertion assertion = new SyntheticGraph.PublishedAssertion(published.getId(),
+                published.getStableId(), majorVersion.getId(), majorVersion.getStableId(), author, childIds, body);
+        graph.assertions.add(assertion);
+        return assertion;
+    }
+
+    private Author randomAuthor(SyntheticGraph graph) {
+        return graph.authors.get(random.nextInt(graph.authors.size()));
+    }
+
+    private String sentence() {
+        return words(8 + random.nextInt(12)) + ".";
+    }
+
+    private String words(int count) {
+        StringBuilder words = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                words.append(' ');
+            }
+            words.append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        return words.toString();
+    }
+
+    /**
+     * Setting up the graph shouldn't be refused; if it is, the generator has a bug.
+     */
+    private <T> T expect(String operation, LoadDriver.Operation<T> action) throws Exception {
+        T result = driver.run(operation, action);
+        if (result == null) {
+            throw new IllegalStateException(operation + " was refused while generating the graph");
+        }
+        return result;
+    }
+
+    /**
+     * How big and how skewed the generated graph is. Every field can be overridden with a load.* system property
+     * of the same name, e.g. -Dload.authors=200.
+     */
+    public static class Shape {
+        public int authors = 40;
+        public int triples = 60;
+        public int linkingAssertions = 120;
+        public int maxLinks = 8;
+        public double popularityExponent = 1.1;
+        public int chains = 4;
+        public int chainDepth = 12;
+        public int editedAssertions = 8;
+        public int editsPerAssertion = 15;
+        public int votes = 1500;
+        public double activityExponent = 1.3;
+        public int comments = 400;
+
+        public static Shape fromSystemProperties() {
+            Shape shape = new Shape();
+            shape.authors = Integer.getInteger("load.authors", shape.authors);
+            shape.triples = Integer.getInteger("load.triples", shape.triples);
+            shape.linkingAssertions = Integer.getInteger("load.linkingAssertions", shape.linkingAssertions);
+            shape.maxLinks = Integer.getInteger("load.maxLinks", shape.maxLinks);
+            shape.popularityExponent = doubleProperty("load.popularityExponent", shape.popularityExponent);
+            shape.chains = Integer.getInteger("load.chains", shape.chains);
+            shape.chainDepth = Integer.getInteger("load.chainDepth", shape.chainDepth);
+            shape.editedAssertions = Integer.getInteger("load.editedAssertions", shape.editedAssertions);
+            shape.editsPerAssertion = Integer.getInteger("load.editsPerAssertion", shape.editsPerAssertion);
+            shape.votes = Integer.getInteger("load.votes", shape.votes);
+            shape.activityExponent = doubleProperty("load.activityExponent", shape.activityExponent);
+            shape.comments = Integer.getInteger("load.comments", shape.comments);
+            return shape;
+        }
+
+        private int maxAssertions() {
+            return triples + linkingAssertions + chains * chainDepth;
+        }
+
+        private static double doubleProperty(String name, double defaultValue) {
+            String value = System.getProperty(name);
+            return value != null ? Double.parseDouble(value) : defaultValue;
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.nodestand.load;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+/**
+ * Added on top of IntegrationContext for the load harness.
+ */
+@Configuration
+@Profile("integration")
+public class LoadContext {
+
+    @Bean
+    public static QueryCounter queryCounter() {
+        return new QueryCounter();
+    }
+}
@@ -0,0 +1,55 @@
+package com.nodestand.load;
+
+import com.nodestand.nodes.NodeRulesException;
+import org.neo4j.ogm.session.Session;
+
+/**
+ * Runs one operation at a time, timing it and counting its queries. The session is cleared after each one, as if
+ * every operation were its own web request with its own session.
+ */
+public class LoadDriver {
+
+    private final QueryCounter queryCounter;
+
+    private final Session session;
+
+    private OperationStats stats = new OperationStats();
+
+    public LoadDriver(QueryCounter queryCounter, Session session) {
+        this.queryCounter = queryCounter;
+        this.session = session;
+    }
+
+    /**
+     * Starts recording into fresh stats, and returns the ones recorded so far.
+     */
+    public OperationStats reset() {
+        OperationStats previous = stats;
+        stats = new OperationStats();
+        return previous;
+    }
+
+    /**
+     * Returns null if the operation was rejected by the node rules, e.g. a vote on the voter's own node.
+     */
+    public <T> T run(String operation, Operation<T> action) throws Exception {
+        long queriesBefore = queryCounter.getQueries();
+        long start = System.nanoTime();
+        T result = null;
+        boolean rejected = false;
+        try {
+            result = action.run();
+        } catch (NodeRulesException e) {
+            rejected = true;
+        } finally {
+            stats.record(operation, System.nanoTime() - start, queryCounter.getQueries() - queriesBefore, rejected);
+            session.clear();
+        }
+        return result;
+    }
+
+    @FunctionalInterface
+    public interface Operation<T> {
+        T run() throws Exception;
+    }
+}
@@ -0,0 +1,111 @@
+package com.nodestand.load;
+
+import com.nodestand.nodes.Author;
+import com.nodestand.service.argument.ArgumentService;
+import com.nodestand.service.search.SearchService;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Replays a mix of reads and writes against a {@link SyntheticGraph}, one operation at a time. Targets are picked
+ * the same skewed way the graph was built, so popular assertions take most of the reads and votes.
+ */
+public class MixedTrafficScenario {
+
+    private static final List<String> SEARCH_TYPES = Arrays.asList("assertion", "interpretation", "source");
+
+    private final ArgumentService argumentService;
+
+    private final SearchService searchService;
+
+    private final ArgumentGraphGenerator generator;
+
+    private final LoadDriver driver;
+
+    private final Mix mix;
+
+    private final Random random;
+
+    public MixedTrafficScenario(ArgumentService argumentService, SearchService searchService,
+                                ArgumentGraphGenerator generator, LoadDriver driver, Mix mix, Random random) {
+        this.argumentService = argumentService;
+        this.searchService = searchService;
+        this.generator = generator;
+        this.driver = driver;
+        this.mix = mix;
+        this.random = random;
+    }
+
+    public void run(SyntheticGraph graph, int operations) throws Exception {
+        int total = mix.getGraph + mix.search + mix.vote + mix.comment + mix.edit;
+        for (int i = 0; i < operations; i++) {
+            int roll = random.nextInt(total);
+            if ((roll -= mix.getGraph) < 0) {
+                getGraph(graph);
+            } else if ((roll -= mix.search) < 0) {
+                search(graph);
+            } else if ((roll -= mix.vote) < 0) {
+                generator.vote(graph);
+            } else if ((roll -= mix.comment) < 0) {
+                generator.comment(graph);
+            } else {
+                generator.edit(generator.pickAssertion(graph));
+            }
+        }
+    }
+
+    private void getGraph(SyntheticGraph graph) throws Exception {
+        boolean deep = !graph.deepRoots.isEmpty() && random.nextInt(100) < mix.deepGraphPercent;
+        SyntheticGraph.PublishedAssertion root = deep ?
+                graph.deepRoots.get(random.nextInt(graph.deepRoots.size())) : generator.pickAssertion(graph);
+        Long userId = reader(graph);
+        driver.run(deep ? "getGraph(deep)" : "getGraph", () -> argumentService.getGraph(root.stableId, userId));
+    }
+
+    private void search(SyntheticGraph graph) throws Exception {
+        String query = generator.title().split(" ", 2)[0];
+        Long userId = reader(graph);
+        driver.run("search", () -> searchService.search(query, SEARCH_TYPES, userId, 20));
+    }
+
+    /**
+     * Half of the readers are signed in.
+     */
+    private Long reader(SyntheticGraph graph) {
+        if (random.nextBoolean()) {
+            return null;
+        }
+        Author author = graph.authors.get(random.nextInt(graph.authors.size()));
+        return author.getUser().getNodeId();
+    }
+
+    /**
+     * Relative weights of each kind of operation. Every field can be overridden with a load.mix.* system property
+     * of the same name, e.g. -Dload.mix.vote=40.
+     */
+    public static class Mix {
+        public int getGraph = 45;
+        public int search = 20;
+        public int vote = 20;
+        public int comment = 10;
+        public int edit = 5;
+
+        /**
+         * How many of the getGraph calls load the top of a long chain.
+         */
+        public int deepGraphPercent = 10;
+
+        public static Mix fromSystemProperties() {
+            Mix mix = new Mix();
+            mix.getGraph = Integer.getInteger("load.mix.getGraph", mix.getGraph);
+            mix.search = Integer.getInteger("load.mix.search", mix.search);
+            mix.vote = Integer.getInteger("load.mix.vote", mix.vote);
+            mix.comment = Integer.getInteger("load.mix.comment", mix.comment);
+            mix.edit = Integer.getInteger("load.mix.edit", mix.edit);
+            mix.deepGraphPercent = Integer.getInteger("load.mix.deepGraphPercent", mix.deepGraphPercent);
+            return mix;
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.nodestand.load;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency and query samples for each kind of operation the harness runs.
+ */
+public class OperationStats {
+
+    private final Map<String, Samples> byOperation = new TreeMap<>();
+
+    public void record(String operation, long nanos, long queries, boolean rejected) {
+        Samples samples = byOperation.computeIfAbsent(operation, k -> new Samples());
+        samples.add(nanos, queries);
+        if (rejected) {
+            samples.rejected++;
+        }
+    }
+
+    public int count(String operation) {
+        Samples samples = byOperation.get(operation);
+        return samples != null ? samples.size : 0;
+    }
+
+    /**
+     * One line per operation: count, latency percentiles in milliseconds, and queries per call.
+     */
+    public String report() {
+        StringBuilder report = new StringBuilder(String.format("%-16s %7s %8s %8s %8s %8s %8s %9s %9s%n",
+                "operation", "count", "rejected", "p50 ms", "p90 ms", "p99 ms", "max ms", "queries", "max q"));
+        byOperation.forEach((operation, samples) -> {
+            long[] nanos = Arrays.copyOf(samples.nanos, samples.size);
+            long[] queries = Arrays.copyOf(samples.queries, samples.size);
+            Arrays.sort(nanos);
+            Arrays.sort(queries);
+            report.append(String.format("%-16s %7d %8d %8.2f %8.2f %8.2f %8.2f %9.1f %9d%n",
+                    operation, samples.size, samples.rejected,
+                    millis(percentile(nanos, 50)), millis(percentile(nanos, 90)), millis(percentile(nanos, 99)),
+                    millis(nanos[nanos.length - 1]),
+                    Arrays.stream(queries).average().orElse(0), queries[queries.length - 1]));
+        });
+        return report.toString();
+    }
+
+    private static long percentile(long[] sorted, int percent) {
+        int index = (int) Math.ceil(percent / 100.0 * sorted.length) - 1;
+        return sorted[Math.max(index, 0)];
+    }
+
+    private static double millis(long nanos) {
+        return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    private static class Samples {
+        private long[] nanos = new long[64];
+        private long[] queries = new long[64];
+        private int size;
+        private int rejected;
+
+        private void add(long nanos, long queries) {
+            if (size == this.nanos.length) {
+                this.nanos = Arrays.copyOf(this.nanos, size * 2);
+                this.queries = Arrays.copyOf(this.queries, size * 2);
+            }
+            this.nanos[size] = nanos;
+            this.queries[size] = queries;
+            size++;
+        }
+    }
+}
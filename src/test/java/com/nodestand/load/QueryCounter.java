@@ -0,0 +1,58 @@
+package com.nodestand.load;
+
+import org.neo4j.ogm.session.Session;
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Wraps the Session bean so that every call that goes to the database is counted. Repositories and services all
+ * share that bean, so the count covers both @Query methods and direct session use.
+ *
+ * A single session call can turn into more than one Cypher statement (a save of a dirty graph, for instance), so
+ * this is a lower bound on the statements run, but it moves with them.
+ */
+public class QueryCounter implements BeanPostProcessor {
+
+    private static final Set<String> DATABASE_METHODS = new HashSet<>(Arrays.asList(
+            "load", "loadAll", "query", "queryForObject", "save", "delete", "deleteAll", "purgeDatabase",
+            "countEntitiesOfType"));
+
+    private final AtomicLong queries = new AtomicLong();
+
+    public long getQueries() {
+        return queries.get();
+    }
+
+    @Override
+    public Object postProcessBeforeInitialization(Object bean, String beanName) throws BeansException {
+        return bean;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) throws BeansException {
+        if (!(bean instanceof Session)) {
+            return bean;
+        }
+        return Proxy.newProxyInstance(Session.class.getClassLoader(), new Class<?>[] {Session.class},
+                (proxy, method, args) -> invoke(bean, method, args));
+    }
+
+    private Object invoke(Object session, Method method, Object[] args) throws Throwable {
+        if (DATABASE_METHODS.contains(method.getName())) {
+            queries.incrementAndGet();
+        }
+        try {
+            return method.invoke(session, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
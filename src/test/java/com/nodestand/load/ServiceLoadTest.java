@@ -0,0 +1,78 @@
+package com.nodestand.load;
+
+import com.nodestand.nodes.repository.UserRepository;
+import com.nodestand.service.argument.ArgumentService;
+import com.nodestand.service.comment.CommentService;
+import com.nodestand.service.search.SearchService;
+import com.nodestand.service.vote.VoteService;
+import com.nodestand.test.Neo4jIntegrationTest;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.neo4j.ogm.session.Session;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+import java.util.Random;
+
+/**
+ * Builds a synthetic graph and replays mixed traffic against it, then logs latency percentiles and queries per
+ * operation. Excluded from the normal test run; use ./gradlew loadTest, with -Dload.* properties to change the
+ * graph shape, the mix or the number of operations.
+ *
+ * Operations run one at a time on the embedded database, so the numbers are per-request costs and how they grow
+ * with the graph, not throughput under concurrency.
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(classes = {LoadContext.class})
+public class ServiceLoadTest extends Neo4jIntegrationTest {
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    @Autowired
+    private ArgumentService argumentService;
+
+    @Autowired
+    private VoteService voteService;
+
+    @Autowired
+    private CommentService commentService;
+
+    @Autowired
+    private SearchService searchService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private Session session;
+
+    @Autowired
+    private QueryCounter queryCounter;
+
+    @Test
+    public void mixedTraffic() throws Exception {
+        Random random = new Random(Long.getLong("load.seed", 42L));
+        int operations = Integer.getInteger("load.operations", 3000);
+
+        LoadDriver driver = new LoadDriver(queryCounter, session);
+        ArgumentGraphGenerator generator = new ArgumentGraphGenerator(argumentService, voteService, commentService,
+                userRepository, driver, ArgumentGraphGenerator.Shape.fromSystemProperties(), random);
+        MixedTrafficScenario scenario = new MixedTrafficScenario(argumentService, searchService, generator, driver,
+                MixedTrafficScenario.Mix.fromSystemProperties(), random);
+
+        SyntheticGraph graph = generator.generate();
+        OperationStats seeding = driver.reset();
+        logger.info("Generated {} authors, {} assertions and {} comments:\n{}",
+                graph.authors.size(), graph.assertions.size(), graph.commentIds.size(), seeding.report());
+
+        scenario.run(graph, operations);
+        OperationStats traffic = driver.reset();
+        logger.info("Mixed traffic, {} operations:\n{}", operations, traffic.report());
+
+        Assert.assertTrue(traffic.count("getGraph") > 0);
+    }
+}
@@ -0,0 +1,55 @@
+package com.nodestand.load;
+
+import com.nodestand.nodes.Author;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * What {@link ArgumentGraphGenerator} built, so that scenarios can pick realistic targets.
+ */
+public class SyntheticGraph {
+
+    /**
+     * In order of how heavily they vote and comment, busiest first.
+     */
+    public final List<Author> authors = new ArrayList<>();
+
+    /**
+     * Published assertions in order of popularity, most linked and most read first.
+     */
+    public final List<PublishedAssertion> assertions = new ArrayList<>();
+
+    /**
+     * The tops of the long chains of assertions, which make the deepest graphs to load.
+     */
+    public final List<PublishedAssertion> deepRoots = new ArrayList<>();
+
+    /**
+     * The assertions given long edit histories.
+     */
+    public final List<PublishedAssertion> edited = new ArrayList<>();
+
+    public final List<Long> commentIds = new ArrayList<>();
+
+    public static class PublishedAssertion {
+        public final long id;
+        public final String stableId;
+        public final long majorVersionId;
+        public final String majorVersionStableId;
+        public final Author author;
+        public final List<Long> childIds;
+        public final String body;
+
+        public PublishedAssertion(long id, String stableId, long majorVersionId, String majorVersionStableId,
+                                  Author author, List<Long> childIds, String body) {
+            this.id = id;
+            this.stableId = stableId;
+            this.majorVersionId = majorVersionId;
+            this.majorVersionStableId = majorVersionStableId;
+            this.author = author;
+            this.childIds = childIds;
+            this.body = body;
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.nodestand.load;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Picks indexes in [0, size) with probability proportional to 1 / (index + 1)^exponent, so a handful of low
+ * indexes get most of the picks. Used for popular assertions, heavy voters and so on.
+ */
+public class ZipfSampler {
+
+    private final double[] cumulative;
+
+    private final Random random;
+
+    public ZipfSampler(int size, double exponent, Random random) {
+        this.cumulative = new double[size];
+        this.random = random;
+
+        double total = 0;
+        for (int i = 0; i < size; i++) {
+            total += 1 / Math.pow(i + 1, exponent);
+            cumulative[i] = total;
+        }
+    }
+
+    public int next() {
+        double target = random.nextDouble() * cumulative[cumulative.length - 1];
+        int index = Arrays.binarySearch(cumulative, target);
+        return Math.min(index >= 0 ? index : -index - 1, cumulative.length - 1);
+    }
+}
@@ -0,0 +1,314 @@
+package com.nodestand.nodes.repository;
+
+import com.nodestand.controllers.serial.EditResult;
+import com.nodestand.load.*;
+import com.nodestand.nodes.Author;
+import com.nodestand.service.argument.ArgumentService;
+import com.nodestand.service.comment.CommentService;
+import com.nodestand.service.vote.VoteService;
+import com.nodestand.test.Neo4jIntegrationTest;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.ogm.drivers.embedded.driver.EmbeddedDriver;
+import org.neo4j.ogm.service.Components;
+import org.neo4j.ogm.session.Session;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.neo4j.annotation.Query;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+import java.io.*;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Runs PROFILE on every @Query in the repositories against a synthetic graph, and fails if any of them goes over
+ * its budget in query-budgets.properties: total db hits, the most rows any operator produced, or an operator that
+ * is not allowed (by default AllNodesScan and CartesianProduct).
+ *
+ * Every query needs parameters below and a budget in the file, so a new query can't slip in unprofiled. The full
+ * report, with the plan of every query over budget, is logged and written to build/reports/query-profile.txt.
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(classes = {LoadContext.class})
+public class QueryBudgetTest extends Neo4jIntegrationTest {
+
+    private static final List<Class<?>> REPOSITORIES = Arrays.asList(ArgumentNodeRepository.class,
+            UserRepository.class, CommentableRepository.class, ArgumentBodyRepository.class);
+
+    private static final File REPORT = new File("build/reports/query-profile.txt");
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    @Autowired
+    private ArgumentService argumentService;
+
+    @Autowired
+    private VoteService voteService;
+
+    @Autowired
+    private CommentService commentService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private Session session;
+
+    @Autowired
+    private QueryCounter queryCounter;
+
+    @Test
+    public void repositoryQueriesStayWithinBudget() throws Exception {
+        Fixture fixture = buildFixture();
+        Map<String, Function<Fixture, Object[]>> parameters = parameters();
+        Properties budgets = loadBudgets();
+        GraphDatabaseService db = ((EmbeddedDriver) Components.driver()).getGraphDatabaseService();
+
+        StringBuilder report = new StringBuilder(String.format("%-58s %15s %15s %7s  %s%n",
+                "query", "db hits", "peak rows", "rows", "operators"));
+        StringBuilder plans = new StringBuilder();
+        List<String> failures = new ArrayList<>();
+
+        for (Map.Entry<String, Method> entry : queryMethods().entrySet()) {
+            String key = entry.getKey();
+            Function<Fixture, Object[]> args = parameters.get(key);
+            if (args == null || budgets.getProperty(key + ".dbHits") == null || budgets.getProperty(key + ".rows") == null) {
+                failures.add(key + ": needs parameters in QueryBudgetTest and dbHits/rows in query-budgets.properties");
+                continue;
+            }
+
+            QueryProfile profile = QueryProfile.profile(db, entry.getValue().getAnnotation(Query.class).value(),
+                    positional(args.apply(fixture)));
+
+            long dbHitBudget = Long.parseLong(budgets.getProperty(key + ".dbHits").trim());
+            long rowBudget = Long.parseLong(budgets.getProperty(key + ".rows").trim());
+            Set<String> forbidden = forbiddenOperators(budgets, key);
+
+            List<String> problems = new ArrayList<>();
+            if (profile.getDbHits() > dbHitBudget) {
+                problems.add("db hits " + profile.getDbHits() + " > " + dbHitBudget);
+            }
+            if (profile.getPeakRows() > rowBudget) {
+                problems.add("peak rows " + profile.getPeakRows() + " > " + rowBudget);
+            }
+            for (String operator : profile.getOperators()) {
+                if (forbidden.contains(operator)) {
+                    problems.add("uses " + operator);
+                }
+            }
+
+            report.append(String.format("%-58s %15s %15s %7d  %s%s%n", key,
+                    profile.getDbHits() + "/" + dbHitBudget, profile.getPeakRows() + "/" + rowBudget,
+                    profile.getResultRows(), String.join(",", profile.getOperators()),
+                    problems.isEmpty() ? "" : "  <-- OVER"));
+
+            if (!problems.isEmpty()) {
+                failures.add(key + ": " + String.join("; ", problems));
+                plans.append("\n").append(key).append("\n").append(profile.getPlan()).append("\n");
+            }
+        }
+
+        for (String key : parameters.keySet()) {
+            if (!queryMethods().containsKey(key)) {
+                failures.add(key + ": has parameters in QueryBudgetTest but no such query");
+            }
+        }
+
+        String fullReport = String.format("Graph: %d authors, %d assertions, %d comments%n%n%s%s",
+                fixture.graph.authors.size(), fixture.graph.assertions.size(), fixture.graph.commentIds.size(),
+                report, plans);
+        writeReport(fullReport);
+        logger.info("Query profile:\n{}", fullReport);
+
+        Assert.assertTrue("Queries over budget:\n" + String.join("\n", failures) + "\n\n" + fullReport,
+                failures.isEmpty());
+    }
+
+    /**
+     * The graph is generated the same way every time, so that the numbers are comparable from run to run.
+     */
+    private Fixture buildFixture() throws Exception {
+        ArgumentGraphGenerator.Shape shape = new ArgumentGraphGenerator.Shape();
+        shape.authors = 30;
+        shape.triples = 80;
+        shape.linkingAssertions = 150;
+        shape.chains = 3;
+        shape.chainDepth = 15;
+        shape.editedAssertions = 6;
+        shape.editsPerAssertion = 10;
+        shape.votes = 800;
+        shape.comments = 300;
+
+        LoadDriver driver = new LoadDriver(queryCounter, session);
+        SyntheticGraph graph = new ArgumentGraphGenerator(argumentService, voteService, commentService,
+                userRepository, driver, shape, new Random(42)).generate();
+
+        // One author is halfway through editing the most popular assertion.
+        Author drafter = graph.authors.get(1);
+        EditResult draft = argumentService.makeDraft(drafter.getUser().getNodeId(), drafter.getStableId(),
+                graph.assertions.get(0).id);
+        session.clear();
+
+        return new Fixture(graph, drafter, draft.getEditedNode().getId());
+    }
+
+    /**
+     * Arguments for each query, by key. Lookups are aimed at the popular and deep parts of the graph, where they
+     * cost the most.
+     */
+    private static Map<String, Function<Fixture, Object[]>> parameters() {
+        Map<String, Function<Fixture, Object[]>> p = new TreeMap<>();
+
+        p.put("ArgumentNodeRepository.getPaths", f -> args(f.deep().childIds.get(0), f.deep().id));
+        p.put("ArgumentNodeRepository.getGraph", f -> args(f.deep().stableId));
+        p.put("ArgumentNodeRepository.getNodesInMajorVersion", f -> args(f.edited().majorVersionId));
+        p.put("ArgumentNodeRepository.getAllNodes", f -> args());
+        p.put("ArgumentNodeRepository.getAllNodesRich", f -> args());
+        p.put("ArgumentNodeRepository.getRootNodeRankings/0", f -> args());
+        p.put("ArgumentNodeRepository.getRootNodeRankings/1", f -> args(f.assertionStableIds(20)));
+        p.put("ArgumentNodeRepository.getNodesRich", f -> args(f.assertionIds(20)));
+        p.put("ArgumentNodeRepository.getNodeRich", f -> args(f.popular().stableId));
+        p.put("ArgumentNodeRepository.loadWithMajorVersion", f -> args(f.popular().id));
+        p.put("ArgumentNodeRepository.loadWithMajorVersionAndChildren", f -> args(f.deep().id));
+        p.put("ArgumentNodeRepository.loadDraftSubtree", f -> args(f.draftId));
+        p.put("ArgumentNodeRepository.getUnsupportedNodes", f -> args(f.deep().id));
+        p.put("ArgumentNodeRepository.getDraftParentIds", f -> args(f.popular().id));
+        p.put("ArgumentNodeRepository.getDraftNodesRich", f -> args(f.drafter.getStableId()));
+        p.put("ArgumentNodeRepository.getNodesOriginallyAuthoredByUser", f -> args(f.busiest().getStableId()));
+        p.put("ArgumentNodeRepository.getConsumerNodes", f -> args(f.popular().stableId));
+        p.put("ArgumentNodeRepository.getDraftConsumerNodes", f -> args(f.popular().stableId, f.drafter.getUser().getNodeId()));
+        p.put("ArgumentNodeRepository.getStableIdsConsumedByDrafts", f -> args(f.drafter.getUser().getNodeId()));
+        p.put("ArgumentNodeRepository.getEditHistory", f -> args(f.edited().stableId));
+
+        p.put("UserRepository.getUser", f -> args(f.busiest().getUser().getStableId()));
+        p.put("UserRepository.findByAlias", f -> args(f.busiest().getDisplayName()));
+        p.put("UserRepository.findByConnectionKey", f -> args(f.busiest().getUser().getProviderId(), f.busiest().getUser().getProviderUserId()));
+        p.put("UserRepository.loadAuthorWithUser", f -> args(f.busiest().getStableId()));
+        p.put("UserRepository.loadAuthor", f -> args(f.busiest().getStableId()));
+        p.put("UserRepository.loadAuthors", f -> args(f.graph.authors.stream().limit(10).map(Author::getStableId).collect(Collectors.toList())));
+        p.put("UserRepository.loadUserWithVotes", f -> args(f.busiest().getUser().getStableId()));
+        p.put("UserRepository.loadUserWithVoteOn", f -> args(f.busiest().getUser().getStableId(), f.popular().majorVersionStableId));
+        p.put("UserRepository.loadUserWithCommentVote", f -> args(f.busiest().getUser().getStableId(), f.graph.commentIds.get(0)));
+        p.put("UserRepository.isPublishedAuthor", f -> args(f.busiest().getStableId()));
+
+        p.put("CommentableRepository.getCommentedMajorVersion", f -> args(f.popular().stableId));
+        p.put("CommentableRepository.getReplyPages", f -> args(Collections.singletonList(f.popular().majorVersionId), true, null, 0L, 20));
+        p.put("CommentableRepository.loadWithAuthors", f -> args(f.graph.commentIds.subList(0, 20)));
+        p.put("CommentableRepository.countReplies", f -> args(Collections.singletonList(f.popular().majorVersionId)));
+        p.put("CommentableRepository.loadWithAuthor", f -> args(f.graph.commentIds.get(0)));
+        p.put("CommentableRepository.getThreadMajorVersionStableId", f -> args(f.graph.commentIds.get(f.graph.commentIds.size() - 1)));
+
+        p.put("ArgumentBodyRepository.getCurrentBodiesRich", f -> args());
+
+        return p;
+    }
+
+    /**
+     * Repository.method, plus /arity for overloaded methods.
+     */
+    private static Map<String, Method> queryMethods() {
+        Map<String, Method> methods = new TreeMap<>();
+        for (Class<?> repository : REPOSITORIES) {
+            List<Method> queries = Arrays.stream(repository.getDeclaredMethods())
+                    .filter(m -> m.isAnnotationPresent(Query.class))
+                    .collect(Collectors.toList());
+            for (Method method : queries) {
+                boolean overloaded = queries.stream().filter(m -> m.getName().equals(method.getName())).count() > 1;
+                String key = repository.getSimpleName() + "." + method.getName() +
+                        (overloaded ? "/" + method.getParameterCount() : "");
+                methods.put(key, method);
+            }
+        }
+        return methods;
+    }
+
+    private static Set<String> forbiddenOperators(Properties budgets, String key) {
+        Set<String> forbidden = operatorList(budgets.getProperty("default.forbid"));
+        forbidden.addAll(operatorList(budgets.getProperty(key + ".forbid")));
+        forbidden.removeAll(operatorList(budgets.getProperty(key + ".allow")));
+        return forbidden;
+    }
+
+    private static Set<String> operatorList(String value) {
+        Set<String> operators = new HashSet<>();
+        if (value != null) {
+            for (String operator : value.split(",")) {
+                if (!operator.trim().isEmpty()) {
+                    operators.add(operator.trim());
+                }
+            }
+        }
+        return operators;
+    }
+
+    private static Properties loadBudgets() throws IOException {
+        Properties budgets = new Properties();
+        try (InputStream in = QueryBudgetTest.class.getResourceAsStream("/query-budgets.properties")) {
+            budgets.load(in);
+        }
+        return budgets;
+    }
+
+    private static Map<String, Object> positional(Object[] args) {
+        Map<String, Object> params = new HashMap<>();
+        for (int i = 0; i < args.length; i++) {
+            params.put(String.valueOf(i), args[i]);
+        }
+        return params;
+    }
+
+    private static Object[] args(Object... args) {
+        return args;
+    }
+
+    private void writeReport(String report) throws IOException {
+        REPORT.getParentFile().mkdirs();
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(REPORT), StandardCharsets.UTF_8)) {
+            writer.write(report);
+        }
+    }
+
+    private static class Fixture {
+        private final SyntheticGraph graph;
+        private final Author drafter;
+        private final long draftId;
+
+        private Fixture(SyntheticGraph graph, Author drafter, long draftId) {
+            this.graph = graph;
+            this.drafter = drafter;
+            this.draftId = draftId;
+        }
+
+        private SyntheticGraph.PublishedAssertion popular() {
+            return graph.assertions.get(0);
+        }
+
+        private SyntheticGraph.PublishedAssertion deep() {
+            return graph.deepRoots.get(0);
+        }
+
+        private SyntheticGraph.PublishedAssertion edited() {
+            return graph.edited.get(0);
+        }
+
+        private Author busiest() {
+            return graph.authors.get(0);
+        }
+
+        private List<String> assertionStableIds(int count) {
+            return graph.assertions.stream().limit(count).map(a -> a.stableId).collect(Collectors.toList());
+        }
+
+        private List<Long> assertionIds(int count) {
+            return graph.assertions.stream().limit(count).map(a -> a.id).collect(Collectors.toList());
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.nodestand.nodes.repository;
+
+import org.neo4j.graphdb.ExecutionPlanDescription;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Result;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * What PROFILE says about one run of a query: total db hits, the most rows any operator produced, the rows
+ * returned, and which operators the plan used.
+ */
+public class QueryProfile {
+
+    private final long dbHits;
+    private final long peakRows;
+    private final long resultRows;
+    private final Set<String> operators;
+    private final String plan;
+
+    private QueryProfile(ExecutionPlanDescription plan) {
+        Set<String> operators = new TreeSet<>();
+        long[] totals = new long[2];
+        walk(plan, operators, totals);
+
+        this.dbHits = totals[0];
+        this.peakRows = totals[1];
+        this.resultRows = plan.hasProfilerStatistics() ? plan.getProfilerStatistics().getRows() : 0;
+        this.operators = operators;
+        this.plan = plan.toString();
+    }
+
+    public static QueryProfile profile(GraphDatabaseService db, String cypher, Map<String, Object> params) {
+        // Naming the planner gives the query its own plan cache entry, so it is planned against the graph as it is
+        // now rather than reusing a plan made while the graph was still being built.
+        try (Result result = db.execute("CYPHER planner=cost PROFILE " + cypher, params)) {
+            while (result.hasNext()) {
+                result.next(); // Statistics are only complete once the result is used up.
+            }
+            return new QueryProfile(result.getExecutionPlanDescription());
+        }
+    }
+
+    private static void walk(ExecutionPlanDescription step, Set<String> operators, long[] totals) {
+        operators.add(operatorName(step.getName()));
+        if (step.hasProfilerStatistics()) {
+            totals[0] += step.getProfilerStatistics().getDbHits();
+            totals[1] = Math.max(totals[1], step.getProfilerStatistics().getRows());
+        }
+        for (ExecutionPlanDescription child : step.getChildren()) {
+            walk(child, operators, totals);
+        }
+    }
+
+    /**
+     * Expand(All) and Expand(Into) are both Expand, for instance.
+     */
+    static String operatorName(String name) {
+        int paren = name.indexOf('(');
+        return paren < 0 ? name : name.substring(0, paren);
+    }
+
+    public long getDbHits() {
+        return dbHits;
+    }
+
+    public long getPeakRows() {
+        return peakRows;
+    }
+
+    public long getResultRows() {
+        return resultRows;
+    }
+
+    public Set<String> getOperators() {
+        return operators;
+    }
+
+    /**
+     * The plan as Neo4j prints it, with rows and db hits per operator.
+     */
+    public String getPlan() {
+        return plan;
+    }
+}
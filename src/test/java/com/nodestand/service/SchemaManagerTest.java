@@ -0,0 +1,58 @@
+package com.nodestand.service;
+
+import com.nodestand.test.Neo4jIntegrationTest;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+import java.util.*;
+
+@RunWith(SpringJUnit4ClassRunner.class)
+public class SchemaManagerTest extends Neo4jIntegrationTest {
+
+    @Autowired
+    private SchemaManager schemaManager;
+
+    @Test
+    public void declaredIndexesAreOnlineAfterStartup() {
+        Map<String, String> states = new HashMap<>();
+        for (SchemaManager.IndexState index : schemaManager.getIndexes()) {
+            states.put(index.getDescription(), index.getState());
+        }
+
+        List<SchemaManager.LabelProperty> declared = new ArrayList<>(SchemaManager.UNIQUE);
+        declared.addAll(SchemaManager.INDEXED);
+        for (SchemaManager.LabelProperty labelProperty : declared) {
+            Assert.assertEquals(labelProperty.toString(), "ONLINE", states.get("INDEX ON " + labelProperty));
+        }
+    }
+
+    @Test
+    public void everyRepositoryLookupIsIndexed() {
+        Set<SchemaManager.LabelProperty> declared = new HashSet<>(SchemaManager.UNIQUE);
+        declared.addAll(SchemaManager.INDEXED);
+
+        Assert.assertEquals(Collections.emptyList(),
+                SchemaManager.findUnindexedLookups(SchemaManager.repositoryQueries(), declared));
+    }
+
+    @Test
+    public void flagsLookupsWithoutAnIndex() {
+        Map<String, String> queries = new TreeMap<>();
+        queries.put("Repo.inline", "match p=(u:User {providerId: {0}, providerUserId: {1}})<-[:CONTROLLED_BY]-(:Author) return p");
+        queries.put("Repo.where", "MATCH (n:AssertionNode) WHERE n.stableId IN {0} RETURN n");
+        queries.put("Repo.byId", "match (c:Comment) where ID(c) = {0} return c");
+
+        Set<SchemaManager.LabelProperty> indexed = new HashSet<>();
+        indexed.add(new SchemaManager.LabelProperty("ArgumentNode", "stableId"));
+
+        Assert.assertEquals(Arrays.asList(":User(providerId, providerUserId) in Repo.inline", ":AssertionNode(stableId) in Repo.where"),
+                SchemaManager.findUnindexedLookups(queries, indexed));
+
+        indexed.add(new SchemaManager.LabelProperty("User", "providerUserId"));
+        indexed.add(new SchemaManager.LabelProperty("AssertionNode", "stableId"));
+        Assert.assertEquals(Collections.emptyList(), SchemaManager.findUnindexedLookups(queries, indexed));
+    }
+}
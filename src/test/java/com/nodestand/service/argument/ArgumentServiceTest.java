@@ -9,6 +9,7 @@ import com.nodestand.nodes.assertion.AssertionNode;
 import com.nodestand.nodes.interpretation.InterpretationNode;
 import com.nodestand.nodes.repository.UserRepository;
 import com.nodestand.nodes.source.SourceNode;
+import com.nodestand.nodes.version.MajorVersion;
 import com.nodestand.service.user.UserService;
 import com.nodestand.test.Neo4jIntegrationTest;
 import org.junit.Assert;
@@ -18,6 +19,7 @@ import org.neo4j.ogm.session.Session;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
 
+import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Objects;
@@ -38,6 +40,9 @@ public class ArgumentServiceTest extends Neo4jIntegrationTest {
     @Autowired
     private Session session;
 
+    @Autowired
+    private EdgeOwnerBackfill edgeOwnerBackfill;
+
     private Author registerUser(String socialId, String name) {
 
         final User user = new User(
@@ -126,6 +131,20 @@ public class ArgumentServiceTest extends Neo4jIntegrationTest {
         Assert.assertTrue(resultingNode.getBody().isPublic());
     }
 
+    @Test
+    public void minorVersionsKeepCountingAcrossEdits() throws NotAuthorizedException, NodeRulesException {
+        Author kyle = registerUser("5678", "Kyle");
+        AssertionNode assertionNode = createPublishedAssertion();
+
+        Assert.assertEquals(1, publishFreshDraft(kyle, assertionNode.getId()));
+        Assert.assertEquals(2, publishFreshDraft(kyle, assertionNode.getId()));
+
+        // Major versions from before the counter existed carry on from their highest minor version.
+        session.query("MATCH (mv:MajorVersion) REMOVE mv.nextMinorVersion", Collections.emptyMap());
+
+        Assert.assertEquals(3, publishFreshDraft(kyle, assertionNode.getId()));
+    }
+
     @Test
     public void theGAUNTLET() throws NotAuthorizedException, NodeRulesException {
         Author kyle = registerUser("5678", "Kyle");
@@ -356,6 +375,79 @@ public class ArgumentServiceTest extends Neo4jIntegrationTest {
 
     }
 
+    @Test
+    public void publishingDraftTreeFoldsEveryDraftIntoItsPublicVersion() throws NotAuthorizedException, NodeRulesException {
+        Author kyle = registerUser("5678", "Kyle");
+        AssertionNode assertionNode = createPublishedAssertion();
+        long userId = kyle.getUser().getNodeId();
+
+        EditResult rootDraft = argumentService.makeDraft(userId, kyle.getStableId(), assertionNode.getId());
+        Node childOriginal = assertionNode.getGraphChildren().iterator().next();
+
+        session.clear();
+
+        ArgumentNode childDraft = argumentService.makeDraft(userId, kyle.getStableId(), childOriginal.getId()).getEditedNode();
+
+        List<Long> links = new LinkedList<>();
+        links.add(childDraft.getId());
+        String body = "New Body {{[" + childDraft.getBody().getMajorVersion().getStableId() + "]link}}";
+        argumentService.editAssertion(userId, rootDraft.getEditedNode().getId(), "Ed Root", "Qual", body, links);
+
+        session.clear();
+
+        argumentService.publishNode(userId, rootDraft.getEditedNode().getId());
+
+        session.clear();
+
+        Assert.assertNull(session.load(ArgumentNode.class, rootDraft.getEditedNode().getId()));
+        Assert.assertNull(session.load(ArgumentNode.class, childDraft.getId()));
+
+        ArgumentNode publishedRoot = session.load(ArgumentNode.class, assertionNode.getId(), 2);
+        Assert.assertTrue(publishedRoot.getBody().isPublic());
+        Assert.assertEquals(1, publishedRoot.getBody().getMinorVersion());
+        Assert.assertEquals("Ed Root", publishedRoot.getBody().getTitle());
+
+        Node publishedChild = publishedRoot.getGraphChildren().iterator().next();
+        Assert.assertEquals(childOriginal.getId(), publishedChild.getId());
+        Assert.assertTrue(publishedChild.getBody().isPublic());
+        Assert.assertEquals(1, publishedChild.getBody().getMinorVersion());
+    }
+
+    @Test
+    public void groundingFollowsChildEdits() throws NotAuthorizedException, NodeRulesException {
+        Author jim = registerUser("1234", "Jim");
+        long userId = jim.getUser().getNodeId();
+
+        InterpretationNode interp = argumentService.createInterpretation(userId, jim.getStableId(), "Interp", "Q", "No source yet", null);
+
+        List<Long> links = new LinkedList<>();
+        links.add(interp.getId());
+        AssertionNode root = argumentService.createAssertion(userId, jim.getStableId(), "Root", "Q",
+                "{{[" + interp.getBody().getMajorVersion().getStableId() + "]link}}", links);
+        Assert.assertFalse(root.getGrounded());
+
+        session.clear();
+
+        try {
+            argumentService.publishNode(userId, root.getId());
+            Assert.fail("Should not publish a node whose support doesn't end in a source.");
+        } catch (NodeRulesException e) {
+            // Expected
+        }
+
+        session.clear();
+
+        SourceNode source = argumentService.createSource(userId, jim.getStableId(), "Source", "Q", "http://example.com");
+        argumentService.editInterpretation(userId, interp.getId(), "Interp", "Q", "Now sourced", source.getId());
+
+        session.clear();
+
+        ArgumentNode reloadedRoot = session.load(ArgumentNode.class, root.getId());
+        Assert.assertTrue(reloadedRoot.getGrounded());
+
+        argumentService.publishNode(userId, root.getId());
+    }
+
     @Test
     public void testRegularConsumers() throws NotAuthorizedException, NodeRulesException {
         Author kyle = registerUser("5678", "Kyle");
@@ -416,6 +508,68 @@ public class ArgumentServiceTest extends Neo4jIntegrationTest {
 
     }
 
+    @Test
+    public void backfillEdgeOwners() throws NodeRulesException {
+
+        Author jim = registerUser("1234", "Jim");
+        AssertionNode root = ArgumentTestUtil.createPublishedTriple(argumentService, jim);
+        Long rootMvId = root.getBody().getMajorVersion().getId();
+        String interpMvStableId = root.getGraphChildren().iterator().next().getBody().getMajorVersion().getStableId();
+
+        session.query("MATCH (mv:MajorVersion) REMOVE mv.edgeOwners", Collections.emptyMap());
+        session.clear();
+
+        Assert.assertTrue(edgeOwnerBackfill.backfill() >= 3);
+        Assert.assertEquals(0, edgeOwnerBackfill.backfill());
+
+        session.clear();
+        MajorVersion rootMv = session.load(MajorVersion.class, rootMvId);
+        Assert.assertEquals(Collections.singletonMap(interpMvStableId, jim.getStableId()), rootMv.getEdgeOwners());
+    }
+
+    @Test
+    public void backfillCreditsThePublishedAuthorOverADraft() throws NodeRulesException {
+
+        Author jim = registerUser("1234", "Jim");
+        Author bob = registerUser("5678", "Bob");
+        AssertionNode root = ArgumentTestUtil.createPublishedTriple(argumentService, jim);
+        Long rootMvId = root.getBody().getMajorVersion().getId();
+        String interpMvStableId = root.getGraphChildren().iterator().next().getBody().getMajorVersion().getStableId();
+
+        // Bob's unpublished draft links to the same interpretation, and its minor version of -1 sorts first.
+        argumentService.makeDraft(bob.getUser().getNodeId(), bob.getStableId(), root.getId());
+
+        session.query("MATCH (mv:MajorVersion) REMOVE mv.edgeOwners", Collections.emptyMap());
+        session.clear();
+
+        edgeOwnerBackfill.backfill();
+
+        session.clear();
+        MajorVersion rootMv = session.load(MajorVersion.class, rootMvId);
+        Assert.assertEquals(Collections.singletonMap(interpMvStableId, jim.getStableId()), rootMv.getEdgeOwners());
+    }
+
+    @Test
+    public void publishedTripleShowsUpInRootNodeFeed() throws NodeRulesException, NotAuthorizedException, NodeInputException {
+        AssertionNode root = createPublishedAssertion();
+
+        session.clear();
+        List<ArgumentNode> feed = argumentService.getRootNodes("newest", 100, null).getNodes();
+
+        Assert.assertTrue(feed.stream().anyMatch(n -> Objects.equals(n.getId(), root.getId())));
+        // The triple's interpretation and source sit beneath the root, so they never appear on their own.
+        Assert.assertTrue(feed.stream().allMatch(n -> n instanceof AssertionNode));
+    }
+
+    private int publishFreshDraft(Author author, long nodeId) throws NotAuthorizedException, NodeRulesException {
+        long userId = author.getUser().getNodeId();
+
+        session.clear();
+        EditResult draft = argumentService.makeDraft(userId, author.getStableId(), nodeId);
+
+        session.clear();
+        return argumentService.publishNode(userId, draft.getEditedNode().getId()).getRootNode().getBody().getMinorVersion();
+    }
 
     private AssertionNode createPublishedAssertion() throws NodeRulesException, NotAuthorizedException {
 
@@ -0,0 +1,124 @@
+package com.nodestand.service.argument;
+
+import com.nodestand.controllers.serial.QuickGraphResponse;
+import com.nodestand.nodes.ArgumentNode;
+import com.nodestand.nodes.assertion.AssertionBody;
+import com.nodestand.nodes.assertion.AssertionNode;
+import org.junit.Assert;
+import org.junit.Test;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class GraphCacheTest {
+
+    @Test
+    public void secondReadIsServedFromCache() {
+        GraphCache cache = new GraphCache(10);
+        ArgumentNode root = node("root");
+        AtomicInteger loads = new AtomicInteger();
+
+        cache.getOrLoad(root.getStableId(), () -> { loads.incrementAndGet(); return graph(root); });
+        cache.getOrLoad(root.getStableId(), () -> { loads.incrementAndGet(); return graph(root); });
+
+        Assert.assertEquals(1, loads.get());
+    }
+
+    @Test
+    public void loadsInsideATransactionAreNotCached() {
+        GraphCache cache = new GraphCache(10);
+        ArgumentNode root = node("root");
+        AtomicInteger loads = new AtomicInteger();
+
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        try {
+            cache.getOrLoad(root.getStableId(), () -> { loads.incrementAndGet(); return graph(root); });
+            cache.getOrLoadDraftTargets(1L, () -> Collections.singleton(root.getStableId()));
+        } finally {
+            TransactionSynchronizationManager.setActualTransactionActive(false);
+        }
+
+        Assert.assertEquals(0, cache.size());
+        cache.getOrLoad(root.getStableId(), () -> { loads.incrementAndGet(); return graph(root); });
+        Assert.assertEquals(2, loads.get());
+    }
+
+    @Test
+    public void invalidatingMemberEvictsContainingGraphs() {
+        GraphCache cache = new GraphCache(10);
+        ArgumentNode root = node("root");
+        ArgumentNode child = node("child");
+        ArgumentNode unrelated = node("unrelated");
+
+        cache.getOrLoad(root.getStableId(), () -> graph(root, child));
+        cache.getOrLoad(unrelated.getStableId(), () -> graph(unrelated));
+        Assert.assertEquals(2, cache.size());
+
+        cache.invalidate(child.getStableId());
+
+        Assert.assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void leastRecentlyUsedIsEvicted() {
+        GraphCache cache = new GraphCache(2);
+        ArgumentNode a = node("a");
+        ArgumentNode b = node("b");
+        ArgumentNode c = node("c");
+        AtomicInteger loads = new AtomicInteger();
+
+        cache.getOrLoad(a.getStableId(), () -> graph(a));
+        cache.getOrLoad(b.getStableId(), () -> graph(b));
+        cache.getOrLoad(a.getStableId(), () -> graph(a)); // touch a so b is the eldest
+        cache.getOrLoad(c.getStableId(), () -> graph(c));
+
+        cache.getOrLoad(a.getStableId(), () -> { loads.incrementAndGet(); return graph(a); });
+        cache.getOrLoad(b.getStableId(), () -> { loads.incrementAndGet(); return graph(b); });
+
+        Assert.assertEquals(1, loads.get());
+    }
+
+    @Test
+    public void draftTargetsAreReloadedAfterInvalidation() {
+        GraphCache cache = new GraphCache(10);
+        AtomicInteger loads = new AtomicInteger();
+
+        cache.getOrLoadDraftTargets(1L, () -> { loads.incrementAndGet(); return Collections.singleton("a"); });
+        Set<String> targets = cache.getOrLoadDraftTargets(1L, () -> { loads.incrementAndGet(); return Collections.singleton("b"); });
+        Assert.assertEquals(1, loads.get());
+        Assert.assertTrue(targets.contains("a"));
+
+        cache.invalidateDrafts(1L);
+
+        targets = cache.getOrLoadDraftTargets(1L, () -> { loads.incrementAndGet(); return Collections.singleton("b"); });
+        Assert.assertEquals(2, loads.get());
+        Assert.assertTrue(targets.contains("b"));
+    }
+
+    @Test
+    public void draftConsumersDoNotLeakIntoSharedGraph() {
+        ArgumentNode root = node("root");
+        ArgumentNode draft = node("draft");
+        QuickGraphResponse shared = graph(root);
+
+        QuickGraphResponse overlaid = shared.withDraftConsumers(Collections.singleton(draft));
+
+        Assert.assertEquals(1, overlaid.getConsumers().size());
+        Assert.assertTrue(shared.getConsumers().isEmpty());
+    }
+
+    private static ArgumentNode node(String title) {
+        return new AssertionNode(new AssertionBody(title, "", "", null));
+    }
+
+    private static QuickGraphResponse graph(ArgumentNode root, ArgumentNode... consumers) {
+        // Unsaved nodes all have a null id and therefore compare equal, so keep them in separate sets.
+        Set<ArgumentNode> consumerSet = Collections.newSetFromMap(new IdentityHashMap<>());
+        Collections.addAll(consumerSet, consumers);
+        return new QuickGraphResponse(Collections.singleton(root), new HashSet<>(), root.getId(), root.getStableId(), consumerSet);
+    }
+}
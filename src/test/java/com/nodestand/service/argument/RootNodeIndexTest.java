@@ -0,0 +1,106 @@
+package com.nodestand.service.argument;
+
+import com.nodestand.nodes.NodeInputException;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class RootNodeIndexTest {
+
+    @Test
+    public void newestComesFirst() throws NodeInputException {
+        RootNodeIndex index = built(
+                new RootNodeIndex.Root("a", 1, "mvA", 100, 0, 0),
+                new RootNodeIndex.Root("b", 2, "mvB", 300, 0, 0),
+                new RootNodeIndex.Root("c", 3, "mvC", 200, 0, 0));
+
+        RootNodeIndex.Page page = index.page(RootNodeIndex.Order.NEWEST, 10, null);
+
+        Assert.assertEquals(Arrays.asList(2L, 3L, 1L), page.getNodeIds());
+        Assert.assertNull(page.getNextCursor());
+    }
+
+    @Test
+    public void cursorContinuesWhereThePreviousPageEnded() throws NodeInputException {
+        RootNodeIndex index = built(
+                new RootNodeIndex.Root("a", 1, "mvA", 100, 5, 0),
+                new RootNodeIndex.Root("b", 2, "mvB", 100, 5, 0),
+                new RootNodeIndex.Root("c", 3, "mvC", 100, 1, 0),
+                new RootNodeIndex.Root("d", 4, "mvD", 100, 9, 0));
+
+        RootNodeIndex.Page first = index.page(RootNodeIndex.Order.VOTES, 2, null);
+        Assert.assertEquals(Arrays.asList(4L, 2L), first.getNodeIds());
+        Assert.assertNotNull(first.getNextCursor());
+
+        RootNodeIndex.Page second = index.page(RootNodeIndex.Order.VOTES, 2, first.getNextCursor());
+        Assert.assertEquals(Arrays.asList(1L, 3L), second.getNodeIds());
+        Assert.assertNull(second.getNextCursor());
+    }
+
+    @Test
+    public void votesReorderTheFeed() throws NodeInputException {
+        RootNodeIndex index = built(
+                new RootNodeIndex.Root("a", 1, "mvA", 100, 1, 0),
+                new RootNodeIndex.Root("b", 2, "mvB", 100, 2, 0));
+
+        index.adjustVotes("mvA", 2);
+
+        Assert.assertEquals(Arrays.asList(1L, 2L), index.page(RootNodeIndex.Order.VOTES, 10, null).getNodeIds());
+    }
+
+    @Test
+    public void refreshAddsAndRemovesRoots() throws NodeInputException {
+        RootNodeIndex index = built(
+                new RootNodeIndex.Root("a", 1, "mvA", 100, 0, 0),
+                new RootNodeIndex.Root("b", 2, "mvB", 200, 0, 0));
+
+        // b was linked beneath a new public root c.
+        index.refresh(Arrays.asList("b", "c"),
+                Collections.singletonList(new RootNodeIndex.Root("c", 3, "mvC", 300, 0, 0)));
+
+        Assert.assertEquals(Arrays.asList(3L, 1L), index.page(RootNodeIndex.Order.NEWEST, 10, null).getNodeIds());
+    }
+
+    @Test
+    public void updatesBeforeFirstReadAreLeftToTheLoad() {
+        RootNodeIndex index = new RootNodeIndex();
+        index.adjustComments("mvA", 1);
+
+        AtomicInteger loads = new AtomicInteger();
+        index.ensureBuilt(() -> {
+            loads.incrementAndGet();
+            return Collections.singletonList(new RootNodeIndex.Root("a", 1, "mvA", 100, 0, 3));
+        });
+        index.ensureBuilt(() -> {
+            loads.incrementAndGet();
+            return Collections.emptyList();
+        });
+
+        Assert.assertEquals(1, loads.get());
+        Assert.assertEquals(1, index.size());
+    }
+
+    @Test(expected = NodeInputException.class)
+    public void cursorFromAnotherOrderIsRejected() throws NodeInputException {
+        RootNodeIndex index = built(
+                new RootNodeIndex.Root("a", 1, "mvA", 100, 0, 0),
+                new RootNodeIndex.Root("b", 2, "mvB", 200, 0, 0));
+
+        String cursor = index.page(RootNodeIndex.Order.NEWEST, 1, null).getNextCursor();
+        index.page(RootNodeIndex.Order.COMMENTS, 1, cursor);
+    }
+
+    @Test(expected = NodeInputException.class)
+    public void garbageCursorIsRejected() throws NodeInputException {
+        built().page(RootNodeIndex.Order.NEWEST, 10, "not a cursor!");
+    }
+
+    private static RootNodeIndex built(RootNodeIndex.Root... roots) {
+        RootNodeIndex index = new RootNodeIndex();
+        index.ensureBuilt(() -> Arrays.asList(roots));
+        return index;
+    }
+}
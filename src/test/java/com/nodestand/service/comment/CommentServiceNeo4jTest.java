@@ -0,0 +1,111 @@
+package com.nodestand.service.comment;
+
+import com.nodestand.controllers.serial.QuickCommentResponse;
+import com.nodestand.nodes.Author;
+import com.nodestand.nodes.NodeInputException;
+import com.nodestand.nodes.assertion.AssertionNode;
+import com.nodestand.nodes.comment.Comment;
+import com.nodestand.nodes.repository.UserRepository;
+import com.nodestand.service.argument.ArgumentService;
+import com.nodestand.service.argument.ArgumentTestUtil;
+import com.nodestand.test.Neo4jIntegrationTest;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.neo4j.ogm.session.Session;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+@RunWith(SpringJUnit4ClassRunner.class)
+public class CommentServiceNeo4jTest extends Neo4jIntegrationTest {
+
+    @Autowired
+    private CommentService commentService;
+
+    @Autowired
+    private ArgumentService argumentService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private Session session;
+
+    private Author author;
+    private AssertionNode rootNode;
+
+    @Before
+    public void setup() throws Exception {
+        author = ArgumentTestUtil.registerUser(userRepository, "123", "Taylor");
+        rootNode = ArgumentTestUtil.createPublishedTriple(argumentService, author);
+    }
+
+    @Test
+    public void topLevelCommentsArePaged() throws Exception {
+        long majorVersionId = rootNode.getBody().getMajorVersion().getId();
+        Comment first = comment("first", majorVersionId);
+        Comment second = comment("second", majorVersionId);
+        Comment third = comment("third", majorVersionId);
+
+        session.clear();
+        QuickCommentResponse page = commentService.getComments(rootNode.getStableId(), "date", 2, 5, 0, null);
+
+        Assert.assertEquals(Long.valueOf(majorVersionId), page.getRootId());
+        Assert.assertEquals(Arrays.asList(third.getId(), second.getId()), ids(page));
+        String cursor = page.getMoreReplies().get(majorVersionId);
+        Assert.assertNotNull(cursor);
+
+        session.clear();
+        QuickCommentResponse next = commentService.getComments(rootNode.getStableId(), "date", 2, 5, 0, cursor);
+
+        Assert.assertEquals(Arrays.asList(first.getId()), ids(next));
+        Assert.assertFalse(next.getMoreReplies().containsKey(majorVersionId));
+    }
+
+    @Test
+    public void repliesStopAtTheDepthLimit() throws Exception {
+        long majorVersionId = rootNode.getBody().getMajorVersion().getId();
+        Comment top = comment("top", majorVersionId);
+        Comment reply = comment("reply", top.getId());
+        Comment nested = comment("nested", reply.getId());
+
+        session.clear();
+        QuickCommentResponse thread = commentService.getComments(rootNode.getStableId(), "score", 10, 10, 1, null);
+
+        Assert.assertEquals(Arrays.asList(top.getId(), reply.getId()), ids(thread));
+        // The nested reply wasn't loaded, but the client is told that it's there.
+        Assert.assertTrue(thread.getMoreReplies().containsKey(reply.getId()));
+        Assert.assertNull(thread.getMoreReplies().get(reply.getId()));
+
+        session.clear();
+        QuickCommentResponse more = commentService.getReplies(reply.getId(), "score", 10, 1, null);
+
+        Assert.assertEquals(Long.valueOf(reply.getId()), more.getRootId());
+        Assert.assertEquals(Arrays.asList(nested.getId()), ids(more));
+        Assert.assertTrue(more.getMoreReplies().isEmpty());
+    }
+
+    @Test(expected = NodeInputException.class)
+    public void cursorFromAnotherSortIsRejected() throws Exception {
+        long majorVersionId = rootNode.getBody().getMajorVersion().getId();
+        comment("first", majorVersionId);
+        comment("second", majorVersionId);
+
+        String cursor = commentService.getComments(rootNode.getStableId(), "date", 1, 5, 0, null)
+                .getMoreReplies().get(majorVersionId);
+        commentService.getComments(rootNode.getStableId(), "score", 1, 5, 0, cursor);
+    }
+
+    private Comment comment(String body, long parentId) throws Exception {
+        return commentService.createComment(body, parentId, author.getStableId(), author.getUser().getNodeId());
+    }
+
+    private static List<Long> ids(QuickCommentResponse response) {
+        return response.getNodes().stream().map(Comment::getId).collect(Collectors.toList());
+    }
+}
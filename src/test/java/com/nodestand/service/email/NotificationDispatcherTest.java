@@ -0,0 +1,115 @@
+package com.nodestand.service.email;
+
+import com.nodestand.nodes.Author;
+import com.nodestand.nodes.assertion.AssertionNode;
+import com.nodestand.nodes.comment.Comment;
+import com.nodestand.nodes.comment.PendingNotification;
+import com.nodestand.nodes.repository.UserRepository;
+import com.nodestand.service.argument.ArgumentService;
+import com.nodestand.service.argument.ArgumentTestUtil;
+import com.nodestand.service.comment.CommentService;
+import com.nodestand.test.Neo4jIntegrationTest;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.neo4j.ogm.session.SessionFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@RunWith(SpringJUnit4ClassRunner.class)
+public class NotificationDispatcherTest extends Neo4jIntegrationTest {
+
+    private static final long AFTER_COALESCING = 61000;
+
+    @Autowired
+    private CommentService commentService;
+
+    @Autowired
+    private ArgumentService argumentService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private SessionFactory sessionFactory;
+
+    private RecordingSender sender;
+    private NotificationDispatcher dispatcher;
+
+    private Author watcher;
+    private Author replier;
+    private Comment watchedComment;
+
+    @Before
+    public void setup() throws Exception {
+        watcher = ArgumentTestUtil.registerUser(userRepository, "123", "Taylor");
+        watcher.getUser().setEmailAddress("taylor@example.com");
+        userRepository.save(watcher.getUser());
+        replier = ArgumentTestUtil.registerUser(userRepository, "456", "Hector");
+
+        AssertionNode rootNode = ArgumentTestUtil.createPublishedTriple(argumentService, watcher);
+        watchedComment = commentService.createComment("Top level", rootNode.getBody().getMajorVersion().getId(),
+                watcher.getStableId(), watcher.getUser().getNodeId());
+
+        sender = new RecordingSender();
+        dispatcher = new NotificationDispatcher(sessionFactory, sender, new MockEnvironment());
+    }
+
+    @Test
+    public void burstOfRepliesBecomesOneDigest() throws Exception {
+        reply("First reply");
+        reply("Second reply");
+        long now = System.currentTimeMillis();
+
+        Assert.assertEquals(0, dispatcher.dispatch(now)); // Still waiting for more replies.
+        Assert.assertEquals(2, dispatcher.dispatch(now + AFTER_COALESCING));
+
+        Assert.assertEquals(1, sender.emails.size());
+        Assert.assertEquals(2, sender.emails.get(0).size());
+        Assert.assertEquals("First reply", sender.emails.get(0).get(0).getReplyBody());
+
+        Assert.assertEquals(0, dispatcher.dispatch(now + AFTER_COALESCING));
+    }
+
+    @Test
+    public void failedSendIsRetriedAfterBackoff() throws Exception {
+        reply("A reply");
+        long later = System.currentTimeMillis() + AFTER_COALESCING;
+
+        sender.failing = true;
+        Assert.assertEquals(0, dispatcher.dispatch(later));
+
+        sender.failing = false;
+        Assert.assertEquals(0, dispatcher.dispatch(later + 1000)); // Backing off.
+        Assert.assertEquals(1, dispatcher.dispatch(later + 31000));
+        Assert.assertEquals(1, sender.emails.size());
+    }
+
+    private void reply(String body) throws Exception {
+        commentService.createComment(body, watchedComment.getId(), replier.getStableId(), replier.getUser().getNodeId());
+    }
+
+    private static class RecordingSender extends CommentNotificationSender {
+
+        private final List<List<PendingNotification>> emails = new ArrayList<>();
+
+        private boolean failing;
+
+        private RecordingSender() {
+            super(null);
+        }
+
+        @Override
+        public void sendNotifications(String emailAddress, List<PendingNotification> notifications) {
+            if (failing) {
+                throw new IllegalStateException("Email provider is down");
+            }
+            emails.add(notifications);
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.nodestand.service.metrics;
+
+import com.nodestand.nodes.User;
+import org.junit.Assert;
+import org.junit.Test;
+import org.neo4j.ogm.session.Session;
+import org.springframework.data.neo4j.repository.GraphRepository;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.lang.reflect.Proxy;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+public class QueryMetricsTest {
+
+    @Test
+    public void histogramPercentilesAreBucketEdges() {
+        MethodStats stats = new MethodStats("Repo.find");
+        for (int i = 0; i < 90; i++) {
+            stats.record(TimeUnit.MICROSECONDS.toNanos(100), 2, false);
+        }
+        for (int i = 0; i < 10; i++) {
+            stats.record(TimeUnit.MILLISECONDS.toNanos(10), -1, true);
+        }
+
+        MethodStats.Snapshot snapshot = stats.snapshot();
+
+        Assert.assertEquals(100, snapshot.getCalls());
+        Assert.assertEquals(10, snapshot.getErrors());
+        Assert.assertEquals(0.128, snapshot.getP50Millis(), 0.0001);
+        Assert.assertEquals(16.384, snapshot.getP99Millis(), 0.0001);
+        Assert.assertEquals(10.0, snapshot.getMaxMillis(), 0.0001);
+        Assert.assertEquals(2.0, snapshot.getMeanRows(), 0.0001);
+    }
+
+    @Test
+    public void repositoryCallsAreRecordedWithoutTheirSessionCalls() {
+        QueryMetrics metrics = new QueryMetrics(new MockEnvironment());
+        QueryMetricsPostProcessor postProcessor = new QueryMetricsPostProcessor(metrics, new MockEnvironment());
+
+        Session session = (Session) postProcessor.postProcessAfterInitialization(fakeSession(), "session");
+        TestRepository repository = (TestRepository) postProcessor.postProcessAfterInitialization(
+                fakeRepository(session), "testRepository");
+
+        Assert.assertEquals(3, repository.findByName("x").size());
+        repository.findByName("y");
+        session.load(User.class, 1L);
+
+        Map<String, MethodStats.Snapshot> byName = metrics.snapshot().stream()
+                .collect(Collectors.toMap(MethodStats.Snapshot::getName, s -> s));
+
+        Assert.assertEquals(new HashSet<>(Arrays.asList("TestRepository.findByName", "Session.load/2")), byName.keySet());
+        Assert.assertEquals(2, byName.get("TestRepository.findByName").getCalls());
+        Assert.assertEquals(6, byName.get("TestRepository.findByName").getRows());
+        Assert.assertEquals(1, byName.get("Session.load/2").getCalls());
+        Assert.assertEquals(0, byName.get("Session.load/2").getRows());
+    }
+
+    public interface TestRepository extends GraphRepository<User> {
+        Set<User> findByName(String name);
+    }
+
+    private static Session fakeSession() {
+        return (Session) Proxy.newProxyInstance(Session.class.getClassLoader(), new Class<?>[] {Session.class},
+                (proxy, method, args) -> null);
+    }
+
+    /**
+     * Makes a session call of its own, the way Spring Data repositories do.
+     */
+    private static TestRepository fakeRepository(Session session) {
+        return (TestRepository) Proxy.newProxyInstance(TestRepository.class.getClassLoader(),
+                new Class<?>[] {TestRepository.class}, (proxy, method, args) -> {
+                    session.query(User.class, "match (u:User) return u", Collections.emptyMap());
+                    return new HashSet<>(Arrays.asList(new User(), new User(), new User()));
+                });
+    }
+}
@@ -0,0 +1,153 @@
+package com.nodestand.service.search;
+
+import com.nodestand.controllers.serial.SearchHit;
+import com.nodestand.controllers.serial.TypeaheadPage;
+import com.nodestand.nodes.ArgumentBody;
+import com.nodestand.nodes.NodeInputException;
+import com.nodestand.nodes.assertion.AssertionBody;
+import com.nodestand.nodes.source.SourceBody;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.*;
+
+public class SearchIndexTest {
+
+    private static final Set<String> ALL_TYPES = new HashSet<>(Arrays.asList("assertion", "interpretation", "source"));
+
+    private SearchIndex index;
+    private long nextId;
+
+    @Before
+    public void setUp() {
+        index = new SearchIndex();
+        nextId = 1;
+    }
+
+    @Test
+    public void matchesEveryWordWithPrefixOnLastWord() {
+        build(publicBody(new AssertionBody("Cats are better than dogs", "", "", null)),
+                publicBody(new AssertionBody("Dogs are loyal", "", "", null)));
+
+        List<SearchHit> hits = index.query("dogs bet", ALL_TYPES, null, 10);
+
+        Assert.assertEquals(1, hits.size());
+        Assert.assertEquals("Cats are better than dogs", hits.get(0).getTitle());
+    }
+
+    @Test
+    public void titleOutranksBodyText() {
+        build(publicBody(new AssertionBody("Something else", "", "Mentions taxes in passing", null)),
+                publicBody(new AssertionBody("Taxes", "", "", null)));
+
+        List<SearchHit> hits = index.query("taxes", ALL_TYPES, null, 10);
+
+        Assert.assertEquals(2, hits.size());
+        Assert.assertEquals("Taxes", hits.get(0).getTitle());
+    }
+
+    @Test
+    public void linkLabelsAreSearchableButIdsAreNot() {
+        build(publicBody(new AssertionBody("Parent", "", "Because {{[abc123]climate models}} agree", null)));
+
+        Assert.assertEquals(1, index.query("climate", ALL_TYPES, null, 10).size());
+        Assert.assertEquals(1, index.query("agree", ALL_TYPES, null, 10).size());
+        Assert.assertTrue(index.query("abc123", ALL_TYPES, null, 10).isEmpty());
+    }
+
+    @Test
+    public void filtersByTypeAndVisibility() {
+        SearchDocument draft = new SearchDocument(withId(new AssertionBody("Draft about whales", "", "", null)), 7L);
+        build(draft, publicBody(new SourceBody("Whales source", "", null, "http://example.com")));
+
+        Assert.assertEquals(1, index.query("whales", Collections.singleton("source"), 7L, 10).size());
+        Assert.assertEquals(1, index.query("whales", Collections.singleton("assertion"), 7L, 10).size());
+        Assert.assertTrue(index.query("whales", Collections.singleton("assertion"), 8L, 10).isEmpty());
+        Assert.assertTrue(index.query("whales", Collections.singleton("assertion"), null, 10).isEmpty());
+    }
+
+    @Test
+    public void returnsOneHitPerMajorVersion() {
+        AssertionBody original = new AssertionBody("Rain is wet", "", "", null);
+        AssertionBody edited = new AssertionBody("Rain is wet indeed", "", "", null, original.getMajorVersion());
+        build(publicBody(original), publicBody(edited));
+
+        Assert.assertEquals(1, index.query("rain", ALL_TYPES, null, 10).size());
+    }
+
+    @Test
+    public void updatesApplyAfterBuild() {
+        build();
+        index.index(withPublic(withId(new AssertionBody("Fresh idea", "", "", null))), null);
+
+        Assert.assertEquals(1, index.query("fresh", ALL_TYPES, null, 10).size());
+    }
+
+    @Test
+    public void typeaheadPutsTitleStartsFirst() throws Exception {
+        build(publicBody(new AssertionBody("The war on drugs failed", "", "", null)),
+                publicBody(new AssertionBody("War is costly", "", "", null)),
+                publicBody(new AssertionBody("Warm weather", "", "", null)));
+
+        List<SearchHit> hits = index.typeahead("war", ALL_TYPES, null, 10, null).getHits();
+
+        Assert.assertEquals(3, hits.size());
+        Assert.assertEquals("War is costly", hits.get(0).getTitle());
+        Assert.assertEquals("Warm weather", hits.get(1).getTitle());
+        Assert.assertEquals("The war on drugs failed", hits.get(2).getTitle());
+    }
+
+    @Test
+    public void typeaheadPagesWithoutRepeats() throws Exception {
+        List<SearchDocument> documents = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            documents.add(publicBody(new AssertionBody("Tax idea " + i, "", "", null)));
+            documents.add(publicBody(new AssertionBody("Lower tax " + i, "", "", null)));
+        }
+        AssertionBody original = new AssertionBody("Tax everything", "", "", null);
+        documents.add(publicBody(original));
+        documents.add(publicBody(new AssertionBody("Tax everything now", "", "", null, original.getMajorVersion())));
+        build(documents.toArray(new SearchDocument[0]));
+
+        Set<String> seen = new HashSet<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            TypeaheadPage page = index.typeahead("tax", ALL_TYPES, null, 4, cursor);
+            for (SearchHit hit : page.getHits()) {
+                Assert.assertTrue(seen.add(hit.getMajorVersionStableId()));
+            }
+            cursor = page.getNextCursor();
+            pages++;
+        } while (cursor != null);
+
+        Assert.assertEquals(15, seen.size());
+        Assert.assertEquals(4, pages);
+    }
+
+    @Test(expected = NodeInputException.class)
+    public void typeaheadRejectsGarbageCursor() throws Exception {
+        build(publicBody(new AssertionBody("Anything", "", "", null)));
+        index.typeahead("any", ALL_TYPES, null, 4, "not a cursor");
+    }
+
+    private void build(SearchDocument... documents) {
+        index.ensureBuilt(() -> Arrays.asList(documents));
+    }
+
+    private SearchDocument publicBody(ArgumentBody body) {
+        return new SearchDocument(withPublic(withId(body)), null);
+    }
+
+    private ArgumentBody withId(ArgumentBody body) {
+        ReflectionTestUtils.setField(body, "id", nextId++);
+        return body;
+    }
+
+    private static ArgumentBody withPublic(ArgumentBody body) {
+        body.setIsPublic(true);
+        return body;
+    }
+}
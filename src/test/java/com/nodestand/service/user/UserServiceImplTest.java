@@ -0,0 +1,112 @@
+package com.nodestand.service.user;
+
+import com.nodestand.auth.NodeUserDetails;
+import com.nodestand.nodes.Author;
+import com.nodestand.nodes.User;
+import com.nodestand.nodes.repository.UserRepository;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.neo4j.ogm.session.Session;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.lang.reflect.Proxy;
+
+public class UserServiceImplTest {
+
+    private User user;
+    private Author author;
+    private int userLoads;
+    private UserServiceImpl userService;
+
+    @Before
+    public void setup() {
+        user = new User("google", "123", User.Roles.ROLE_USER);
+        author = user.addNewAlias("Taylor");
+
+        userService = new UserServiceImpl();
+        ReflectionTestUtils.setField(userService, "userRepo", fakeRepository());
+        ReflectionTestUtils.setField(userService, "session", fake(Session.class));
+        ReflectionTestUtils.setField(userService, "userDetailsTtlMillis", 60000L);
+        ReflectionTestUtils.setField(userService, "userDetailsCacheSize", 10);
+    }
+
+    @Test
+    public void detailsAreServedFromTheCache() {
+        NodeUserDetails first = userService.loadUserByUserId(user.getStableId());
+        NodeUserDetails second = userService.loadUserByUserId(user.getStableId());
+
+        Assert.assertSame(first, second);
+        Assert.assertEquals(1, userLoads);
+    }
+
+    @Test
+    public void entryExpiresAfterTheTtl() throws InterruptedException {
+        ReflectionTestUtils.setField(userService, "userDetailsTtlMillis", 20L);
+
+        userService.loadUserByUserId(user.getStableId());
+        userService.loadUserByUserId(user.getStableId());
+        Assert.assertEquals(1, userLoads);
+
+        Thread.sleep(40);
+
+        userService.loadUserByUserId(user.getStableId());
+        Assert.assertEquals(2, userLoads);
+    }
+
+    @Test
+    public void changingAnAuthorNameEvicts() {
+        userService.loadUserByUserId(user.getStableId());
+
+        userService.changeAuthorName(author.getStableId(), "Hector");
+
+        userService.loadUserByUserId(user.getStableId());
+        Assert.assertEquals(2, userLoads);
+    }
+
+    @Test
+    public void changingTheEmailAddressEvicts() {
+        userService.loadUserByUserId(user.getStableId());
+
+        userService.changeEmailAddress(user, "taylor@example.com");
+
+        NodeUserDetails details = userService.loadUserByUserId(user.getStableId());
+        Assert.assertEquals(2, userLoads);
+        Assert.assertEquals("taylor@example.com", details.getUser().getEmailAddress());
+    }
+
+    @Test
+    public void leastRecentlyUsedEntriesGoWhenFull() {
+        ReflectionTestUtils.setField(userService, "userDetailsCacheSize", 1);
+
+        userService.loadUserByUserId(user.getStableId());
+        userService.loadUserByUserId("someone-else");
+        userService.loadUserByUserId(user.getStableId());
+
+        Assert.assertEquals(3, userLoads);
+    }
+
+    private UserRepository fakeRepository() {
+        return (UserRepository) Proxy.newProxyInstance(UserRepository.class.getClassLoader(),
+                new Class<?>[] {UserRepository.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "getUser":
+                            userLoads++;
+                            return user;
+                        case "loadAuthorWithUser":
+                            return author;
+                        case "save":
+                            return args[0];
+                        case "toString":
+                            return "UserRepository";
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T fake(Class<T> type) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] {type}, (proxy, method, args) -> null);
+    }
+}
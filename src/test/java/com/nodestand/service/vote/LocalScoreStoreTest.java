@@ -0,0 +1,93 @@
+package com.nodestand.service.vote;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.stream.Collectors;
+
+public class LocalScoreStoreTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void readsOnlyTheRecipientsHistoryOldestFirst() throws IOException {
+        LocalScoreStore store = open(1024 * 1024);
+        store.append(score("alice", "first", 10));
+        store.append(score("bob", "other", 2));
+        store.append(score("alice", "second", -4));
+
+        List<TimestampedScoreLog> log = store.read("alice", 0, Long.MAX_VALUE, 100);
+
+        Assert.assertEquals("first,second", titles(log));
+        Assert.assertEquals(Integer.valueOf(-4), log.get(1).points);
+        Assert.assertNotNull(log.get(0).timestamp);
+        Assert.assertTrue(store.read("nobody", 0, Long.MAX_VALUE, 100).isEmpty());
+    }
+
+    @Test
+    public void limitKeepsTheMostRecent() throws IOException {
+        LocalScoreStore store = open(1024 * 1024);
+        for (int i = 0; i < 5; i++) {
+            store.append(score("alice", "n" + i, 1));
+        }
+
+        Assert.assertEquals("n3,n4", titles(store.read("alice", 0, Long.MAX_VALUE, 2)));
+    }
+
+    @Test
+    public void timeRangeIsRespected() throws Exception {
+        LocalScoreStore store = open(1024 * 1024);
+        store.append(score("alice", "early", 1));
+        Thread.sleep(5);
+        store.append(score("alice", "late", 1));
+
+        long late = store.read("alice", 0, Long.MAX_VALUE, 10).get(1).timestamp;
+
+        Assert.assertEquals("late", titles(store.read("alice", late, Long.MAX_VALUE, 10)));
+        Assert.assertEquals("early", titles(store.read("alice", 0, late, 10)));
+    }
+
+    @Test
+    public void historySurvivesRestartAcrossSegments() throws IOException {
+        LocalScoreStore store = open(256); // About one record per segment.
+        for (int i = 0; i < 10; i++) {
+            store.append(score(i % 2 == 0 ? "alice" : "bob", "n" + i, 1));
+        }
+        store.close();
+
+        LocalScoreStore reopened = open(256);
+        Assert.assertEquals("n0,n2,n4,n6,n8", titles(reopened.read("alice", 0, Long.MAX_VALUE, 100)));
+
+        reopened.append(score("alice", "n10", 1));
+        Assert.assertEquals("n8,n10", titles(reopened.read("alice", 0, Long.MAX_VALUE, 2)));
+    }
+
+    private LocalScoreStore open(int segmentBytes) throws IOException {
+        MockEnvironment environment = new MockEnvironment();
+        environment.setProperty("scoring.storeDir", folder.getRoot().getAbsolutePath());
+        environment.setProperty("scoring.segmentBytes", String.valueOf(segmentBytes));
+        return new LocalScoreStore(environment);
+    }
+
+    private static ScoreLog score(String recipientId, String nodeTitle, int points) {
+        ScoreLog scoreLog = new ScoreLog();
+        scoreLog.recipientId = recipientId;
+        scoreLog.granterId = "granter";
+        scoreLog.nodeId = "node";
+        scoreLog.nodeTitle = nodeTitle;
+        scoreLog.points = points;
+        scoreLog.voteType = "GREAT";
+        scoreLog.isNegation = false;
+        return scoreLog;
+    }
+
+    private static String titles(List<TimestampedScoreLog> log) {
+        return log.stream().map(s -> s.nodeTitle).collect(Collectors.joining(","));
+    }
+}
@@ -0,0 +1,58 @@
+package com.nodestand.service.vote;
+
+import com.nodestand.nodes.vote.VoteType;
+import com.nodestand.test.Neo4jIntegrationTest;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+@RunWith(SpringJUnit4ClassRunner.class)
+public class ScoreLoggerTest extends Neo4jIntegrationTest {
+
+    @Autowired
+    private ScoreLogger scoreLogger;
+
+    @Autowired
+    private LocalScoreStore scoreStore;
+
+    @Autowired
+    private ScoreRollups scoreRollups;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    public void onlyCommittedScoresReachTheStoreAndRollups() {
+        // The store and rollups outlive each test, so use a recipient nobody else scores.
+        String recipient = "score-logger-recipient";
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+
+        // The Neo4j transaction manager ignores setRollbackOnly, so roll back the way a failed vote would.
+        try {
+            transaction.execute(status -> {
+                scoreLogger.logScore(recipient, "granter", "node1", "Rolled back", 10, VoteType.GREAT, false);
+                throw new IllegalStateException("Vote failed");
+            });
+            Assert.fail();
+        } catch (IllegalStateException expected) {
+        }
+
+        Assert.assertTrue(scoreStore.read(recipient, 0, Long.MAX_VALUE, 10).isEmpty());
+        Assert.assertEquals(0, scoreRollups.getStats(recipient).getTotalPoints());
+
+        transaction.execute(status -> {
+            scoreLogger.logScore(recipient, "granter", "node1", "Committed", 4, VoteType.WEAK, false);
+            // Nothing is visible until the commit.
+            Assert.assertTrue(scoreStore.read(recipient, 0, Long.MAX_VALUE, 10).isEmpty());
+            Assert.assertEquals(0, scoreRollups.getStats(recipient).getTotalPoints());
+            return null;
+        });
+
+        Assert.assertEquals(1, scoreStore.read(recipient, 0, Long.MAX_VALUE, 10).size());
+        Assert.assertEquals(4, scoreRollups.getStats(recipient).getTotalPoints());
+    }
+}
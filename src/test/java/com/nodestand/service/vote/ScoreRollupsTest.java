@@ -0,0 +1,75 @@
+package com.nodestand.service.vote;
+
+import com.nodestand.nodes.vote.VoteType;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+public class ScoreRollupsTest {
+
+    private static final long DAY = TimeUnit.DAYS.toMillis(1);
+    private static final long START = 1000 * DAY;
+
+    @Test
+    public void statsBreakDownByDayTypeAndNode() {
+        ScoreRollups rollups = new ScoreRollups(7);
+        rollups.record(score("alice", "node1", 10, VoteType.GREAT), START);
+        rollups.record(score("alice", "node2", -4, VoteType.TRASH), START + DAY);
+        rollups.record(score("alice", "node1", 6, VoteType.TOUCHE), START + DAY + 1);
+
+        ScoreRollups.AuthorStats stats = rollups.getStats("alice", START + DAY + 2);
+
+        Assert.assertEquals(12, stats.getTotalPoints());
+        Assert.assertEquals(7, stats.getDaily().size());
+        Assert.assertEquals(10, stats.getDaily().get(5).getPoints());
+        Assert.assertEquals(2, stats.getDaily().get(6).getPoints());
+        Assert.assertEquals(Long.valueOf(-4), stats.getByVoteType().get(VoteType.TRASH));
+        Assert.assertEquals("node1", stats.getTopNodes().get(0).getNodeStableId());
+        Assert.assertEquals(16, stats.getTopNodes().get(0).getPoints());
+        Assert.assertEquals("Title of node1", stats.getTopNodes().get(0).getNodeTitle());
+    }
+
+    @Test
+    public void oldDaysFallOutOfTheWindow() {
+        ScoreRollups rollups = new ScoreRollups(7);
+        rollups.record(score("alice", "node1", 10, VoteType.GREAT), START);
+        rollups.record(score("alice", "node1", 2, VoteType.WEAK), START + 3 * DAY);
+
+        Assert.assertEquals(12, rollups.getStats("alice", START + 6 * DAY).getTotalPoints());
+        Assert.assertEquals(2, rollups.getStats("alice", START + 7 * DAY).getTotalPoints());
+        Assert.assertEquals(0, rollups.getStats("alice", START + 10 * DAY).getTotalPoints());
+        Assert.assertTrue(rollups.getLeaderboard(10, START + 10 * DAY).isEmpty());
+    }
+
+    @Test
+    public void leaderboardFollowsTheTotals() {
+        ScoreRollups rollups = new ScoreRollups(7);
+        rollups.record(score("alice", "node1", 10, VoteType.GREAT), START);
+        rollups.record(score("bob", "node2", 6, VoteType.TOUCHE), START);
+        rollups.record(score("carol", "node3", 2, VoteType.WEAK), START);
+
+        Assert.assertEquals("alice,bob", names(rollups.getLeaderboard(2, START)));
+
+        rollups.record(score("carol", "node3", 10, VoteType.GREAT), START + 1);
+
+        Assert.assertEquals("carol,alice,bob", names(rollups.getLeaderboard(10, START + 1)));
+    }
+
+    private static ScoreLog score(String recipientId, String nodeId, int points, VoteType voteType) {
+        ScoreLog scoreLog = new ScoreLog();
+        scoreLog.recipientId = recipientId;
+        scoreLog.nodeId = nodeId;
+        scoreLog.nodeTitle = "Title of " + nodeId;
+        scoreLog.points = points;
+        scoreLog.voteType = voteType.name();
+        scoreLog.isNegation = false;
+        return scoreLog;
+    }
+
+    private static String names(List<ScoreRollups.Standing> standings) {
+        return standings.stream().map(ScoreRollups.Standing::getAuthorStableId).collect(Collectors.joining(","));
+    }
+}
@@ -0,0 +1,104 @@
+package com.nodestand.service.vote;
+
+import com.nodestand.controllers.serial.EditResult;
+import com.nodestand.nodes.Author;
+import com.nodestand.nodes.Node;
+import com.nodestand.nodes.assertion.AssertionNode;
+import com.nodestand.nodes.repository.UserRepository;
+import com.nodestand.nodes.vote.VoteType;
+import com.nodestand.service.argument.ArgumentService;
+import com.nodestand.service.argument.ArgumentTestUtil;
+import com.nodestand.service.argument.GraphCache;
+import com.nodestand.test.Neo4jIntegrationTest;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.neo4j.ogm.session.Session;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+@RunWith(SpringJUnit4ClassRunner.class)
+public class VoteCounterBufferTest extends Neo4jIntegrationTest {
+
+    @Autowired
+    private VoteCounterBuffer voteCounterBuffer;
+
+    @Autowired
+    private VoteService voteService;
+
+    @Autowired
+    private ArgumentService argumentService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private Session session;
+
+    @Test
+    public void pendingCountsAccumulatePerTypeAndVersion() {
+        VoteCounterBuffer buffer = new VoteCounterBuffer(null, new GraphCache(10), new MockEnvironment());
+
+        buffer.record("mv1", VoteType.GREAT, 1);
+        buffer.record("mv1", VoteType.GREAT, 1);
+        buffer.record("mv1", VoteType.WEAK, 1);
+        buffer.record("mv1", VoteType.GREAT, -1);
+        buffer.record("mv2", VoteType.TRASH, 1);
+
+        Assert.assertEquals(1, buffer.getPending("mv1", VoteType.GREAT));
+        Assert.assertEquals(1, buffer.getPending("mv1", VoteType.WEAK));
+        Assert.assertEquals(0, buffer.getPending("mv1", VoteType.TRASH));
+        Assert.assertEquals(1, buffer.getPending("mv2", VoteType.TRASH));
+        Assert.assertEquals(0, buffer.getPending("mv3", VoteType.GREAT));
+    }
+
+    @Test
+    public void flushWithNothingPendingDoesNotTouchTheDatabase() {
+        VoteCounterBuffer buffer = new VoteCounterBuffer(null, new GraphCache(10), new MockEnvironment());
+
+        Assert.assertEquals(0, buffer.flush());
+    }
+
+    @Test
+    public void flushedCountsSurviveSavingAStaleMajorVersion() throws Exception {
+        Author author = ArgumentTestUtil.registerUser(userRepository, "123", "Taylor");
+        Author voter = ArgumentTestUtil.registerUser(userRepository, "456", "Hector");
+        long userId = author.getUser().getNodeId();
+
+        AssertionNode root = ArgumentTestUtil.createPublishedTriple(argumentService, author);
+        String majorVersionId = root.getBody().getMajorVersion().getStableId();
+
+        // The draft shares the root's major version, which the session now holds with no votes.
+        EditResult draft = argumentService.makeDraft(userId, author.getStableId(), root.getId());
+
+        voteService.voteNode(voter.getUser().getStableId(), root.getStableId(), VoteType.GREAT);
+        voteCounterBuffer.flush();
+        Assert.assertEquals(0, voteCounterBuffer.getPending(majorVersionId, VoteType.GREAT));
+
+        // Linking a new child adds an edge owner, so the edit saves the stale major version.
+        AssertionNode other = argumentService.createAssertion(userId, author.getStableId(), "Other", "Q", "Other body", new LinkedList<>());
+        Node child = root.getGraphChildren().iterator().next();
+        List<Long> links = new LinkedList<>();
+        links.add(child.getId());
+        links.add(other.getId());
+        String body = String.format("Edited {{[%s]child}} {{[%s]other}}",
+                child.getBody().getMajorVersion().getStableId(),
+                other.getBody().getMajorVersion().getStableId());
+        argumentService.editAssertion(userId, draft.getEditedNode().getId(), "Edited", "Q", body, links);
+
+        session.clear();
+
+        Map<String, Object> params = Collections.singletonMap("stableId", majorVersionId);
+        Number stored = (Number) session.query("MATCH (mv:MajorVersion {stableId: {stableId}}) RETURN mv.greatVotes AS votes", params)
+                .queryResults().iterator().next().get("votes");
+        Assert.assertEquals(1, stored.intValue());
+
+        Assert.assertEquals(1, argumentService.getFullDetail(root.getStableId()).getBody().getMajorVersion().greatVotes);
+    }
+}
@@ -18,6 +18,8 @@ import org.neo4j.ogm.session.Session;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
 
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -39,6 +41,15 @@ public class VoteServiceNeo4jTest extends Neo4jIntegrationTest {
     @Autowired
     private Session session;
 
+    @Autowired
+    private PendingScoreApplier pendingScoreApplier;
+
+    @Autowired
+    private UserVoteIndex userVoteIndex;
+
+    @Autowired
+    private NodePointsLoader nodePointsLoader;
+
     @Rule
     public ExpectedException thrown = ExpectedException.none();
 
@@ -67,19 +78,42 @@ public class VoteServiceNeo4jTest extends Neo4jIntegrationTest {
 
         voteService.voteNode(bystander.getUser().getStableId(), rootNode.getStableId(), VoteType.GREAT);
 
-        session.clear();
+        applyScores();
 
-        Author fo = userRepository.loadAuthor(firstAuthor.getStableId());
+        Author fo = loadAuthorWithPoints(firstAuthor.getStableId());
         Assert.assertEquals(10L, fo.getNodePoints());
     }
 
+    @Test
+    public void savingAStaleAuthorKeepsAppliedPoints() throws Exception {
+
+        Author stale = userRepository.loadAuthor(firstAuthor.getStableId());
+
+        voteService.voteNode(bystander.getUser().getStableId(), rootNode.getStableId(), VoteType.GREAT);
+        pendingScoreApplier.flush();
+
+        // The session still holds the author as it was before the points were applied.
+        stale.setDisplayName("Renamed");
+        session.save(stale);
+        session.clear();
+
+        Assert.assertEquals(10L, loadAuthorWithPoints(firstAuthor.getStableId()).getNodePoints());
+
+        // The applied rows are kept, and still add up to the total.
+        Number logged = (Number) session.query("MATCH (s:AppliedScore {recipientStableId: {id}}) RETURN sum(s.points) AS points",
+                Collections.singletonMap("id", firstAuthor.getStableId())).queryResults().iterator().next().get("points");
+        Assert.assertEquals(10L, logged.longValue());
+    }
+
     @Test
     public void unvoteNode() throws Exception {
         voteNode();
 
         voteService.unvoteNode(rootNode.getStableId(), bystander.getUser().getStableId());
 
-        Author fo = userRepository.loadAuthor(firstAuthor.getStableId());
+        applyScores();
+
+        Author fo = loadAuthorWithPoints(firstAuthor.getStableId());
 
         Assert.assertEquals(0L, fo.getNodePoints());
     }
@@ -106,16 +140,32 @@ public class VoteServiceNeo4jTest extends Neo4jIntegrationTest {
 
         voteService.voteNode(bystander.getUser().getStableId(), rootNode.getStableId(), VoteType.WEAK);
 
+        applyScores();
+
         // Both first and second author suffer a revocation of a GREAT, and both get points for a WEAK.
 
-        Author fo = userRepository.loadAuthor(firstAuthor.getStableId());
+        Author fo = loadAuthorWithPoints(firstAuthor.getStableId());
         Assert.assertEquals(2L, fo.getNodePoints());
 
-        Author so = userRepository.loadAuthor(secondAuthor.getStableId());
+        Author so = loadAuthorWithPoints(secondAuthor.getStableId());
         Assert.assertEquals(-8L, so.getNodePoints());
 
     }
 
+    /**
+     * Points are applied in the background, so push them through before looking.
+     */
+    private void applyScores() {
+        pendingScoreApplier.flush();
+        session.clear();
+    }
+
+    private Author loadAuthorWithPoints(String authorStableId) {
+        Author author = userRepository.loadAuthor(authorStableId);
+        nodePointsLoader.load(author);
+        return author;
+    }
+
     private User freshUser(Author author, UserRepository userRepository) {
         return userRepository.getUser(author.getUser().getStableId());
     }
@@ -129,12 +179,60 @@ public class VoteServiceNeo4jTest extends Neo4jIntegrationTest {
 
         voteService.voteNode(bystander.getUser().getStableId(), rootNode.getStableId(), VoteType.WEAK);
 
-        session.clear();
+        applyScores();
 
-        Author fo = userRepository.loadAuthor(firstAuthor.getStableId());
+        Author fo = loadAuthorWithPoints(firstAuthor.getStableId());
         Assert.assertEquals(2L, fo.getNodePoints());
     }
 
+    @Test
+    public void votingElsewhereKeepsEarlierVotes() throws Exception {
+
+        AssertionNode otherNode = ArgumentTestUtil.createPublishedTriple(argumentService, firstAuthor);
+
+        voteService.voteNode(bystander.getUser().getStableId(), rootNode.getStableId(), VoteType.GREAT);
+        session.clear();
+        voteService.voteNode(bystander.getUser().getStableId(), otherNode.getStableId(), VoteType.WEAK);
+        session.clear();
+
+        User voter = userRepository.loadUserWithVotes(bystander.getUser().getStableId());
+        Assert.assertEquals(VoteType.GREAT, voter.getBodyVotes().get(rootNode.getBody().getMajorVersion().getId()));
+        Assert.assertEquals(VoteType.WEAK, voter.getBodyVotes().get(otherNode.getBody().getMajorVersion().getId()));
+    }
+
+    @Test
+    public void voteIndexFollowsVotes() throws Exception {
+
+        String voterId = bystander.getUser().getStableId();
+        Long mvId = rootNode.getBody().getMajorVersion().getId();
+
+        Assert.assertTrue(userVoteIndex.getBodyVotes(voterId, Collections.singletonList(mvId)).isEmpty());
+
+        voteService.voteNode(voterId, rootNode.getStableId(), VoteType.TOUCHE);
+        Assert.assertEquals(VoteType.TOUCHE, userVoteIndex.getBodyVotes(voterId, Arrays.asList(mvId, -1L)).get(mvId));
+
+        voteService.unvoteNode(rootNode.getStableId(), voterId);
+        Assert.assertTrue(userVoteIndex.getBodyVotes(voterId, Collections.singletonList(mvId)).isEmpty());
+    }
+
+    @Test
+    public void votingPatchesTheIndexInsteadOfReloadingIt() throws Exception {
+
+        String voterId = bystander.getUser().getStableId();
+        Long mvId = rootNode.getBody().getMajorVersion().getId();
+
+        Assert.assertTrue(userVoteIndex.getBodyVotes(voterId, Collections.singletonList(mvId)).isEmpty());
+
+        voteService.voteNode(voterId, rootNode.getStableId(), VoteType.GREAT);
+        voteService.voteNode(voterId, rootNode.getStableId(), VoteType.WEAK);
+
+        // Remove the vote behind the index's back. A reload would find nothing.
+        session.query("MATCH (:User {stableId: {voterId}})-[v:ARGUMENT_VOTE]->() DELETE v",
+                Collections.singletonMap("voterId", voterId));
+
+        Assert.assertEquals(VoteType.WEAK, userVoteIndex.getBodyVotes(voterId, Collections.singletonList(mvId)).get(mvId));
+    }
+
     @Test
     public void noGivingSelfPoints() throws Exception {
 
@@ -157,11 +255,13 @@ public class VoteServiceNeo4jTest extends Neo4jIntegrationTest {
 
         voteService.voteNode(secondAuthor.getUser().getStableId(), rootNode.getStableId(), VoteType.GREAT);
 
-        Author fo = userRepository.loadAuthor(firstAuthor.getStableId());
+        applyScores();
+
+        Author fo = loadAuthorWithPoints(firstAuthor.getStableId());
         Assert.assertEquals(20L, fo.getNodePoints());
 
         // Second author is not allowed to give himself points so he gets nothing.
-        Author so = userRepository.loadAuthor(secondAuthor.getStableId());
+        Author so = loadAuthorWithPoints(secondAuthor.getStableId());
         Assert.assertEquals(0L, so.getNodePoints());
 
 
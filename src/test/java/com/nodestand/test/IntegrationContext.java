@@ -1,6 +1,7 @@
 package com.nodestand.test;
 
 
+import com.nodestand.util.SynchronizingTransactionManager;
 import org.neo4j.ogm.config.Configuration;
 import org.neo4j.ogm.session.Session;
 import org.neo4j.ogm.session.SessionFactory;
@@ -9,6 +10,7 @@ import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.Profile;
 import org.springframework.data.neo4j.config.Neo4jConfiguration;
 import org.springframework.data.neo4j.repository.config.EnableNeo4jRepositories;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.EnableTransactionManagement;
 
 @org.springframework.context.annotation.Configuration
@@ -19,6 +21,7 @@ import org.springframework.transaction.annotation.EnableTransactionManagement;
 public class IntegrationContext extends Neo4jConfiguration {
 
     @Override
+    @Bean
     public SessionFactory getSessionFactory() {
         Configuration config = new Configuration();
         config.driverConfiguration()
@@ -32,4 +35,10 @@ public class IntegrationContext extends Neo4jConfiguration {
         return super.getSession();
     }
 
+    @Override
+    @Bean
+    public PlatformTransactionManager transactionManager() throws Exception {
+        return new SynchronizingTransactionManager(super.transactionManager());
+    }
+
 }
@@ -6,7 +6,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.ContextConfiguration;
 
-@ContextConfiguration(classes = {IntegrationContext.class})
+@ContextConfiguration(classes = {IntegrationContext.class}, initializers = {ScoreStoreDirInitializer.class})
 @ActiveProfiles({"integration"})
 public class Neo4jIntegrationTest {
 
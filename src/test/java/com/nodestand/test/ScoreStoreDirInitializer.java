@@ -0,0 +1,32 @@
+package com.nodestand.test;
+
+import org.springframework.context.ApplicationContextInitializer;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+
+/**
+ * Points scoring.storeDir at a fresh temporary folder for each test context, and deletes it when the JVM exits.
+ */
+public class ScoreStoreDirInitializer implements ApplicationContextInitializer<ConfigurableApplicationContext> {
+
+    @Override
+    public void initialize(ConfigurableApplicationContext context) {
+        Path directory;
+        try {
+            directory = Files.createTempDirectory("finerpoints-scores-test");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> FileSystemUtils.deleteRecursively(directory.toFile())));
+
+        context.getEnvironment().getPropertySources().addFirst(new MapPropertySource("scoreStoreDir",
+                Collections.singletonMap("scoring.storeDir", directory.toString())));
+    }
+}
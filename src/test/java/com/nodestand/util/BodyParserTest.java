@@ -1,15 +1,21 @@
 package com.nodestand.util;
 
+import com.nodestand.nodes.Node;
+import com.nodestand.nodes.NodeInputException;
+import com.nodestand.nodes.assertion.AssertionBody;
+import com.nodestand.nodes.assertion.AssertionNode;
 import org.junit.Assert;
 import org.junit.Test;
 
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.Map;
-import java.util.Set;
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 public class BodyParserTest {
 
+    // The pattern the scanner replaced. Kept here to check that the two agree.
+    private static final Pattern LINK_PATTERN = Pattern.compile("\\{\\{\\[([0-9a-z]{1,25})\\](.+?)(?=}})\\}\\}");
+
     @Test
     public void testParser() {
 
@@ -24,4 +30,85 @@ public class BodyParserTest {
         Assert.assertEquals(expectedSet, actualSet);
     }
 
+    @Test
+    public void scannerAgreesWithRegex() {
+        String[] inputs = {
+                "",
+                "no links at all",
+                "{{[abc]label}}",
+                "{{[abc]}}}",
+                "{{[abc]}}",
+                "{{{[abc]x}}",
+                "{{[ABC]upper}} {{[ok]fine}}",
+                "{{[a]broken\nlabel}} {{[b]good}}",
+                "{{[abcdefghijklmnopqrstuvwxy]max}} {{[abcdefghijklmnopqrstuvwxyz]too long}}",
+                "{{[a]one}}{{[b]two}}",
+                "{{[a]label with } brace}} tail",
+                "{{[a]unterminated",
+                "{{[]empty id}} {{[a b]space}}",
+                "{{[x]{{[y]nested}}"
+        };
+
+        for (String input : inputs) {
+            Assert.assertEquals(input, regexLinks(input), scannerLinks(input));
+        }
+    }
+
+    @Test
+    public void linksCarryOffsets() {
+        String input = "See {{[ab12]the label}} here";
+
+        BodyTextIterator.BodyLink link = ParsedBodyText.parse(input).getLinks().get(0);
+
+        Assert.assertEquals(4, link.getStart());
+        Assert.assertEquals(input.indexOf(" here"), link.getEnd());
+        Assert.assertEquals("the label", input.substring(link.getLabelStart(), link.getLabelEnd()));
+    }
+
+    @Test
+    public void sortsChildrenInLinkOrder() throws Exception {
+        AssertionNode first = new AssertionBody("First", "", "", null).constructNode();
+        AssertionNode second = new AssertionBody("Second", "", "", null).constructNode();
+
+        String text = String.format("{{[%s]b}} then {{[%s]a}} and again {{[%s]b}}",
+                mvId(second), mvId(first), mvId(second));
+
+        String[] sorted = BodyParser.validateAndSortLinks(Arrays.<Node>asList(first, second), text, null);
+
+        Assert.assertArrayEquals(new String[] {second.getStableId(), first.getStableId()}, sorted);
+    }
+
+    @Test(expected = NodeInputException.class)
+    public void rejectsUnlinkedChild() throws Exception {
+        AssertionNode linked = new AssertionBody("Linked", "", "", null).constructNode();
+        AssertionNode unlinked = new AssertionBody("Unlinked", "", "", null).constructNode();
+
+        BodyParser.validateAndSortLinks(Arrays.<Node>asList(linked, unlinked), "{{[" + mvId(linked) + "]x}}", null);
+    }
+
+    @Test(expected = NodeInputException.class)
+    public void rejectsUnexpectedLink() throws Exception {
+        BodyParser.validateAndSortLinks(Collections.<Node>emptyList(), "{{[abc]x}}", null);
+    }
+
+    private static String mvId(AssertionNode node) {
+        return node.getBody().getMajorVersion().getStableId();
+    }
+
+    private static List<String> regexLinks(String input) {
+        List<String> links = new ArrayList<>();
+        Matcher m = LINK_PATTERN.matcher(input);
+        while (m.find()) {
+            links.add(m.start() + ":" + m.group(1) + ":" + m.group(2));
+        }
+        return links;
+    }
+
+    private static List<String> scannerLinks(String input) {
+        List<String> links = new ArrayList<>();
+        for (BodyTextIterator.BodyLink link : ParsedBodyText.parse(input).getLinks()) {
+            links.add(link.getStart() + ":" + link.getMajorVersionStableId() + ":" + link.getLabel());
+        }
+        return links;
+    }
 }